@@ -0,0 +1,261 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import graph.models.ClassModel;
+import graph.models.EdgeFlagsModel;
+import graph.models.GraphRequestModel;
+import graph.models.IndividualModel;
+import graph.models.PropertyModel;
+import graph.models.RelatedAndRestrictionModel;
+import graph.models.RestrictionModel;
+import graph.models.TypeAndValueModel;
+
+/**
+ * BenchmarkModels creates the synthetic ontology details (classes, properties, individuals, 
+ * restrictions and connectives) that are graphed by the benchmarks. The models are generated
+ * deterministically, so that each run of a benchmark processes the same input.
+ * 
+ * Every tenth class is a subclass of a blank node (alternating between a restriction and a 
+ * union of two classes), and the others are subclasses of the preceding class. Each property
+ * and individual references classes spread across the list.
+ *
+ */
+public final class BenchmarkModels {
+	
+	public static final String ONTOLOGY_PREFIX = "bench";
+	
+	// Not meant to be instantiated
+	private BenchmarkModels() {
+		throw new IllegalAccessError("BenchmarkModels is a utility class and should not be instantiated.");
+	}
+	
+	/**
+	 * Creates a request for a graph of the given type, with "custom" visualization details (the
+	 * values that GraphController sets as the conventions for a custom graph are also set here).
+	 * 
+	 * @param  graphType String ("class", "property" or "individual")
+	 * @return GraphRequestModel
+	 * 
+	 */
+	public static GraphRequestModel createRequest(final String graphType) {
+		
+		GraphRequestModel requestModel = new GraphRequestModel("Benchmark", "reasoningFalse", "bench.ttl", 
+				"", "custom", graphType, false);
+		requestModel.setCollapseEdges("collapseFalse");
+		
+		requestModel.setClassNodeShape("roundRectangle");
+		requestModel.setClassFillColor("#FFFF99");
+		requestModel.setClassTextColor("#000000");
+		requestModel.setClassBorderColor("#000000");
+		requestModel.setClassBorderType("solid");
+		requestModel.setDataNodeShape("none");
+		requestModel.setDataFillColor("#FFFFFF");
+		requestModel.setDataTextColor("#000000");
+		requestModel.setDataBorderColor("#FFFFFF");
+		requestModel.setDataBorderType("solid");
+		requestModel.setObjNodeShape("roundRectangle");
+		requestModel.setObjFillColor("#FFFF99");
+		requestModel.setObjTextColor("#000000");
+		requestModel.setObjBorderColor("#000000");
+		requestModel.setObjBorderType("solid");
+		requestModel.setIndividualNodeShape("ellipse");
+		requestModel.setIndividualFillColor("#FFFFFF");
+		requestModel.setIndividualTextColor("#000000");
+		requestModel.setIndividualBorderColor("#000000");
+		requestModel.setIndividualBorderType("solid");
+		
+		requestModel.setSubclassOfSourceShape("none");
+		requestModel.setSubclassOfTargetShape("angleBracket");
+		requestModel.setSubclassOfLineColor("#000000");
+		requestModel.setSubclassOfLineType("solid");
+		requestModel.setSubclassOfText("rdfs:subClassOf");
+		requestModel.setDataPropSourceShape("none");
+		requestModel.setDataPropTargetShape("angleBracket");
+		requestModel.setDataPropEdgeColor("#000000");
+		requestModel.setDataPropEdgeType("solid");
+		requestModel.setObjPropSourceShape("circleEmpty");
+		requestModel.setObjPropTargetShape("triangleEmpty");
+		requestModel.setObjPropEdgeColor("#000000");
+		requestModel.setObjPropEdgeType("solid");
+		requestModel.setAnnPropSourceShape("none");
+		requestModel.setAnnPropTargetShape("angleBracket");
+		requestModel.setAnnPropEdgeColor("#000000");
+		requestModel.setAnnPropEdgeType("solid");
+		requestModel.setRdfPropSourceShape("none");
+		requestModel.setRdfPropTargetShape("angleBracket");
+		requestModel.setRdfPropEdgeColor("#000000");
+		requestModel.setRdfPropEdgeType("solid");
+		requestModel.setTypeOfSourceShape("none");
+		requestModel.setTypeOfTargetShape("angleBracket");
+		requestModel.setTypeOfLineColor("#000000");
+		requestModel.setTypeOfLineType("solid");
+		requestModel.setTypeOfText("rdf:type");
+		
+		return requestModel;
+	}
+	
+	/**
+	 * Creates the classes.
+	 * 
+	 * @param  count int number of classes
+	 * @return List<ClassModel>
+	 * 
+	 */
+	public static List<ClassModel> createClasses(final int count) {
+		
+		List<ClassModel> classes = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			String superClass;
+			if (i % 10 == 0) {
+				superClass = getBlankNode(i);
+			} else {
+				superClass = getClassName(i - 1);
+			}
+			classes.add(ClassModel.builder()
+					.className(getClassName(i))
+					.classLabel("Class " + i + " (" + getClassName(i) + ")")
+					.fullClassName("http://example.com/bench#Class" + i)
+					.superClasses(Collections.singletonList(superClass))
+					.classType('c')
+					.build());
+		}
+		
+		return classes;
+	}
+	
+	/**
+	 * Creates the restrictions and unions that define the blank node superclasses of the classes.
+	 * 
+	 * @param  count int number of classes
+	 * @return RelatedAndRestrictionModel
+	 * 
+	 */
+	public static RelatedAndRestrictionModel createRelatedsAndRestrictions(final int count) {
+		
+		List<RestrictionModel> restrictions = new ArrayList<>();
+		Map<String, List<TypeAndValueModel>> connectives = new HashMap<>();
+		for (int i = 0; i < count; i += 10) {
+			if (i % 20 == 0) {
+				restrictions.add(RestrictionModel.builder()
+						.restrictionName(getBlankNode(i))
+						.classRestriction(true)
+						.restrictionDetails(Arrays.asList("owl:onProperty " + getPropertyName(i), 
+								"owl:someValuesFrom " + getClassName((i + 1) % count)))
+						.build());
+			} else {
+				connectives.put(getBlankNode(i), Arrays.asList(
+						TypeAndValueModel.createTypeAndValueModel("un", getClassName((i + 1) % count)),
+						TypeAndValueModel.createTypeAndValueModel("un", getClassName((i + 2) % count))));
+			}
+		}
+		
+		return RelatedAndRestrictionModel.builder()
+				.restrictions(restrictions)
+				.connectives(connectives)
+				.equivalentsDisjointsOneOfs(new HashMap<>())
+				.build();
+	}
+	
+	/**
+	 * Creates the properties (alternating between object and datatype properties).
+	 * 
+	 * @param  count int number of properties (and of classes)
+	 * @return List<PropertyModel>
+	 * 
+	 */
+	public static List<PropertyModel> createProperties(final int count) {
+		
+		List<PropertyModel> properties = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			boolean isObjectProperty = i % 2 == 0;
+			properties.add(PropertyModel.builder()
+					.propertyName(getPropertyName(i))
+					.propertyLabel("property " + i + " (" + getPropertyName(i) + ")")
+					.fullPropertyName("http://example.com/bench#property" + i)
+					.propertyType(isObjectProperty ? 'o' : 'd')
+					.edgeFlags(new EdgeFlagsModel(i % 3 == 0 ? EdgeFlagsModel.mask(EdgeFlagsModel.Flag.FUNCTIONAL) : 0))
+					.domains(Collections.singletonList(getClassName(i)))
+					.ranges(Collections.singletonList(isObjectProperty ? getClassName((i + 7) % count) 
+							: "xsd:string"))
+					.build());
+		}
+		
+		return properties;
+	}
+	
+	/**
+	 * Creates the individuals, each with a type, a datatype property and an object property.
+	 * 
+	 * @param  count int number of individuals (and of classes)
+	 * @return List<IndividualModel>
+	 * 
+	 */
+	public static List<IndividualModel> createIndividuals(final int count) {
+		
+		List<IndividualModel> individuals = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			String name = "bench:indiv" + i;
+			individuals.add(IndividualModel.builder()
+					.individualName(name)
+					.individualLabel("indiv " + i + " (" + name + ")")
+					.fullIndividualName("http://example.com/bench#indiv" + i)
+					.typeLabels(Collections.singletonList("Class " + i + " (" + getClassName(i) + ")"))
+					.datatypeProperties(Collections.singletonList(TypeAndValueModel.createTypeAndValueModel(
+							getPropertyName(i), "\"" + (i % 100) + "\"^^xsd:int")))
+					.objectProperties(Collections.singletonList(TypeAndValueModel.createTypeAndValueModel(
+							getPropertyName(i), "bench:indiv" + ((i + 1) % count))))
+					.build());
+		}
+		
+		return individuals;
+	}
+	
+	/**
+	 * Returns the prefixed name of the i'th class.
+	 * 
+	 * @param  i int
+	 * @return String
+	 * 
+	 */
+	public static String getClassName(final int i) {
+		return "bench:Class" + i;
+	}
+	
+	/**
+	 * Returns the id of the blank node superclass of the i'th class.
+	 * 
+	 * @param  i int
+	 * @return String
+	 * 
+	 */
+	public static String getBlankNode(final int i) {
+		return "genid" + i;
+	}
+	
+	private static String getPropertyName(final int i) {
+		return "bench:property" + i;
+	}
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import graph.graphmloutputs.ClassesGraphCreation;
+import graph.graphmloutputs.FragmentRenderer;
+import graph.graphmloutputs.IndividualsGraphCreation;
+import graph.graphmloutputs.PropertiesGraphCreation;
+import graph.models.ClassModel;
+import graph.models.GraphElementModel;
+import graph.models.GraphModel;
+import graph.models.IndividualModel;
+import graph.models.PropertyModel;
+import graph.models.RelatedAndRestrictionModel;
+
+/**
+ * GraphCreationBenchmark measures the creation of complete class, property and individual graphs 
+ * (with the same numbers of classes, properties and individuals), and the removal of duplicate
+ * nodes and edges as they are added to a GraphModel.
+ * 
+ * The class and individual graphs are rendered sequentially (renderThreads = 1) and in parallel 
+ * (renderThreads = 0, one thread per available processor). The renderer is a separate State, so that
+ * the property graph and duplicate removal (which do not use it) are only run once for each size.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GraphCreationBenchmark {
+	
+	@Param({"1000", "10000", "100000"})
+	private int size;
+	
+	private List<ClassModel> classes;
+	private List<PropertyModel> properties;
+	private List<IndividualModel> individuals;
+	private RelatedAndRestrictionModel relatedsAndRestrictions;
+	private List<GraphElementModel> elements;
+	
+	/**
+	 * Rendering holds the FragmentRenderer of the class and individual graph benchmarks.
+	 *
+	 */
+	@State(Scope.Benchmark)
+	public static class Rendering {
+		
+		@Param({"1", "0"})
+		private int renderThreads;
+		
+		private FragmentRenderer renderer;
+		
+		@Setup
+		public void setUp() {
+			renderer = new FragmentRenderer(renderThreads, 256);
+		}
+		
+		@TearDown
+		public void tearDown() {
+			renderer.shutdown();
+		}
+	}
+	
+	@Setup
+	public void setUp() throws OntoGraphException {
+		
+		classes = BenchmarkModels.createClasses(size);
+		properties = BenchmarkModels.createProperties(size);
+		individuals = BenchmarkModels.createIndividuals(size);
+		relatedsAndRestrictions = BenchmarkModels.createRelatedsAndRestrictions(size);
+		
+		// The nodes and edges of the class graph (rendered sequentially), each added twice
+		elements = new ArrayList<>(createClassGraph(new FragmentRenderer(1, 256)).getElements());
+		elements.addAll(new ArrayList<>(elements));
+	}
+	
+	@Benchmark
+	public GraphModel createClassGraph(Rendering rendering) throws OntoGraphException {
+		return createClassGraph(rendering.renderer);
+	}
+	
+	private GraphModel createClassGraph(FragmentRenderer renderer) throws OntoGraphException {
+		
+		GraphModel graph = new GraphModel();
+		ClassesGraphCreation.processClassHierarchy(graph, BenchmarkModels.createRequest("class"), 
+				BenchmarkModels.ONTOLOGY_PREFIX, new ArrayList<>(classes), relatedsAndRestrictions, renderer);
+		
+		return graph;
+	}
+	
+	@Benchmark
+	public GraphModel createPropertyGraph() throws OntoGraphException {
+		
+		GraphModel graph = new GraphModel();
+		PropertiesGraphCreation.processPropertyGraph(graph, BenchmarkModels.createRequest("property"), 
+				BenchmarkModels.ONTOLOGY_PREFIX, new ArrayList<>(classes), properties, relatedsAndRestrictions);
+		
+		return graph;
+	}
+	
+	@Benchmark
+	public GraphModel createIndividualGraph(Rendering rendering) throws OntoGraphException {
+		
+		GraphModel graph = new GraphModel();
+		IndividualsGraphCreation.processIndividualGraph(graph, BenchmarkModels.createRequest("individual"), 
+				BenchmarkModels.ONTOLOGY_PREFIX, new ArrayList<>(classes), individuals, 
+				relatedsAndRestrictions, rendering.renderer);
+		
+		return graph;
+	}
+	
+	@Benchmark
+	public GraphModel removeDuplicates() {
+		
+		GraphModel graph = new GraphModel();
+		for (GraphElementModel element : elements) {
+			graph.add(element);
+		}
+		
+		return graph;
+	}
+}
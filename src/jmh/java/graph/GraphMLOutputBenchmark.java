@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import graph.graphmloutputs.GraphMLOutputDetails;
+import graph.models.ClassModel;
+import graph.models.EdgeDetailsModel;
+import graph.models.EdgeFlagsModel;
+import graph.models.GraphModel;
+import graph.models.GraphRequestModel;
+import graph.models.NodeDetailsModel;
+
+/**
+ * GraphMLOutputBenchmark measures the creation of the GraphML for individual nodes and edges
+ * (GraphMLOutputDetails.addNode and addEdge), and the output of a complete graph.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GraphMLOutputBenchmark {
+	
+	@Param({"1000", "10000", "100000"})
+	private int size;
+	
+	private List<ClassModel> classes;
+	private NodeDetailsModel nodeDetails;
+	private EdgeDetailsModel edgeDetails;
+	private GraphModel graph;
+	
+	@Setup
+	public void setUp() {
+		
+		GraphRequestModel requestModel = BenchmarkModels.createRequest("class");
+		classes = BenchmarkModels.createClasses(size);
+		nodeDetails = NodeDetailsModel.createNodeDetailsModel(requestModel, "class");
+		edgeDetails = EdgeDetailsModel.createEdgeDetailsModelForType(requestModel, "subclass");
+		
+		graph = new GraphModel();
+		for (ClassModel cl : classes) {
+			graph.add(GraphMLOutputDetails.addNode(nodeDetails, cl.getClassName(), cl.getClassLabel()));
+			graph.add(GraphMLOutputDetails.addEdge(edgeDetails, cl.getClassName(), 
+					cl.getSuperClasses().get(0), "subClassOf", EdgeFlagsModel.createEdgeFlagsFalse()));
+		}
+	}
+	
+	@Benchmark
+	public void addNode(Blackhole blackhole) {
+		
+		for (ClassModel cl : classes) {
+			blackhole.consume(GraphMLOutputDetails.addNode(nodeDetails, cl.getClassName(), cl.getClassLabel()));
+		}
+	}
+	
+	@Benchmark
+	public void addEdge(Blackhole blackhole) {
+		
+		EdgeFlagsModel edgeFlags = EdgeFlagsModel.createEdgeFlagsFalse();
+		for (ClassModel cl : classes) {
+			blackhole.consume(GraphMLOutputDetails.addEdge(edgeDetails, cl.getClassName(), 
+					cl.getSuperClasses().get(0), "subClassOf", edgeFlags));
+		}
+	}
+	
+	@Benchmark
+	public String writeGraph() throws IOException {
+		return GraphMLOutputDetails.writeGraph(graph, "custom");
+	}
+}
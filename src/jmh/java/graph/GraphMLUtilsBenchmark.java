@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import graph.graphmloutputs.GraphMLUtils;
+import graph.models.ClassModel;
+import graph.models.EntityAndRelatedNodesModel;
+import graph.models.GraphModel;
+import graph.models.GraphRequestModel;
+import graph.models.RelatedAndRestrictionModel;
+
+/**
+ * GraphMLUtilsBenchmark measures the processing of blank nodes - the restrictions and unions
+ * that are the superclasses of every tenth class (GraphMLUtils.blankNodeProcessing), and the 
+ * restrictions alone (GraphMLUtils.handleRestriction).
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GraphMLUtilsBenchmark {
+	
+	@Param({"1000", "10000", "100000"})
+	private int size;
+	
+	private GraphRequestModel requestModel;
+	private List<ClassModel> classes;
+	private RelatedAndRestrictionModel relatedsAndRestrictions;
+	
+	@Setup
+	public void setUp() {
+		
+		requestModel = BenchmarkModels.createRequest("class");
+		classes = BenchmarkModels.createClasses(size);
+		relatedsAndRestrictions = BenchmarkModels.createRelatedsAndRestrictions(size);
+	}
+	
+	@Benchmark
+	public GraphModel blankNodeProcessing() throws OntoGraphException {
+		
+		GraphModel graph = new GraphModel();
+		Set<String> referencedClasses = new HashSet<>();
+		for (int i = 0; i < size; i += 10) {
+			GraphMLUtils.blankNodeProcessing(graph, requestModel, classes, 
+					EntityAndRelatedNodesModel.createEntityAndRelatedNodesModel(
+							BenchmarkModels.getBlankNode(i), BenchmarkModels.getClassName(i)),
+					"super", relatedsAndRestrictions, referencedClasses);
+		}
+		
+		return graph;
+	}
+	
+	@Benchmark
+	public GraphModel handleRestriction() throws OntoGraphException {
+		
+		GraphModel graph = new GraphModel();
+		for (int i = 0; i < size; i += 20) {
+			GraphMLUtils.handleRestriction(graph, requestModel, classes, 
+					EntityAndRelatedNodesModel.createEntityAndRelatedNodesModel(
+							BenchmarkModels.getBlankNode(i), BenchmarkModels.getClassName(i)),
+					relatedsAndRestrictions);
+		}
+		
+		return graph;
+	}
+}
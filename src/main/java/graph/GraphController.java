@@ -17,39 +17,80 @@
 
 package graph;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
-
-import com.complexible.stardog.ext.spring.SnarlTemplate;
+import org.springframework.web.multipart.MultipartFile;
 
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import graph.models.CacheStatsModel;
+import graph.models.GraphBatchRequestModel;
+import graph.models.GraphJobModel;
+import graph.models.GraphJobModel.Status;
 import graph.models.GraphRequestModel;
 import graph.models.GraphResponseModel;
 import graph.models.IndividualModel;
 import graph.models.EntityAndRelatedNodesModel;
 import graph.models.ClassModel;
 import graph.models.EdgeFlagsModel;
+import graph.models.GraphModel;
+import graph.models.GraphOutputModel;
+import graph.models.OntologyDetailsModel;
+import graph.models.PrefixList;
 import graph.models.PrefixModel;
 import graph.models.PropertyModel;
 import graph.models.RelatedAndRestrictionModel;
+import graph.models.RestrictionModel;
 import graph.models.UMLClassModel;
 import graph.graphmloutputs.ClassesGraphCreation;
+import graph.graphmloutputs.FragmentRenderer;
 import graph.graphmloutputs.GraphMLOutputDetails;
 import graph.graphmloutputs.GraphMLUtils;
 import graph.graphmloutputs.IndividualsGraphCreation;
 import graph.graphmloutputs.PropertiesGraphCreation;
 import graph.graphmloutputs.TitleAndPrefixCreation;
 import graph.graphmloutputs.UMLGraphCreation;
+import graph.stores.QueryScheduler;
+import graph.stores.StoreTemplate;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -74,12 +115,23 @@ public class GraphController extends RestExceptionHandler {
 	//   rdfs:isDefinedBy for all entities, SWRL rules
     
     @Autowired private GraphDBAccess dbAccess;
+    @Autowired private QueryScheduler queryScheduler;
+    @Autowired private FragmentRenderer fragmentRenderer;
+    @Autowired private GraphJobManager jobManager;
+    @Autowired private ObjectMapper objectMapper;
+    
+    // Concurrent, identical graph requests share one computation of the graph
+    private final RequestCoalescer<String, GraphModel> coalescer = new RequestCoalescer<>();
+    
+    @Value("${graph.tempDir}")
+    private String tempDir;
     
     // Frequently used strings
     private static final String ANGLE_BRACKET = "angleBracket";
     private static final String BLACK = "#000000";
     private static final String CLASS = "class";
     private static final String EMPTY_STRING = "";
+    private static final String GRAPHML_MEDIA_TYPE = "application/graphml+xml";
     private static final String GRAFFOO = "graffoo";
     private static final String GRAFFOO_CLASS = "Graffoo Class";
     private static final String GRAFFOO_DATATYPE = "Graffoo Datatype";
@@ -151,28 +203,288 @@ public class GraphController extends RestExceptionHandler {
 	    		requestModel.getGraphType(), EMPTY_STRING);
 	    
 	    // Either the graph output is returned or an exception is thrown
-	    graphResponseModel.setGraphML(createGraph(requestModel));
+	    graphResponseModel.setGraphML(createGraph(requestModel, null));
 	    return graphResponseModel;
 	}
 	
+	/**
+	 * Gets user input (including the ontology details) and returns the GraphML output as the (raw) 
+	 * response body, for requests that accept application/graphml+xml. The graph title, visualization
+	 * and type are returned as response headers, and the GraphML is gzip-encoded if the request
+	 * accepts that encoding.
+	 * 
+	 * @param requestModel GraphRequestModel holding all details of the request from the browser
+	 * @param acceptEncoding String holding the Accept-Encoding header of the request (may be null)
+	 * @param response HttpServletResponse to which the GraphML is written
+     * @throws OntoGraphException
+	 * 
+	 */
+	@RequestMapping(value="/graph", method= RequestMethod.POST, produces=GRAPHML_MEDIA_TYPE)
+	public void graphRaw(@RequestBody GraphRequestModel requestModel, 
+			@RequestHeader(value="Accept-Encoding", required=false) String acceptEncoding,
+			HttpServletResponse response) throws OntoGraphException {
+	    
+		// Validate inputs in case the REST processing is used independently from the browser
+	    GraphRequestValidator.validateRequest(requestModel);
+
+	    // Either the graph output is streamed or an exception is thrown (before anything is written)
+	    writeGraph(requestModel, buildGraph(requestModel, null), response, acceptsGzip(acceptEncoding));
+	}
+	
+	/**
+	 * Gets user input (including the ontology details) and streams the GraphML output directly
+	 * to the HTTP response (optionally gzip-encoded). Unlike the /graph request, the GraphML 
+	 * document is not held in memory or wrapped in a JSON GraphResponseModel.
+	 * 
+	 * @param requestModel GraphRequestModel holding all details of the request
+	 * @param gzip boolean indicating that the response should be gzip-encoded
+	 * @param response HttpServletResponse to which the GraphML is written
+     * @throws OntoGraphException
+	 * 
+	 */
+	@RequestMapping(value="/graphml", method= RequestMethod.POST)
+	public void graphML(@RequestBody GraphRequestModel requestModel, 
+			@RequestParam(value="gzip", defaultValue="false") boolean gzip, HttpServletResponse response) 
+					throws OntoGraphException {
+	    
+		// Validate inputs in case the REST processing is used independently from the browser
+	    GraphRequestValidator.validateRequest(requestModel);
+
+	    // Either the graph output is streamed or an exception is thrown (before anything is written)
+	    writeGraph(requestModel, buildGraph(requestModel, null), response, gzip);
+	}
+	
+	/**
+	 * Returns the statistics of the ontology cache (hits, misses, evictions and current size)
+	 * 
+	 * @return CacheStatsModel
+	 * 
+	 */
+	@RequestMapping(value="/cache", method= RequestMethod.GET)
+	public CacheStatsModel cacheStats() {
+		return dbAccess.getCacheStats();
+	}
+	
+	/**
+	 * Gets user input (including the ontology details) and queues a job to create the graph 
+	 * asynchronously. The job's status is retrieved using GET /jobs/{jobId}, and (when completed)
+	 * the GraphML output using GET /jobs/{jobId}/result.
+	 * 
+	 * @param requestModel GraphRequestModel holding all details of the request
+	 * @return GraphJobModel with the job id and (queued) status
+     * @throws OntoGraphException if too many jobs are queued
+	 * 
+	 */
+	@RequestMapping(value="/jobs", method= RequestMethod.POST)
+	public GraphJobModel submitJob(@RequestBody GraphRequestModel requestModel) throws OntoGraphException {
+	    
+		// Validate inputs in case the REST processing is used independently from the browser
+	    GraphRequestValidator.validateRequest(requestModel);
+
+	    return jobManager.submit(requestModel, progress -> buildGraph(requestModel, null, progress));
+	}
+	
     /**
-     * Add any rdfs:Datatype restrictions into the GraphML output. 
+	 * Gets user input and the (uploaded) ontology file, and queues a job to create the graph 
+	 * asynchronously (see submitJob). The uploaded file is copied to the temporary directory 
+	 * (since the upload is removed when the request completes), and is deleted when the job finishes.
+	 * 
+	 * @param requestModel GraphRequestModel holding all details of the request (the fileData
+	 *             is ignored)
+	 * @param file MultipartFile with the ontology
+	 * @return GraphJobModel with the job id and (queued) status
+     * @throws OntoGraphException
+	 * 
+	 */
+	@RequestMapping(value="/jobs", method= RequestMethod.POST, consumes=MediaType.MULTIPART_FORM_DATA_VALUE)
+	public GraphJobModel submitUploadJob(@RequestPart("request") GraphRequestModel requestModel,
+			@RequestPart("file") MultipartFile file) throws OntoGraphException {
+	    
+		// Validate inputs in case the REST processing is used independently from the browser
+	    GraphRequestValidator.validateRequest(requestModel);
+
+	    Path ontologyFile;
+	    try (InputStream fileStream = file.getInputStream()) {
+	    	ontologyFile = Files.createTempFile(Paths.get(tempDir), "job_", ".upload");
+	    	Files.copy(fileStream, ontologyFile, StandardCopyOption.REPLACE_EXISTING);
+	    } catch (IOException e) {  //NOSONAR - Logged as part of OntoGraphException handling
+			throw new OntoGraphException("Error reading the uploaded ontology file. Exception details: " 
+					+ e.getMessage());
+	    }
+	    
+	    // The file is deleted when the job finishes or is cancelled (even while queued), or if the job
+	    //   cannot be queued
+	    return jobManager.submit(requestModel, progress -> {
+	    	try (InputStream fileStream = Files.newInputStream(ontologyFile)) {
+	    		return buildGraph(requestModel, fileStream, progress);
+	    	} catch (IOException e) {  //NOSONAR - Logged as part of OntoGraphException handling
+	    		throw new OntoGraphException("Error reading the uploaded ontology file. Exception details: " 
+	    				+ e.getMessage());
+	    	}
+	    }, () -> deleteFile(ontologyFile));
+	}
+	
+	/**
+	 * Returns the status of a graph job
+	 * 
+	 * @param jobId String returned when the job was submitted
+	 * @return GraphJobModel
+	 * 
+	 */
+	@RequestMapping(value="/jobs/{jobId}", method= RequestMethod.GET)
+	public GraphJobModel jobStatus(@PathVariable("jobId") String jobId) {
+		return jobManager.getStatus(jobId);
+	}
+	
+	/**
+	 * Streams the GraphML output of a completed graph job to the HTTP response (gzip-encoded if the 
+	 * request accepts that encoding). The graph title, visualization and type are returned as 
+	 * response headers, as for the /graph request (see graphRaw).
+	 * 
+	 * @param jobId String returned when the job was submitted
+	 * @param acceptEncoding String holding the Accept-Encoding header of the request (may be null)
+	 * @param response HttpServletResponse to which the GraphML is written
+     * @throws OntoGraphException
+	 * 
+	 */
+	@RequestMapping(value="/jobs/{jobId}/result", method= RequestMethod.GET)
+	public void jobResult(@PathVariable("jobId") String jobId, 
+			@RequestHeader(value="Accept-Encoding", required=false) String acceptEncoding,
+			HttpServletResponse response) throws OntoGraphException {
+		
+		GraphModel graph = jobManager.getResult(jobId);
+		writeGraph(jobManager.getRequest(jobId), graph, response, acceptsGzip(acceptEncoding));
+	}
+	
+	/**
+	 * Cancels a graph job (if it has not finished). A running job stops at its next processing
+	 * step, and its database is released.
+	 * 
+	 * @param jobId String returned when the job was submitted
+	 * @return GraphJobModel with the updated status
+	 * 
+	 */
+	@RequestMapping(value="/jobs/{jobId}", method= RequestMethod.DELETE)
+	public GraphJobModel cancelJob(@PathVariable("jobId") String jobId) {
+		return jobManager.cancel(jobId);
+	}
+	
+	/**
+	 * Gets a batch request - the ontology details and a list of visualizations and graph types - and
+	 * returns a zip file with the GraphML output of each graph. The ontology is loaded and queried
+	 * once, and the graphs are generated in parallel.
+	 * 
+	 * @param batchModel GraphBatchRequestModel holding the request (the ontology and any customization
+	 *             details) and the outputs (the visualization and graph type of each graph)
+	 * @param response HttpServletResponse to which the zip file is written
+     * @throws OntoGraphException
+	 * 
+	 */
+	@RequestMapping(value="/batch", method= RequestMethod.POST)
+	public void batch(@RequestBody GraphBatchRequestModel batchModel, HttpServletResponse response) 
+			throws OntoGraphException {
+		
+		Map<String, GraphRequestModel> requestModels = createBatchRequests(batchModel);
+		writeGraphs(requestModels, buildGraphs(new ArrayList<>(requestModels.values()), null), response);
+	}
+	
+    /**
+	 * Gets a batch request and the (uploaded) ontology file, and returns a zip file with the GraphML 
+	 * output of each graph (see batch).
+	 * 
+	 * @param batchModel GraphBatchRequestModel holding the request (whose fileData is ignored) and 
+	 *             the outputs
+	 * @param file MultipartFile with the ontology
+	 * @param response HttpServletResponse to which the zip file is written
+     * @throws OntoGraphException
+	 * 
+	 */
+	@RequestMapping(value="/batch", method= RequestMethod.POST, consumes=MediaType.MULTIPART_FORM_DATA_VALUE)
+	public void batchUpload(@RequestPart("request") GraphBatchRequestModel batchModel,
+			@RequestPart("file") MultipartFile file, HttpServletResponse response) throws OntoGraphException {
+		
+		Map<String, GraphRequestModel> requestModels = createBatchRequests(batchModel);
+	    List<GraphModel> graphs;
+	    try (InputStream fileStream = file.getInputStream()) {
+	    	graphs = buildGraphs(new ArrayList<>(requestModels.values()), fileStream);
+	    } catch (IOException e) {  //NOSONAR - Logged as part of OntoGraphException handling
+			throw new OntoGraphException("Error reading the uploaded ontology file. Exception details: " 
+					+ e.getMessage());
+	    }
+		writeGraphs(requestModels, graphs, response);
+	}
+	
+    /**
+	 * Gets user input and the (uploaded) ontology file, and uses it to create GraphML output. 
+	 * The file is streamed to the store, and is not held in memory (unlike the base64 fileData
+	 * of the JSON request).
+	 * 
+	 * @param requestModel GraphRequestModel holding all details of the request (the fileData
+	 *             is ignored)
+	 * @param file MultipartFile with the ontology
+	 * @return GraphResponseModel 
+     * @throws OntoGraphException
+	 * 
+	 */
+	@RequestMapping(value="/graph", method= RequestMethod.POST, consumes=MediaType.MULTIPART_FORM_DATA_VALUE)
+	public GraphResponseModel graphUpload(@RequestPart("request") GraphRequestModel requestModel,
+			@RequestPart("file") MultipartFile file) throws OntoGraphException {
+	    
+		// Validate inputs in case the REST processing is used independently from the browser
+	    GraphRequestValidator.validateRequest(requestModel);
+
+	    // Create the result/response
+	    GraphResponseModel graphResponseModel =  new GraphResponseModel(
+	    		requestModel.getGraphTitle(), requestModel.getVisualization(), 
+	    		requestModel.getGraphType(), EMPTY_STRING);
+	    
+	    // Either the graph output is returned or an exception is thrown
+	    graphResponseModel.setGraphML(createGraph(requestModel, file));
+	    return graphResponseModel;
+	}
+	
+    /**
+	 * Gets user input and the (uploaded) ontology file, and returns the GraphML output as the (raw) 
+	 * response body, for requests that accept application/graphml+xml (see graphRaw).
+	 * 
+	 * @param requestModel GraphRequestModel holding all details of the request (the fileData
+	 *             is ignored)
+	 * @param file MultipartFile with the ontology
+	 * @param acceptEncoding String holding the Accept-Encoding header of the request (may be null)
+	 * @param response HttpServletResponse to which the GraphML is written
+     * @throws OntoGraphException
+	 * 
+	 */
+	@RequestMapping(value="/graph", method= RequestMethod.POST, consumes=MediaType.MULTIPART_FORM_DATA_VALUE,
+			produces=GRAPHML_MEDIA_TYPE)
+	public void graphUploadRaw(@RequestPart("request") GraphRequestModel requestModel,
+			@RequestPart("file") MultipartFile file, 
+			@RequestHeader(value="Accept-Encoding", required=false) String acceptEncoding,
+			HttpServletResponse response) throws OntoGraphException {
+	    
+		// Validate inputs in case the REST processing is used independently from the browser
+	    GraphRequestValidator.validateRequest(requestModel);
+
+	    writeGraph(requestModel, buildGraph(requestModel, file), response, acceptsGzip(acceptEncoding));
+	}
+	
+    /**
+     * Add any rdfs:Datatype restrictions into the graph. 
      * 
+     * @param  graph GraphModel to which the nodes and edges for the "additional" rdfs:Datatypes are added
      * @param  requestModel GraphRequestModel
      * @param  classes List<ClassModel> with both class and datatype definitions
      * @param  relatedsAndRestrictions RelatedAndRestrictionModel containing lists of models 
      *             of "related" classes (equivalent, disjoints, and oneOfs), of connectives
      *             (unions, intersections and complementOfs) and restrictions (allValuesFrom,
      *             someValuesFrom, min/maxInclusive, ...)
-     * @return graphML String defining new nodes for the "additional" rdfs:Datatypes
      * @throws OntoGraphException 
      * 
      */
-    private String addDatatypeRestrictions(GraphRequestModel requestModel, List<ClassModel> classes,
-    		RelatedAndRestrictionModel relatedsAndRestrictions) 
+    private void addDatatypeRestrictions(GraphModel graph, GraphRequestModel requestModel, 
+    		List<ClassModel> classes, RelatedAndRestrictionModel relatedsAndRestrictions) 
     				throws OntoGraphException {
     	
-    	StringBuilder sb = new StringBuilder();
     	for (ClassModel cm : classes) {
     		if ('d' == cm.getClassType()) {
     			String className = cm.getClassName();
@@ -181,14 +493,52 @@ public class GraphController extends RestExceptionHandler {
     					 .relatedNode("")
     					 .build();
     			// Add restriction details and edge
-        		sb.append(GraphMLUtils.handleRestriction(requestModel, classes, entityAndRelated, 
-        				relatedsAndRestrictions));
+        		GraphMLUtils.handleRestriction(graph, requestModel, classes, entityAndRelated, 
+        				relatedsAndRestrictions);
     		}
     	}
-    	
-    	return sb.toString();
     }
 
+	/**
+	 * Creates (and validates) the GraphRequestModel for each output of a batch request. Each is 
+	 * created from the JSON of the batch's request, with the visualization and graph type of the output.
+	 * 
+	 * @param  batchModel GraphBatchRequestModel
+	 * @return Map<String, GraphRequestModel> where the key is the output's name (its visualization and 
+	 *              graph type, as requested), in the order of the outputs
+	 * 
+	 */
+	private Map<String, GraphRequestModel> createBatchRequests(GraphBatchRequestModel batchModel) {
+		
+		if (batchModel.getRequest() == null || batchModel.getOutputs() == null 
+				|| batchModel.getOutputs().isEmpty()) {
+			throw new IllegalArgumentException("A batch request must define the request and at least one output.");
+		}
+		
+		Map<String, GraphRequestModel> requestModels = new LinkedHashMap<>();
+		for (GraphOutputModel output : batchModel.getOutputs()) {
+			String outputName = output.getVisualization() + "_" + output.getGraphType();
+			if (requestModels.containsKey(outputName)) {
+				throw new IllegalArgumentException("The batch output, " + output.getVisualization() + " " 
+						+ output.getGraphType() + ", is defined more than once.");
+			}
+			ObjectNode json = batchModel.getRequest().deepCopy();
+			json.put("visualization", output.getVisualization());
+			json.put("graphType", output.getGraphType());
+			GraphRequestModel requestModel;
+			try {
+				requestModel = objectMapper.treeToValue(json, GraphRequestModel.class);
+			} catch (JsonProcessingException e) {  //NOSONAR - Reported as a bad request
+				throw new IllegalArgumentException("Invalid batch request. Exception details: " + e.getMessage());
+			}
+			// Validate inputs in case the REST processing is used independently from the browser
+			GraphRequestValidator.validateRequest(requestModel);
+			requestModels.put(outputName, requestModel);
+		}
+		
+		return requestModels;
+	}
+	
 	/**
 	 * Defines the graphing conventions for a class/subclass hierarchy diagram
 	 * 
@@ -249,8 +599,9 @@ public class GraphController extends RestExceptionHandler {
 	}
 	
 	/**
-	 * Processing to get the class details from an ontology and generate the GraphML output.
+	 * Processing to get the class details from an ontology and add them to the graph.
 	 * 
+	 * @param  graph GraphModel to which the nodes and edges are added
 	 * @param  requestModel GraphRequestModel
 	 * @param  ontologyPrefix String defining the ontology namespace
 	 * @param  classes List<ClassModel> defining all classes from the ontology
@@ -258,104 +609,229 @@ public class GraphController extends RestExceptionHandler {
      *             of "related" classes (equivalent, disjoints, and oneOfs), of connectives
      *             (unions, intersections and complementOfs) and restrictions (allValuesFrom,
      *             someValuesFrom, min/maxInclusive, ...)
-	 * @return String with the GraphML output
 	 * @throws OntoGraphException
 	 * 
 	 */
-	private String createClassGraph(GraphRequestModel requestModel, final String ontologyPrefix,
-	        List<ClassModel> classes, RelatedAndRestrictionModel relatedsAndRestrictions)
+	private void createClassGraph(GraphModel graph, GraphRequestModel requestModel, 
+			final String ontologyPrefix, List<ClassModel> classes, RelatedAndRestrictionModel relatedsAndRestrictions)
 			        throws OntoGraphException {
         
         // Set the visualization conventions as needed
         createClassConventions(requestModel);
         
         // Generate the graph
-        return ClassesGraphCreation.processClassHierarchy(requestModel, ontologyPrefix, classes, 
-                relatedsAndRestrictions);
+        ClassesGraphCreation.processClassHierarchy(graph, requestModel, ontologyPrefix, classes, 
+                relatedsAndRestrictions, fragmentRenderer);
 	}
 
 	/**
-	 * Performs all the processing to load the ontology into Stardog and then query it for the
-	 * appropriate details to produce the graph requested in GraphRequestModel
+	 * Creates the graph requested in GraphRequestModel and returns its GraphML output
 	 * 
 	 * @param  requestModel GraphRequestModel details
+	 * @param  file MultipartFile with the ontology (if null, the fileData of the requestModel is used)
 	 * @return GraphML String
 	 * @throws OntoGraphException
 	 * 
 	 */
-	private String createGraph(GraphRequestModel requestModel) throws OntoGraphException {  
+	private String createGraph(GraphRequestModel requestModel, MultipartFile file) 
+			throws OntoGraphException {  
 	    
-	    // Get user input from the GraphRequestModel object
-	    String graphTitle = requestModel.getGraphTitle();
-	    String cleanGraphTitle = graphTitle.replaceAll("\\s+", EMPTY_STRING);
-	    String visualization = requestModel.getVisualization();
-	
-	    // Create a StringBuilder to hold the GraphML output
-	    StringBuilder sb = new StringBuilder();
+	    GraphModel graph = buildGraph(requestModel, file);
 	    
-	    // Create the SnarlTemplate to access the DB, and the array to hold the namespace prefix info
-	    SnarlTemplate snarlTemplate = new SnarlTemplate();
-	    // Also create a SnarlTemplate with reasoning support
-	    SnarlTemplate reasoningTemplate = new SnarlTemplate();
+	    // Write the GraphML XML (the VOWL connective images are appended before closing the graph)
+	    try {
+	    	return GraphMLOutputDetails.writeGraph(graph, requestModel.getVisualization());
+		} catch (IOException e) {	//NOSONAR - Logged as part of OntoGraphException handling
+			throw new OntoGraphException("Error reading buffered image files to close a VOWL graph. "
+			        + "IO Exception details: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Performs all the processing to load the ontology into the GraphStore and then query it for the
+	 * appropriate details to produce the graph requested in GraphRequestModel. Concurrent, identical
+	 * requests (the same ontology contents and request details) share a single computation of the 
+	 * graph, and all receive the same (unmodified) GraphModel.
+	 * 
+	 * @param  requestModel GraphRequestModel details
+	 * @param  file MultipartFile with the ontology (if null, the fileData of the requestModel is used)
+	 * @return GraphModel holding the nodes and edges of the graph
+	 * @throws OntoGraphException
+	 * 
+	 */
+	private GraphModel buildGraph(GraphRequestModel requestModel, MultipartFile file) 
+			throws OntoGraphException {  
+		
+		RequestCoalescer.Computation<GraphModel> computation = () -> {
+			if (file == null) {
+				return buildGraph(requestModel, null, status -> { });
+			}
+		    try (InputStream fileStream = file.getInputStream()) {
+		    	return buildGraph(requestModel, fileStream, status -> { });
+		    } catch (IOException e) {  //NOSONAR - Logged as part of OntoGraphException handling
+				throw new OntoGraphException("Error reading the uploaded ontology file. Exception details: " 
+						+ e.getMessage());
+		    }
+		};
+		
+		String requestKey = getRequestKey(requestModel, file);
+		if (requestKey == null) {
+			return computation.compute();
+		}
+		return coalescer.execute(requestKey, computation);
+	}
+	
+	/**
+	 * Performs all the processing to load the ontology into the GraphStore and then query it for the
+	 * appropriate details to produce the graph requested in GraphRequestModel, reporting the progress
+	 * of an asynchronous job
+	 * 
+	 * @param  requestModel GraphRequestModel details
+	 * @param  fileStream InputStream of the ontology file (if null, the fileData of the 
+	 *              requestModel is used)
+	 * @param  progress Consumer<Status> called as each processing step starts (throws a
+	 *              CancellationException if the job was cancelled)
+	 * @return GraphModel holding the nodes and edges of the graph
+	 * @throws OntoGraphException
+	 * 
+	 */
+	private GraphModel buildGraph(GraphRequestModel requestModel, InputStream fileStream,
+			Consumer<Status> progress) throws OntoGraphException {  
 	    
-	    // Instantiate empty models for the onology prefixes and all related details (equivalents, disjoints, 
-	    //    oneOfs, connectives and restrictions)
-	    List<PrefixModel> prefixes = new ArrayList<>();
-        RelatedAndRestrictionModel relatedsAndRestrictions = RelatedAndRestrictionModel.builder()
-                .restrictions(new ArrayList<>())
-                .connectives(new HashMap<>())
-                .equivalentsDisjointsOneOfs(new HashMap<>())
-                .build();
+	    String cleanGraphTitle = requestModel.getGraphTitle().replaceAll("\\s+", EMPTY_STRING);
 	    
+	    StoreTemplate storeTemplate = null;
 	    try {
-	        // Get the details for the arrays and maps, and begin generating the GraphML output
-	        sb.append(getGraphDetails(requestModel, snarlTemplate, reasoningTemplate, prefixes, 
-	        		relatedsAndRestrictions));
-
-	        // Get the classes, which are needed in almost all graphs
-	        List<ClassModel> classes = dbAccess.getClasses(requestModel.getReasoning(), snarlTemplate, 
-	        		reasoningTemplate, prefixes);
-	        // Get any classes that are defined as equivalents or superclasses that are NOT 
-	        //   defined as owl:Class in the ontology
-		    classes.addAll(dbAccess.getExternallyDefinedClasses(snarlTemplate, prefixes));
-		    // Add any blank node oneOfs that are not defined as an equivalentClass
-		    classes.addAll(dbAccess.getStandaloneBlankNodes(snarlTemplate));
-		    
-	        // Determine the ontology's prefix (needed for VOWL to distinguish "external" classes)
-        	List<String> ontPrefixAndCurrGraphML = new ArrayList<>(
-        			Arrays.asList(EMPTY_STRING, EMPTY_STRING));
-	        if (VOWL.equals(visualization)) {
-	        	// Need to know the ontology's URI (only need it for VOWL to distinguish "external" classes)
-	        	// TODO Get the "base" URI in case of RDF
-	        	ontPrefixAndCurrGraphML.set(0, getOntologyPrefix(snarlTemplate, prefixes));
-	        }
+	        // Load the ontology into its own db, and get the StoreTemplates to access the db
+	        // (also with reasoning support)
+	        progress.accept(Status.LOADING);
+	        storeTemplate = loadOntology(requestModel, fileStream, cleanGraphTitle);
+	        StoreTemplate reasoningTemplate = storeTemplate.withReasoning();
+	        progress.accept(Status.QUERYING);
+	        
+	        // Get the details (prefixes, classes, related classes and restrictions) needed by all graphs
+	        OntologyDetailsModel ontologyDetails = getOntologyDetails(requestModel, storeTemplate, 
+	        		reasoningTemplate);
        
 	        // Generate the graph based on user's selection
-	        sb.append(generateGraph(requestModel, ontPrefixAndCurrGraphML, snarlTemplate, reasoningTemplate, 
-	        		prefixes, classes, relatedsAndRestrictions));
-	        
-	        // Only drop the db based on a successful completion (the failure might be due to the 
-	        //   db name being in use)
-	        dbAccess.dropDatabase(cleanGraphTitle);
+	        progress.accept(Status.GENERATING);
+	        return renderGraph(requestModel, storeTemplate, reasoningTemplate, ontologyDetails);
 	        
 	    } catch (Exception e) {   //NOSONAR - Logged as part of OntoGraphException handling
 			throw new OntoGraphException("Error creating the graph. Exception details: " + e.getMessage());
-		} 
+		} finally {
+	        // Only release the db if it was loaded (a load failure might be due to the 
+	        //   db name being in use) - this includes a cancelled job
+			if (storeTemplate != null) {
+				dbAccess.releaseDatabase(storeTemplate, cleanGraphTitle);
+			}
+		}
+	}
+	
+	/**
+	 * Loads the ontology into the GraphStore once, queries it once for the details that are needed for 
+	 * all graphs, and then generates (in parallel) the graphs for each of the requests. The requests 
+	 * differ only in their visualization, graph type and customization details (the graph title, 
+	 * ontology and reasoning setting are taken from the first request).
+	 * 
+	 * @param  requestModels List<GraphRequestModel> with the details of each graph
+	 * @param  fileStream InputStream of the ontology file (if null, the fileData of the first 
+	 *              request is used)
+	 * @return List<GraphModel> holding the graphs, in the order of the requests
+	 * @throws OntoGraphException
+	 * 
+	 */
+	private List<GraphModel> buildGraphs(List<GraphRequestModel> requestModels, InputStream fileStream) 
+			throws OntoGraphException {  
 	    
-	    // Close the GraphML XML and return the output
-	    if (VOWL.equals(visualization)) {
-	    	try {
-	    		// Need to append the VOWL connective images before closing the graph
-	    		sb.append(GraphMLOutputDetails.closeVOWLGraph());
-			} catch (IOException e) {	//NOSONAR - Logged as part of OntoGraphException handling
-				throw new OntoGraphException("Error reading buffered image files to close a VOWL graph. "
-				        + "IO Exception details: " + e.getMessage());
+		GraphRequestModel firstRequest = requestModels.get(0);
+	    String cleanGraphTitle = firstRequest.getGraphTitle().replaceAll("\\s+", EMPTY_STRING);
+	    
+	    StoreTemplate storeTemplate = null;
+	    try {
+	        storeTemplate = loadOntology(firstRequest, fileStream, cleanGraphTitle);
+	        StoreTemplate reasoningTemplate = storeTemplate.withReasoning();
+	        OntologyDetailsModel ontologyDetails = getOntologyDetails(firstRequest, storeTemplate, 
+	        		reasoningTemplate);
+	        
+	        // Each graph is independent (the shared details are not modified), and any graph-specific 
+	        //   queries run within the rendering
+	        QueryScheduler.Batch renders = queryScheduler.batch();
+	        List<Supplier<GraphModel>> results = new ArrayList<>();
+	        for (GraphRequestModel requestModel : requestModels) {
+	        	final StoreTemplate template = storeTemplate;
+	        	results.add(renders.add(() -> renderGraph(requestModel, template, reasoningTemplate, 
+	        			ontologyDetails)));
+	        }
+	        renders.run();
+	        
+	        List<GraphModel> graphs = new ArrayList<>();
+	        for (Supplier<GraphModel> result : results) {
+	        	graphs.add(result.get());
+	        }
+	        return graphs;
+	        
+	    } catch (Exception e) {   //NOSONAR - Logged as part of OntoGraphException handling
+			throw new OntoGraphException("Error creating the graphs. Exception details: " + e.getMessage());
+		} finally {
+	        // Only release the db if it was loaded (a load failure might be due to the 
+	        //   db name being in use)
+			if (storeTemplate != null) {
+				dbAccess.releaseDatabase(storeTemplate, cleanGraphTitle);
 			}
-	    } else {
-	    	sb.append(GraphMLOutputDetails.closeGraph());
+		}
+	}
+	
+	/**
+	 * Generates a graph (including its title and prefix boxes) from the details of the loaded ontology.
+	 * 
+	 * @param  requestModel GraphRequestModel details
+	 * @param  storeTemplate StoreTemplate for the loaded db
+	 * @param  reasoningTemplate StoreTemplate with reasoning enabled
+	 * @param  ontologyDetails OntologyDetailsModel with the prefixes, classes, related classes and 
+	 *              restrictions of the ontology (which are not modified)
+	 * @return GraphModel holding the nodes and edges of the graph
+	 * @throws OntoGraphException
+	 * 
+	 */
+	private GraphModel renderGraph(GraphRequestModel requestModel, StoreTemplate storeTemplate, 
+			StoreTemplate reasoningTemplate, OntologyDetailsModel ontologyDetails) throws OntoGraphException {
+		
+	    String visualization = requestModel.getVisualization();
+	    List<PrefixModel> prefixes = ontologyDetails.getPrefixes();
+	    
+	    // Create a GraphModel to hold the nodes and edges of the graph, and add the title and prefix boxes
+	    GraphModel graph = new GraphModel();
+	    String ontologyURI = ontologyDetails.getOntologyURI();
+	    if (ontologyURI == null) {
+	    	ontologyURI = "None defined";
 	    }
+        if (VOWL.equals(visualization)) {
+        	TitleAndPrefixCreation.addTitleAndPrefixes(graph, requestModel.getGraphTitle(), ontologyURI, null);
+        } else {
+        	TitleAndPrefixCreation.addTitleAndPrefixes(graph, requestModel.getGraphTitle(), ontologyURI, prefixes);
+        }
 	    
-	    return sb.toString();
+        // Determine the ontology's prefix (needed for VOWL to distinguish "external" classes)
+    	String ontPrefix = EMPTY_STRING;
+        if (VOWL.equals(visualization)) {
+        	// TODO Get the "base" URI in case of RDF
+        	ontPrefix = getOntologyPrefix(ontologyDetails.getOntologyURI(), prefixes);
+        }
+        
+        // Generate the graph based on user's selection (a UML class graph adds owl:Thing and 
+        //   rdfs:Resource to its classes, so a copy of the list is used, and the lookup indexes
+        //   of the RelatedAndRestrictionModel are specific to the graph, so a copy is also used)
+        RelatedAndRestrictionModel sharedRelateds = ontologyDetails.getRelatedsAndRestrictions();
+        RelatedAndRestrictionModel relatedsAndRestrictions = RelatedAndRestrictionModel.builder()
+                .restrictions(sharedRelateds.getRestrictions())
+                .connectives(sharedRelateds.getConnectives())
+                .equivalentsDisjointsOneOfs(sharedRelateds.getEquivalentsDisjointsOneOfs())
+                .build();
+        generateGraph(graph, requestModel, ontPrefix, storeTemplate, reasoningTemplate, prefixes, 
+        		new ArrayList<>(ontologyDetails.getClasses()), relatedsAndRestrictions);
+        
+        return graph;
 	}
 	
 	/**
@@ -413,12 +889,13 @@ public class GraphController extends RestExceptionHandler {
 	}
 
 	/**
-	 * Process to get individuals and their attributes to generate the GraphML output.
+	 * Process to get individuals and their attributes and add them to the graph.
 	 * 
+	 * @param  graph GraphModel to which the nodes and edges are added
 	 * @param  requestModel GraphRequestModel details
 	 * @param  ontologyPrefix String defining the ontology namespace
-	 * @param  snarlTemplate SnarlTemplate 
-	 * @param  reasoningTemplate SnarlTemplate with reasoning enabled
+	 * @param  storeTemplate StoreTemplate 
+	 * @param  reasoningTemplate StoreTemplate with reasoning enabled
 	 * @param  prefixes List<PrefixModel> defining all known prefixes
 	 * @param  classes List<ClassModel> defining all classes which may be referenced as an
 	 *              individual type, or in the equivalentsDisjointsOneOfs or connectives maps
@@ -426,24 +903,24 @@ public class GraphController extends RestExceptionHandler {
      *             of "related" classes (equivalent, disjoints, and oneOfs), of connectives
      *             (unions, intersections and complementOfs) and restrictions (allValuesFrom,
      *             someValuesFrom, min/maxInclusive, ...)
-	 * @return String with GraphML output
 	 * @throws OntoGraphException
 	 * 
 	 */
-	private String createIndividualsGraph(GraphRequestModel requestModel, final String ontologyPrefix, 
-			SnarlTemplate snarlTemplate, SnarlTemplate reasoningTemplate, List<PrefixModel> prefixes, 
-			List<ClassModel> classes, RelatedAndRestrictionModel relatedsAndRestrictions) throws OntoGraphException {
+	private void createIndividualsGraph(GraphModel graph, GraphRequestModel requestModel, 
+			final String ontologyPrefix, StoreTemplate storeTemplate, StoreTemplate reasoningTemplate, 
+			List<PrefixModel> prefixes, List<ClassModel> classes, 
+			RelatedAndRestrictionModel relatedsAndRestrictions) throws OntoGraphException {
 		
 	    // Get the individuals
 	    List<IndividualModel> individuals = dbAccess.getIndividuals(requestModel.getReasoning(),
-	    		snarlTemplate, reasoningTemplate, prefixes);
+	    		storeTemplate, reasoningTemplate, prefixes);
 	    
 	    // Set the visualization conventions as needed
 	    createIndividualsConventions(requestModel);
 	    
 	    // Generate the graph
-	    return IndividualsGraphCreation.processIndividualGraph(requestModel, ontologyPrefix,
-	    		classes, individuals, relatedsAndRestrictions);
+	    IndividualsGraphCreation.processIndividualGraph(graph, requestModel, ontologyPrefix,
+	    		classes, individuals, relatedsAndRestrictions, fragmentRenderer);
 	}
 	
 	/**
@@ -523,12 +1000,11 @@ public class GraphController extends RestExceptionHandler {
 	 * Processing to get the details on datatype and object properties from an ontology,
 	 * and generate the GraphML output.
 	 * 
+	 * @param  graph GraphModel to which the nodes and edges are added (which will already hold
+	 *              the class graph if the requestModel's graphType is "both" class and property)
 	 * @param  requestModel GraphRequestModel
-     * @param  ontPrefixAndCurrGraphML List<String> holding the URI of the loaded ontology as the first value,
-     *              and the current GraphML output as the second. Note that the second value will be an
-     *              empty string (will not be used) unless the requestModel's graphType is "both" (class and
-     *              property).
-	 * @param  snarlTemplate SnarlTemplate 
+	 * @param  ontologyPrefix String holding the URI of the loaded ontology
+	 * @param  storeTemplate StoreTemplate 
 	 * @param  prefixes List<PrefixModel> defining all known prefixes
 	 * @param  classes List<ClassModel> defining all classes which may be referenced in property
 	 *              domains or ranges, or by the equivalentsDisjointsOneOfs or connectives maps
@@ -536,16 +1012,15 @@ public class GraphController extends RestExceptionHandler {
      *             of "related" classes (equivalent, disjoints, and oneOfs), of connectives
      *             (unions, intersections and complementOfs) and restrictions (allValuesFrom,
      *             someValuesFrom, min/maxInclusive, ...)
-	 * @return String with the GraphML output
 	 * @throws OntoGraphException
 	 * 
 	 */
-	private String createPropertiesGraph(GraphRequestModel requestModel, List<String> ontPrefixAndCurrGraphML,
-	        SnarlTemplate snarlTemplate, List<PrefixModel> prefixes, List<ClassModel> classes,
+	private void createPropertiesGraph(GraphModel graph, GraphRequestModel requestModel, 
+			final String ontologyPrefix, StoreTemplate storeTemplate, List<PrefixModel> prefixes, List<ClassModel> classes,
 	        RelatedAndRestrictionModel relatedsAndRestrictions) throws OntoGraphException {
         
         // Get the domains, ranges, and linking properties
-        List<PropertyModel> properties = dbAccess.getProperties(snarlTemplate, prefixes);
+        List<PropertyModel> properties = dbAccess.getProperties(storeTemplate, prefixes);
         // If "collapse edges", then process the list of properties (VOWL does not allow collapsed edges)
         if (requestModel.getCollapseEdges().contains("True") 
         		&& !"vowl".equals(requestModel.getVisualization())) {
@@ -555,7 +1030,7 @@ public class GraphController extends RestExceptionHandler {
         createPropertyConventions(requestModel);
         
         // Generate the graph
-        return PropertiesGraphCreation.processPropertyGraph(requestModel, ontPrefixAndCurrGraphML,
+        PropertiesGraphCreation.processPropertyGraph(graph, requestModel, ontologyPrefix,
         		classes, properties, relatedsAndRestrictions);
 	}
 
@@ -589,23 +1064,23 @@ public class GraphController extends RestExceptionHandler {
 
 	/**
 	 * Processing to get the details on all classes, datatype and object properties OR all individuals, 
-	 * and generate the GraphML output. 
+	 * and add them to the graph. 
 	 * 
+	 * @param  graph GraphModel to which the nodes and edges are added
 	 * @param  requestModel GraphRequestModel holding all details of the request
-	 * @param  snarlTemplate SnarlTemplate 
-	 * @param  reasoningTemplate SnarlTemplate with reasoning enabled
+	 * @param  storeTemplate StoreTemplate 
+	 * @param  reasoningTemplate StoreTemplate with reasoning enabled
 	 * @param  prefixes List<PrefixModel> defining all known prefixes
 	 * @param  origClasses List<ClassModel> holding original class details
      * @param  relatedsAndRestrictions RelatedAndRestrictionModel containing lists of models 
      *             of "related" classes (equivalent, disjoints, and oneOfs), of connectives
      *             (unions, intersections and complementOfs) and restrictions (allValuesFrom,
      *             someValuesFrom, min/maxInclusive, ...)
-	 * @return String with the GraphML output
 	 * @throws OntoGraphException
 	 * 
 	 */
-	private String createUMLGraph(GraphRequestModel requestModel, SnarlTemplate snarlTemplate, 
-			SnarlTemplate reasoningTemplate, List<PrefixModel> prefixes, List<ClassModel> origClasses,
+	private void createUMLGraph(GraphModel graph, GraphRequestModel requestModel, 
+			StoreTemplate storeTemplate, StoreTemplate reasoningTemplate, List<PrefixModel> prefixes, List<ClassModel> origClasses,
 	        RelatedAndRestrictionModel relatedsAndRestrictions) throws OntoGraphException {
 	    
 	    // Set the visualization conventions as needed
@@ -614,36 +1089,50 @@ public class GraphController extends RestExceptionHandler {
 	    if (INDIVIDUAL.equals(requestModel.getGraphType())) {
 	        // Get the instances
 	        List<IndividualModel> instances = dbAccess.getIndividuals(requestModel.getReasoning(), 
-	        		snarlTemplate, reasoningTemplate, prefixes);
+	        		storeTemplate, reasoningTemplate, prefixes);
 	        sortTypeNames(instances);
-	        return UMLGraphCreation.processUMLIndividualGraph(requestModel, origClasses, 
+	        UMLGraphCreation.processUMLIndividualGraph(graph, requestModel, origClasses, 
 	        		relatedsAndRestrictions, instances);
 	    } else {
 	        // It doesn't matter if the graph type is class, property or both - the result is the same 
     	    // Get the UML entities
-    	    List<UMLClassModel> classes = dbAccess.getClassesForUML(snarlTemplate, prefixes, origClasses);
-    	    List<PropertyModel> properties = dbAccess.getProperties(snarlTemplate, prefixes);
+    	    List<UMLClassModel> classes = dbAccess.getClassesForUML(storeTemplate, prefixes, origClasses);
+    	    List<PropertyModel> properties = dbAccess.getProperties(storeTemplate, prefixes);
     	    List<PropertyModel> collProperties = new ArrayList<>();
     	    // If "collapse edges", then process the list of properties
             if (requestModel.getCollapseEdges().contains("True")) {
                 collProperties = getPropertiesCollapsed(properties);
             }
     	    // Generate the GraphML
-    	    return UMLGraphCreation.processUMLClassGraph(requestModel, origClasses, classes, properties, 
-    	    		collProperties, relatedsAndRestrictions); 
+    	    UMLGraphCreation.processUMLClassGraph(graph, requestModel, origClasses, classes, properties, 
+    	    		collProperties, relatedsAndRestrictions, fragmentRenderer); 
 	    }
 	}
 	
 	/**
-	 * Generates the GraphML output given the details of the GraphRequestModel. 
+	 * Deletes a (temporary) file, ignoring any error since the file is not used again
+	 * 
+	 * @param  file Path of the file
 	 * 
+	 */
+	private static void deleteFile(Path file) {
+		
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {  //NOSONAR - The file is in the temporary directory and is not reused
+			// Ignore
+		}
+	}
+	
+	/**
+	 * Generates the graph's nodes and edges given the details of the GraphRequestModel. 
+	 * 
+	 * @param  graph GraphModel to which the nodes and edges are added
 	 * @param  requestModel GraphRequestModel
-	 * @param  ontPrefixAndCurrGraphML List<String> where the first value is the ontology prefix 
-	 *              (which is used by VOWL to determine "external" classes) and the second value
-	 *              is the current GraphML output (which is set in the "both" class and property
-	 *              processing)
-	 * @param  snarlTemplate SnarlTemplate
-	 * @param  reasoningTemplate SnarlTemplate with reasoning enabled
+	 * @param  ontPrefix String holding the ontology prefix (which is used by VOWL to determine 
+	 *              "external" classes)
+	 * @param  storeTemplate StoreTemplate
+	 * @param  reasoningTemplate StoreTemplate with reasoning enabled
 	 * @param  prefixes List<PrefixModel> defining all known prefixes
 	 * @param  classes List<ClassModel> defining all classes which may be referenced as an
 	 *              individual type, or in the equivalentsDisjointsOneOfs or connectives maps
@@ -651,153 +1140,207 @@ public class GraphController extends RestExceptionHandler {
      *             of "related" classes (equivalent, disjoints, and oneOfs), of connectives
      *             (unions, intersections and complementOfs) and restrictions (allValuesFrom,
      *             someValuesFrom, min/maxInclusive, ...)
-	 * @return GraphML String
 	 * @throws OntoGraphException
 	 * 
 	 */
-	private String generateGraph(GraphRequestModel requestModel, List<String> ontPrefixAndCurrGraphML, 
-			SnarlTemplate snarlTemplate, SnarlTemplate reasoningTemplate, List<PrefixModel> prefixes, 
+	private void generateGraph(GraphModel graph, GraphRequestModel requestModel, final String ontPrefix, 
+			StoreTemplate storeTemplate, StoreTemplate reasoningTemplate, List<PrefixModel> prefixes, 
 			List<ClassModel> classes, RelatedAndRestrictionModel relatedsAndRestrictions) 
 					throws OntoGraphException {
 
-		StringBuilder sb = new StringBuilder();
 		String graphType = requestModel.getGraphType();
 		String visualization = requestModel.getVisualization();
-		String ontPrefix = ontPrefixAndCurrGraphML.get(0);
 		
+        // Any duplicate node or edge ids (which may be introduced because of blank node processing)
+        //    are replaced as they are added to the graph - the last definition is retained
         if (UML.equals(visualization)) {
-            sb.append(createUMLGraph(requestModel, snarlTemplate, reasoningTemplate, prefixes, classes, 
-            		relatedsAndRestrictions));
+            createUMLGraph(graph, requestModel, storeTemplate, reasoningTemplate, prefixes, classes, 
+            		relatedsAndRestrictions);
             if (!INDIVIDUAL.equals(graphType)) {
 		        // Add restriction details for rdfs:Datatypes
-		        sb.append(addDatatypeRestrictions(requestModel, classes, relatedsAndRestrictions));
+		        addDatatypeRestrictions(graph, requestModel, classes, relatedsAndRestrictions);
             }
             
         // Graffoo, VOWL or Custom visualization
         } else if (CLASS.equals(graphType) || "both".equals(graphType)) {
-            sb.append(createClassGraph(requestModel, ontPrefix, classes,
-                    relatedsAndRestrictions));
+            createClassGraph(graph, requestModel, ontPrefix, classes, relatedsAndRestrictions);
 	        // Add restriction details for rdfs:Datatypes
-	        sb.append(addDatatypeRestrictions(requestModel, classes, relatedsAndRestrictions));
+	        addDatatypeRestrictions(graph, requestModel, classes, relatedsAndRestrictions);
 	        
 	        if ("both".equals(graphType)) {
 	        	// Both subclassOf conventions (handled above) and property edge conventions are needed
-	            // Track what is already captured in the GraphML output to avoid duplicate defns
-	            ontPrefixAndCurrGraphML.set(1, sb.toString());
-	            sb.append(createPropertiesGraph(requestModel, ontPrefixAndCurrGraphML, snarlTemplate, prefixes, classes,
-	                    relatedsAndRestrictions));
+	            // The class graph is checked to avoid duplicate defns
+	            createPropertiesGraph(graph, requestModel, ontPrefix, storeTemplate, prefixes, classes,
+	                    relatedsAndRestrictions);
 	        } 
 
         } else if (INDIVIDUAL.equals(graphType)) {
-            sb.append(createIndividualsGraph(requestModel, ontPrefix, snarlTemplate, 
-            		reasoningTemplate, prefixes, classes, relatedsAndRestrictions));
+            createIndividualsGraph(graph, requestModel, ontPrefix, storeTemplate, 
+            		reasoningTemplate, prefixes, classes, relatedsAndRestrictions);
             
         } else if (PROPERTY.equals(graphType)) {
-            sb.append(createPropertiesGraph(requestModel, ontPrefixAndCurrGraphML, snarlTemplate, prefixes, classes,
-                    relatedsAndRestrictions));
+            createPropertiesGraph(graph, requestModel, ontPrefix, storeTemplate, prefixes, classes,
+                    relatedsAndRestrictions);
             
         } else {
         	throw new IllegalArgumentException("Unknown graph type: " + graphType); 	
         }
 
-    	// Need to check if there are any un-necessary references to owl:Thing or rdfs:Resource 
-    	//    in the GraphML (for everything but UML)
-    	String currentGraphML = sb.toString();
-    	currentGraphML = GraphMLOutputDetails.checkForUnusedNode(currentGraphML, "owl:Thing");
-    	currentGraphML = GraphMLOutputDetails.checkForUnusedNode(currentGraphML, "rdfs:Class");
-    	currentGraphML = GraphMLOutputDetails.checkForUnusedNode(currentGraphML, "rdfs:Resource");
-    	
-    	// Remove any duplicate node or edge ids which may be introduced because of blank node processing
-    	return removeDuplicates(currentGraphML);
+    	// Need to check if there are any un-necessary references to owl:Thing, rdfs:Class or 
+    	//    rdfs:Resource in the graph
+    	graph.removeUnreferencedNodes("owl:Thing", "rdfs:Class", "rdfs:Resource");
 	}
 	
 	/**
-	 * Gets the details for several arrays and hash maps, as well as starting the GraphML output.
+	 * Gets the details of the ontology that are needed for all graphs - its URI, prefixes, classes, 
+	 * related classes (equivalents, disjoints, oneOfs and connectives) and restrictions.
 	 * 
-	 * @param  requestModel GraphRequestModel
-	 * @param  ontologyURI String
-	 * @param  snarlTemplate SnarlTemplate (initially empty)
-	 * @param  reasoningTemplate SnarlTemplate (initially empty)
-	 * @param  prefixes List<PrefixModel> defining all known prefixes
-     * @param  relatedsAndRestrictions RelatedAndRestrictionModel containing lists of models 
-     *             of "related" classes (equivalent, disjoints, and oneOfs), of connectives
-     *             (unions, intersections and complementOfs) and restrictions (allValuesFrom,
-     *             someValuesFrom, min/maxInclusive, ...)
-	 * @return String with the GraphML output
+	 * @param  requestModel GraphRequestModel (whose reasoning setting is used to query the classes)
+	 * @param  storeTemplate StoreTemplate for the loaded db
+	 * @param  reasoningTemplate StoreTemplate with reasoning enabled
+	 * @return OntologyDetailsModel
 	 * @throws OntoGraphException 
 	 * 
 	 */
-	private String getGraphDetails(GraphRequestModel requestModel,
-			SnarlTemplate snarlTemplate, SnarlTemplate reasoningTemplate, List<PrefixModel> prefixes,
-			RelatedAndRestrictionModel relatedsAndRestrictions) throws OntoGraphException {
+	private OntologyDetailsModel getOntologyDetails(GraphRequestModel requestModel, 
+			StoreTemplate storeTemplate, StoreTemplate reasoningTemplate) throws OntoGraphException {
 	    
-	    // Get user input from the GraphRequestModel object
-	    String graphTitle = requestModel.getGraphTitle();
-	    String cleanGraphTitle = graphTitle.replaceAll("\\s+", EMPTY_STRING);
-	    String inputFile = requestModel.getInputFile();
-	    String fileFormat = inputFile.substring(inputFile.lastIndexOf('.') + 1);
-	    String vis = requestModel.getVisualization();
+	    // Instantiate empty models for the onology prefixes and all related details (equivalents, disjoints, 
+	    //    oneOfs, connectives and restrictions)
+	    List<PrefixModel> prefixes = new PrefixList();
+        RelatedAndRestrictionModel relatedsAndRestrictions = RelatedAndRestrictionModel.builder()
+                .restrictions(new ArrayList<>())
+                .connectives(new HashMap<>())
+                .equivalentsDisjointsOneOfs(new HashMap<>())
+                .build();
+        String ontologyURI;
 	
-	    // Create a StringBuilder to hold the GraphML output
-	    StringBuilder sb = new StringBuilder();
-	    
-        // Load the ontology into its own db in order to take advantage of prefix processing in Stardog
-        // Track the database's "data source" for connection management
 		try {
-			dbAccess.loadFileToDB(snarlTemplate, reasoningTemplate, 
-					Base64.decodeBase64(requestModel.getFileData().split(",")[1]), cleanGraphTitle, 
-					fileFormat);
-	        // Do a query to check that some triples were loaded (that the ontology file is valid)
-	        dbAccess.checkDBLoad(snarlTemplate, cleanGraphTitle);
-        
-	        // Start the GraphML file
-	        sb.append(GraphMLOutputDetails.setUpGraph());
-
-		    // Get the ontology URI for the title box
-		    String ontologyURI = dbAccess.getOntologyURI(snarlTemplate);
-		    if (ontologyURI == null) {
-		    	ontologyURI = "None defined";
-		    }
-	        
-	        // Get prefixes defined in the ontology 
-	        prefixes.addAll(dbAccess.getPrefixes(snarlTemplate));
+	        // Get the ontology URI for the title box, and the prefixes defined in the ontology 
+	        //   (in parallel)
+	        QueryScheduler.Batch metadataQueries = queryScheduler.batch();
+	        Supplier<String> ontologyURIResult = metadataQueries.add(() -> dbAccess.getOntologyURI(storeTemplate));
+	        Supplier<List<PrefixModel>> prefixResult = metadataQueries.add(() -> dbAccess.getPrefixes(storeTemplate));
+	        metadataQueries.run();
 	        
-	        // Add the title, prefix box 
+		    ontologyURI = ontologyURIResult.get();
+	        prefixes.addAll(prefixResult.get());
 			Collections.sort(prefixes, PrefixModel.prefixSort);
-	        if (VOWL.equals(vis)) {
-	        	sb.append(TitleAndPrefixCreation.addTitleAndPrefixes(graphTitle, ontologyURI, null));
-	        } else {
-	        	sb.append(TitleAndPrefixCreation.addTitleAndPrefixes(graphTitle, ontologyURI, prefixes));
-	        }
 	        
 	        // Get details on any equivalent classes, disjoints, propositional connectives, ... 
 	        // This info is needed in case blank nodes are used as superclasses, rdf:types for individuals, 
 	        //   in domain or range definitions, ...
-	        dbAccess.getClassRelationships(snarlTemplate, prefixes, relatedsAndRestrictions);  
-	        // Also get details on restrictions
-	        relatedsAndRestrictions.setRestrictions(dbAccess.getRestrictions(snarlTemplate, prefixes));
+	        // Also get details on restrictions (in parallel, since both only depend on the prefixes)
+	        QueryScheduler.Batch relationshipQueries = queryScheduler.batch();
+	        relationshipQueries.add(() -> {
+	        	dbAccess.getClassRelationships(storeTemplate, prefixes, relatedsAndRestrictions);
+	        	return null;
+	        });
+	        Supplier<List<RestrictionModel>> restrictionResult = 
+	        		relationshipQueries.add(() -> dbAccess.getRestrictions(storeTemplate, prefixes));
+	        relationshipQueries.run();
+	        relatedsAndRestrictions.setRestrictions(restrictionResult.get());
 	        
 		} catch (Exception e) {  //NOSONAR - Logged as part of OntoGraphException handling
 			throw new OntoGraphException("Error loading and querying the database. Exception details: "
 			        + e.getMessage());
 		}
+
+        // Get the classes, which are needed in almost all graphs
+        List<ClassModel> classes = dbAccess.getClasses(requestModel.getReasoning(), storeTemplate, 
+        		reasoningTemplate, prefixes);
+        // Get any classes that are defined as equivalents or superclasses that are NOT 
+        //   defined as owl:Class in the ontology
+	    classes.addAll(dbAccess.getExternallyDefinedClasses(storeTemplate, prefixes));
+	    // Add any blank node oneOfs that are not defined as an equivalentClass
+	    classes.addAll(dbAccess.getStandaloneBlankNodes(storeTemplate));
+	    
+	    return OntologyDetailsModel.builder()
+	    		.ontologyURI(ontologyURI)
+	    		.prefixes(prefixes)
+	    		.classes(classes)
+	    		.relatedsAndRestrictions(relatedsAndRestrictions)
+	    		.build();
+	}
+
+	/**
+	 * Loads the ontology into its own db (in order to take advantage of prefix processing in the store)
+	 * and checks that some triples were loaded. (A previously loaded, identical ontology is reused.)
+	 * 
+	 * @param  requestModel GraphRequestModel
+	 * @param  fileStream InputStream of the ontology file (if null, the base64 fileData of the 
+	 *              requestModel is decoded)
+	 * @param  cleanGraphTitle String graph title with all whitespace removed (the db name)
+	 * @return StoreTemplate for the loaded db
+	 * @throws OntoGraphException 
+	 * 
+	 */
+	private StoreTemplate loadOntology(GraphRequestModel requestModel, InputStream fileStream, 
+			final String cleanGraphTitle) throws OntoGraphException {
 		
-	    return sb.toString();
+	    String inputFile = requestModel.getInputFile();
+	    String fileFormat = inputFile.substring(inputFile.lastIndexOf('.') + 1);
+	    
+		try {
+			InputStream fileData = fileStream;
+			if (fileData == null) {
+				fileData = new ByteArrayInputStream(Base64.decodeBase64(requestModel.getFileData().split(",")[1]));
+			}
+			// Also checks that some triples were loaded (that the ontology file is valid)
+	        return dbAccess.loadFileToDB(fileData, cleanGraphTitle, fileFormat);
+	        
+		} catch (Exception e) {  //NOSONAR - Logged as part of OntoGraphException handling
+			throw new OntoGraphException("Error loading and querying the database. Exception details: "
+			        + e.getMessage());
+		}
 	}
 
 	/**
-	 * Determines the URI of the ontology, which is needed to determine "external" classes for
+	 * Creates the key that identifies identical graph requests - the hash of the ontology file 
+	 * contents and the (validated) request details, excluding the file data.
+	 * 
+	 * @param  requestModel GraphRequestModel details
+	 * @param  file MultipartFile with the ontology (if null, the fileData of the requestModel is used)
+	 * @return String key (or null if the request has no ontology, and is not coalesced)
+	 * @throws OntoGraphException
+	 * 
+	 */
+	private String getRequestKey(GraphRequestModel requestModel, MultipartFile file) 
+			throws OntoGraphException {
+		
+		String contentHash;
+		if (file != null) {
+			try (InputStream fileStream = file.getInputStream()) {
+				contentHash = "file:" + DigestUtils.sha256Hex(fileStream);
+			} catch (IOException e) {  //NOSONAR - Logged as part of OntoGraphException handling
+				throw new OntoGraphException("Error reading the uploaded ontology file. Exception details: " 
+						+ e.getMessage());
+			}
+		} else if (requestModel.getFileData() != null) {
+			// Hash the base64 encoded data (after the data URL's media type)
+			String fileData = requestModel.getFileData();
+			contentHash = "data:" + DigestUtils.sha256Hex(fileData.substring(fileData.indexOf(',') + 1));
+		} else {
+			return null;
+		}
+		
+		ObjectNode requestDetails = objectMapper.valueToTree(requestModel);
+		requestDetails.remove("fileData");
+		return contentHash + requestDetails.toString();
+	}
+	
+	/**
+	 * Determines the prefix of the ontology's URI, which is needed to determine "external" classes for
 	 * VOWL visualization.
 	 * 
-	 * @param snarlTemplate SnarlTemplate 
+	 * @param ontologyURI String (null if the ontology does not define its URI)
 	 * @param prefixes List<PrefixModel> defining all known prefixes
 	 * @return String identifying the prefix associated with the ontology's URI
 	 * 
 	 */
-	private String getOntologyPrefix(SnarlTemplate snarlTemplate, List<PrefixModel> prefixes) {
+	private static String getOntologyPrefix(final String ontologyURI, List<PrefixModel> prefixes) {
 		
 		String ontologyPrefix = EMPTY_STRING;
-    	String ontologyURI = dbAccess.getOntologyURI(snarlTemplate);
     	// Determine what prefix is associated with the URI
     	if (ontologyURI != null) {
 	    	for (PrefixModel prefix : prefixes) {
@@ -864,99 +1407,99 @@ public class GraphController extends RestExceptionHandler {
 	}
 	
 	/**
-	 * Removes any duplicate node or edge declarations from the GraphML string.
+	 * Checks if an Accept-Encoding header allows a gzip-encoded response.
 	 * 
-	 * @param  graphML String
-	 * @return currGraphML String with the duplicates removed
+	 * @param  acceptEncoding String holding the Accept-Encoding header (may be null)
+	 * @return boolean indicating that gzip is accepted (and not excluded with q=0)
 	 * 
 	 */
-	private String removeDuplicates(final String graphML) {
+	private static boolean acceptsGzip(final String acceptEncoding) {
 		
-	    // Find duplicate node ids
-	    List<String> duplNodeIds = searchForDuplicates(graphML, "node");
-	    // Find duplicate edge ids
-	    List<String> duplEdgeIds = searchForDuplicates(graphML, "edge");
-	    
-	    // Remove the duplicates
-		String currGraphML = graphML;
-	    if (!duplNodeIds.isEmpty()) {
-	    	currGraphML = removeOccurrencesOfEntities(currGraphML, duplNodeIds, "node");
+		if (acceptEncoding == null) {
+			return false;
 		}
-	    if (!duplEdgeIds.isEmpty()) {
-	    	currGraphML = removeOccurrencesOfEntities(currGraphML, duplEdgeIds, "edge");
-	    }
-	    
-	    return currGraphML;
+		for (String coding : acceptEncoding.split(",")) {
+			String[] codingAndParams = coding.trim().split(";");
+			if ("gzip".equalsIgnoreCase(codingAndParams[0].trim())) {
+				return codingAndParams.length == 1 
+						|| !codingAndParams[1].trim().matches("q=0(\\.0*)?");
+			}
+		}
+		
+		return false;
 	}
 	
 	/**
-	 * Removes the indicated (duplicate) node or edge declarations from the GraphML input string.
+	 * Streams the GraphML output for the graph to the HTTP response, as a file named using
+	 * the graph title. The graph title, visualization and type are also returned as headers.
+	 * 
+	 * @param  requestModel GraphRequestModel details
+	 * @param  graph GraphModel holding the nodes and edges of the graph
+	 * @param  response HttpServletResponse
+	 * @param  gzip boolean indicating that the output should be gzip-encoded
+	 * @throws OntoGraphException
 	 * 
-	 * @param graphML String
-	 * @return duplicates List<String> holding either a list of duplicate node ids or edge ids
-	 *           (depending on the entityType). Note that this is truly a list, which may hold duplicate
-	 *           values, since a node may be repeated more than twice. Using a list allows easy removal -
-	 *           since the first occurrence can be (iteratively) removed from the GraphML String - leaving 
-	 *           only the last occurrence.
-	 * @param entityType String, either "node" or "edge"
-	 * @return graphML String with duplicates (identified in the duplicates parameter) removed  List<String> holding either a list of duplicate node ids or edge ids
-	 *           (depending on the entityType). Note that this is truly a list, which may hold duplicate
-	 *           values, since a node may be repeated more than once. Using a list allows easy removal -
-	 *           since the first occurrence can be (iteratively) removed - leaving only the last occurrence
-	 *           remaining in the string.
-	 *           
 	 */
-	private String removeOccurrencesOfEntities(String graphML, List<String> duplicates, final String entityType) {
+	private void writeGraph(GraphRequestModel requestModel, GraphModel graph, HttpServletResponse response,
+			boolean gzip) throws OntoGraphException {
 		
-		for (String dupl : duplicates) {
-			int indexOfEntity = graphML.indexOf("<" + entityType + " id=\"" + dupl + "\"");
-			int indexOfEndEntity = graphML.indexOf("</" + entityType + ">", indexOfEntity) + 7;
-			graphML = graphML.substring(0, indexOfEntity) + graphML.substring(indexOfEndEntity);
+		String cleanGraphTitle = requestModel.getGraphTitle().replaceAll("\\s+", EMPTY_STRING);
+		response.setContentType(GRAPHML_MEDIA_TYPE + ";charset=UTF-8");
+		response.setHeader("Content-Disposition", "attachment; filename=\"" + cleanGraphTitle + ".graphml\"");
+		response.setHeader("X-Graph-Title", requestModel.getGraphTitle());
+		response.setHeader("X-Graph-Visualization", requestModel.getVisualization());
+		response.setHeader("X-Graph-Type", requestModel.getGraphType());
+		response.setHeader("Vary", "Accept-Encoding");
+		if (gzip) {
+			response.setHeader("Content-Encoding", "gzip");
 		}
 		
-		return graphML;
+		try {
+			OutputStream out = response.getOutputStream();
+			if (gzip) {
+				out = new GZIPOutputStream(out);
+			}
+			// Closing the Writer also finishes the gzip encoding
+			try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+				GraphMLOutputDetails.writeGraph(graph, requestModel.getVisualization(), writer);
+			}
+		} catch (IOException e) {	//NOSONAR - Logged as part of OntoGraphException handling
+			throw new OntoGraphException("Error writing the GraphML output. IO Exception details: " 
+					+ e.getMessage());
+		}
 	}
 	
 	/**
-	 * Searches for duplicate node or edge ids in the GraphML String.
+	 * Streams the GraphML output for several graphs to the HTTP response, as a zip file named using
+	 * the graph title. Each graph is a zip entry named using the graph title and the output's name.
+	 * 
+	 * @param  requestModels Map<String, GraphRequestModel> with the output name and details of each graph
+	 * @param  graphs List<GraphModel> holding the nodes and edges of each graph (in the same order)
+	 * @param  response HttpServletResponse
+	 * @throws OntoGraphException
 	 * 
-	 * @param  graphML String
-	 * @param  entityType String, either "node" or "edge"
-	 * @return duplEntityIds List<String> holding either a list of duplicate node ids or edge ids
-	 *           (depending on the entityType). Note that this is truly a list, which may hold duplicate
-	 *           values, since a node may be repeated more than once. 
-	 *           
 	 */
-	private List<String> searchForDuplicates(final String graphML, final String entityType) {
+	private void writeGraphs(Map<String, GraphRequestModel> requestModels, List<GraphModel> graphs, 
+			HttpServletResponse response) throws OntoGraphException {
 		
-		List<String> entityIds = new ArrayList<>();
-		List<String> duplEntityIds = new ArrayList<>();
+		List<Map.Entry<String, GraphRequestModel>> outputs = new ArrayList<>(requestModels.entrySet());
+		String cleanGraphTitle = outputs.get(0).getValue().getGraphTitle().replaceAll("\\s+", EMPTY_STRING);
+		response.setContentType("application/zip");
+		response.setHeader("Content-Disposition", "attachment; filename=\"" + cleanGraphTitle + ".zip\"");
 		
-		String endOfInitialSearchString = "\" ";
-		if ("node".equals(entityType)) {
-			endOfInitialSearchString = "\">";
-		}
-		
-		int currIndex = 0;
-		boolean moreToDo = true;
-		do {
-			int nextIndex = graphML.indexOf("<" + entityType + " id=", currIndex);
-			if (nextIndex >= 0) {
-				String id = graphML.substring(graphML.indexOf("id=", nextIndex) + 4, 
-						graphML.indexOf(endOfInitialSearchString, nextIndex));
-				if (entityIds.contains(id)) {
-					duplEntityIds.add(id); 
-				} else {
-					entityIds.add(id);
-				}
-				nextIndex = graphML.indexOf("</" + entityType + ">", nextIndex) + 7;
-				currIndex = nextIndex;
-			} else {
-				moreToDo = false;
+		try (ZipOutputStream zip = new ZipOutputStream(response.getOutputStream());
+				Writer writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8))) {
+			for (int i = 0; i < graphs.size(); i++) {
+				zip.putNextEntry(new ZipEntry(cleanGraphTitle + "_" + outputs.get(i).getKey() + ".graphml"));
+				// The Writer is flushed (but not closed) after each graph
+				GraphMLOutputDetails.writeGraph(graphs.get(i), outputs.get(i).getValue().getVisualization(), 
+						writer);
+				zip.closeEntry();
 			}
-		} while (moreToDo);
-		
-		return duplEntityIds;
+		} catch (IOException e) {	//NOSONAR - Logged as part of OntoGraphException handling
+			throw new OntoGraphException("Error writing the GraphML output. IO Exception details: " 
+					+ e.getMessage());
+		}
 	}
 	
 	/**
@@ -19,68 +19,73 @@ package graph;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Supplier;
 
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.openrdf.model.Namespace;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Repository;
 
-import com.complexible.common.rdf.model.Namespaces;
 import com.complexible.common.rdf.model.Values;
-import com.complexible.stardog.StardogException;
-import com.complexible.stardog.api.ConnectionConfiguration;
-import com.complexible.stardog.api.admin.AdminConnection;
-import com.complexible.stardog.api.admin.AdminConnectionConfiguration;
-import com.complexible.stardog.ext.spring.DataSource;
-import com.complexible.stardog.ext.spring.RowMapper;
-import com.complexible.stardog.ext.spring.SnarlTemplate;
-import com.complexible.stardog.ext.spring.mapper.SimpleRowMapper;
-import com.complexible.stardog.ext.spring.mapper.SingleMapper;
 
+import graph.models.CacheStatsModel;
 import graph.models.ClassModel;
 import graph.models.EdgeFlagsModel;
 import graph.models.IndividualModel;
+import graph.models.PrefixList;
 import graph.models.PrefixModel;
 import graph.models.PropertyModel;
 import graph.models.RelatedAndRestrictionModel;
 import graph.models.RestrictionModel;
 import graph.models.TypeAndValueModel;
 import graph.models.UMLClassModel;
+import graph.stores.GraphStore;
+import graph.stores.OntologyCache;
+import graph.stores.QueryScheduler;
+import graph.stores.RowHandler;
+import graph.stores.StoreTemplate;
 
 /** 
  * GraphDBAccess acts as a data access object to interact with the
- * Stardog server. It contains a variety of methods that query Stardog 
- * to return data to build a graph from a user's OWL ontology.
+ * triple store (GraphStore). It contains a variety of methods that query
+ * the store to return data to build a graph from a user's OWL ontology.
  *
  */
 @Repository
 @Component
 public class GraphDBAccess {
 	
-    // Stardog configuration and temp file location from application.properties
-    @Value("${stardog.server}")
-    private String stardogServer;
-    @Value("${stardog.user}")
-    private String stardogUser;
-    @Value("${stardog.password}")
-    private String stardogPassword;
+    // Temp file location from application.properties
     @Value("${graph.tempDir}")
     private String tempDir;
     
-    private AdminConnection adminConnection = null;
+    // Triple store engine (Stardog or in-memory) as configured in application.properties
+    @Autowired private GraphStore graphStore;
+    
+    // Cache of loaded ontologies (keyed by the hash of their contents)
+    @Autowired private OntologyCache ontologyCache;
+    
+    // Runs independent queries in parallel
+    @Autowired private QueryScheduler queryScheduler;
 
     // Frequently used strings
     private static final String BNODE = "bnode";
@@ -102,6 +107,22 @@ public class GraphDBAccess {
     private static final String THREE_SPACES = "   ";
     private static final String XMLSCHEMA_PREFIX = "http://www.w3.org/2001/XMLSchema";
     
+    // Mapping of the characteristics returned by GET_PROPERTY_CHARACTERISTICS to edge flags
+    private static final Map<String, EdgeFlagsModel.Flag> characteristicFlags = createCharacteristicFlagsMap();
+    private static Map<String, EdgeFlagsModel.Flag> createCharacteristicFlagsMap() {
+    	Map<String, EdgeFlagsModel.Flag> flagsMap = new HashMap<>();
+    	flagsMap.put("http://www.w3.org/2002/07/owl#FunctionalProperty", EdgeFlagsModel.Flag.FUNCTIONAL);
+    	flagsMap.put("http://www.w3.org/2002/07/owl#InverseFunctionalProperty", EdgeFlagsModel.Flag.INVERSE_FUNCTIONAL);
+    	flagsMap.put("http://www.w3.org/2002/07/owl#TransitiveProperty", EdgeFlagsModel.Flag.TRANSITIVE);
+    	flagsMap.put("http://www.w3.org/2002/07/owl#SymmetricProperty", EdgeFlagsModel.Flag.SYMMETRIC);
+    	flagsMap.put(RDF_PREFIX + "#AsymmetricProperty", EdgeFlagsModel.Flag.ASYMMETRIC);
+    	flagsMap.put("http://www.w3.org/2002/07/owl#ReflexiveProperty", EdgeFlagsModel.Flag.REFLEXIVE);
+    	flagsMap.put("http://www.w3.org/2002/07/owl#IrreflexiveProperty", EdgeFlagsModel.Flag.IRREFLEXIVE);
+    	flagsMap.put("multipleDomains", EdgeFlagsModel.Flag.MULTIPLE_DOMAINS);
+    	flagsMap.put("multipleRanges", EdgeFlagsModel.Flag.MULTIPLE_RANGES);
+    	return flagsMap;
+    }
+    
     // Partial query strings
     private static final String FILTER_BNODE = "FILTER regex(str(?s), ?bnode) }";
     private static final String LIST_QUERY = "?list rdf:rest*/rdf:first ?member }";
@@ -112,7 +133,6 @@ public class GraphDBAccess {
     private static final String CHECK_DB_LOAD = "SELECT (count(?s) as ?count) WHERE { ?s ?p ?o }";
     private static final String GET_ANNOTATION_PROPERTIES = "SELECT DISTINCT * WHERE { "
             + "?name a owl:AnnotationProperty . " + OPTIONAL_LABEL;
-	private static final String GET_ASYMMETRIC_PROPERTIES = SELECT_DISTINCT_NAME + "?name a rdf:AsymmetricProperty }";
     private static final String GET_CLASSES = "SELECT DISTINCT * WHERE { ?name a owl:Class . " + OPTIONAL_LABEL;
     private static final String GET_COMPLEMENTS = "SELECT DISTINCT * WHERE { ?node owl:complementOf ?class }";
 	private static final String GET_DATATYPE_PROPERTIES = "SELECT DISTINCT * WHERE { ?name a owl:DatatypeProperty . "
@@ -120,7 +140,7 @@ public class GraphDBAccess {
 	private static final String GET_DATATYPE_PROPERTIES_FOR_THING = "SELECT DISTINCT ?attr WHERE { "
 			+ "{ ?attr a owl:DatatypeProperty . MINUS { ?attr a owl:DatatypeProperty . ?attr rdfs:domain ?name } } "
 			+ "UNION { ?attr a owl:DatatypeProperty . ?attr rdfs:domain owl:Thing } }";
-	private static final String GET_DATATYPE_PROPERTIES_WITH_DOMAINS = "SELECT DISTINCT ?attr WHERE { "
+	private static final String GET_DATATYPE_PROPERTIES_WITH_DOMAINS = "SELECT DISTINCT ?name ?attr WHERE { "
 	        + "?attr a owl:DatatypeProperty . ?attr rdfs:domain ?name }";
 	private static final String GET_DISJOINTS = "SELECT DISTINCT * WHERE { ?class owl:disjointWith ?disClass }";
     private static final String GET_EQUIVALENTS = "SELECT DISTINCT ?class ?eqClass WHERE { "
@@ -129,51 +149,60 @@ public class GraphDBAccess {
     		+ "{ { ?someClass rdfs:subClassOf ?name } UNION { ?someClass owl:equivalentClass ?name } "
     		+ "UNION { ?someClass owl:disjointWith ?name } } . FILTER isIRI(?name) . "
     		+ "MINUS { ?name a owl:Class } . MINUS { ?name a rdfs:Class } . " + OPTIONAL_LABEL;
-    private static final String GET_FUNCTIONAL_PROPERTIES = SELECT_DISTINCT_NAME + "?name a owl:FunctionalProperty }";
 	private static final String GET_INDIVIDUAL_BNODE_PROPERTIES = "SELECT ?prop ?val WHERE { "
 			+ "?s ?prop ?val . FILTER ( !strstarts(str(?prop), 'http://www.w3.org/2002/07/owl') "
 			+ "&& !strstarts(str(?prop), 'http://www.w3.org/2006/12/owl2') "
 			+ "&& !strstarts(str(?prop), 'http://www.w3.org/ns/owl2') "
 			+ "&& !strstarts(str(?prop), 'http://www.w3.org/2000/01/rdf-schema') ) " + FILTER_BNODE;
-	private static final String GET_INDIVIDUAL_PROPERTIES = "SELECT ?prop ?val WHERE { "
-			+ "?name ?prop ?val . FILTER ( !strstarts(str(?prop), 'http://www.w3.org/2002/07/owl') "
+	private static final String GET_ALL_INDIVIDUAL_PROPERTIES = "SELECT ?name ?prop ?val WHERE { "
+			+ "?name ?prop ?val . FILTER ( isIRI(?name) && ?prop != rdf:type "
+			+ "&& !strstarts(str(?prop), 'http://www.w3.org/2002/07/owl') "
 			+ "&& !strstarts(str(?prop), 'http://www.w3.org/2006/12/owl2') "
 			+ "&& !strstarts(str(?prop), 'http://www.w3.org/ns/owl2') "
 			+ "&& !strstarts(str(?prop), 'http://www.w3.org/2000/01/rdf-schema') ) }";
-	private static final String GET_INDIVIDUAL_TYPES = "SELECT ?type ?label WHERE "
+	private static final String GET_ALL_INDIVIDUAL_TYPES = "SELECT ?name ?type ?label WHERE "
 			+ "{ ?name a ?type . FILTER ( !strstarts(str(?type), 'http://www.w3.org/2002/07/owl') "
 			+ "&& !strstarts(str(?type), 'http://www.w3.org/2006/12/owl2') "
 			+ "&& !strstarts(str(?type), 'http://www.w3.org/ns/owl2') "
 			+ "&& !strstarts(str(?type), 'http://www.w3.org/2000/01/rdf-schema') ) . " 
 			+ "OPTIONAL { ?type rdfs:label ?label } }";
+	private static final String GET_ALL_INDIVIDUAL_TYPES_WITH_REASONING = "SELECT ?name ?type ?label WHERE "
+			+ "{ ?name a owl:Thing . ?name a ?type . FILTER ( !strstarts(str(?type), 'http://www.w3.org/2002/07/owl') "
+			+ "&& !strstarts(str(?type), 'http://www.w3.org/2006/12/owl2') "
+			+ "&& !strstarts(str(?type), 'http://www.w3.org/ns/owl2') "
+			+ "&& !strstarts(str(?type), 'http://www.w3.org/2000/01/rdf-schema') ) . " 
+			+ "OPTIONAL { ?type rdfs:label ?label } }";
 	private static final String GET_INDIVIDUALS_WITH_REASONING = "SELECT ?name ?label WHERE "
 			+ "{ ?name a owl:Thing . " + OPTIONAL_LABEL;  
 	private static final String GET_INTERSECTIONS = "SELECT DISTINCT ?node ?member WHERE { "
 	        + "?node owl:intersectionOf ?list . " + LIST_QUERY;
-	private static final String GET_INVERSE_FUNCTIONAL_PROPERTIES = SELECT_DISTINCT_NAME + "?name a owl:InverseFunctionalProperty }";
-	private static final String GET_IRREFLEXIVE_PROPERTIES = SELECT_DISTINCT_NAME + "?name a owl:IrreflexiveProperty }";
 	private static final String GET_OBJECT_PROPERTIES = "SELECT DISTINCT * WHERE { ?name a owl:ObjectProperty . " 
     		+ OPTIONAL_LABEL;
 	private static final String GET_ONEOFS = "SELECT DISTINCT ?node ?member WHERE { "
 	        + "?node owl:equivalentClass ?eqClass . ?eqClass owl:oneOf ?list . " + LIST_QUERY;
 	private static final String GET_ONTOLOGY_URI = "SELECT ?uri WHERE { ?uri a owl:Ontology }";
-	private static final String GET_PROPERTIES_MULTIPLE_DOMAINS = "SELECT DISTINCT ?name WHERE { ?name rdfs:domain ?domain } "
-			+ "GROUP BY ?name HAVING ( COUNT(?domain) > 1 )";
-	private static final String GET_PROPERTIES_MULTIPLE_RANGES = "SELECT DISTINCT ?name WHERE { ?name rdfs:range ?range } "
-			+ "GROUP BY ?name HAVING ( COUNT(?range) > 1 )";
-	private static final String GET_PROPERTY_DOMAINS = "SELECT DISTINCT ?domain ?label WHERE { "
+	private static final String GET_PROPERTY_CHARACTERISTICS = "SELECT DISTINCT ?name ?characteristic WHERE { "
+			+ "{ ?name a ?characteristic . VALUES ?characteristic { owl:FunctionalProperty owl:InverseFunctionalProperty "
+			+ "owl:TransitiveProperty owl:SymmetricProperty rdf:AsymmetricProperty owl:ReflexiveProperty "
+			+ "owl:IrreflexiveProperty } } "
+			+ "UNION { { SELECT ?name WHERE { ?name rdfs:domain ?domain } GROUP BY ?name HAVING ( COUNT(?domain) > 1 ) } "
+			+ "BIND ('multipleDomains' AS ?characteristic) } "
+			+ "UNION { { SELECT ?name WHERE { ?name rdfs:range ?range } GROUP BY ?name HAVING ( COUNT(?range) > 1 ) } "
+			+ "BIND ('multipleRanges' AS ?characteristic) } }";
+	private static final String GET_PROPERTY_DOMAINS = "SELECT DISTINCT ?name ?domain ?label WHERE { "
 	        + "?name rdfs:domain ?domain . OPTIONAL { ?domain rdfs:label ?label } }";
-	private static final String GET_PROPERTY_RANGES = "SELECT DISTINCT ?range ?label WHERE { "
+	private static final String GET_PROPERTY_RANGES = "SELECT DISTINCT ?name ?range ?label WHERE { "
 	        + "?name rdfs:range ?range . OPTIONAL { ?range rdfs:label ?label } }";
 	private static final String GET_RDF_BNODE = "select ?p ?o where { ?s ?p ?o . " + FILTER_BNODE;
 	private static final String GET_RDF_BNODE_COLLECTION = "select DISTINCT ?member where { "
 			+ "?s rdf:rest*/rdf:first ?member . " + FILTER_BNODE;
 	private static final String GET_RDF_BNODE_TYPE = "select ?type where { ?s a ?type . " + FILTER_BNODE;
 	private static final String GET_RDF_EMPTY_COLLECTIONS = "select ?p where { ?indiv ?p rdf:nil }";
+	private static final String GET_ALL_RDF_EMPTY_COLLECTIONS = "select ?name ?p where { ?name ?p rdf:nil }";
 	private static final String GET_RDF_PROPERTIES = "SELECT DISTINCT * WHERE { ?name a rdf:Property . "
 			+ "MINUS { ?name a owl:ObjectProperty } . MINUS { ?name a owl:DatatypeProperty } . "
 			+ "MINUS { ?name a owl:AnnotationProperty } . " + OPTIONAL_LABEL;
-	private static final String GET_RDF_PROPERTIES_FOR_ENTITY = "SELECT DISTINCT ?attr ?range WHERE { "
+	private static final String GET_RDF_PROPERTIES_FOR_ENTITY = "SELECT DISTINCT ?name ?attr ?range WHERE { "
 			+ "{ ?attr a rdf:Property . ?attr rdfs:domain ?name . ?attr rdfs:range rdfs:Literal } UNION " 
 			+ "{ ?attr a rdf:Property . ?attr rdfs:domain ?name . ?attr rdfs:range ?range . ?range a rdfs:Datatype } }";
 	private static final String GET_RDF_PROPERTIES_FOR_RESOURCE = "SELECT DISTINCT ?attr ?range WHERE { "
@@ -185,7 +214,6 @@ public class GraphDBAccess {
     private static final String GET_RDFS_DATATYPES = "SELECT DISTINCT ?name ?label WHERE { ?name a rdfs:Datatype . "
 	        + "FILTER ( !regex(str(?name), 'bnode_') ) . FILTER ( !strstarts(str(?name), 'http://www.w3.org/2001/XMLSchema') ) . "
     		+ OPTIONAL_LABEL;
-	private static final String GET_REFLEXIVE_PROPERTIES = SELECT_DISTINCT_NAME + "?name a owl:ReflexiveProperty }";
 	private static final String GET_RESTRICTION_DETAILS = "SELECT DISTINCT * WHERE { "
 			+ "{ { ?name a owl:Restriction } UNION { ?name a rdfs:Datatype . ?name ?pred ?o1 . "
 			+ "VALUES ?pred { owl:oneOf owl:unionOf owl:intersectionOf owl:complementOf owl:onDatatype } } } . "
@@ -199,9 +227,7 @@ public class GraphDBAccess {
 	private static final String GET_STANDALONE_ONEOFS = "SELECT DISTINCT ?name ?node ?member WHERE { "
 			+ "?node owl:oneOf ?list . MINUS { ?class owl:equivalentClass ?node } . "
 			+ "BIND (?node AS ?name) ." + LIST_QUERY;
-	private static final String GET_SUPERCLASSES = "SELECT DISTINCT ?class WHERE { ?name rdfs:subClassOf ?class }";
-	private static final String GET_SYMMETRIC_PROPERTIES = SELECT_DISTINCT_NAME + "?name a owl:SymmetricProperty }";
-    private static final String GET_TRANSITIVE_PROPERTIES = SELECT_DISTINCT_NAME + "?name a owl:TransitiveProperty }";
+	private static final String GET_SUPERCLASSES = "SELECT DISTINCT ?name ?class WHERE { ?name rdfs:subClassOf ?class }";
     private static final String GET_UNION_INTERSECTION_RESTRICTIONS = "SELECT distinct ?member WHERE { "
     		+ "?list rdf:rest*/rdf:first ?member . FILTER regex(str(?list), ?bnode) }";
 	private static final String GET_UNIONS = "SELECT DISTINCT ?node ?member WHERE { ?node owl:unionOf ?list . "
@@ -213,72 +239,75 @@ public class GraphDBAccess {
 	List<String> rdfProps = Arrays.asList(RDF_PREFIX + "#subject", RDF_PREFIX + "#predicate",RDF_PREFIX + "#object",
 			                              RDF_PREFIX + "#seeAlso", RDF_PREFIX + "#comment", RDF_PREFIX + "#isDefinedBy");
 	
-	// RowMapper for SPARQL results for individual properties
-	private final RowMapper<List<org.openrdf.model.Value>> indivPropertyMapper =
-			bs -> Arrays.asList(bs.getValue("prop"), bs.getValue("val"));
-			
-			
     /**
-     * Check if Stardog loaded the ontology - if there are no triples, then drop the db
+     * Check if the store loaded the ontology - if there are no triples, then drop the db
      * 
-     * @param  snarlTemplate SnarlTemplate with server details
+     * @param  storeTemplate StoreTemplate for the database
      * @param  databaseName graph title (name of data store)
      * @throws OntoGraphException 
      * 
      */
-    public void checkDBLoad(final SnarlTemplate snarlTemplate, String databaseName) 
+    private void checkDBLoad(final StoreTemplate storeTemplate, String databaseName) 
     		throws OntoGraphException {
-    	
-    	checkAdminConnection();
         
-        if (Integer.parseInt(snarlTemplate.queryForObject(CHECK_DB_LOAD, new SingleMapper("count"))) == 0) {
-        	adminConnection.drop(databaseName);
+        if (Integer.parseInt(storeTemplate.queryForObject(CHECK_DB_LOAD, "count")) == 0) {
+        	graphStore.dropDatabase(databaseName);
     		throw new OntoGraphException("No triples were loaded to the database. Please validate that the input file "
     				+ "is a supported format and has no errors. Then, try again.");  
         }
     }
 
 	/**
-	 * Removes a database from Stardog, but first checks that the db exists
+	 * Releases a database when a request is done. A cached database is returned to the cache,
+	 * otherwise the database is removed from the store.
 	 * 
-	 * @param  databaseName String 
+	 * @param  storeTemplate StoreTemplate returned by loadFileToDB
+	 * @param  graphTitle String (name of the database, if not cached)
 	 * 
 	 */    
-	public void dropDatabase(String databaseName) {
+	public void releaseDatabase(final StoreTemplate storeTemplate, String graphTitle) {
 
-    	checkAdminConnection();
-    	
-    	Collection<String> dbs = adminConnection.list();
-    	if (dbs.contains(databaseName)) {
-    		adminConnection.drop(databaseName);
-    	} 
+		if (!ontologyCache.release(storeTemplate)) {
+			graphStore.dropDatabase(graphTitle);
+		}
+	}
+	
+	/**
+	 * Returns the statistics of the ontology cache.
+	 * 
+	 * @return CacheStatsModel
+	 * 
+	 */    
+	public CacheStatsModel getCacheStats() {
+		return ontologyCache.getStats();
 	}
 	
 	/**
 	 * Get all classes and their superclasses in the loaded ontology
 	 * 
 	 * @param  reasoningType String ("reasoningTrue" or "reasoningFalse")
-	 * @param  snarlTemplate SnarlTemplate with server details
-	 * @param  reasoningTemplate SnarlTemplate with server details, and reasoning enabled
+	 * @param  storeTemplate StoreTemplate for the database
+	 * @param  reasoningTemplate StoreTemplate with reasoning enabled
 	 * @param  prefixes List of prefixes (PrefixModels)
 	 * @return List<ClassModel> of classes with details (ClassModel)
 	 * @throws OntoGraphException
 	 * 
 	 */
-	public List<ClassModel> getClasses(final String reasoningType, final SnarlTemplate snarlTemplate, 
-			final SnarlTemplate reasoningTemplate, List<PrefixModel> prefixes) throws OntoGraphException {
+	public List<ClassModel> getClasses(final String reasoningType, final StoreTemplate storeTemplate, 
+			final StoreTemplate reasoningTemplate, List<PrefixModel> prefixes) throws OntoGraphException {
 
-    	checkAdminConnection();
-    	
 	    List<ClassModel> models = new ArrayList<>();
-	    List<Map<String, String>> classInfo = snarlTemplate.query(GET_CLASSES, new SimpleRowMapper());
 	    
-	    // Get rdfs:Classes that are NOT already captured as owl:Classes
-	    // An ontology might define/import/extend rdfs:Classes, or it might define BOTH rdfs:Classes and
-	    //     owl:Classes (as FOAF does) - we only need to know about the class once
-	    classInfo.addAll(snarlTemplate.query(GET_RDFS_CLASSES, new SimpleRowMapper()));
+	    // Get the superclasses of all classes in a single query, indexed by class name
+	    Map<String, List<String>> superClassIndex;
+	    if (reasoningType.contains("True")) {
+	    	superClassIndex = getSuperClassIndex(reasoningTemplate);
+	    } else {
+	    	superClassIndex = getSuperClassIndex(storeTemplate);
+	    }
 	    
-        for (Map<String, String> classDetails : classInfo) {
+	    // Create the class models as the query results are read
+	    RowHandler addClass = classDetails -> {
         	String fullClassName = classDetails.get("name");
         	if (!OWL_THING_FULL_URI.equals(fullClassName) 
         			&& !OWL_NOTHING_FULL_URI.equals(fullClassName) 
@@ -287,12 +316,7 @@ public class GraphDBAccess {
         		// Clean up the className to turn it into a prefix ":" name format
         		String className = processURIName(prefixes, fullClassName);
 	            // Add class and superclasses to the model
-        		List<String> superclasses;
-        		if (reasoningType.contains("True")) {
-        			superclasses = getSuperClasses(reasoningTemplate, prefixes, fullClassName);
-        		} else {
-        			superclasses = getSuperClasses(snarlTemplate, prefixes, fullClassName);
-        		}
+        		List<String> superclasses = superClassIndex.getOrDefault(fullClassName, new ArrayList<>());
 	            models.add(ClassModel.builder()
 	            		.className(className)
 	            		.classLabel(getLabel(className, classDetails.get(LABEL)))
@@ -301,12 +325,30 @@ public class GraphDBAccess {
 	                    .classType('c')
 	                    .build());
 	        }
-	    }
+	    };
+	    storeTemplate.queryForEach(GET_CLASSES, addClass);
+	    
+	    // Get rdfs:Classes that are NOT already captured as owl:Classes
+	    // An ontology might define/import/extend rdfs:Classes, or it might define BOTH rdfs:Classes and
+	    //     owl:Classes (as FOAF does) - we only need to know about the class once
+	    storeTemplate.queryForEach(GET_RDFS_CLASSES, addClass);
         
 	    // Need to add rdfs:Datatype and the specific types
-	    List<Map<String, String>> rdfsDatatypes = snarlTemplate.query(GET_RDFS_DATATYPES, 
-	    		new SimpleRowMapper());
-        if (rdfsDatatypes != null && !rdfsDatatypes.isEmpty()) {
+	    List<ClassModel> datatypeModels = new ArrayList<>();
+    	List<String> datatypeList = new ArrayList<>();
+    	datatypeList.add(RDFS_DATATYPE);
+	    storeTemplate.queryForEach(GET_RDFS_DATATYPES, rdfsDatatype -> {
+        	String fullDatatypeName = rdfsDatatype.get("name");
+    		String datatypeName = processURIName(prefixes, fullDatatypeName);
+        	datatypeModels.add(ClassModel.builder()
+            		.className(datatypeName)
+            		.classLabel(getLabel(datatypeName, rdfsDatatype.get(LABEL)))
+            		.fullClassName(fullDatatypeName)
+                    .superClasses(datatypeList)
+                    .classType('d')
+                    .build());
+	    });
+        if (!datatypeModels.isEmpty()) {
         	// Need to insert the rdfs:Datatype entity
         	models.add(ClassModel.builder()
             		.className(RDFS_DATATYPE)
@@ -315,20 +357,8 @@ public class GraphDBAccess {
                     .superClasses(new ArrayList<>())
                     .classType('d')
                     .build());
-        	List<String> datatypeList = new ArrayList<>();
-        	datatypeList.add(RDFS_DATATYPE);
         	// Add all the datatypes themselves
-        	for (Map<String, String> rdfsDatatype : rdfsDatatypes) {
-            	String fullDatatypeName = rdfsDatatype.get("name");
-        		String datatypeName = processURIName(prefixes, fullDatatypeName);
-            	models.add(ClassModel.builder()
-                		.className(datatypeName)
-                		.classLabel(getLabel(datatypeName, rdfsDatatype.get(LABEL)))
-                		.fullClassName(fullDatatypeName)
-                        .superClasses(datatypeList)
-                        .classType('d')
-                        .build());
-        	}
+        	models.addAll(datatypeModels);
         }
 	    
 	    return models;
@@ -337,7 +367,7 @@ public class GraphDBAccess {
 	/**
      * Get all classes and properties for UML output
      * 
-     * @param  snarlTemplate SnarlTemplate with server details
+     * @param  storeTemplate StoreTemplate for the database
      * @param  prefixes List of PrefixModels
      * @param  classes List<ClassModel> defining the classes in the ontology (without the additional
      *             details needed for a UML diagram)
@@ -345,20 +375,20 @@ public class GraphDBAccess {
      * @throws OntoGraphException
      * 
      */
-    public List<UMLClassModel> getClassesForUML(final SnarlTemplate snarlTemplate, 
+    public List<UMLClassModel> getClassesForUML(final StoreTemplate storeTemplate, 
     		List<PrefixModel> prefixes, List<ClassModel> classes) throws OntoGraphException {
 
-        checkAdminConnection();
         
         List<UMLClassModel> models = new ArrayList<>();
         // Query for any attributes where domain is not specified, and therefore automatically Thing,
         //    or where the domain is actually set to owl:Thing
-        List<String> thingAttributes = snarlTemplate.query(GET_DATATYPE_PROPERTIES_FOR_THING, 
-        		new SingleMapper("attr"));
+        List<String> thingAttributes = storeTemplate.queryForList(GET_DATATYPE_PROPERTIES_FOR_THING, "attr");
         // For RDF properties need to do a similar check, but also retrieve the property range definition
         //   - to see if the range is a datatype - If so, then the properties are associated with rdfs:Resource
         List<String> resourceAttributes = checkForRDFDataAttributes(
-        		snarlTemplate.query(GET_RDF_PROPERTIES_FOR_RESOURCE, new SimpleRowMapper()));
+        		storeTemplate.query(GET_RDF_PROPERTIES_FOR_RESOURCE));
+        // Query for the attributes of all other classes (indexed by the full class name)
+        Map<String, List<String>> attributeIndex = getAttributeIndex(storeTemplate);
         
         boolean addedOwlThing = false;
         boolean addedRdfsResource = false;
@@ -375,7 +405,7 @@ public class GraphDBAccess {
             	if (fullClassName.contains(":")) {  // Skips blank nodes
 	            	// Query for attributes where the class is the domain of a datatype property
 	            	// Or where is it the domain of an rdf:Property whose range is a datatype
-	            	attributes = getAttributes(snarlTemplate, fullClassName);
+	            	attributes.addAll(attributeIndex.getOrDefault(fullClassName, new ArrayList<>()));
             	}
             }
             
@@ -405,39 +435,47 @@ public class GraphDBAccess {
      * Get all equivalent and disjoint classes in the loaded ontology, also get
      * all enumerations/oneOfs
      * 
-     * @param  snarlTemplate SnarlTemplate with server details
+     * @param  storeTemplate StoreTemplate for the database
      * @param  prefixes List of PrefixModels
      * @param  relatedsAndRestrictions RelatedAndRestrictionModel containing lists of models 
      *             of "related" classes (equivalent, disjoints, and oneOfs), of connectives
      *             (unions, intersections and complementOfs) and restrictions (allValuesFrom,
      *             someValuesFrom, min/maxInclusive, ...)
+     * @throws OntoGraphException
      *             
      */
-    public void getClassRelationships(final SnarlTemplate snarlTemplate, 
-    		List<PrefixModel> prefixes, RelatedAndRestrictionModel relatedsAndRestrictions) {
+    public void getClassRelationships(final StoreTemplate storeTemplate, 
+    		List<PrefixModel> prefixes, RelatedAndRestrictionModel relatedsAndRestrictions) 
+    				throws OntoGraphException {
 
-    	checkAdminConnection();
-    	
     	// Get the related classes from the model (may be empty maps)
     	Map<String, List<TypeAndValueModel>> equivalentsDisjointsOneOfs = 
     			relatedsAndRestrictions.getEquivalentsDisjointsOneOfs();
     	Map<String, List<TypeAndValueModel>> connectives = relatedsAndRestrictions.getConnectives();
     	
+        // The queries are independent and run in parallel - their results are processed below
+        //   in a fixed order
+        QueryScheduler.Batch queries = queryScheduler.batch();
         // Get all classes which are defined with 1+ equivalentClasses
-        List<Map<String, String>> equivalentList = snarlTemplate.query(GET_EQUIVALENTS, new SimpleRowMapper());
+        Supplier<List<Map<String, String>>> equivalents = queries.add(() -> storeTemplate.query(GET_EQUIVALENTS));
         
         // Get all classes which are defined with 1+ disjointWith classes
-        List<Map<String, String>> disjointList = snarlTemplate.query(GET_DISJOINTS, new SimpleRowMapper());
+        Supplier<List<Map<String, String>>> disjoints = queries.add(() -> storeTemplate.query(GET_DISJOINTS));
         
         // Get all complementOfs, intersectionOfs, oneOfs and unionOfs
-        List<Map<String, String>> complementOfList = snarlTemplate.query(GET_COMPLEMENTS, new SimpleRowMapper());
-        List<Map<String, String>> intersectionOfList = snarlTemplate.query(GET_INTERSECTIONS, new SimpleRowMapper());
-        List<Map<String, String>> oneOfList = snarlTemplate.query(GET_ONEOFS, new SimpleRowMapper());
-        oneOfList.addAll(snarlTemplate.query(GET_STANDALONE_ONEOFS, new SimpleRowMapper()));
-        List<Map<String, String>> unionOfList = snarlTemplate.query(GET_UNIONS, new SimpleRowMapper());
+        Supplier<List<Map<String, String>>> complementOfs = queries.add(() -> storeTemplate.query(GET_COMPLEMENTS));
+        Supplier<List<Map<String, String>>> intersectionOfs = queries.add(() -> storeTemplate.query(GET_INTERSECTIONS));
+        Supplier<List<Map<String, String>>> oneOfs = queries.add(() -> storeTemplate.query(GET_ONEOFS));
+        Supplier<List<Map<String, String>>> standaloneOneOfs = 
+        		queries.add(() -> storeTemplate.query(GET_STANDALONE_ONEOFS));
+        Supplier<List<Map<String, String>>> unionOfs = queries.add(() -> storeTemplate.query(GET_UNIONS));
+        queries.run();
+        
+        List<Map<String, String>> oneOfList = new ArrayList<>(oneOfs.get());
+        oneOfList.addAll(standaloneOneOfs.get());
         
         // Get the details for the equivalences
-        for (Map<String, String> equiv : equivalentList) {
+        for (Map<String, String> equiv : equivalents.get()) {
         	// Class might be equivalent to another class, or might be equivalent to a blank
         	//   node that is then a complementOf, intersectionOf, oneOf or unionOf other classes
         	// Blank nodes could reference other blank nodes, arbitrarily deep
@@ -445,7 +483,7 @@ public class GraphDBAccess {
         }
         
         // Get the details for the disjoints
-        for (Map<String, String> dis : disjointList) {
+        for (Map<String, String> dis : disjoints.get()) {
         	// Class might be disjoint to another class, or might be disjoint to a blank node
         	updateRelationMap(prefixes, "dis", equivalentsDisjointsOneOfs, dis.get(CLASS), dis.get("disClass"));
         }
@@ -457,16 +495,16 @@ public class GraphDBAccess {
         equivalentsDisjointsOneOfs.putAll(newMap);
         
         // Get the details for the complementOfs, intersectionOfs, oneOfs, and unionOfs...
-        for (Map<String, String> comp : complementOfList) {
+        for (Map<String, String> comp : complementOfs.get()) {
         	updateRelationMap(prefixes, "comp", connectives, comp.get("node"), comp.get(CLASS));
         }
-        for (Map<String, String> inter : intersectionOfList) {
+        for (Map<String, String> inter : intersectionOfs.get()) {
         	updateRelationMap(prefixes, "inter", connectives, inter.get("node"),  inter.get(MEMBER));
         }
         for (Map<String, String> one : oneOfList) {
         	updateRelationMap(prefixes, "one", equivalentsDisjointsOneOfs, one.get("node"),  one.get(MEMBER));
         }
-        for (Map<String, String> union : unionOfList) {
+        for (Map<String, String> union : unionOfs.get()) {
         	updateRelationMap(prefixes, "un", connectives, union.get("node"),  union.get(MEMBER));
         }
     }
@@ -475,19 +513,16 @@ public class GraphDBAccess {
 	 * Get all classes that are referenced as superclasses or equivalent/disjointClasses but that are defined
 	 * external to the ontology.
 	 * 
-	 * @param  snarlTemplate SnarlTemplate with server details
+	 * @param  storeTemplate StoreTemplate for the database
 	 * @param  prefixes List of prefixes (PrefixModels)
 	 * @return List<ClassModel> of classes with details (ClassModel)
 	 * 
 	 */
-	public List<ClassModel> getExternallyDefinedClasses(final SnarlTemplate snarlTemplate, 
+	public List<ClassModel> getExternallyDefinedClasses(final StoreTemplate storeTemplate, 
 			List<PrefixModel> prefixes) {
 
-    	checkAdminConnection();
-    	
 	    List<ClassModel> models = new ArrayList<>();
-        List<Map<String, String>> classInfo = snarlTemplate.query(GET_EXTERNALLY_DEFINED_CLASSES,
-                new SimpleRowMapper());
+        List<Map<String, String>> classInfo = storeTemplate.query(GET_EXTERNALLY_DEFINED_CLASSES);
         
         for (Map<String, String> classDetails : classInfo) {
         	String fullClassName = classDetails.get("name");
@@ -512,18 +547,16 @@ public class GraphDBAccess {
      * Get all individual, their types and property values from the loaded ontology
      * 
 	 * @param  reasoningType String ("reasoningTrue" or "reasoningFalse")
-     * @param  snarlTemplate SnarlTemplate with server details
-	 * @param  reasoningTemplate SnarlTemplate with server details, and reasoning enabled
+     * @param  storeTemplate StoreTemplate for the database
+	 * @param  reasoningTemplate StoreTemplate with reasoning enabled
      * @param  prefixes List of PrefixModels
      * @return List<IndividualModel> of individuals with details (IndividualModel)
      * @throws OntoGraphException
      * 
      */
-    public List<IndividualModel> getIndividuals(final String reasoningType, final SnarlTemplate snarlTemplate, 
-    		final SnarlTemplate reasoningTemplate, List<PrefixModel> prefixes) throws OntoGraphException {
+    public List<IndividualModel> getIndividuals(final String reasoningType, final StoreTemplate storeTemplate, 
+    		final StoreTemplate reasoningTemplate, List<PrefixModel> prefixes) throws OntoGraphException {
 
-    	checkAdminConnection();
-    	
         List<IndividualModel> models = new ArrayList<>();
 
         Set<String> definedIndividuals = new HashSet<>();
@@ -531,10 +564,27 @@ public class GraphDBAccess {
         
         // Find all individuals using reasoning since the query can look for "rdf:type owl:Thing" 
         //   (even for RDF individuals)
-        List<Map<String, String>> individualInfo = reasoningTemplate.query(
-        		GET_INDIVIDUALS_WITH_REASONING, new SimpleRowMapper());
+        List<Map<String, String>> individuals = reasoningTemplate.query(GET_INDIVIDUALS_WITH_REASONING);
+        Set<String> individualNames = new HashSet<>();
+        for (Map<String, String> indiv : individuals) {
+        	individualNames.add(indiv.get("name"));
+        }
+        
+        // Get the types, properties and empty collections of all individuals (using a few bulk queries 
+        //   instead of queries per individual), grouped by individual name
+        Map<String, List<Map<String, String>>> typeMap = groupByName(storeTemplate.query(GET_ALL_INDIVIDUAL_TYPES));
+        Map<String, List<Map<String, String>>> reasoningTypeMap;
+        if (reasoningType.contains("True")) {
+        	reasoningTypeMap = groupByName(reasoningTemplate.query(GET_ALL_INDIVIDUAL_TYPES_WITH_REASONING));
+        } else {
+        	reasoningTypeMap = new HashMap<>();
+        }
+        Map<String, List<List<String>>> propertyMap = getIndividualProperties(storeTemplate, individualNames);
+        Map<String, List<Map<String, String>>> emptyCollectionMap = 
+        		groupByName(storeTemplate.query(GET_ALL_RDF_EMPTY_COLLECTIONS));
 	    
-        for (Map<String, String> indiv : individualInfo) {
+        // Create the individuals' models
+        for (Map<String, String> indiv : individuals) {
         	String fullIndivName = indiv.get("name");
         	String indivName = processURIName(prefixes, fullIndivName);
         	definedIndividuals.add(indivName);
@@ -543,14 +593,11 @@ public class GraphDBAccess {
 	        Set<String> types = new HashSet<>();
 	        	
 	        // Get the type names and their labels
-	        List<Map<String, String>> typeList = snarlTemplate.query(GET_INDIVIDUAL_TYPES, 
-        			createMap("name", Values.iri(fullIndivName)), new SimpleRowMapper());
-	        if (reasoningType.contains("True")) {
-		        // Add any types that are restrictions/blank nodes (the reasoner returns the type 
-	        	//    "behind" the restriction)
-	        	typeList.addAll(reasoningTemplate.query(GET_INDIVIDUAL_TYPES, 
-	        			createMap("name", Values.iri(fullIndivName)), new SimpleRowMapper()));
-	        }
+	        List<Map<String, String>> typeList = new ArrayList<>(
+	        		typeMap.getOrDefault(fullIndivName, new ArrayList<>()));
+	        // Add any types that are restrictions/blank nodes (the reasoner returns the type 
+        	//    "behind" the restriction)
+	        typeList.addAll(reasoningTypeMap.getOrDefault(fullIndivName, new ArrayList<>()));
 	    	if (!typeList.isEmpty()) {
 	            for (Map<String, String> typeDetails : typeList) {
 	            	String type = typeDetails.get("type");
@@ -565,8 +612,15 @@ public class GraphDBAccess {
             // Get the individual's properties
             List<TypeAndValueModel> datatypeProperties = new ArrayList<>();
             List<TypeAndValueModel> objectProperties = new ArrayList<>();
-            createIndividualPropertyLists(snarlTemplate, prefixes, fullIndivName,
+            if (fullIndivName.startsWith("_:")) {
+            	createBlankNodePropertyLists(storeTemplate, prefixes, fullIndivName,
 	            		datatypeProperties, objectProperties);
+            } else {
+            	processIndividualPropertyLists(storeTemplate, prefixes, 
+            			propertyMap.getOrDefault(fullIndivName, new ArrayList<>()), 
+            			getPropertiesOfEmptyCollections(emptyCollectionMap, fullIndivName), 
+            			datatypeProperties, objectProperties);
+            }
             
             // Add individuals referenced in the domains and ranges of the properties
             for (TypeAndValueModel objPropDetails : objectProperties) {
@@ -585,41 +639,38 @@ public class GraphDBAccess {
 	    }
         
         // Add individuals that are referenced as domain or object property ranges but do not have an rdf:type
-        models.addAll(getUntypedIndividuals(snarlTemplate, referencedIndividuals, definedIndividuals, prefixes));
+        models.addAll(getUntypedIndividuals(storeTemplate, referencedIndividuals, definedIndividuals, prefixes,
+        		emptyCollectionMap));
         return models;
     }
     
     /** 
      * Get the URI for the owl:Ontology
      * 
-     * @param  snarlTemplate SnarlTemplate with server details
+     * @param  storeTemplate StoreTemplate for the database
      * @return String holding the URI of the ontology
      * 
      */
-    public String getOntologyURI(SnarlTemplate snarlTemplate) {
+    public String getOntologyURI(StoreTemplate storeTemplate) {
 
-    	checkAdminConnection();
-    	return snarlTemplate.queryForObject(GET_ONTOLOGY_URI, new SingleMapper("uri"));
+    	return storeTemplate.queryForObject(GET_ONTOLOGY_URI, "uri");
     }
     
     /**
      * Get all prefixes and their corresponding URLs in the loaded ontology
      * 
-     * @param  conn Stardog Connection
+     * @param  storeTemplate StoreTemplate for the database
      * @return List<PrefixModel> of prefixes with details (PrefixModel)
      * 
      */
-    public List<PrefixModel> getPrefixes(SnarlTemplate snarlTemplate) {
+    public List<PrefixModel> getPrefixes(StoreTemplate storeTemplate) {
 
-    	checkAdminConnection();
-    	
         List<PrefixModel> models = new ArrayList<>();
         
         // Get the namespaces
-        Namespaces ns = snarlTemplate.getDataSource().getConnection().namespaces();
-        for (Namespace name : ns) {
-            String url = name.getName();
-            String prefixName = name.getPrefix();
+        for (Entry<String, String> name : storeTemplate.getNamespaces().entrySet()) {
+            String url = name.getValue();
+            String prefixName = name.getKey();
             // Remove default stardog prefixes
             if (!prefixName.contains("stardog") && !prefixName.isEmpty()) {
                 models.add(PrefixModel.builder()
@@ -635,67 +686,50 @@ public class GraphDBAccess {
     /**
      * List of all properties and their domains/ranges in the loaded ontology
      * 
-     * @param  snarlTemplate SnarlTemplate with server details
+     * @param  storeTemplate StoreTemplate for the database
      * @param  prefixes List of PrefixModels>
      * @return List<PropertyModel> of properties with details (PropertyModel)
      * @throws OntoGraphException
      * 
      */
-    public List<PropertyModel> getProperties(final SnarlTemplate snarlTemplate,   //NOSONAR - Complexity acceptable
+    public List<PropertyModel> getProperties(final StoreTemplate storeTemplate,   //NOSONAR - Complexity acceptable
     		List<PrefixModel> prefixes) throws OntoGraphException {
 
-    	checkAdminConnection();
-    	
     	// Get all the properties
-        List<PropertyModel> models = getAllProperties(snarlTemplate, prefixes);
+        List<PropertyModel> models = getAllProperties(storeTemplate, prefixes);
         
         // Determine which object and datatype properties are functional/inverseFunctional,
         //    as well as transitive/symmetric/asymmetric/reflexive/irreflexive
-        List<String> functionalNames = snarlTemplate.query(GET_FUNCTIONAL_PROPERTIES, new SingleMapper("name"));
-        List<String> inverseFunctionalNames = snarlTemplate.query(GET_INVERSE_FUNCTIONAL_PROPERTIES,
-                new SingleMapper("name"));
-        List<String> transitiveNames = snarlTemplate.query(GET_TRANSITIVE_PROPERTIES, new SingleMapper("name"));
-        List<String> symmetricNames = snarlTemplate.query(GET_SYMMETRIC_PROPERTIES, new SingleMapper("name"));
-        List<String> asymmetricNames = snarlTemplate.query(GET_ASYMMETRIC_PROPERTIES, new SingleMapper("name"));
-        List<String> reflexiveNames = snarlTemplate.query(GET_REFLEXIVE_PROPERTIES, new SingleMapper("name"));
-        List<String> irreflexiveNames = snarlTemplate.query(GET_IRREFLEXIVE_PROPERTIES, new SingleMapper("name"));
-        
         // Also determine if there are multiple domains or ranges specified, which have implications for
         //    reasoning the types of individuals (individuals are typed as intersections of the multiple
         //    domains or ranges)
-        List<String> multipleDomainsNames = snarlTemplate.query(GET_PROPERTIES_MULTIPLE_DOMAINS, new SingleMapper("name"));
-        List<String> multipleRangesNames = snarlTemplate.query(GET_PROPERTIES_MULTIPLE_RANGES, new SingleMapper("name"));
+        // (All are returned by a single query, and combined as the bits of the properties' edge flags)
+        Map<String, Integer> flagsMap = new HashMap<>();
+        for (Map<String, String> qr : storeTemplate.query(GET_PROPERTY_CHARACTERISTICS)) {
+        	EdgeFlagsModel.Flag flag = characteristicFlags.get(qr.get("characteristic"));
+        	if (flag != null) {
+        		flagsMap.merge(qr.get("name"), EdgeFlagsModel.mask(flag), (f1, f2) -> f1 | f2);
+        	}
+        }
         
-        // Get domains and ranges for all properties, and add the info to the PropertyModels
+        // Get domains and ranges for all properties (in one query each, grouped by property name), 
+        //   and add the info to the PropertyModels
         // If no domain/range is defined, then it is automatically owl:Thing for all domains (or rdfs:Resource for
         //   RDF properties) and the ranges of object properties, and rdfs:Literal for the ranges of datatype, 
         //   annotation and other RDF properties
+        Map<String, List<Map<String, String>>> domainMap = groupByName(storeTemplate.query(GET_PROPERTY_DOMAINS));
+        Map<String, List<Map<String, String>>> rangeMap = groupByName(storeTemplate.query(GET_PROPERTY_RANGES));
         for (PropertyModel pm : models) {
             
         	String propName = pm.getFullPropertyName();
         	char propType = pm.getPropertyType();
-            Map<String, Object> queryInput = createMap("name", Values.iri(propName));
             
-	        List<Map<String, String>> domainList = snarlTemplate.query(GET_PROPERTY_DOMAINS, queryInput, 
-	        		new SimpleRowMapper());
-	        List<String> domains = processDomainOrRangeQueryResults(propType, prefixes, domainList, "domain");
-
-	        List<Map<String, String>> rangeList = snarlTemplate.query(GET_PROPERTY_RANGES, queryInput, 
-	        			new SimpleRowMapper());
-	        List<String> ranges = processDomainOrRangeQueryResults(propType, prefixes, rangeList, RANGE);
+	        List<String> domains = processDomainOrRangeQueryResults(propType, prefixes, 
+	        		domainMap.getOrDefault(propName, new ArrayList<>()), "domain");
+	        List<String> ranges = processDomainOrRangeQueryResults(propType, prefixes, 
+	        		rangeMap.getOrDefault(propName, new ArrayList<>()), RANGE);
             
-	        String fullName = pm.getFullPropertyName();
-	        pm.setEdgeFlags(EdgeFlagsModel.builder()
-	        		.asymmetric(asymmetricNames.contains(fullName) ? true : false)
-	        		.functional(functionalNames.contains(fullName) ? true : false)
-	        		.inverseFunctional(inverseFunctionalNames.contains(fullName) ? true : false)
-	        		.irreflexive(irreflexiveNames.contains(fullName) ? true : false)
-	        		.reflexive(reflexiveNames.contains(fullName) ? true : false)
-	        		.symmetric(symmetricNames.contains(fullName) ? true : false)
-	        		.transitive(transitiveNames.contains(fullName) ? true : false)
-	        		.multipleDomains(multipleDomainsNames.contains(fullName) ? true : false)
-	        		.multipleRanges(multipleRangesNames.contains(fullName) ? true : false)
-	        		.build());
+	        pm.setEdgeFlags(new EdgeFlagsModel(flagsMap.getOrDefault(propName, 0)));
             pm.setDomains(domains);
             pm.setRanges(ranges);
         }
@@ -706,50 +740,57 @@ public class GraphDBAccess {
 	/**
 	 * Get the details for any owl:Restrictions or rdfs:Datatypes
 	 * 
-	 * @param  snarlTemplate SnarlTemplate with server details
+	 * @param  storeTemplate StoreTemplate for the database
 	 * @param  prefixes List<PrefixModel> 
 	 * @return models List<RestrictionModel> providing the details for the owl:Restrictions 
 	 *              and rdfs:Datatypes
 	 * @throws OntoGraphException
 	 * 
 	 */
-	public List<RestrictionModel> getRestrictions(final SnarlTemplate snarlTemplate, 
+	public List<RestrictionModel> getRestrictions(final StoreTemplate storeTemplate, 
 			List<PrefixModel> prefixes) throws OntoGraphException {
 
-    	checkAdminConnection();
-    	
 	    List<RestrictionModel> models = new ArrayList<>();
-        List<Map<String, String>> restrictionInfo = snarlTemplate.query(GET_RESTRICTION_DETAILS, 
-        		new SimpleRowMapper());
         // Create map where the key is the restriction id/name and the value is a list of each of the 
         //    predicate-object pairs for that restriction
         Map<String, List<String>> restrictions = new HashMap<>();
         // Separately track which restriction ids/names are class and which are data range restrictions
         Set<String> classRestrictions = new HashSet<>();
         
-        for (Map<String, String> resDetails : restrictionInfo) {  
+        // Collect the restriction ids, predicates and objects as the query results are read, since 
+        //    the withRestrictions and unionOf/intersectionOf members are queried (after the results are 
+        //    closed, so that a connection is not held while another is borrowed)
+        List<List<String>> restrictionDetails = new ArrayList<>();
+        storeTemplate.queryForEach(GET_RESTRICTION_DETAILS, resDetails -> {
         	String restrictionId = processURIName(prefixes, resDetails.get("name"));
         	String obj = resDetails.get("o");
         	if (OWL_RESTRICTION_FULL_URI.equals(obj)) {
         		classRestrictions.add(restrictionId);
         	} 
         	if (OWL_RESTRICTION_FULL_URI.equals(obj) || RDFS_DATATYPE_FULL_URI.equals(obj)) {  // Don't care about the rdfs:Datatype declaration
-        		continue;
+        		return;
         	}
-        	String pred = processURIName(prefixes, resDetails.get("p"));
+        	restrictionDetails.add(Arrays.asList(restrictionId, processURIName(prefixes, resDetails.get("p")), 
+        			obj));
+        });
+        
+        for (List<String> restrictionDetail : restrictionDetails) {
+        	String restrictionId = restrictionDetail.get(0);
+        	String pred = restrictionDetail.get(1);
+        	String obj = restrictionDetail.get(2);
 			String details = pred + " " + processURIName(prefixes, obj);
 			if ("owl:withRestrictions".equals(pred)) {
 				// Get the details of the restriction
-		        List<Map<String, String>> memberInfo = snarlTemplate.query(GET_WITHRESTRICTIONS, 
-		        		createMap(BNODE, obj), new SimpleRowMapper());
+		        List<Map<String, String>> memberInfo = storeTemplate.query(GET_WITHRESTRICTIONS, 
+		        		createMap(BNODE, obj));
 		        for (Map<String, String> memberDetails : memberInfo) { 
 		        	details =  processURIName(prefixes, memberDetails.get("p")) + " " + memberDetails.get("o");
 		        	updateMapValue(restrictions, restrictionId, details);
 		        }
 			} else if ("owl:unionOf".equals(pred) || "owl:intersectionOf".equals(pred)) {
 				// Need to get the union'ed/intersection'ed datatypes
-		        List<String> members = snarlTemplate.query(GET_UNION_INTERSECTION_RESTRICTIONS, 
-		        		createMap(BNODE, obj), new SingleMapper(MEMBER));
+		        List<String> members = storeTemplate.queryForList(GET_UNION_INTERSECTION_RESTRICTIONS, 
+		        		createMap(BNODE, obj), MEMBER);
 		        StringBuilder detailsSB = new StringBuilder();
 		        detailsSB.append(pred);
 		        for (String member : members) { 
@@ -780,19 +821,16 @@ public class GraphDBAccess {
 	 * Get all blank nodes that are defined as oneOf enumerations, but are NOT defined as 
 	 * an equivalentClass.
 	 * 
-	 * @param  snarlTemplate SnarlTemplate with server details
+	 * @param  storeTemplate StoreTemplate for the database
 	 * @return List<ClassModel> of classes with details (ClassModel)
 	 * 
 	 */
-	public List<ClassModel> getStandaloneBlankNodes(final SnarlTemplate snarlTemplate) {
+	public List<ClassModel> getStandaloneBlankNodes(final StoreTemplate storeTemplate) {
 	
-		checkAdminConnection();
 		
 	    List<ClassModel> models = new ArrayList<>();
-	    List<String> classInfo = snarlTemplate.query(GET_STANDALONE_ONEOF_CLASS_NAMES, 
-	    		new SingleMapper("name"));
-	    List<String> datatypeInfo = snarlTemplate.query(GET_STANDALONE_ONEOF_DATATYPE_NAMES, 
-	    		new SingleMapper("name"));
+	    List<String> classInfo = storeTemplate.queryForList(GET_STANDALONE_ONEOF_CLASS_NAMES, "name");
+	    List<String> datatypeInfo = storeTemplate.queryForList(GET_STANDALONE_ONEOF_DATATYPE_NAMES, "name");
 	    
 	    addOneOfs(models, classInfo, 'c');
 	    addOneOfs(models, datatypeInfo, 'd');
@@ -801,53 +839,62 @@ public class GraphDBAccess {
 	}
 	
 	/**
-	 * Loads input file with given file format as named graph to Stardog database.
+	 * Loads input file with given file format to a new database in the GraphStore, and checks that
+	 * some triples were loaded. If caching is enabled, the database is keyed by the hash of the 
+	 * file's contents, and a previously loaded database is reused. The database must be released
+	 * using releaseDatabase().
 	 * 
-	 * @param  snarlTemplate (returned, associated with the data source for the db)
-	 * @param  reasoningTemplate (returned, associated with the data source for the db)
-	 * @param  inputFile Full ontology as a byte array
+	 * @param  fileData InputStream of the full ontology (which is copied to a temp file, without
+	 *              reading it all into memory)
 	 * @param  graphTitle Title for database name
 	 * @param  fileFormat File extension
+	 * @return StoreTemplate associated with the db (use withReasoning() for queries with reasoning)
 	 * @throws OntoGraphException due to duplicate graph title (which indicates that the db already exists),
-	 *                  or an IO error in creating the input file for loading to Stardog
+	 *                  an IO error in creating the input file for loading to the store, or if no 
+	 *                  triples were loaded
 	 * @throws IOException 
 	 * 
 	 */   
-	public void loadFileToDB(SnarlTemplate snarlTemplate, SnarlTemplate reasoningTemplate, byte[] fileData, 
-	        String graphTitle, String fileFormat) throws OntoGraphException, IOException {
+	public StoreTemplate loadFileToDB(InputStream fileData, String graphTitle, String fileFormat) 
+			throws OntoGraphException, IOException {
 
-    	checkAdminConnection();
-    	
 	    // Get the list of existing databases and if the requested name is in use, then error
 	    // TODO Allow overwrite of database (it may be orphaned, which is usually caused in debug by 
     	//    terminating a run, or by some connection failure)
-	    if (adminConnection.list().contains(graphTitle)) {
+	    // (Cached databases are named by the hash of their contents, not the graph title)
+	    if (!ontologyCache.isEnabled() && graphStore.databaseExists(graphTitle)) {
 	        throw new OntoGraphException("Requested graph title (" + graphTitle + ") is already in use. Please choose "
 	                + "another title.");  
 	    }
 		
-	    String path = tempDir + graphTitle + "." + fileFormat;
-	    
-	    // Write input (byte[]) to file object
-	    File ontolDefn = new File(path);
+	    // Write (stream) input to a uniquely named file object, calculating the hash of the contents
+	    File ontolDefn = Files.createTempFile(Paths.get(tempDir), graphTitle + "_", "." + fileFormat).toFile();
+	    MessageDigest digest = DigestUtils.getSha256Digest();
 	    try {
-			FileUtils.writeByteArrayToFile(ontolDefn, fileData);
+			FileUtils.copyInputStreamToFile(new DigestInputStream(fileData, digest), ontolDefn);
 		} catch (IOException e) {  //NOSONAR - Logged as part of OntoGraphException handling
-	        Files.delete(ontolDefn.toPath());   
+	        Files.deleteIfExists(ontolDefn.toPath());   
 	        throw new OntoGraphException("Failed to create db for the ontology file for the graph, " + graphTitle
 	        		+ ". IO Exception details: " + e.getMessage());  
 		} 
 	    
-	    ConnectionConfiguration connConfig = adminConnection.newDatabase(graphTitle).create(ontolDefn.toPath());
-	    snarlTemplate.setDataSource(new DataSource(connConfig));
-	    
-	    ConnectionConfiguration reasoningConfig = ConnectionConfiguration.to(graphTitle).reasoning(true)
-				.server(stardogServer)
-				.credentials(stardogUser, stardogPassword);
-	    reasoningTemplate.setDataSource(new DataSource(reasoningConfig));
-	    
-	    // Delete file (clean-up)
-	    Files.delete(ontolDefn.toPath());	
+	    try {
+	    	if (!ontologyCache.isEnabled()) {
+	    		StoreTemplate storeTemplate = graphStore.createDatabase(graphTitle, ontolDefn.toPath());
+	    		checkDBLoad(storeTemplate, graphTitle);
+	    		return storeTemplate;
+	    	}
+	    	
+	    	String key = Hex.encodeHexString(digest.digest()) + "." + fileFormat.toLowerCase();
+	    	return ontologyCache.acquire(key, ontolDefn.length(), databaseName -> {
+	    		StoreTemplate storeTemplate = graphStore.createDatabase(databaseName, ontolDefn.toPath());
+	    		checkDBLoad(storeTemplate, databaseName);
+	    		return storeTemplate;
+	    	});
+	    } finally {
+	    	// Delete file (clean-up)
+	    	Files.delete(ontolDefn.toPath());	
+	    }
 	}
 	
 	/*
@@ -878,19 +925,20 @@ public class GraphDBAccess {
 	/**
 	 * Gets all datatype, object or annotation properties and their details.
 	 * 
-	 * @param  snarlTemplate
+	 * @param  storeTemplate
 	 * @param  prefixes List<PrefixModel> which may be updated if the property uses a new URI prefix
 	 * @param  query String defining the specific query 
 	 * @param  models List<PropertyModel> which is modified to add the requested properties
 	 * @param  propertyType char holding a 'd' for datatype properties, 'o' for object properties or
 	 *                an 'a' for annotation properties
+	 * @throws OntoGraphException
 	 * 
 	 */
-	private void addPropertyModels(SnarlTemplate snarlTemplate, List<PrefixModel> prefixes, 
-			final String query, List<PropertyModel> models, final char propertyType) {
+	private void addPropertyModels(StoreTemplate storeTemplate, List<PrefixModel> prefixes, 
+			final String query, List<PropertyModel> models, final char propertyType) 
+					throws OntoGraphException {
 	
-	    List<Map<String, String>> propertyInfo = snarlTemplate.query(query, new SimpleRowMapper());
-	    for (Map<String, String> prop : propertyInfo) {
+	    storeTemplate.queryForEach(query, prop -> {
 	    	String fullPropName = prop.get("name");
 	    	String propName = processURIName(prefixes, fullPropName);
 	    	models.add(PropertyModel.builder()
@@ -899,7 +947,7 @@ public class GraphDBAccess {
 	            .fullPropertyName(fullPropName)
 	            .propertyType(propertyType)
 	            .build());
-	    }
+	    });
 	}
 
 	/**
@@ -977,33 +1025,6 @@ public class GraphDBAccess {
 		}
 	}
 
-	/**
-	 * Validates that the admin connection to Stardog is (still) in place.
-	 * The connection may be lost if Stardog is restarted. 
-	 * 
-	 */
-	private void checkAdminConnection() {
-		
-		try {
-			if (adminConnection != null && adminConnection.isOpen()) {
-				return;
-			}
-			if (adminConnection != null && !adminConnection.isOpen()) {
-				adminConnection.close();
-			}
-			adminConnection = AdminConnectionConfiguration
-					.toServer(stardogServer)
-					.credentials(stardogUser, stardogPassword)
-					.connect();
-			
-		} catch (StardogException e) {
-			if (adminConnection != null) {
-				adminConnection.close();
-			}
-			throw e;
-		}
-	}
-
 	/**
 	 * Determines if any of the RDF properties (in the input List, propDetails) have datatypes 
 	 * defined for their rdf:range values. If so, those properties are returned. The range value is 
@@ -1034,10 +1055,15 @@ public class GraphDBAccess {
 
 	/**
      * Creates/updates the maps containing the datatype and object properties and 
-     * their values for an individual.
+     * their values for an individual that is a blank node.
      * 
-     * @param  snarlTemplate SnarlTemplate connection details
-     * @param  fullIndivName String full IRI
+     * Unlike the properties of other individuals (see getIndividualProperties), these are queried
+     * for each blank node. The blank node is matched using a regex of its label, whose results depend 
+     * on the labels that are assigned by the store, and which cannot be replaced by the exact match 
+     * of a bulk query without changing the graphs.
+     * 
+     * @param  storeTemplate StoreTemplate for the database
+     * @param  fullIndivName String blank node name ("_:" followed by its label)
      * @param  prefixes List of PrefixModels
      * @param  datatypeProperties List<TypeAndValueModel> where each entry's "type" is the property name
      *                and the "value" is the property value. This list is empty at the start of the 
@@ -1048,36 +1074,110 @@ public class GraphDBAccess {
      * @throws OntoGraphException
      * 
      */
-    private void createIndividualPropertyLists(SnarlTemplate snarlTemplate, 
+    private void createBlankNodePropertyLists(StoreTemplate storeTemplate, 
     		List<PrefixModel> prefixes, final String fullIndivName, 
     		List<TypeAndValueModel> datatypeProperties, List<TypeAndValueModel> objectProperties) 
     				throws OntoGraphException {
     	
-    	List<List<org.openrdf.model.Value>> propList;
-    	if (fullIndivName.startsWith("_:")) {		// Handle a blank node
-    		propList = snarlTemplate.query(GET_INDIVIDUAL_BNODE_PROPERTIES, 
-        		createMap(BNODE, fullIndivName.substring(2)), indivPropertyMapper);
-    	} else {
-    		propList = snarlTemplate.query(GET_INDIVIDUAL_PROPERTIES, 
-    			createMap("name", Values.iri(fullIndivName)), indivPropertyMapper);
+    	List<List<String>> propList = storeTemplate.queryForValues(GET_INDIVIDUAL_BNODE_PROPERTIES, 
+        		createMap(BNODE, fullIndivName.substring(2)), "prop", "val");
+    	
+        // Also check for any properties with a value that is an empty collection (rdf:nil)
+        List<String> propOfEmptyCollection = storeTemplate.queryForList(GET_RDF_EMPTY_COLLECTIONS, 
+        		createMap("indiv", Values.iri(fullIndivName)), "p");
+        
+        processIndividualPropertyLists(storeTemplate, prefixes, propList, propOfEmptyCollection, 
+        		datatypeProperties, objectProperties);
+    }
+    
+    /**
+     * Gets the property values of the specified individuals (other than blank nodes) using a single 
+     * query. The query results are streamed, and only the rows of the individuals are kept. (As for
+     * queries per individual, the values are RDF terms, so that literals include their datatype.)
+     * 
+     * @param  storeTemplate StoreTemplate for the database
+     * @param  fullIndivNames Set<String> of the individuals' full IRIs
+     * @return Map<String, List<List<String>>> of the property and value pairs, grouped by individual
+     * @throws OntoGraphException
+     * 
+     */
+    private static Map<String, List<List<String>>> getIndividualProperties(StoreTemplate storeTemplate, 
+    		Set<String> fullIndivNames) throws OntoGraphException {
+    	
+    	Map<String, List<List<String>>> propertyMap = new HashMap<>();
+    	if (fullIndivNames.isEmpty()) {
+    		return propertyMap;
+    	}
+    	
+    	storeTemplate.queryForEach(GET_ALL_INDIVIDUAL_PROPERTIES, row -> {
+    		String name = row.get("name");
+    		if (fullIndivNames.contains(name)) {
+    			propertyMap.computeIfAbsent(name, k -> new ArrayList<>())
+    					.add(Arrays.asList(row.getTerm("prop"), row.getTerm("val")));
+    		}
+    	});
+    	return propertyMap;
+    }
+    
+    /**
+     * Gets the properties of an individual whose value is an empty collection (rdf:nil).
+     * 
+     * @param  emptyCollectionMap Map<String, List<Map<String, String>>> of the results of the
+     *              GET_ALL_RDF_EMPTY_COLLECTIONS query, grouped by individual name
+     * @param  fullIndivName String
+     * @return List<String> of property names
+     * 
+     */
+    private static List<String> getPropertiesOfEmptyCollections(
+    		Map<String, List<Map<String, String>>> emptyCollectionMap, final String fullIndivName) {
+    	
+    	List<String> propOfEmptyCollection = new ArrayList<>();
+    	for (Map<String, String> emptyCollection : emptyCollectionMap.getOrDefault(fullIndivName, 
+    			new ArrayList<>())) {
+    		propOfEmptyCollection.add(emptyCollection.get("p"));
     	}
+    	return propOfEmptyCollection;
+    }
+    
+	/**
+     * Creates/updates the maps containing the datatype and object properties and their values for
+     * an individual, from the results of the individual's property queries.
+     * 
+     * @param  storeTemplate StoreTemplate for the database
+     * @param  prefixes List of PrefixModels
+     * @param  propList List<List<String>> of the individual's property and value pairs
+     * @param  propOfEmptyCollection List<String> of the individual's properties whose value is 
+     *                an empty collection (rdf:nil)
+     * @param  datatypeProperties List<TypeAndValueModel> where each entry's "type" is the property name
+     *                and the "value" is the property value. This list is empty at the start of the 
+     *                method and holds the datatype properties on return.
+     * @param  objectProperties List<TypeAndValueModel> where each entry's "type" is property name
+     *                and the "value" is the property value. This list is empty at the start of the 
+     *                method and holds the object properties on return.
+     * @throws OntoGraphException
+     * 
+     */
+    private void processIndividualPropertyLists(StoreTemplate storeTemplate, List<PrefixModel> prefixes, 
+    		List<List<String>> propList, List<String> propOfEmptyCollection, 
+    		List<TypeAndValueModel> datatypeProperties, List<TypeAndValueModel> objectProperties) 
+    				throws OntoGraphException {
        
         // Go through the list of properties and values, and separate the blank nodes, object properties
         //    and datatype properties
-        for (List<org.openrdf.model.Value> propValue : propList) {
+        for (List<String> propValue : propList) {
         	// Remove any rdf-syntax properties that are not rdf:subject, predicate, object, seeAlso,
         	//    comment or isDefinedBy
-        	String property = propValue.get(0).toString();
+        	String property = propValue.get(0);
         	if (property.startsWith(RDF_PREFIX) && !rdfProps.contains(property)) {
         		continue;
         	}
-        	String value = propValue.get(1).toString();
+        	String value = propValue.get(1);
     		// Check for a blank node value
     		if (value.startsWith("_:")) {
     			// Blank node could be a reference to a parseType="Resource" individual, a container, 
     			//    a collection/list, or a datatype subclass - Determine the type and add the details
     			//    to either the datatypeProperties or objectProperties list
-    			processBlankNodeProperty(prefixes, datatypeProperties, objectProperties, snarlTemplate, 
+    			processBlankNodeProperty(prefixes, datatypeProperties, objectProperties, storeTemplate, 
     					propValue);
     		} else {
     	        // Is an object or data property
@@ -1086,9 +1186,7 @@ public class GraphDBAccess {
     		}
         }
 
-        // Also check for any properties with a value that is an empty collection (rdf:nil)
-        List<String> propOfEmptyCollection = snarlTemplate.query(GET_RDF_EMPTY_COLLECTIONS, 
-        		createMap("indiv", Values.iri(fullIndivName)), new SingleMapper("p"));
+        // Add any properties with a value that is an empty collection (rdf:nil)
         if (!propOfEmptyCollection.isEmpty()) {
         	for (String prop : propOfEmptyCollection) {
         		objectProperties.add(TypeAndValueModel.createTypeAndValueModel(prop, "rdf:nil"));
@@ -1125,49 +1223,52 @@ public class GraphDBAccess {
 	/**
 	 * Queries the database to get all annotation, datatype and object properties for an ontology.
 	 * 
-	 * @param snarlTemplate SnarlTemplate with server details
+	 * @param storeTemplate StoreTemplate for the database
 	 * @param prefixes List<PrefixModel> defining all known prefixes
 	 * @return List<PropertyModel> returning all the property details
+	 * @throws OntoGraphException
 	 * 
 	 */
-	private List<PropertyModel> getAllProperties(SnarlTemplate snarlTemplate, 
-			List<PrefixModel> prefixes) {
+	private List<PropertyModel> getAllProperties(StoreTemplate storeTemplate, 
+			List<PrefixModel> prefixes) throws OntoGraphException {
         
 		List<PropertyModel> models = new ArrayList<>();
 
-        addPropertyModels(snarlTemplate, prefixes, GET_RDF_PROPERTIES, models, 'r');
-        addPropertyModels(snarlTemplate, prefixes, GET_DATATYPE_PROPERTIES, models, 'd');
-        addPropertyModels(snarlTemplate, prefixes, GET_OBJECT_PROPERTIES, models, 'o');
-        addPropertyModels(snarlTemplate, prefixes, GET_ANNOTATION_PROPERTIES, models, 'a');
+        addPropertyModels(storeTemplate, prefixes, GET_RDF_PROPERTIES, models, 'r');
+        addPropertyModels(storeTemplate, prefixes, GET_DATATYPE_PROPERTIES, models, 'd');
+        addPropertyModels(storeTemplate, prefixes, GET_OBJECT_PROPERTIES, models, 'o');
+        addPropertyModels(storeTemplate, prefixes, GET_ANNOTATION_PROPERTIES, models, 'a');
 		
         return models;
 	}
 
 	/**
-	 * Query for any datatype attributes of the class with the IRI, classIRI
+	 * Query for the datatype attributes of all classes
 	 * 
-	 * @param  snarlTemplate SnarlTemplate
-	 * @param  classIRI String
-	 * @return attributes List<String>
-	 * @throws OntoGraphException
+	 * @param  storeTemplate StoreTemplate
+	 * @return Map<String, List<String>> where the key is the full class name and the value is the list 
+	 *              of its attributes
 	 * 
 	 */
-	private List<String> getAttributes(SnarlTemplate snarlTemplate, final String classIRI) 
-			throws OntoGraphException {
+	private Map<String, List<String>> getAttributeIndex(StoreTemplate storeTemplate) {
 	 
-	    Map<String, Object> className = createMap("name", Values.iri(classIRI));
+	    Map<String, List<String>> attributeIndex = new HashMap<>();
 		
 		// Query for attributes where the class is the domain of a datatype property
-	    List<String> attributes = snarlTemplate.query(GET_DATATYPE_PROPERTIES_WITH_DOMAINS, className, 
-				new SingleMapper("attr"));
+	    for (Map<String, String> qr : storeTemplate.query(GET_DATATYPE_PROPERTIES_WITH_DOMAINS)) {
+	    	attributeIndex.computeIfAbsent(qr.get("name"), k -> new ArrayList<>()).add(qr.get("attr"));
+	    }
 		// Or where is it the domain of an rdf:Property whose range is a datatype
-		List<String> entitySpecificAttributes = checkForRDFDataAttributes(
-	    		snarlTemplate.query(GET_RDF_PROPERTIES_FOR_ENTITY, className, new SimpleRowMapper()));
+	    for (Entry<String, List<Map<String, String>>> entry : 
+	    		groupByName(storeTemplate.query(GET_RDF_PROPERTIES_FOR_ENTITY)).entrySet()) {
+			List<String> entitySpecificAttributes = checkForRDFDataAttributes(entry.getValue());
+			if (!entitySpecificAttributes.isEmpty()) {
+				attributeIndex.computeIfAbsent(entry.getKey(), k -> new ArrayList<>())
+						.addAll(entitySpecificAttributes);
+			}
+	    }
 		
-		if (!entitySpecificAttributes.isEmpty()) {
-			attributes.addAll(entitySpecificAttributes);
-		}
-		return attributes;
+		return attributeIndex;
 	}
 
 	/**
@@ -1189,49 +1290,45 @@ public class GraphDBAccess {
 	}
 
 	/**
-	 * Gets all the superclasses for a class.
+	 * Gets the superclasses of all classes.
 	 * 
-	 * @param  snarlTemplate SnarlTemplate
-	 * @param  prefixes List<String> defining the current prefixes
-	 * @param  fullClassName String whose superclasses are needed
-	 * @return List<String> holding the superclasses
-	 * @throws OntoGraphException
+	 * @param  storeTemplate StoreTemplate
+	 * @return Map<String, List<String>> where the key is the full class name and the value is the list
+	 *              of its (full) superclass names
 	 * 
 	 */
-    private List<String> getSuperClasses(final SnarlTemplate snarlTemplate,
-    		List<PrefixModel> prefixes, final String fullClassName) throws OntoGraphException {
+    private static Map<String, List<String>> getSuperClassIndex(final StoreTemplate storeTemplate) {
     	
-        // Set up parameterized query
-        List<String> superClassList = snarlTemplate.query(GET_SUPERCLASSES, 
-        		createMap("name", Values.iri(fullClassName)), new SingleMapper(CLASS));
-       
-		if (superClassList.isEmpty()) {
-			return new ArrayList<>();
-		} else {
-			// Change to displaying prefixes for the superclass names
-			return processURIList(prefixes, superClassList);
-		}
+    	Map<String, List<String>> superClassIndex = new HashMap<>();
+    	for (Map<String, String> qr : storeTemplate.query(GET_SUPERCLASSES)) {
+    		superClassIndex.computeIfAbsent(qr.get("name"), k -> new ArrayList<>()).add(qr.get(CLASS));
+    	}
+    	
+    	return superClassIndex;
     }
     
     /**
      * Get object and datatype property details for individuals that are defined in the ontology,
      * but do not have an rdf:type (for example, restrictions that are domains or ranges)
      * 
-     * @param  snarlTemplate SnarlTemplate connection details
+     * @param  storeTemplate StoreTemplate for the database
      * @param  referencedIndividuals Set of individuals referenced as object property values
      * @param  definedIndividuals Set of individuals that are defined with rdf:type
      * @param  prefixes List of PrefixModels
+     * @param  emptyCollectionMap Map<String, List<Map<String, String>>> of the properties whose value
+     *              is an empty collection, grouped by individual name
      * @return List of IndividualModels
      * @throws OntoGraphException
      * 
      */
-    private List<IndividualModel> getUntypedIndividuals(final SnarlTemplate snarlTemplate, 
-            Set<String> referencedIndividuals, Set<String> definedIndividuals, List<PrefixModel> prefixes) 
-                    throws OntoGraphException {
+    private List<IndividualModel> getUntypedIndividuals(final StoreTemplate storeTemplate, 
+            Set<String> referencedIndividuals, Set<String> definedIndividuals, List<PrefixModel> prefixes,
+            Map<String, List<Map<String, String>>> emptyCollectionMap) throws OntoGraphException {
     	
         List<IndividualModel> models = new ArrayList<>();
         
-        // Find individuals that are defined, but do not have an rdf:type
+        // Find individuals that are defined, but do not have an rdf:type (keyed by the referenced name)
+        Map<String, String> fullIndivNames = new LinkedHashMap<>();
         for (String individual : referencedIndividuals) {
             // Skip any defined individuals
             if (definedIndividuals.contains(individual)) {
@@ -1243,11 +1340,9 @@ public class GraphDBAccess {
             	// Plug full namespace back into the prefixed name to use as IRI
             	String indName = individual.substring(individual.indexOf(':') + 1);
             	String prefix = individual.substring(0, individual.indexOf(':'));
-            	for (PrefixModel pm : prefixes) {
-            		if (prefix.equals(pm.getPrefixName())) {
-            			fullIndivName = pm.getUrl() + indName;
-            			break;
-            		}
+            	String url = PrefixList.of(prefixes).findUrl(prefix);
+            	if (url != null) {
+            		fullIndivName = url + indName;
             	}
             }
             
@@ -1256,12 +1351,34 @@ public class GraphDBAccess {
             if (fullIndivName.contains(" (")) {
             	fullIndivName = fullIndivName.substring(0, fullIndivName.indexOf(" ("));
             }
-            
+            fullIndivNames.put(individual, fullIndivName);
+        }
+        
+        // Get the properties of all the individuals (other than blank nodes) using a single query
+        Set<String> iriNames = new HashSet<>();
+        for (String fullIndivName : fullIndivNames.values()) {
+        	if (!fullIndivName.startsWith("_:")) {
+        		iriNames.add(fullIndivName);
+        	}
+        }
+        Map<String, List<List<String>>> propertyMap = getIndividualProperties(storeTemplate, iriNames);
+        
+        for (Entry<String, String> names : fullIndivNames.entrySet()) {
+        	String individual = names.getKey();
+        	String fullIndivName = names.getValue();
+        	
             // Get property details and create model
             List<TypeAndValueModel> datatypeProperties = new ArrayList<>();
             List<TypeAndValueModel> objectProperties = new ArrayList<>();
-            createIndividualPropertyLists(snarlTemplate, prefixes, fullIndivName, datatypeProperties,
-                    objectProperties);
+            if (fullIndivName.startsWith("_:")) {
+            	createBlankNodePropertyLists(storeTemplate, prefixes, fullIndivName, datatypeProperties,
+                    	objectProperties);
+            } else {
+            	processIndividualPropertyLists(storeTemplate, prefixes, 
+            			propertyMap.getOrDefault(fullIndivName, new ArrayList<>()), 
+            			getPropertiesOfEmptyCollections(emptyCollectionMap, fullIndivName), 
+            			datatypeProperties, objectProperties);
+            }
            
             models.add(IndividualModel.builder()
                     .individualName(individual)
@@ -1288,31 +1405,31 @@ public class GraphDBAccess {
      * @param  objectProperties List<TypeAndValueModel> where each entry's "type" is property name
      *                and the "value" is the property value. This list is empty at the start of the 
      *                method and holds the object properties on return.
-     * @param  snarlTemplate SnarlTemplate
-     * @param  property List<org.openrdf.model.Value> defining the property name and value
+     * @param  storeTemplate StoreTemplate
+     * @param  property List<String> defining the property name and value
      * @throws OntoGraphException
      * 
      */
     private void processBlankNodeProperty(List<PrefixModel> prefixes, 
     		List<TypeAndValueModel> datatypeProperties, List<TypeAndValueModel> objectProperties, 
-    		SnarlTemplate snarlTemplate, List<org.openrdf.model.Value> propValue) 
+    		StoreTemplate storeTemplate, List<String> propValue) 
     				throws OntoGraphException {
 
-    	String value = propValue.get(1).toString();
-    	String property = propValue.get(0).toString();
+    	String value = propValue.get(1);
+    	String property = propValue.get(0);
     	
 		// Blank node could be a reference to a parseType="Resource" individual, a container, 
 		//    a collection/list, or a datatype subclass 
     	// First determine the type 
 		Map<String, Object> bNodeMap = createMap(BNODE, value.substring(2));
-		String bNodeType = snarlTemplate.queryForObject(GET_RDF_BNODE_TYPE, bNodeMap, new SingleMapper("type"));
-        List<Map<String, String>> bNodeInfo = snarlTemplate.query(GET_RDF_BNODE, bNodeMap, new SimpleRowMapper());
+		String bNodeType = storeTemplate.queryForObject(GET_RDF_BNODE_TYPE, bNodeMap, "type");
+        List<Map<String, String>> bNodeInfo = storeTemplate.query(GET_RDF_BNODE, bNodeMap);
 		
 		if (StringUtils.isEmpty(bNodeType)) {
 			// May be a parseType "Resource", a collection has no type or a structured value 
 			// RDF collections are lists with members defined by rdf:first/rest
-			List<String> collectionMembers = snarlTemplate.query(
-					GET_RDF_BNODE_COLLECTION, bNodeMap, new SingleMapper(MEMBER));
+			List<String> collectionMembers = storeTemplate.queryForList(
+					GET_RDF_BNODE_COLLECTION, bNodeMap, MEMBER);
 			if (!collectionMembers.isEmpty()) {
 				// Is a collection, add the members to the appropriate list
 				for (String member : collectionMembers) {
@@ -1538,13 +1655,8 @@ public class GraphDBAccess {
 	    
 	    // Don't process if this is a blank node (only process if the name contains a ":")
 		if (fullName.contains(":")) {
-		    String prefix = null;
-		    for (PrefixModel pm : prefixes) {
-		        if (fullName.contains(pm.getUrl())) {
-		            prefix = pm.getPrefixName();
-		            break;
-		        }
-		    }
+		    // Find the prefix whose namespace begins the name (using the index of the prefixes)
+		    String prefix = PrefixList.of(prefixes).findPrefixName(fullName);
 	
 		    if (prefix != null) {
 		    	if (fullName.startsWith("http")) {
@@ -1569,7 +1681,8 @@ public class GraphDBAccess {
 	/**
 	 * Removes duplicates from the equivalentsDisjointsOneOfs relation map. Duplicates occur when
 	 * an ontology defines equivalencies or disjoints in both directions for a set of classes (i.e., class1 
-	 * disjointWith class2, and class2 disjointWith class1). 
+	 * disjointWith class2, and class2 disjointWith class1). The first occurrence of each combination
+	 * (in the iteration order of the map and its lists) is kept, and the order of each list is retained.
 	 * 
 	 * @param  holdingMap Map<String, List<TypeAndValueModel>> holding the original set of equivalencies, 
 	 *            disjoints and oneOfs.  The key of the map is a class name and the List<TypeAndValueModel> 
@@ -1579,45 +1692,30 @@ public class GraphDBAccess {
 	 * @return revised Map<String, List<TypeAndValueModel>> where duplicates are removed
 	 * 
 	 */
-	private static Map<String, List<TypeAndValueModel>> removeDupsFromRelationMap(
+	static Map<String, List<TypeAndValueModel>> removeDupsFromRelationMap(
 			Map<String, List<TypeAndValueModel>> holdingMap) {
 		
 		Map<String, List<TypeAndValueModel>> newMap = new HashMap<>();
-		// Array of strings of the form, "relation type" + "!$" + "class name 1" + "!$"
-		//    + "class name 2"
-		List<String> allMapDetails = new ArrayList<>();
-		// Array similar to above, but only one occurrence of the combination of relation type
-		//    and the class names
-		List<String> reducedMapDetails = new ArrayList<>();
+		// The combinations of relation type and class names that are in the new map, where the class 
+		//    names are ordered (so that class1-class2 and class2-class1 are the same combination): 
+		//    relation type -> lower class name -> higher class names
+		Map<String, Map<String, Set<String>>> relations = new HashMap<>();
 		
-		// Get all the relation map details
+		// Keep only the first occurrence of each combination of relation type, class1 and class2
 		for (Entry<String, List<TypeAndValueModel>> mapEntry : holdingMap.entrySet()) {
-			String key = mapEntry.getKey();
-			List<TypeAndValueModel> valueList = mapEntry.getValue();
-			for (TypeAndValueModel value : valueList) {
-				allMapDetails.add(value.getType() + "!$" + key + "!$" + value.getValue());  
-			}
-		}
-
-		// Get only the unique combinations of relation type, class1 and class2
-		for (String r12 : allMapDetails) {
-			String type = r12.substring(0, r12.indexOf("!$"));
-			String cl1 = r12.substring(r12.indexOf("!$") + 2, r12.lastIndexOf("!$"));
-			String cl2 = r12.substring(r12.lastIndexOf("!$") + 2);
-			if (!reducedMapDetails.contains(type + "!$" + cl1 + "!$" + cl2) 
-					&& !reducedMapDetails.contains(type + "!$" + cl2 + "!$" + cl1)) {
-				reducedMapDetails.add(type + "!$" + cl1 + "!$" + cl2);
+			String class1 = mapEntry.getKey();
+			for (TypeAndValueModel value : mapEntry.getValue()) {
+				String class2 = value.getValue();
+				boolean inOrder = class1.compareTo(class2) <= 0;
+				Set<String> related = relations.computeIfAbsent(value.getType(), k -> new HashMap<>())
+						.computeIfAbsent(inOrder ? class1 : class2, k -> new HashSet<>());
+				if (related.add(inOrder ? class2 : class1)) {
+					// (Appended in place, since updateMapValue copies the list for each new value)
+					newMap.computeIfAbsent(class1, k -> new ArrayList<>()).add(value);
+				}
 			}
 		}
 		
-		// Turn the unique combinations into a new relation map
-		for (String relCl1Cl2 : reducedMapDetails) {
-			String relType = relCl1Cl2.substring(0, relCl1Cl2.indexOf("!$"));
-			String class1 = relCl1Cl2.substring(relCl1Cl2.indexOf("!$") + 2, relCl1Cl2.lastIndexOf("!$"));
-			String class2 = relCl1Cl2.substring(relCl1Cl2.lastIndexOf("!$") + 2);
-			updateMapValue(newMap, class1, TypeAndValueModel.createTypeAndValueModel(relType, class2));
-		}
-		
 		return newMap;
 	}
 
@@ -1641,6 +1739,24 @@ public class GraphDBAccess {
 				processURIName(prefixes, value)));
 	}
 
+	/**
+	 * Groups query results by the value of their "name" variable (maintaining the order of the results).
+	 * 
+	 * @param  queryResults List<Map<String, String>>
+	 * @return Map<String, List<Map<String, String>>> where the key is the name, and the value is
+	 *              the list of results for that name
+	 * 
+	 */
+	private static Map<String, List<Map<String, String>>> groupByName(List<Map<String, String>> queryResults) {
+		
+		Map<String, List<Map<String, String>>> groupedResults = new HashMap<>();
+		for (Map<String, String> qr : queryResults) {
+			groupedResults.computeIfAbsent(qr.get("name"), k -> new ArrayList<>()).add(qr);
+		}
+		
+		return groupedResults;
+	}
+	
 	/**
 	 * Either creates a new entry in the hash map if the key does not exist, or adds
 	 * the value to the existing value.
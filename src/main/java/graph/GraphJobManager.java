@@ -0,0 +1,378 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import graph.models.GraphJobModel;
+import graph.models.GraphJobModel.Status;
+import graph.models.GraphModel;
+import graph.models.GraphRequestModel;
+
+/**
+ * GraphJobManager runs graph requests asynchronously, as jobs on a bounded thread pool.
+ *
+ * A submitted job is queued (up to a maximum number of jobs), and reports its status as it
+ * loads the ontology, queries it and generates the graph. The generated graph is held until it
+ * is retrieved, or until it expires. A job may be cancelled while it is queued or running - a
+ * running job stops (and releases its database) at its next status change. A job's cleanup (for
+ * example, deleting its uploaded ontology file) is run once it reaches a final status, including
+ * when it is cancelled before it starts.
+ *
+ */
+@Component
+public class GraphJobManager implements DisposableBean {
+
+	/**
+	 * The processing for a job, which reports its progress by updating the status.
+	 *
+	 */
+	@FunctionalInterface
+	public interface GraphJobTask {
+
+		/**
+		 * @param  progress Consumer<Status> which is called as each processing step starts
+		 * @return GraphModel holding the nodes and edges of the graph
+		 * @throws OntoGraphException
+		 *
+		 */
+		GraphModel run(Consumer<Status> progress) throws OntoGraphException;
+	}
+
+	private final ThreadPoolExecutor executor;
+	private final long ttlMillis;
+	private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates the job manager and its thread pool.
+	 *
+	 * @param  threads int number of jobs that run at the same time
+	 * @param  maxQueued int maximum number of jobs waiting to run
+	 * @param  ttlSeconds long number of seconds that a finished job (and its graph) is retained
+	 *
+	 */
+	@Autowired
+	public GraphJobManager(@Value("${graph.jobs.threads:2}") final int threads,
+			@Value("${graph.jobs.maxQueued:10}") final int maxQueued,
+			@Value("${graph.jobs.ttl:600}") final long ttlSeconds) {
+
+		if (threads < 1 || maxQueued < 1) {
+			throw new IllegalArgumentException("The number of job threads and the maximum number of "
+					+ "queued jobs must be at least 1");
+		}
+		AtomicInteger threadCount = new AtomicInteger();
+		ThreadFactory threadFactory = r -> {
+			Thread thread = new Thread(r, "ontograph-job-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+		this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(maxQueued), threadFactory);
+		this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+	}
+
+	/**
+	 * Queues a job.
+	 *
+	 * @param  requestModel GraphRequestModel of the job
+	 * @param  task GraphJobTask performing the processing
+	 * @return GraphJobModel with the job id and status
+	 * @throws OntoGraphException if the maximum number of jobs are already queued
+	 *
+	 */
+	public GraphJobModel submit(GraphRequestModel requestModel, GraphJobTask task) throws OntoGraphException {
+		return submit(requestModel, task, () -> { });
+	}
+
+	/**
+	 * Queues a job, whose cleanup is run (once) when the job completes, fails or is cancelled - 
+	 * whether or not its task was started. If the job cannot be queued, the cleanup is run before
+	 * the exception is thrown.
+	 *
+	 * @param  requestModel GraphRequestModel of the job
+	 * @param  task GraphJobTask performing the processing
+	 * @param  cleanup Runnable releasing the job's resources
+	 * @return GraphJobModel with the job id and status
+	 * @throws OntoGraphException if the maximum number of jobs are already queued
+	 *
+	 */
+	public GraphJobModel submit(GraphRequestModel requestModel, GraphJobTask task, Runnable cleanup) 
+			throws OntoGraphException {
+
+		removeExpiredJobs();
+
+		Job job = new Job(UUID.randomUUID().toString(), requestModel, cleanup);
+		try {
+			// The future is set before the job is visible (so that a cancel always finds it)
+			job.future = executor.submit(() -> job.run(task));
+		} catch (RejectedExecutionException e) {  //NOSONAR - Logged as part of OntoGraphException handling
+			job.cleanUp();
+			throw new OntoGraphException("The maximum number of graph jobs are queued. Please try again later.");
+		}
+		jobs.put(job.jobId, job);
+
+		return job.toModel();
+	}
+
+	/**
+	 * Returns the status of a job.
+	 *
+	 * @param  jobId String
+	 * @return GraphJobModel
+	 *
+	 */
+	public GraphJobModel getStatus(final String jobId) {
+		return getJob(jobId).toModel();
+	}
+
+	/**
+	 * Returns the graph generated by a completed job.
+	 *
+	 * @param  jobId String
+	 * @return GraphModel
+	 *
+	 */
+	public GraphModel getResult(final String jobId) {
+
+		Job job = getJob(jobId);
+		if (job.status != Status.COMPLETED) {
+			throw new IllegalArgumentException("Graph job " + jobId + " has not completed (its status is "
+					+ job.status + ").");
+		}
+
+		return job.result;
+	}
+
+	/**
+	 * Returns the GraphRequestModel of a job.
+	 *
+	 * @param  jobId String
+	 * @return GraphRequestModel
+	 *
+	 */
+	public GraphRequestModel getRequest(final String jobId) {
+		return getJob(jobId).requestModel;
+	}
+
+	/**
+	 * Cancels a job (if it has not finished).
+	 *
+	 * @param  jobId String
+	 * @return GraphJobModel with the updated status
+	 *
+	 */
+	public GraphJobModel cancel(final String jobId) {
+
+		Job job = getJob(jobId);
+		synchronized (job) {
+			if (!job.status.isFinished()) {
+				job.finish(Status.CANCELLED, null, null);
+				// A queued job is removed, and a running job is interrupted
+				job.future.cancel(true);
+				executor.remove((Runnable) job.future);
+				// A job that was not started will not run, so it is cleaned up here
+				//   (a running job is cleaned up when its task ends)
+				if (!job.started) {
+					job.cleanUp();
+				}
+			}
+		}
+
+		return job.toModel();
+	}
+
+	/**
+	 * Stops the thread pool (called when the application context is closed), and cleans up the
+	 * jobs that were not started.
+	 *
+	 */
+	@Override
+	public void destroy() {
+
+		executor.shutdownNow();
+		for (Job job : jobs.values()) {
+			synchronized (job) {
+				if (!job.started) {
+					job.cleanUp();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the details of a job, after removing any expired jobs.
+	 *
+	 * @param  jobId String
+	 * @return Job
+	 *
+	 */
+	private Job getJob(final String jobId) {
+
+		removeExpiredJobs();
+		Job job = jobs.get(jobId);
+		if (job == null) {
+			throw new IllegalArgumentException("Unknown graph job: " + jobId);
+		}
+
+		return job;
+	}
+
+	/**
+	 * Removes the jobs that finished more than ttlSeconds ago.
+	 *
+	 */
+	private void removeExpiredJobs() {
+
+		long expiry = System.currentTimeMillis() - ttlMillis;
+		for (Iterator<Job> it = jobs.values().iterator(); it.hasNext(); ) {
+			Job job = it.next();
+			if (job.status.isFinished() && job.finishedAt < expiry) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Job holds the request, status and result (or error) of a graph job.
+	 *
+	 */
+	private static class Job {
+
+		private final String jobId;
+		private final GraphRequestModel requestModel;
+		private volatile Status status = Status.QUEUED;
+		private volatile GraphModel result;
+		private volatile String error;
+		private volatile long finishedAt;
+		private volatile Future<?> future;
+		private final Runnable cleanup;
+		private boolean started;
+		private boolean cleanedUp;
+
+		Job(final String jobId, GraphRequestModel requestModel, Runnable cleanup) {
+			this.jobId = jobId;
+			this.requestModel = requestModel;
+			this.cleanup = cleanup;
+		}
+
+		/**
+		 * Runs the task (unless the job was cancelled), records its result or failure, and then
+		 * cleans up the job.
+		 *
+		 * @param  task GraphJobTask
+		 *
+		 */
+		void run(GraphJobTask task) {
+
+			synchronized (this) {
+				if (status == Status.CANCELLED) {
+					cleanUp();
+					return;
+				}
+				started = true;
+			}
+			try {
+				GraphModel graph = task.run(this::updateStatus);
+				finish(Status.COMPLETED, graph, null);
+			} catch (Exception e) {  //NOSONAR - Reported in the job status
+				finish(Status.FAILED, null, e.getMessage());
+			} finally {
+				cleanUp();
+			}
+		}
+
+		/**
+		 * Runs the job's cleanup, if it has not already been run.
+		 *
+		 */
+		synchronized void cleanUp() {
+
+			if (!cleanedUp) {
+				cleanedUp = true;
+				cleanup.run();
+			}
+		}
+
+		/**
+		 * Updates the status of a running job, stopping the job if it was cancelled.
+		 *
+		 * @param  newStatus Status
+		 *
+		 */
+		synchronized void updateStatus(Status newStatus) {
+
+			if (status == Status.CANCELLED) {
+				throw new CancellationException("Graph job " + jobId + " was cancelled");
+			}
+			status = newStatus;
+		}
+
+		/**
+		 * Sets the final status of the job (a cancelled job is not updated).
+		 *
+		 * @param  finalStatus Status
+		 * @param  graph GraphModel (null unless the job completed)
+		 * @param  errorMessage String (null unless the job failed)
+		 *
+		 */
+		synchronized void finish(Status finalStatus, GraphModel graph, final String errorMessage) {
+
+			if (status != Status.CANCELLED) {
+				result = graph;
+				error = errorMessage;
+				finishedAt = System.currentTimeMillis();
+				status = finalStatus;
+			}
+		}
+
+		/**
+		 * Returns the current details of the job.
+		 *
+		 * @return GraphJobModel
+		 *
+		 */
+		GraphJobModel toModel() {
+
+			return GraphJobModel.builder()
+					.jobId(jobId)
+					.graphTitle(requestModel.getGraphTitle())
+					.visualization(requestModel.getVisualization())
+					.graphType(requestModel.getGraphType())
+					.status(status)
+					.error(error)
+					.build();
+		}
+	}
+}
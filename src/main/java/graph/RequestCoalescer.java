@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * RequestCoalescer ("single-flight") shares one in-flight computation between concurrent, identical
+ * requests. The first request for a key performs the computation, and any request for the same key
+ * that arrives while it runs waits for, and receives, the same result (or failure). Nothing is
+ * retained once the computation completes - a later request computes the result again.
+ *
+ * @param <K> Key type (identifying identical requests)
+ * @param <V> Result type (which must not be modified by the requests, since it is shared)
+ *
+ */
+public class RequestCoalescer<K, V> {
+
+	/**
+	 * The computation for a request.
+	 *
+	 * @param <V> Result type
+	 *
+	 */
+	@FunctionalInterface
+	public interface Computation<V> {
+
+		/**
+		 * @return V result
+		 * @throws OntoGraphException
+		 *
+		 */
+		V compute() throws OntoGraphException;
+	}
+
+	private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the result of the computation for the key, either by performing the computation or
+	 * by waiting for the in-flight computation of an identical request.
+	 *
+	 * @param  key K identifying the request
+	 * @param  computation Computation that is performed if no identical request is in flight
+	 * @return V result
+	 * @throws OntoGraphException if the (shared) computation failed
+	 *
+	 */
+	public V execute(K key, Computation<V> computation) throws OntoGraphException {
+
+		CompletableFuture<V> future = new CompletableFuture<>();
+		CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+		if (existing != null) {
+			return await(existing);
+		}
+
+		try {
+			V result = computation.compute();
+			future.complete(result);
+			return result;
+		} catch (OntoGraphException | RuntimeException | Error e) {
+			// (Any failure is passed to the waiting requests, which would otherwise wait forever)
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, future);
+		}
+	}
+
+	/**
+	 * Waits for the result of an in-flight computation.
+	 *
+	 * @param  future CompletableFuture<V> of the computation
+	 * @return V result
+	 * @throws OntoGraphException
+	 *
+	 */
+	private static <V> V await(CompletableFuture<V> future) throws OntoGraphException {
+
+		try {
+			return future.get();
+		} catch (InterruptedException e) {  //NOSONAR - Logged as part of OntoGraphException handling
+			Thread.currentThread().interrupt();
+			throw new OntoGraphException("Interrupted while waiting for an identical request to complete");
+		} catch (ExecutionException e) {  //NOSONAR - The cause is rethrown
+			Throwable cause = e.getCause();
+			if (cause instanceof OntoGraphException) {
+				throw (OntoGraphException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new OntoGraphException("Error creating the graph. Exception details: " + cause.getMessage());
+		}
+	}
+}
@@ -24,6 +24,8 @@ import java.util.Set;
 
 import graph.OntoGraphException;
 import graph.models.ClassModel;
+import graph.models.GraphElementModel;
+import graph.models.GraphModel;
 import graph.models.GraphRequestModel;
 import graph.models.NodeDetailsModel;
 import graph.models.RelatedAndRestrictionModel;
@@ -45,6 +47,7 @@ public final class ClassesGraphCreation {
     /**
 	 * Create a class hierarchy graph (classes, superclasses, enumerations, equivalences, ...) in GraphML.
 	 * 
+	 * @param  graph GraphModel to which the nodes and edges are added
 	 * @param  requestModel GraphRequestModel defining visualization settings
 	 * @param  ontologyPrefix String holding the URI of the loaded ontology
 	 * @param  classes List of ClassModels
@@ -52,34 +55,29 @@ public final class ClassesGraphCreation {
 	 *             of "related" classes (equivalent, disjoints, and oneOfs), of connectives
 	 *             (unions, intersections and complementOfs) and restrictions (allValuesFrom,
 	 *             someValuesFrom, min/maxInclusive, ...)
-	 * @return String GraphMLString
+	 * @param  renderer FragmentRenderer which creates the class nodes and subclassOf edges (in parallel,
+	 *             for a large graph)
 	 * @throws OntoGraphException 
 	 * 
 	 */
-	public static String processClassHierarchy(GraphRequestModel requestModel, 
+	public static void processClassHierarchy(GraphModel graph, GraphRequestModel requestModel, 
 			final String ontologyPrefix, List<ClassModel> classes,
-			RelatedAndRestrictionModel relatedsAndRestrictions)
+			RelatedAndRestrictionModel relatedsAndRestrictions, FragmentRenderer renderer)
 				throws OntoGraphException {
 	    
-	    StringBuilder sb = new StringBuilder();
 	    // The TypeAndValueModel is used here where the "type" is the class name and the 
 	    //   "value" is the superclass
 	    Set<TypeAndValueModel> blankNodeSuperClasses = new HashSet<>();  
 	    
-	    for (ClassModel cl : classes) {
-	        String className = cl.getClassName();
-	        // Add the classes to the graph
-	        sb.append(addClass(requestModel, ontologyPrefix, className, cl.getClassLabel(), 
-	        		(cl.getClassType() == 'c' ? false : true)));
+	    // Create each class' node and subclassOf edges, and add them in the order of the classes
+	    List<GraphModel> fragments = renderer.render(classes, 
+	    		cl -> addClassAndSuperclasses(requestModel, ontologyPrefix, cl));
+	    for (int i = 0; i < classes.size(); i++) {
+	        graph.addAll(fragments.get(i));
 	        
-	        List<String> superClasses = cl.getSuperClasses();
-	        if (!superClasses.isEmpty()) {
-	        	// Add subclassOf edges
-	        	sb.append(GraphMLUtils.addSubclassOfEdges(requestModel, className, superClasses));
-	        }
-	    
 	        // Find any superclasses that are blank nodes
-	        for (String sc : superClasses) {
+	        String className = classes.get(i).getClassName();
+	        for (String sc : classes.get(i).getSuperClasses()) {
 	        	if (!sc.contains(":")) {
 	        		blankNodeSuperClasses.add(TypeAndValueModel.createTypeAndValueModel(className, sc));
 	        	}
@@ -88,33 +86,58 @@ public final class ClassesGraphCreation {
 	    
 	    Set<String> referencedClasses = new HashSet<>();  
 	    // Add any blank node superclasses
-	    sb.append(GraphMLUtils.addBlankNodeSuperclasses(requestModel, classes, blankNodeSuperClasses,
-	    		relatedsAndRestrictions, referencedClasses));
+	    GraphMLUtils.addBlankNodeSuperclasses(graph, requestModel, classes, blankNodeSuperClasses,
+	    		relatedsAndRestrictions, referencedClasses);
 	    
 	    // Add any equivalent, disjoint, ... classes and oneOf individuals
 	    for (Map.Entry<String, List<TypeAndValueModel>> entry : 
 	    		relatedsAndRestrictions.getEquivalentsDisjointsOneOfs().entrySet()) {
 	        String className = entry.getKey();
 	        List<TypeAndValueModel> relatedList = entry.getValue();
-	        sb.append(GraphMLUtils.addRelated(requestModel, classes, className, relatedList, 
-	        		relatedsAndRestrictions, referencedClasses));
+	        GraphMLUtils.addRelated(graph, requestModel, classes, className, relatedList, 
+	        		relatedsAndRestrictions, referencedClasses);
 	    }
 	
 	    // Need to add any classes referenced in complement, union or intersectionOf declarations that are
 	    //   NOT found - since they will be missing from the graph
 	    NodeDetailsModel nodeDetails = NodeDetailsModel.createNodeDetailsModel(requestModel, "class");
 	    for (String refClass : referencedClasses) {
-	    	if (!sb.toString().contains("<node id=\"" + refClass + "\"")) {
+	    	if (!graph.containsNode(refClass)) {
 				// Reset the node shape in case it was manipulated
 		        nodeDetails.setNodeShape(requestModel.getClassNodeShape());
-	    		sb.append(GraphMLUtils.addReferencedClass(ontologyPrefix, nodeDetails, refClass));
+	    		graph.add(GraphMLUtils.addReferencedClass(ontologyPrefix, nodeDetails, refClass));
 	    	}
 	    }
-	    
-	    return sb.toString();
 	}
 
 
+	/**
+	 * Creates the node of a class and its subclassOf edges.
+	 * 
+	 * @param  requestModel GraphRequestModel defining visualization settings
+	 * @param  ontologyPrefix String that is the prefix of the owl:Ontology URI
+	 * @param  cl ClassModel
+	 * @return GraphModel holding the node and edges
+	 * 
+	 */
+	private static GraphModel addClassAndSuperclasses(GraphRequestModel requestModel, 
+			final String ontologyPrefix, ClassModel cl) {
+		
+		GraphModel fragment = new GraphModel();
+		String className = cl.getClassName();
+		// Add the class node
+		fragment.add(addClass(requestModel, ontologyPrefix, className, cl.getClassLabel(), 
+				(cl.getClassType() == 'c' ? false : true)));
+		
+		List<String> superClasses = cl.getSuperClasses();
+		if (!superClasses.isEmpty()) {
+			// Add subclassOf edges
+			GraphMLUtils.addSubclassOfEdges(fragment, requestModel, className, superClasses);
+		}
+		
+		return fragment;
+	}
+	
 	/**
 	 * Add all classes defined in the ontology.
 	 * 
@@ -124,10 +147,10 @@ public final class ClassesGraphCreation {
 	 * @param  classLabel String 
 	 * @param  isDatatype boolean indicating (if true) that the "class" is really a subtype 
 	 *              of an rdfs:Datatype
-	 * @return String GraphMLString
+	 * @return GraphElementModel for the class node
 	 * 
 	 */
-	private static String addClass(GraphRequestModel requestModel, final String ontologyPrefix,
+	private static GraphElementModel addClass(GraphRequestModel requestModel, final String ontologyPrefix,
 			final String className, final String classLabel, boolean isDatatype) {
 	    
 		String visualization = requestModel.getVisualization();
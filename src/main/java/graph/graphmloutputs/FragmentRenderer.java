@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph.graphmloutputs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * FragmentRenderer creates the GraphML fragments (the node and edge elements) of a list of
+ * entities, such as the classes or individuals of a graph, in parallel on a shared ForkJoinPool.
+ * 
+ * The list is split into chunks of at most chunkSize entities, which are rendered concurrently.
+ * The fragments are returned in the order of the list (independent of the order in which the
+ * chunks complete), so that adding them to a GraphModel in that order produces exactly the
+ * same graph as sequential rendering. A list with no more than chunkSize entities (or any list,
+ * if the renderer uses a single thread) is rendered in the calling thread.
+ *
+ */
+public class FragmentRenderer {
+
+	private final ForkJoinPool pool;		// Null if all fragments are rendered in the calling thread
+	private final int chunkSize;
+
+	/**
+	 * Creates the renderer and its thread pool.
+	 *
+	 * @param  threads int number of pool threads (1 renders all fragments in the calling thread, 
+	 *              and 0 uses one thread per available processor)
+	 * @param  chunkSize int maximum number of entities rendered as a single task
+	 *
+	 */
+	public FragmentRenderer(final int threads, final int chunkSize) {
+
+		if (threads < 0 || chunkSize < 1) {
+			throw new IllegalArgumentException("The number of render threads cannot be negative, and the "
+					+ "render chunk size must be at least 1");
+		}
+		int parallelism = threads == 0 ? Runtime.getRuntime().availableProcessors() : threads;
+		if (parallelism > 1) {
+			AtomicInteger threadCount = new AtomicInteger();
+			this.pool = new ForkJoinPool(parallelism, p -> {
+				ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+				thread.setName("ontograph-render-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}, null, false);
+		} else {
+			this.pool = null;
+		}
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Renders the fragments of a list of entities.
+	 *
+	 * @param  items List<T> of the entities
+	 * @param  renderer Function<T, R> creating the fragment of one entity (which must not 
+	 *              modify any state that is shared with the other entities)
+	 * @return List<R> of the fragments, in the order of the items
+	 *
+	 */
+	public <T, R> List<R> render(List<T> items, Function<T, R> renderer) {
+
+		if (pool == null || items.size() <= chunkSize) {
+			List<R> fragments = new ArrayList<>(items.size());
+			for (T item : items) {
+				fragments.add(renderer.apply(item));
+			}
+			return fragments;
+		}
+
+		Object[] fragments = new Object[items.size()];
+		pool.invoke(new RenderTask<>(items, renderer, fragments, 0, items.size()));
+		@SuppressWarnings("unchecked")
+		List<R> result = (List<R>) Arrays.asList(fragments);
+		return result;
+	}
+
+	/**
+	 * Stops the thread pool (called when the application context is closed).
+	 *
+	 */
+	public void shutdown() {
+		if (pool != null) {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * RenderTask renders the fragments of a range of the entities, splitting the range in half
+	 * until it holds no more than chunkSize entities. Each fragment is stored at the index of
+	 * its entity.
+	 *
+	 */
+	private class RenderTask<T, R> extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient List<T> items;
+		private final transient Function<T, R> renderer;
+		private final transient Object[] fragments;
+		private final int start;
+		private final int end;
+
+		RenderTask(List<T> items, Function<T, R> renderer, Object[] fragments, final int start, 
+				final int end) {
+			this.items = items;
+			this.renderer = renderer;
+			this.fragments = fragments;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+
+			if (end - start <= chunkSize) {
+				for (int i = start; i < end; i++) {
+					fragments[i] = renderer.apply(items.get(i));
+				}
+			} else {
+				int middle = (start + end) >>> 1;
+				invokeAll(new RenderTask<>(items, renderer, fragments, start, middle),
+						new RenderTask<>(items, renderer, fragments, middle, end));
+			}
+		}
+	}
+}
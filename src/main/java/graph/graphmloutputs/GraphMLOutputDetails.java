@@ -18,9 +18,8 @@
 package graph.graphmloutputs;
 
 import java.io.IOException;
-import java.nio.charset.Charset;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -29,6 +28,8 @@ import java.util.Map;
 import graph.models.AttributeLinesAndLength;
 import graph.models.EdgeDetailsModel;
 import graph.models.EdgeFlagsModel;
+import graph.models.GraphElementModel;
+import graph.models.GraphModel;
 import graph.models.NodeDetailsModel;
 import graph.models.NoteDetailsModel;
 import graph.models.PrefixModel;
@@ -97,6 +98,70 @@ public class GraphMLOutputDetails {
     protected static final Map<String,String> arrowShapes = createArrowMap();
     protected static final Map<String,String> lineTypes = createLineMap();
     protected static final Map<String,String> nodeShapes = createNodeMap();
+    
+    // Precompiled GraphML for the nodes and edges (each "{}" is replaced by a value)
+    private static final GraphMLTemplate NODE_TEMPLATE = new GraphMLTemplate(
+    		NODE_ID_XML + "{}\">",
+    		DATA_KEY_XML,
+    		"    <y:ShapeNode>",
+    		GEOMETRY_HEIGHT_XML + "{}" + WIDTH_XML + "{}\" x=\"385.3\" y=\"187.0\"/>",
+    		"      <y:Fill color=\"{}\" transparent=\"false\"/>",
+    		"      <y:BorderStyle color=\"{}\" type=\"{}" + WIDTH_XML + "{}\"/>",
+    		NODE_LABEL_CENTER_XML + "fontSize=\"16\" fontStyle=\"plain\" hasBackgroundColor=\"false\" "
+    				+ "hasLineColor=\"false\" height=\"22.84\" modelName=\"{}\" modelPosition=\"{}\" "
+    				+ "textColor=\"{}\" visible=\"true\" width=\"44.84\" x=\"18.56\" y=\"10.58\">{}"
+    				+ CLOSE_NODE_LABEL_XML,
+    		"      <y:Shape type=\"{}\"/>",
+    		"    </y:ShapeNode>",
+    		SPACES_CLOSE_DATA_XML,
+    		CLOSE_NODE_XML);
+    private static final GraphMLTemplate EDGE_TEMPLATE = new GraphMLTemplate(
+    		"<edge id=\"{}\" source=\"{}\" target=\"{}\">",
+    		"  <data key=\"d10\">",
+    		"    <y:PolyLineEdge>",
+    		"      <y:Path sx=\"0.0\" sy=\"0.0\" tx=\"0.0\" ty=\"0.0\"/>",
+    		"      <y:LineStyle color=\"{}\" type=\"{}" + WIDTH_XML + "{}\"/>",
+    		"      <y:Arrows source=\"{}\" target=\"{}\"/>",
+    		"      <y:EdgeLabel alignment=\"center\" backgroundColor=\"{}\" distance=\"2.0\" "
+    				+ "fontFamily=\"Dialog\" fontSize=\"{}\" fontStyle=\"plain\" hasLineColor=\"false\" "
+    				+ "height=\"22.84\" modelName=\"centered\" modelPosition=\"center\" preferredPlacement"
+    				+ "=\"anywhere\" ratio=\"0.5\" textColor=\"{}\" width=\"76.16\" x=\"102.14\" "
+    				+ "y=\"-11.42\" {}</y:EdgeLabel>",
+    		"      <y:BendStyle smoothed=\"false\"/>",
+    		"    </y:PolyLineEdge>",
+    		SPACES_CLOSE_DATA_XML,
+    		"</edge>");
+    private static final GraphMLTemplate UML_NODE_TEMPLATE = new GraphMLTemplate(
+    		NODE_ID_XML + "{}\">",
+    		"  <data key=\"d5\"/>",
+    		DATA_KEY_XML,
+    		"    <y:GenericNode configuration=\"com.yworks.entityRelationship.big_entity\">",
+    		GEOMETRY_HEIGHT_XML + "{}" + WIDTH_XML + "{}\" x=\"385.30\" y=\"187.01\"/>",
+    		"      <y:Fill color=\"{}\" transparent=\"false\"/>",
+    		"      <y:BorderStyle color=\"#000000\" type=\"line\" width=\"1.0\"/>",
+    		"      <y:NodeLabel alignment=\"center\" autoSizePolicy=\"content\" backgroundColor=\"{}\" "
+    				+ "configuration=\"com.yworks.entityRelationship.label.name\" fontFamily=\"Dialog\" "
+    				+ "fontSize=\"12\" fontStyle=\"plain\" hasLineColor=\"false\" height=\"18.13\" "
+    				+ "modelName=\"internal\" modelPosition=\"t\" textColor=\"#000000\" visible=\"true\" "
+    				+ "width=\"36.67\" x=\"21.67\" y=\"4.0\">{}" + CLOSE_NODE_LABEL_XML,
+    		"      <y:NodeLabel alignment=\"left\" autoSizePolicy=\"content\" configuration=\"com.yworks"
+    				+ ".entityRelationship.label.attributes\" fontFamily=\"Dialog\" fontSize=\"12\" "
+    				+ "fontStyle=\"plain\" hasBackgroundColor=\"false\" hasLineColor=\"false\" "
+    				+ "height=\"46.40\" modelName=\"custom\" textColor=\"#000000\" visible=\"true\" "
+    				+ "width=\"65.54\" x=\"2.0\" y=\"30.13\">{}        <y:LabelModel>",
+    		"          <y:ErdAttributesNodeLabelModel/>",
+    		"        </y:LabelModel>",
+    		"        <y:ModelParameter>",
+    		"          <y:ErdAttributesNodeLabelModelParameter/>",
+    		"        </y:ModelParameter>",
+    		"      " + CLOSE_NODE_LABEL_XML,
+    		"      <y:StyleProperties>",
+    		"          <y:Property class=\"java.lang.Boolean\" name=\"y.view.ShadowNodePainter.SHADOW_PAINTING"
+    				+ "\" value=\"false\"/>",
+    		"      </y:StyleProperties>",
+    		"    </y:GenericNode>",
+    		SPACES_CLOSE_DATA_XML,
+    		CLOSE_NODE_XML);
 
     // Not meant to be instantiated
     protected GraphMLOutputDetails() {
@@ -154,10 +219,10 @@ public class GraphMLOutputDetails {
 	 *              depending on whether this is a graph info box or prefixes box
 	 * @param  text2 String contains either the graph information OR the prefixes depending on whether
 	 *              this is a graph info box or prefixes box
-	 * @return GraphML String output
+	 * @return GraphElementModel for the box's group node
 	 * 
 	 */
-	public static String addBox(final String text1, final String text2) {
+	public static GraphElementModel addBox(final String text1, final String text2) {
 		
 		StringBuilder sb = new StringBuilder();
 		
@@ -260,7 +325,7 @@ public class GraphMLOutputDetails {
 	    sb.append("  </graph>" + NEW_LINE)
 	      .append(CLOSE_NODE_XML + NEW_LINE);
 	    
-	    return sb.toString();
+	    return GraphElementModel.createNode(id, sb.toString());
 	}
 
 	/**
@@ -269,45 +334,37 @@ public class GraphMLOutputDetails {
 	 * @param  nodeDetails NodeDetailsModel with info such as nodeShape, fillColor, visualization, ...
 	 * @param  entityName String specifying the class/data (which is used as the node's id)
 	 * @param  label String specifying the node's label
-	 * @return String GraphML output
+	 * @return GraphElementModel for the node
 	 * 
 	 */
-    public static String addNode(NodeDetailsModel nodeDetails, final String entityName, 
+    public static GraphElementModel addNode(NodeDetailsModel nodeDetails, final String entityName, 
     		final String label) {
     
-    	StringBuilder sb = new StringBuilder();
-    	
-    	String eName = entityName.replaceAll("_:", "").replaceAll(" ", "").replaceAll(",", "")
-    			.replaceAll(NEW_LINE, "");
+    	String eName = GraphMLTemplate.toId(entityName, true);
     	
     	String eLabel;
     	if (label.startsWith("_:bnode")) {
     		eLabel = "Blank Node";
     	} else {
-    		eLabel = replaceBrackets(label);
+    		eLabel = label;
     	}
 
-        sb.append(NODE_ID_XML + eName + "\">" + NEW_LINE)
-          .append(DATA_KEY_XML + NEW_LINE)
-          .append("    <y:ShapeNode>" + NEW_LINE)
-          .append(GEOMETRY_HEIGHT_XML + nodeDetails.getHeight() + WIDTH_XML 
-            		+ nodeDetails.getWidth() + "\" x=\"385.3\" y=\"187.0\"/>" + NEW_LINE)
-          .append("      <y:Fill color=\"" + nodeDetails.getFillColor() + "\" transparent=\"false\"/>" 
-            		+ NEW_LINE)
-          .append("      <y:BorderStyle color=\"" + nodeDetails.getBorderColor() + "\" type=\"" 
-        		  + lineTypes.get(nodeDetails.getBorderType()) + WIDTH_XML + nodeDetails.getBorderWidth()
-                  + "\"/>" + NEW_LINE)
-          .append(NODE_LABEL_CENTER_XML + "fontSize=\"16\" fontStyle=\"plain\" hasBackgroundColor=\"false\" "
-                  + "hasLineColor=\"false\" height=\"22.84\" modelName=\"" + nodeDetails.getModelName()
-                  + "\" modelPosition=\"" + nodeDetails.getModelPosition() + "\" textColor=\"" 
-                  + nodeDetails.getTextColor() + "\" visible=\"true\" width=\"44.84\" x=\"18.56\" y=\"10.58\">"
-                  + eLabel + CLOSE_NODE_LABEL_XML + NEW_LINE)
-          .append("      <y:Shape type=\"" + nodeShapes.get(nodeDetails.getNodeShape()) + "\"/>" + NEW_LINE)
-          .append("    </y:ShapeNode>" + NEW_LINE)
-          .append(SPACES_CLOSE_DATA_XML + NEW_LINE)
-          .append(CLOSE_NODE_XML + NEW_LINE);
+    	String xml = NODE_TEMPLATE.start()
+    			.value(eName)
+    			.value(nodeDetails.getHeight())
+    			.value(nodeDetails.getWidth())
+    			.value(nodeDetails.getFillColor())
+    			.value(nodeDetails.getBorderColor())
+    			.value(lineTypes.get(nodeDetails.getBorderType()))
+    			.value(nodeDetails.getBorderWidth())
+    			.value(nodeDetails.getModelName())
+    			.value(nodeDetails.getModelPosition())
+    			.value(nodeDetails.getTextColor())
+    			.label(eLabel)
+    			.value(nodeShapes.get(nodeDetails.getNodeShape()))
+    			.toXML();
         
-        return sb.toString();
+        return GraphElementModel.createNode(eName, xml);
     }
 
     /**
@@ -317,10 +374,10 @@ public class GraphMLOutputDetails {
 	 * @param  noteDetails NoteDetailsModel holding the line type, height and width
 	 * @param  noteName String
 	 * @param  noteText String
-	 * @return String GraphMLString output
+	 * @return GraphElementModel for the note
 	 * 
 	 */
-	public static String addNote(final String visualization, NoteDetailsModel noteDetails, 
+	public static GraphElementModel addNote(final String visualization, NoteDetailsModel noteDetails, 
 			final String noteName, final String noteText) {
 		
 		StringBuilder sb = new StringBuilder();
@@ -349,7 +406,7 @@ public class GraphMLOutputDetails {
 	      .append(CLOSE_DATA_XML + NEW_LINE)
 	      .append(CLOSE_NODE_XML + NEW_LINE);
 	    
-		return sb.toString();
+		return GraphElementModel.createNode(noteName, sb.toString());
 	}
 
 	/**
@@ -361,14 +418,13 @@ public class GraphMLOutputDetails {
 	 * @param  idPrefix String
 	 * @param  edgeFlags EdgeFlagsModel indicating whether the property is defined as a functional/
 	 *               inverse functional, asymmetric/symmetric, reflexive/irreflexive or transitive property
-	 * @return String GraphMLString output
+	 * @return GraphElementModel for the edge
 	 * 
 	 */
-    public static String addEdge(EdgeDetailsModel edgeDetails, String source, 
+    public static GraphElementModel addEdge(EdgeDetailsModel edgeDetails, String source, 
     		String target, final String idPrefix, EdgeFlagsModel edgeFlags) {
 
     	String visualization = edgeDetails.getVisualization();
-	    StringBuilder sb = new StringBuilder();
 	    
 	    // For collapsed properties, the distinguishing prefix is actually the source + target strings
 	    // So, there is no need to combine them again
@@ -377,48 +433,38 @@ public class GraphMLOutputDetails {
 	    	propName = idPrefix + source + target;
 	    }
 	    
-	    propName = propName.replaceAll("_:", "").replaceAll(" ", "").replaceAll(",", "");
-	    String eSource = source.replaceAll("_:", "").replaceAll(" ", "").replaceAll(",", "");
-	    String eTarget = target.replaceAll("_:", "").replaceAll(" ", "").replaceAll(",", "");
+	    propName = GraphMLTemplate.toId(propName, false);
+	    String eSource = GraphMLTemplate.toId(source, false);
+	    String eTarget = GraphMLTemplate.toId(target, false);
 	    
 	    // VOWL properties are shown as sitting above their edge line, but this is not how the
 	    //    implementation in the spec is drawn (which is correct?)
-	    sb.append("<edge id=\"" + propName + "\" source=\"" + eSource + "\" target=\"" + eTarget + "\">" + NEW_LINE)
-	        .append("  <data key=\"d10\">" + NEW_LINE)
-	        .append("    <y:PolyLineEdge>" + NEW_LINE)
-	        .append("      <y:Path sx=\"0.0\" sy=\"0.0\" tx=\"0.0\" ty=\"0.0\"/>" + NEW_LINE)
-	        .append("      <y:LineStyle color=\"" + edgeDetails.getLineColor() + "\" type=\"" 
-	        		+ lineTypes.get(edgeDetails.getLineType()) + WIDTH_XML + edgeDetails.getLineWidth() + "\"/>" 
-	                + NEW_LINE)
-	        .append("      <y:Arrows source=\"" + arrowShapes.get(edgeDetails.getSourceArrow()) + "\" target=\"" 
-	                + arrowShapes.get(edgeDetails.getTargetArrow()) + "\"/>" + NEW_LINE)
-	        .append("      <y:EdgeLabel alignment=\"center\" backgroundColor=\"" 
-	                + edgeDetails.getEdgeLabelBackground() + "\" distance=\"2.0\" fontFamily=\"Dialog\" "
-	                + "fontSize=\"" + getFontSize(visualization) + "\" fontStyle=\"plain\" hasLineColor=\"false\" "
-	                + "height=\"22.84\" modelName=\"centered\" modelPosition=\"center\" preferredPlacement"
-	                + "=\"anywhere\" ratio=\"0.5\" textColor=\"" + edgeDetails.getEdgeLabelColor() 
-	                + "\" width=\"76.16\" x=\"102.14\" y=\"-11.42\" ");
+	    GraphMLTemplate.Emitter emitter = EDGE_TEMPLATE.start()
+	    		.value(propName)
+	    		.value(eSource)
+	    		.value(eTarget)
+	    		.value(edgeDetails.getLineColor())
+	    		.value(lineTypes.get(edgeDetails.getLineType()))
+	    		.value(edgeDetails.getLineWidth())
+	    		.value(arrowShapes.get(edgeDetails.getSourceArrow()))
+	    		.value(arrowShapes.get(edgeDetails.getTargetArrow()))
+	    		.value(edgeDetails.getEdgeLabelBackground())
+	    		.value(getFontSize(visualization))
+	    		.value(edgeDetails.getEdgeLabelColor());
 	 
 	    if (edgeDetails.getEdgeLabel().isEmpty()) {
-	    	sb.append("visible=\"false\"> ");
+	    	emitter.value("visible=\"false\"> ");
 	    } else {
-	    	sb.append("visible=\"true\">"); 
 	    	String edgeLabel = edgeDetails.getEdgeLabel();
 	    	String flagsText = getEdgeFlagsText(edgeFlags);
 	    	if (!flagsText.isEmpty()) {
-	    		edgeLabel += NEW_LINE + "(" + flagsText.replaceAll(" ", ", ");
+	    		edgeLabel += NEW_LINE + "(" + flagsText.replace(" ", ", ");
 	    		edgeLabel = edgeLabel.substring(0, edgeLabel.length() - 2) + ")";
 	    	}
-	        sb.append(replaceBrackets(edgeLabel));
+	    	emitter.append("visible=\"true\">").label(edgeLabel);
 	    }
 	    
-	    sb.append("</y:EdgeLabel>" + NEW_LINE)
-	        .append("      <y:BendStyle smoothed=\"false\"/>" + NEW_LINE)
-	        .append("    </y:PolyLineEdge>" + NEW_LINE)
-	        .append(SPACES_CLOSE_DATA_XML + NEW_LINE)
-	        .append("</edge>" + NEW_LINE);
-	    
-	    return sb.toString();
+	    return GraphElementModel.createEdge(propName, eSource, eTarget, emitter.toXML());
     }
     
     /**
@@ -427,10 +473,10 @@ public class GraphMLOutputDetails {
      * @param  imageName String
      * @param  imageType String indicating that either a "disjoint", "union", "intersection" or "complement"
      * 					image is added
-     * @return graphML String
+     * @return GraphElementModel for the image node
      * 
      */
-    public static String addImage(final String imageName, final String imageType) {
+    public static GraphElementModel addImage(final String imageName, final String imageType) {
     	
     	StringBuilder sb = new StringBuilder();
     	
@@ -449,7 +495,7 @@ public class GraphMLOutputDetails {
           .append(SPACES_CLOSE_DATA_XML + NEW_LINE)
           .append(CLOSE_NODE_XML + NEW_LINE);
           
-        return sb.toString();  
+        return GraphElementModel.createNode(imageName, sb.toString());  
     }
 	
 	/**
@@ -460,82 +506,31 @@ public class GraphMLOutputDetails {
 	 * @param  attributes List<String> datatype properties where the class is the domain
 	 * @param  width double specifying width of box
 	 * @param  height double specifying height of box
-	 * @return GraphML String
+	 * @return GraphElementModel for the node
 	 * 
 	 */
-	public static String addUMLNode(final String entityName, final String entityLabel, 
+	public static GraphElementModel addUMLNode(final String entityName, final String entityLabel, 
 			List<String> attributes, final String nodeColor, double width, double height) {
 		
-	    StringBuilder sb = new StringBuilder();
-        
-        sb.append(NODE_ID_XML + entityName + "\">" + NEW_LINE)
-          .append("  <data key=\"d5\"/>" + NEW_LINE)
-          .append(DATA_KEY_XML + NEW_LINE)
-          .append("    <y:GenericNode configuration=\"com.yworks.entityRelationship.big_entity\">" + NEW_LINE)
-          .append(GEOMETRY_HEIGHT_XML + height + WIDTH_XML + width + "\" x=\"385.30\" y=\"187.01\"/>" + NEW_LINE)
-          .append("      <y:Fill color=\"" + nodeColor + "\" transparent=\"false\"/>" + NEW_LINE)
-          .append("      <y:BorderStyle color=\"#000000\" type=\"line\" " + "width=\"1.0\"/>" + NEW_LINE)
-          .append("      <y:NodeLabel alignment=\"center\" autoSizePolicy=\"content\" backgroundColor=\"" +  nodeColor 
-                  + "\" configuration=\"com.yworks.entityRelationship.label.name\" fontFamily=\"Dialog\" fontSize=\"12\" "
-                  + "fontStyle=\"plain\" hasLineColor=\"false\" height=\"18.13\" modelName=\"internal\" modelPosition"
-                  + "=\"t\" textColor=\"#000000\" visible=\"true\" width=\"36.67\" x=\"21.67\" y=\"4.0\">")
-          .append(replaceBrackets(entityLabel) + CLOSE_NODE_LABEL_XML + NEW_LINE)
-          .append("      <y:NodeLabel alignment=\"left\" autoSizePolicy=\"content\" configuration=\"com.yworks"
-                  + ".entityRelationship.label.attributes\" fontFamily=\"Dialog\" fontSize=\"12\" fontStyle=\"plain\" "
-                  + "hasBackgroundColor=\"false\" hasLineColor=\"false\" height=\"46.40\" modelName=\"custom\" "
-                  + "textColor=\"#000000\" visible=\"true\" width=\"65.54\" x=\"2.0\" y=\"30.13\">");
+	    GraphMLTemplate.Emitter emitter = UML_NODE_TEMPLATE.start()
+	    		.value(entityName)
+	    		.value(height)
+	    		.value(width)
+	    		.value(nodeColor)
+	    		.value(nodeColor)
+	    		.label(entityLabel);
         
         if (attributes != null && !attributes.isEmpty()) {
             for (String attr : attributes) {
-                sb.append(attr + NEW_LINE);
+                emitter.append(attr).append(NEW_LINE);
             }
         } else {
-        	sb.append(NEW_LINE);
+        	emitter.append(NEW_LINE);
         }
         
-        sb.append("        <y:LabelModel>" + NEW_LINE)
-          .append("          <y:ErdAttributesNodeLabelModel/>" + NEW_LINE)
-          .append("        </y:LabelModel>" + NEW_LINE)
-          .append("        <y:ModelParameter>" + NEW_LINE)
-          .append("          <y:ErdAttributesNodeLabelModelParameter/>" + NEW_LINE)
-          .append("        </y:ModelParameter>" + NEW_LINE)
-          .append("      " + CLOSE_NODE_LABEL_XML + NEW_LINE)
-          .append("      <y:StyleProperties>" + NEW_LINE)
-          .append("          <y:Property class=\"java.lang.Boolean\" name=\"y.view.ShadowNodePainter.SHADOW_PAINTING"
-                  + "\" value=\"false\"/>" + NEW_LINE)
-          .append("      </y:StyleProperties>" + NEW_LINE)
-          .append("    </y:GenericNode>" + NEW_LINE)
-          .append(SPACES_CLOSE_DATA_XML + NEW_LINE)
-          .append(CLOSE_NODE_XML + NEW_LINE);
-        
-        return sb.toString();
+        return GraphElementModel.createNode(entityName, emitter.value(EMPTY_STRING).toXML());
 	}
     
-    /**
-	 * Removes a particular node (either owl:Thing, rdfs:Resource or rdfs:Class) from the GraphML output if
-	 * it is not needed
-	 * 
-	 * @param  currentGraphML String
-	 * @param  nodeToBeRemoved String (either "owl:Thing" or "rdfs:Resource")
-	 * @return currentGraphML String minus the indicated node
-	 * 
-	 */
-	public static String checkForUnusedNode(String currentGraphML, final String nodeToBeRemoved) {
-	
-		if (currentGraphML.contains(NODE_ID_XML + nodeToBeRemoved + "\">") 
-				&& !currentGraphML.contains("source=\"" + nodeToBeRemoved + "\"")
-				&& !currentGraphML.contains("target=\"" + nodeToBeRemoved + "\"")) {
-			// If there is a node id="owl:Thing" or ="rdfs:Resource", but no other edge refs to it, then
-	    	//    the node should be removed since all the references were updated by class splitting
-			int indexOfNode = currentGraphML.indexOf(NODE_ID_XML + nodeToBeRemoved + "\">");
-			int endIndexOfNode = currentGraphML.indexOf(CLOSE_NODE_XML, indexOfNode + 5);
-			currentGraphML = currentGraphML.substring(0, indexOfNode) + 
-				currentGraphML.substring(endIndexOfNode + 7);
-		}
-		
-		return currentGraphML;
-	}
-
 	/**
      * Adds finishing brackets for the GraphML file.
      *
@@ -555,36 +550,32 @@ public class GraphMLOutputDetails {
     }
     
 	/**
-     * Adds finishing brackets and the necessary image (right-pointing arrow) for a UML GraphML file.
+     * Writes the finishing brackets and the necessary images (for the connectives) for a VOWL 
+     * GraphML file.
      *
-     * @return String GraphML output
+     * @param  writer Writer to which the GraphML is output
+     * @throws IOException
      * 
      */
-    public static String closeVOWLGraph() throws IOException {
+    public static void closeVOWLGraph(Writer writer) throws IOException {
     	
-        StringBuilder output = new StringBuilder();
-        output.append("</graph>" + NEW_LINE)
-            .append("<data key=\"d7\">" + NEW_LINE)
-            .append("   <y:Resources>" + NEW_LINE)
-            .append(addImageResource("complement"))
-            .append(addImageResource("intersection"))
-            .append(addImageResource("union"))
-            .append(addImageResource(DISJOINT))
-            .append("   </y:Resources>" + NEW_LINE)
-            .append(CLOSE_DATA_XML + NEW_LINE)
-            .append("</graphml>");
-        
-        return output.toString();
+        writer.write("</graph>" + NEW_LINE
+            + "<data key=\"d7\">" + NEW_LINE
+            + "   <y:Resources>" + NEW_LINE);
+        ImageResources.writeResources(writer);
+        writer.write("   </y:Resources>" + NEW_LINE
+            + CLOSE_DATA_XML + NEW_LINE
+            + "</graphml>");
     }
     
     /**
      * Creates the two text lists for any prefixes and their corresponding URIs.
      * 
      * @param  prefixes List<PrefixModel>
-     * @return GraphML String
+     * @return GraphElementModel for the prefixes box
      * 
      */
-    public static String createPrefixesBox(List<PrefixModel> prefixes) {
+    public static GraphElementModel createPrefixesBox(List<PrefixModel> prefixes) {
     	
     	// Create a list of prefixes
     	StringBuilder sb1 = new StringBuilder();
@@ -608,10 +599,10 @@ public class GraphMLOutputDetails {
      * 
      * @param  title String
      * @param  ontologyURI String
-     * @return GraphML String
+     * @return GraphElementModel for the title box
      * 
      */
-    public static String createTitleBox(final String title, final String ontologyURI) {
+    public static GraphElementModel createTitleBox(final String title, final String ontologyURI) {
     	
     	// Create the contents of the title box (the graph info)
     	StringBuilder sb = new StringBuilder();
@@ -835,6 +826,50 @@ public class GraphMLOutputDetails {
 	    return output.toString();
 	}
 
+	/**
+	 * Outputs the GraphML file for a graph - the initial XML, each node and edge (in order)
+	 * and the finishing brackets.
+	 *
+	 * @param  graph GraphModel holding the nodes and edges
+	 * @param  visualization String (a VOWL graph also includes the connective images)
+	 * @return String GraphML output
+	 * @throws IOException
+	 *
+	 */
+	public static String writeGraph(GraphModel graph, final String visualization) throws IOException {
+
+		StringWriter output = new StringWriter();
+		writeGraph(graph, visualization, output);
+
+		return output.toString();
+	}
+
+	/**
+	 * Writes the GraphML file for a graph to the Writer, one node or edge at a time (the complete 
+	 * GraphML output is never held in memory).
+	 *
+	 * @param  graph GraphModel holding the nodes and edges
+	 * @param  visualization String (a VOWL graph also includes the connective images)
+	 * @param  writer Writer to which the GraphML is output (it is flushed, but not closed)
+	 * @throws IOException
+	 *
+	 */
+	public static void writeGraph(GraphModel graph, final String visualization, Writer writer) 
+			throws IOException {
+
+		writer.write(setUpGraph());
+		for (GraphElementModel element : graph.getElements()) {
+			writer.write(element.getGraphML());
+		}
+
+		if (VOWL.equals(visualization)) {
+			closeVOWLGraph(writer);
+		} else {
+			writer.write(closeGraph());
+		}
+		writer.flush();
+	}
+
 	/** 
      * Add a node for a Graffoo individual or equivalent or disjoint node class
      * 
@@ -844,10 +879,10 @@ public class GraphMLOutputDetails {
      * @param  nodeText String which is the Restriction text or the individual's name
      * @param  width String (is an empty string if this is for an individual)
      * @param  height String (is an empty string if this is for an individual)
-     * @return GraphML String
+     * @return GraphElementModel for the node
      * 
      */
-    protected static String addGraffooIndividualOrNode(final boolean isClassRestriction, 
+    protected static GraphElementModel addGraffooIndividualOrNode(final boolean isClassRestriction, 
     		final String nodeName, final String nodeText,
     		final String width, final String height) {
 
@@ -898,18 +933,18 @@ public class GraphMLOutputDetails {
 	 * Creates unique rdfs:Literals, rdfs:Resources or owl:Things as required for VOWL splitting by property
 	 * or class (respectively).
 	 * 
+	 * @param  graph GraphModel to which any new ("split") node is added
 	 * @param  propertyName String
 	 * @param  domainName String
 	 * @param  rangeName String
 	 * @param  propertyType char indicating whether the property identified by the propertyName 
 	 *            is an 'o' (object), 'd' (datatype), 'a' (annotation) or 'r' (RDF) property
-	 * @return newDetails List<String> array of 3 entries returning the domainName and rangeName 
-	 * 	          at indices 0 and 1, one of which will be updated due to VOWL splitting,
-	 *            and a string defining the GraphML output for the new node that was added ("split" node) 
+	 * @return newDetails List<String> array of 2 entries returning the domainName and rangeName 
+	 * 	          at indices 0 and 1, one of which will be updated due to VOWL splitting
 	 * 
 	 */
-	protected static List<String> handleVOWLSplitting(final String propertyName, //NOSONAR - Complexity acceptable
-			final String domainName, final String rangeName, char propertyType) {
+	protected static List<String> handleVOWLSplitting(GraphModel graph, //NOSONAR - Complexity acceptable
+			final String propertyName, final String domainName, final String rangeName, char propertyType) {
 		
 		List<String> newDetails = new ArrayList<>();
 		
@@ -917,7 +952,6 @@ public class GraphMLOutputDetails {
 		//    for a new node
 		String newDomain = domainName;
 		String newRange = rangeName;
-		String graphML = EMPTY_STRING;
 		
 		// Split on the range if both domain and range are owl:Thing or rdfs:Resource
 		if ((OWL_THING.equals(domainName) || RDFS_RESOURCE.equals(domainName))
@@ -959,19 +993,14 @@ public class GraphMLOutputDetails {
 		
 		// Create any new nodes that may be needed
 		if (!newDomain.equals(domainName)) {
-			graphML = addVOWLEntity(propertyType, newDomain);
+			graph.add(addVOWLEntity(propertyType, newDomain));
 		}
 		if (!newRange.equals(rangeName)) {
-			if (graphML.isEmpty()) {
-				graphML = addVOWLEntity(propertyType, newRange);
-			} else {
-				graphML += addVOWLEntity(propertyType, newRange);
-			}
+			graph.add(addVOWLEntity(propertyType, newRange));
 		}
 		
 		newDetails.add(newDomain);
 		newDetails.add(newRange);
-		newDetails.add(graphML);
 		return newDetails;
 	}
 
@@ -991,21 +1020,6 @@ public class GraphMLOutputDetails {
 		}
 	}
 
-	/**
-	 * Adds an image resource to the graphML
-	 * 
-	 * @param  resourceType String
-	 * @return graphML String
-	 * @throws IOException
-	 * 
-	 */
-	private static String addImageResource(String resourceType) throws IOException {
-	
-	    return "      <y:Resource id=\"" + resourceType + "\" type=\"java.awt.image.BufferedImage\">"
-	    		+ readFile("graphmlimages/" + resourceType + ".txt")
-	    		+ "</y:Resource>" + NEW_LINE;
-	}
-	
 	/**
 	 * Adds a datatype (likely rdfs:Literal), or an rdfs:Resource or owl:Thing node that is specific to a 
 	 * property, to support VOWL's splitting by class and property requirements.
@@ -1014,10 +1028,10 @@ public class GraphMLOutputDetails {
 	 *                 owl:Thing ('o') or rdfs:Resource ('r') node
 	 * @param  name String defining the datatype, rdfs:Resource or the owl:Thing node id in support of 
 	 *                 property splitting
-	 * @return GraphML String for the datatype, rdfs:Resource or new owl:Thing node
+	 * @return GraphElementModel for the datatype, rdfs:Resource or new owl:Thing node
 	 * 
 	 */
-	private static String addVOWLEntity(final char entityType, final String name) {
+	private static GraphElementModel addVOWLEntity(final char entityType, final String name) {
 
 		String label = "Thing";
 		
@@ -1067,19 +1081,6 @@ public class GraphMLOutputDetails {
 		}
 	}
 	
-	/**
-	 * Reads a file and returns the contents as a string.
-	 * 
-	 * @param path String (absolute or relative)
-	 * @throws IOException
-	 * 
-	 */
-	private static String readFile(String path) throws IOException {
-		
-	    byte[] encoded = Files.readAllBytes(Paths.get(path));
-	    return new String(encoded, Charset.defaultCharset());
-	}
-
 	/**
 	 * Replaces any angle brackets in a node/edge/box/... label with &gt/lt; alternatives
 	 * 
@@ -1088,9 +1089,7 @@ public class GraphMLOutputDetails {
 	 * 
 	 */
 	private static String replaceBrackets(final String labelText) {
-		
-		String newLabel = labelText.replaceAll(">", "&gt;");
-		return newLabel.replaceAll("<", "&lt;");
+		return GraphMLTemplate.escapeLabel(labelText);
 	}
 
 	/**
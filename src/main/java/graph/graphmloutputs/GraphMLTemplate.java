@@ -0,0 +1,301 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph.graphmloutputs;
+
+/**
+ * GraphMLTemplate holds the fixed GraphML XML of a node or edge, precompiled into the segments
+ * that surround its variable values (each value is marked by "{}" in the template text).
+ * 
+ * An element is output by start(), which returns this thread's (reused) Emitter, followed by 
+ * one call to value(), id() or label() for each marker, in order, and then toXML(). The ids and
+ * labels are escaped in a single pass, directly into the Emitter's buffer.
+ *
+ */
+final class GraphMLTemplate {
+	
+	private static final String MARKER = "{}";
+	private static final String NEW_LINE = System.getProperty("line.separator");
+	
+	// Each thread reuses its Emitter (and buffer), since the elements may be created in parallel
+	private static final ThreadLocal<Emitter> emitters = ThreadLocal.withInitial(Emitter::new);
+	
+	private final String[] segments;
+	
+	/**
+	 * Compiles a template, whose lines are joined with the line separator (and followed by one).
+	 * 
+	 * @param  lines String... of the template text, with "{}" marking each value
+	 * 
+	 */
+	GraphMLTemplate(final String... lines) {
+		
+		String text = String.join(NEW_LINE, lines) + NEW_LINE;
+		int count = 0;
+		for (int i = text.indexOf(MARKER); i >= 0; i = text.indexOf(MARKER, i + MARKER.length())) {
+			count++;
+		}
+		
+		segments = new String[count + 1];
+		int start = 0;
+		for (int i = 0; i < count; i++) {
+			int end = text.indexOf(MARKER, start);
+			segments[i] = text.substring(start, end);
+			start = end + MARKER.length();
+		}
+		segments[count] = text.substring(start);
+	}
+	
+	/**
+	 * Starts the output of an element, with the segment before the first value.
+	 * 
+	 * @return Emitter (of the current thread) to which the values are added
+	 * 
+	 */
+	Emitter start() {
+		
+		Emitter emitter = emitters.get();
+		emitter.start(segments);
+		return emitter;
+	}
+	
+	/**
+	 * Removes the characters that cannot be part of a GraphML id (blank node "_:" prefixes, 
+	 * spaces and commas, and optionally, line separators). This is equivalent to (but does not
+	 * create the intermediate Strings of) removing each of these in turn.
+	 * 
+	 * @param  name String
+	 * @param  removeNewLines boolean indicating that line separators are also removed
+	 * @return String of the id (which is the name itself if nothing is removed)
+	 * 
+	 */
+	static String toId(final String name, boolean removeNewLines) {
+		
+		int length = name.length();
+		int i = 0;
+		while (i < length && !isRemoved(name, i, removeNewLines)) {
+			i++;
+		}
+		if (i == length) {
+			return name;
+		}
+		
+		StringBuilder sb = new StringBuilder(length);
+		appendId(sb, name, removeNewLines);
+		return sb.toString();
+	}
+	
+	/**
+	 * Replaces any angle brackets in a label with &gt/lt; alternatives.
+	 * 
+	 * @param  labelText String
+	 * @return String of the updated labelText (which is the labelText itself if it does not
+	 *              include "<" or ">")
+	 * 
+	 */
+	static String escapeLabel(final String labelText) {
+		
+		if (labelText.indexOf('<') < 0 && labelText.indexOf('>') < 0) {
+			return labelText;
+		}
+		
+		StringBuilder sb = new StringBuilder(labelText.length() + 16);
+		appendLabel(sb, labelText);
+		return sb.toString();
+	}
+	
+	/**
+	 * Appends a name with the characters that cannot be part of an id removed.
+	 * 
+	 * @param  sb StringBuilder
+	 * @param  name String
+	 * @param  removeNewLines boolean indicating that line separators are also removed
+	 * 
+	 */
+	private static void appendId(StringBuilder sb, final String name, boolean removeNewLines) {
+		
+		int start = sb.length();
+		int length = name.length();
+		for (int i = 0; i < length; i++) {
+			char c = name.charAt(i);
+			if (c == '_' && i + 1 < length && name.charAt(i + 1) == ':') {
+				i++;
+			} else if (c != ' ' && c != ',' && !(removeNewLines && NEW_LINE.length() == 1 
+					&& c == NEW_LINE.charAt(0))) {
+				sb.append(c);
+			}
+		}
+		
+		// A multi-character line separator may be formed by the removals (so is removed afterwards)
+		if (removeNewLines && NEW_LINE.length() > 1) {
+			int index;
+			while ((index = sb.indexOf(NEW_LINE, start)) >= 0) {
+				sb.delete(index, index + NEW_LINE.length());
+				start = index;
+			}
+		}
+	}
+	
+	/**
+	 * Appends a label with any angle brackets replaced by &gt/lt; alternatives.
+	 * 
+	 * @param  sb StringBuilder
+	 * @param  labelText String
+	 * 
+	 */
+	private static void appendLabel(StringBuilder sb, final String labelText) {
+		
+		int length = labelText.length();
+		for (int i = 0; i < length; i++) {
+			char c = labelText.charAt(i);
+			if (c == '>') {
+				sb.append("&gt;");
+			} else if (c == '<') {
+				sb.append("&lt;");
+			} else {
+				sb.append(c);
+			}
+		}
+	}
+	
+	/**
+	 * Indicates whether the character at an index of a name is removed from an id.
+	 * 
+	 * @param  name String
+	 * @param  index int
+	 * @param  removeNewLines boolean indicating that line separators are also removed
+	 * @return boolean
+	 * 
+	 */
+	private static boolean isRemoved(final String name, final int index, boolean removeNewLines) {
+		
+		char c = name.charAt(index);
+		return c == ' ' || c == ',' 
+				|| (c == '_' && index + 1 < name.length() && name.charAt(index + 1) == ':')
+				|| (removeNewLines && name.startsWith(NEW_LINE, index));
+	}
+	
+	/**
+	 * Emitter writes the segments and values of an element into a buffer, which is reused for
+	 * each element created by the thread.
+	 *
+	 */
+	static final class Emitter {
+		
+		private final StringBuilder sb = new StringBuilder(2048);
+		private String[] segments;
+		private int next;
+		
+		private void start(String[] templateSegments) {
+			
+			sb.setLength(0);
+			segments = templateSegments;
+			sb.append(segments[0]);
+			next = 1;
+		}
+		
+		/**
+		 * Adds a value (as is), followed by the next segment.
+		 * 
+		 * @param  value String
+		 * @return Emitter
+		 * 
+		 */
+		Emitter value(final String value) {
+			
+			sb.append(value);
+			return nextSegment();
+		}
+		
+		/**
+		 * Adds a numeric value, followed by the next segment.
+		 * 
+		 * @param  value double
+		 * @return Emitter
+		 * 
+		 */
+		Emitter value(double value) {
+			
+			sb.append(value);
+			return nextSegment();
+		}
+		
+		/**
+		 * Adds a name as an id (see toId()), followed by the next segment.
+		 * 
+		 * @param  name String
+		 * @param  removeNewLines boolean indicating that line separators are also removed
+		 * @return Emitter
+		 * 
+		 */
+		Emitter id(final String name, boolean removeNewLines) {
+			
+			appendId(sb, name, removeNewLines);
+			return nextSegment();
+		}
+		
+		/**
+		 * Adds a label with any angle brackets escaped, followed by the next segment.
+		 * 
+		 * @param  labelText String
+		 * @return Emitter
+		 * 
+		 */
+		Emitter label(final String labelText) {
+			
+			appendLabel(sb, labelText);
+			return nextSegment();
+		}
+		
+		/**
+		 * Adds text (as is) within the current value, without moving to the next segment.
+		 * 
+		 * @param  text String
+		 * @return Emitter
+		 * 
+		 */
+		Emitter append(final String text) {
+			
+			sb.append(text);
+			return this;
+		}
+		
+		/**
+		 * Returns the XML of the element.
+		 * 
+		 * @return String
+		 * 
+		 */
+		String toXML() {
+			
+			if (next != segments.length) {
+				throw new IllegalStateException("Expected " + (segments.length - 1) + " template values, "
+						+ "but " + (next - 1) + " were provided");
+			}
+			return sb.toString();
+		}
+		
+		private Emitter nextSegment() {
+			
+			if (next >= segments.length) {
+				throw new IllegalStateException("Too many template values were provided");
+			}
+			sb.append(segments[next++]);
+			return this;
+		}
+	}
+}
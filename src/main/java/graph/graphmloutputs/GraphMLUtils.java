@@ -30,6 +30,8 @@ import graph.models.EntityAndRelatedNodesModel;
 import graph.models.ClassModel;
 import graph.models.EdgeDetailsModel;
 import graph.models.EdgeFlagsModel;
+import graph.models.GraphElementModel;
+import graph.models.GraphModel;
 import graph.models.GraphRequestModel;
 import graph.models.NodeDetailsModel;
 import graph.models.NoteDetailsModel;
@@ -52,6 +54,7 @@ public class GraphMLUtils extends GraphMLOutputDetails {
 	/**
 	 * Adds any superclasses that are blank nodes.
 	 * 
+	 * @param  graph GraphModel to which the nodes and edges are added
 	 * @param  requestModel GraphRequestModel
      * @param  classes List of ClassModels
 	 * @param  blankNodeSuperClasses Set<TypeAndValueModel>
@@ -63,44 +66,37 @@ public class GraphMLUtils extends GraphMLOutputDetails {
      *             union or intersection reference. This information is needed when doing a property diagram
      *             since the class may not be referenced in a domain or range declaration - and therefore will
      *             not be found in the property diagram without special handling.
-	 * @return GraphML String
 	 * @throws OntoGraphException 
 	 * 
 	 */
-	public static String addBlankNodeSuperclasses(GraphRequestModel requestModel, 
+	public static void addBlankNodeSuperclasses(GraphModel graph, GraphRequestModel requestModel, 
 			List<ClassModel> classes, Set<TypeAndValueModel> blankNodeSuperClasses,
 			RelatedAndRestrictionModel relatedsAndRestrictions, Set<String> referencedClasses) 
 					throws OntoGraphException {
 		
-		StringBuilder sb = new StringBuilder();
-		
         // Add blank node superclasses
         if (!blankNodeSuperClasses.isEmpty()) { 
         	for (TypeAndValueModel bnsc : blankNodeSuperClasses) {
-        		sb.append(addRelated(requestModel, classes, bnsc.getType(), 
+        		addRelated(graph, requestModel, classes, bnsc.getType(), 
         				Arrays.asList(TypeAndValueModel.createTypeAndValueModel("super", bnsc.getValue())),
-        				relatedsAndRestrictions, referencedClasses));
+        				relatedsAndRestrictions, referencedClasses);
         	}
         }
-		
-        return sb.toString();
 	}
 	
     /**
      * Add a property edge in graphML.
      * 
+     * @param  graph GraphModel to which the nodes and edges are added
      * @param  requestModel GraphRequestModel defining visualization settings
      * @param  ontologyPrefix String
      * @param  propModel PropertyModel with all info for a property
-     * @return graphML String
      * 
      */
-    public static String addPropertyEdges(GraphRequestModel requestModel,
+    public static void addPropertyEdges(GraphModel graph, GraphRequestModel requestModel,
     		final String ontologyPrefix, PropertyModel propModel) {   
         
         String visualization = requestModel.getVisualization();
-        StringBuilder sb = new StringBuilder();
-        
         EdgeDetailsModel edgeDetails = EdgeDetailsModel.createBasicEdgeDetailsModel(visualization,
                 // TODO: Currently uses the format, "prefixed name" (except VOWL) but the property model's label  
                 //    uses the format, "label (prefixed name)" if a label is defined. Allow selection of label,
@@ -122,44 +118,35 @@ public class GraphMLUtils extends GraphMLOutputDetails {
             	// Need to reset the domain name in case you have multiple ranges
                 String adjustedDomainName = getPrefixedNameFromLabel(domain);
                 String adjustedRangeName = getPrefixedNameFromLabel(range);
-                // Deal with class and property splitting for VOWL
-                String newNode = EMPTY_STRING;
+                // Deal with class and property splitting for VOWL (any new node is added to the graph)
                 // VOWL processing for non-blank nodes 
                 // TODO Do we need to worry about blank nodes as the domain? (This seems unlikely)
                 if (range.contains(":") && "vowl".equals(visualization)) {  
-                	List<String> newDetails = handleVOWLSplitting(propModel.getPropertyName(), 
+                	List<String> newDetails = handleVOWLSplitting(graph, propModel.getPropertyName(), 
                 			adjustedDomainName, adjustedRangeName, propModel.getPropertyType());
                 	adjustedDomainName = newDetails.get(0);
                 	adjustedRangeName = newDetails.get(1);
-                	newNode = newDetails.get(2);
-                }
-                
-                // If a new node was added, append that to the StringBuilder
-                if (!newNode.isEmpty()) {
-                	sb.append(newNode);
                 }
                 
                 // Add the property edge between the domain and range
-                sb.append(addEdge(edgeDetails, adjustedDomainName, adjustedRangeName, propFullName,
+                graph.add(addEdge(edgeDetails, adjustedDomainName, adjustedRangeName, propFullName,
                         propModel.getEdgeFlags()));
             }
         }
-        
-        return sb.toString();
     }
     
     /**
-     * Returns the GraphML output for a class that is referenced as part of blank node processing in
+     * Returns the node for a class that is referenced as part of blank node processing in
      * the property diagram.
      * 
      * @param  ontologyPrefix String
 	 * @param  nodeDetails NodeDetailsModel with info such as nodeShape, fillColor, visualization, ...
      * @param  refClass String defining the class which is referenced and which should be added to 
      *                         the GraphML output
-     * @return GraphML String
+     * @return GraphElementModel for the node
      * 
      */
-    public static String addReferencedClass(final String ontologyPrefix, 
+    public static GraphElementModel addReferencedClass(final String ontologyPrefix, 
     		NodeDetailsModel nodeDetails, final String refClass) {
 
     	String visualization = nodeDetails.getVisualization();
@@ -179,6 +166,7 @@ public class GraphMLUtils extends GraphMLOutputDetails {
     /** 
      * Add the equivalentClasses, disjointWiths and oneOfs definitions to the graph.
      * 
+     * @param  graph GraphModel to which the nodes and edges are added
      * @param  requestModel GraphRequestModel
      * @param  classes List<ClassModel> holding the naming conventions for any non-blank node entity
      *             referenced by a blank node
@@ -196,20 +184,16 @@ public class GraphMLUtils extends GraphMLOutputDetails {
      *             union or intersection reference. This information is needed when doing a property diagram
      *             since the class may not be referenced in a domain or range declaration - and therefore will
      *             not be found in the property diagram without special handling.
-     * @return GraphML String
      * @throws OntoGraphException 
      * 
      */
-    public static String addRelated(GraphRequestModel requestModel, List<ClassModel> classes, 
-    		final String className, List<TypeAndValueModel> relatedList, 
+    public static void addRelated(GraphModel graph, GraphRequestModel requestModel, 
+    		List<ClassModel> classes, final String className, List<TypeAndValueModel> relatedList, 
     		RelatedAndRestrictionModel relatedsAndRestrictions, Set<String> referencedClasses)
     				throws OntoGraphException {
  
-    	StringBuilder sb = new StringBuilder();
     	List<String> enumIndividuals = new ArrayList<>();
     	
-    	List<RestrictionModel> restrictions = relatedsAndRestrictions.getRestrictions();
-    	
     	for (TypeAndValueModel related : relatedList) {
     		String typeOfRelationship = related.getType();
     		String relatedEntity = related.getValue();
@@ -218,12 +202,12 @@ public class GraphMLUtils extends GraphMLOutputDetails {
     			//   (oneOf individuals are handled differently even though "oneOf" is also defined 
     			//   as an equivalentClass)
     			if (!relatedEntity.contains(":")) {
-    				sb.append(blankNodeProcessing(requestModel, classes, 
+    				blankNodeProcessing(graph, requestModel, classes, 
     						EntityAndRelatedNodesModel.createEntityAndRelatedNodesModel(relatedEntity, className), 
-    						typeOfRelationship, relatedsAndRestrictions, referencedClasses));
+    						typeOfRelationship, relatedsAndRestrictions, referencedClasses);
     			} else {
-    				sb.append(addEquivalentDisjoint(requestModel, classes, className, relatedEntity, 
-    						typeOfRelationship));
+    				addEquivalentDisjoint(graph, requestModel, classes, className, relatedEntity, 
+    						typeOfRelationship, relatedsAndRestrictions);
     			}
     		} else {
     			// Process an enumeration individual
@@ -235,18 +219,14 @@ public class GraphMLUtils extends GraphMLOutputDetails {
     	if (!enumIndividuals.isEmpty()) {
     		// Determine type of className
     		boolean isClassRestriction = true;
-    		for (RestrictionModel rm : restrictions) {
-    			if (className.equals(rm.getRestrictionName())) {
-    				isClassRestriction = rm.isClassRestriction();
-    				break;
-    			}
+    		RestrictionModel rm = relatedsAndRestrictions.findRestriction(className);
+    		if (rm != null) {
+    			isClassRestriction = rm.isClassRestriction();
     		}
-    		sb.append(addEnumerationIndividuals(requestModel, isClassRestriction,
+    		addEnumerationIndividuals(graph, requestModel, isClassRestriction,
     				EntityAndRelatedNodesModel.createEntityAndRelatedNodesModel(className + "OneOf", className), 
-    				enumIndividuals, "eq"));
+    				enumIndividuals, "eq");
     	}
-    	
-    	return sb.toString();
     }
     
     /**
@@ -259,43 +239,37 @@ public class GraphMLUtils extends GraphMLOutputDetails {
 	 * @param  isClassRestriction boolean
 	 * @param  nodeName String
 	 * @param  restrictionText String
-	 * @return String holding the GraphML for the new node
+	 * @return GraphElementModel for the new node
 	 */
-	public static String addRestrictionNote(final String visualization, List<String> restrictionDetails,
-			final String valuesFrom, boolean isClassRestriction, final String nodeName, 
-			final String restrictionText) {
-		
-		StringBuilder sb = new StringBuilder();
+	public static GraphElementModel addRestrictionNote(final String visualization, 
+			List<String> restrictionDetails, final String valuesFrom, boolean isClassRestriction, 
+			final String nodeName, final String restrictionText) {
 		
 		// Get the height and width of the node/note
 	    NoteDetailsModel noteDetails = getRestrictionNoteDetails(visualization, restrictionDetails, valuesFrom);
 	    
-	    // Add the node/note
+	    // Create the node/note
 	    if (GRAFFOO.equals(visualization)) {
-	    	sb.append(addGraffooIndividualOrNode(isClassRestriction, nodeName, restrictionText, 
+	    	return addGraffooIndividualOrNode(isClassRestriction, nodeName, restrictionText, 
 	    			Integer.toString(noteDetails.getWidth()) + ".0", 
-	    			Integer.toString(noteDetails.getHeight()) + ".0"));
+	    			Integer.toString(noteDetails.getHeight()) + ".0");
 	    } else {
-	    	sb.append(addNote(visualization, noteDetails, nodeName, restrictionText));
+	    	return addNote(visualization, noteDetails, nodeName, restrictionText);
 	    }
-	    
-	    return sb.toString();
 	}
 
 	/**
      * Draw edges from a class to its superclasses.
      * 
+     * @param  graph GraphModel to which the nodes and edges are added
      * @param  className String of the class name (with a prefix)
      * @param  superClasses List<String> of superclasses 
      * @param  requestModel GraphRequestModel defining visualization settings
-     * @return String GraphMLString
      * 
      */
-    public static String addSubclassOfEdges(GraphRequestModel requestModel,
+    public static void addSubclassOfEdges(GraphModel graph, GraphRequestModel requestModel,
     		final String className, List<String> superClasses) {
         
-        StringBuilder sb = new StringBuilder();
-        
         EdgeDetailsModel edgeDetails = EdgeDetailsModel.createEdgeDetailsModelForType(requestModel, "subclass");
         EdgeFlagsModel edgeFlags = EdgeFlagsModel.createEdgeFlagsFalse();
         
@@ -304,21 +278,20 @@ public class GraphMLUtils extends GraphMLOutputDetails {
         	    // Remove the text label if a "subClassOf" a datatype is specified
         	    if ("rdfs:Datatype".equals(superClass)) {
         	    	edgeDetails.setEdgeLabel("");
-        	    	sb.append(addEdge(edgeDetails, className, superClass, "datatype", edgeFlags));
+        	    	graph.add(addEdge(edgeDetails, className, superClass, "datatype", edgeFlags));
         	    } else {
         	    	// Add specific source-target edges 
-        	    	sb.append(addEdge(edgeDetails, className, superClass, "subClassOf", edgeFlags));
+        	    	graph.add(addEdge(edgeDetails, className, superClass, "subClassOf", edgeFlags));
         	    }
         	}
         }
-        
-        return sb.toString();
     }
     
     /**
 	 * Processing to display the semantics of a blank node (a union, intersection or complement of
 	 * other classes/blank nodes).
 	 * 
+	 * @param  graph GraphModel to which the nodes and edges are added
 	 * @param  requestModel GraphRequestModel
 	 * @param  classes List<ClassModel> holding the naming conventions for referenced entities that are
 	 *              not blank nodes
@@ -337,17 +310,14 @@ public class GraphMLUtils extends GraphMLOutputDetails {
 	 *             union or intersection reference. This information is needed when doing a property or 
 	 *             individual diagram since the class may not be referenced in a domain or range declaration 
 	 *             (for properties) or listed at all (for individuals), but needs to be found in the diagram.
-	 * @return GraphML String
 	 * @throws OntoGraphException
 	 * 
 	 */
-	public static String blankNodeProcessing(GraphRequestModel requestModel, List<ClassModel> classes, 
-			EntityAndRelatedNodesModel blankAndRelated, final String typeOfRelationship, 
+	public static void blankNodeProcessing(GraphModel graph, GraphRequestModel requestModel, 
+			List<ClassModel> classes, EntityAndRelatedNodesModel blankAndRelated, final String typeOfRelationship, 
 			RelatedAndRestrictionModel relatedsAndRestrictions, Set<String> referencedClasses) 
 					throws OntoGraphException {
 	
-		StringBuilder sb = new StringBuilder();
-		
 		String blankNode = blankAndRelated.getEntityNode();
 		String className = blankAndRelated.getRelatedNode();
 		
@@ -361,7 +331,8 @@ public class GraphMLUtils extends GraphMLOutputDetails {
 		// Determine what the blank node represents - a restriction, oneOf, union, intersection or complement
 		if (connectives.get(blankNode) == null && equivalentsDisjointsOneOfs.get(blankNode) == null) {
 			// The blank node must represent a restriction
-			return handleRestriction(requestModel, classes, blankAndRelated, relatedsAndRestrictions);
+			handleRestriction(graph, requestModel, classes, blankAndRelated, relatedsAndRestrictions);
+			return;
 		} 
 		
 		// The blank node is a oneOf, union, intersection or complement declaration
@@ -381,40 +352,38 @@ public class GraphMLUtils extends GraphMLOutputDetails {
 		}
 
 		if (!complement.isEmpty()) {
-			sb.append(processComplementUnionOrIntersection(edgeDetails, className, blankNode, "complement"));
+			processComplementUnionOrIntersection(graph, edgeDetails, className, blankNode, "complement");
 			// Draw an edge from the image/note to the referenced complement class
-			sb.append(handleReferencedEquivalent(requestModel, classes, edgeDetails, 
+			handleReferencedEquivalent(graph, requestModel, classes, edgeDetails, 
 					EntityAndRelatedNodesModel.createEntityAndRelatedNodesModel(blankNode, complement), 
-					"comp", relatedsAndRestrictions, referencedClasses));
+					"comp", relatedsAndRestrictions, referencedClasses);
 		}
 		
 		if (!unions.isEmpty()) {
-			sb.append(processComplementUnionOrIntersection(edgeDetails, className, blankNode, "union"));
+			processComplementUnionOrIntersection(graph, edgeDetails, className, blankNode, "union");
 			for (String unionClass : unions) {
 				// Draw an edge from the image/note to the referenced union classes
-				sb.append(handleReferencedEquivalent(requestModel, classes, edgeDetails, 
+				handleReferencedEquivalent(graph, requestModel, classes, edgeDetails, 
 						EntityAndRelatedNodesModel.createEntityAndRelatedNodesModel(blankNode, unionClass), 
-						UN, relatedsAndRestrictions, referencedClasses));
+						UN, relatedsAndRestrictions, referencedClasses);
 			}
 		}
 	
 		if (!intersections.isEmpty()) {
-			sb.append(processComplementUnionOrIntersection(edgeDetails, className, blankNode, "intersection"));
+			processComplementUnionOrIntersection(graph, edgeDetails, className, blankNode, "intersection");
 			for (String interClass : intersections) {
 				// Draw an edge from the image/note to the referenced intersection classes 
-				sb.append(handleReferencedEquivalent(requestModel, classes, edgeDetails, 
+				handleReferencedEquivalent(graph, requestModel, classes, edgeDetails, 
 						EntityAndRelatedNodesModel.createEntityAndRelatedNodesModel(blankNode, interClass), 
-						INTER, relatedsAndRestrictions, referencedClasses));
+						INTER, relatedsAndRestrictions, referencedClasses);
 			}
 		}
 		
 		if (!individuals.isEmpty()) {
-			sb.append(addEnumerationIndividuals(requestModel, true, 
+			addEnumerationIndividuals(graph, requestModel, true, 
 					EntityAndRelatedNodesModel.createEntityAndRelatedNodesModel(blankNode, EMPTY_STRING), 
-					individuals, "eq"));
+					individuals, "eq");
 		}
-		
-		return sb.toString();
 	}
 	
 	/**
@@ -538,6 +507,7 @@ public class GraphMLUtils extends GraphMLOutputDetails {
 	 * Add a node or note which represents a restriction, then add an edge from the
 	 * restriction details to the entityName.
 	 * 
+	 * @param  graph GraphModel to which the nodes and edges are added
 	 * @param  requestModel GraphRequestModel
 	 * @param  classes List<ClassModel>
 	 * @param  entityAndRelated EntityAndRelatedNodesModel defining the blank node or a datatype entity
@@ -547,21 +517,17 @@ public class GraphMLUtils extends GraphMLOutputDetails {
 	 *             of "related" classes (equivalent, disjoints, and oneOfs), of connectives
 	 *             (unions, intersections and complementOfs) and restrictions (allValuesFrom,
 	 *             someValuesFrom, min/maxInclusive, ...)
-	 * @return GraphML String
 	 * @throws OntoGraphException 
 	 * 
 	 */
-	public static String handleRestriction(GraphRequestModel requestModel, List<ClassModel> classes,
-			EntityAndRelatedNodesModel entityAndRelated, RelatedAndRestrictionModel relatedsAndRestrictions)
+	public static void handleRestriction(GraphModel graph, GraphRequestModel requestModel, 
+			List<ClassModel> classes, EntityAndRelatedNodesModel entityAndRelated, 
+			RelatedAndRestrictionModel relatedsAndRestrictions)
 					throws OntoGraphException {
 		
-		StringBuilder sb = new StringBuilder();
-		
 		String visualization = requestModel.getVisualization();
 		final String entityNode = entityAndRelated.getEntityNode();
 		final String relatedNode = entityAndRelated.getRelatedNode();
-		
-		List<RestrictionModel> restrictions = relatedsAndRestrictions.getRestrictions();
 	
 		EdgeDetailsModel edgeDetails = EdgeDetailsModel.createEdgeDetailsModelForRelationship(
 				requestModel, "eq");
@@ -579,12 +545,10 @@ public class GraphMLUtils extends GraphMLOutputDetails {
 		//    be done manually, during graph layout.
 		List<String> restrictionDetails = new ArrayList<>();
 		boolean isClassRestriction = false;
-		for (RestrictionModel rm : restrictions) {
-			if (entityNode.equals(rm.getRestrictionName())) {
-				restrictionDetails.addAll(rm.getRestrictionDetails());
-				isClassRestriction = rm.isClassRestriction();
-				break;
-			}
+		RestrictionModel rm = relatedsAndRestrictions.findRestriction(entityNode);
+		if (rm != null) {
+			restrictionDetails.addAll(rm.getRestrictionDetails());
+			isClassRestriction = rm.isClassRestriction();
 		}
 		
 	    StringBuilder restriction = new StringBuilder();
@@ -621,8 +585,8 @@ public class GraphMLUtils extends GraphMLOutputDetails {
 	                GraphMLOutputDetails.modifyNodeDetailsForNodeShape(nodeDetails, dt);
 	    	        // Restore the nodeShape in case it was changed in modifyNodeDetails
 	                nodeDetails.setNodeShape(nodeShape);
-	    			sb.append(addNode(nodeDetails, entityNode + dt, dt));
-	    			sb.append(addEdge(edgeDetails, entityNode, entityNode + dt, prefix + entityNode + dt, 
+	    			graph.add(addNode(nodeDetails, entityNode + dt, dt));
+	    			graph.add(addEdge(edgeDetails, entityNode, entityNode + dt, prefix + entityNode + dt, 
 	    					EdgeFlagsModel.createEdgeFlagsFalse()));
 	    		}
 	    		
@@ -635,8 +599,8 @@ public class GraphMLUtils extends GraphMLOutputDetails {
 	    			typeOfValuesFrom = "allValuesFrom";
 	    		}
 
-				sb.append(processValuesFrom(requestModel, classes, edgeDetails, entityNode, valuesFrom, 
-						typeOfValuesFrom, relatedsAndRestrictions));
+				processValuesFrom(graph, requestModel, classes, edgeDetails, entityNode, valuesFrom, 
+						typeOfValuesFrom, relatedsAndRestrictions);
 	    		
 	    	} else if (rd.contains("oneOf ")) {
 	    		isOneOf = true;
@@ -649,7 +613,7 @@ public class GraphMLUtils extends GraphMLOutputDetails {
 	    
 	    // Add the restriction note
 	    if (!isOneOf && !restrictionDetails.isEmpty()) {
-    		sb.append(addRestrictionNote(visualization, restrictionDetails, valuesFrom, isClassRestriction,
+    		graph.add(addRestrictionNote(visualization, restrictionDetails, valuesFrom, isClassRestriction,
     				entityNode, restriction.toString()));
 	    
 		    // Add an edge from the relatedNode to the entityNode IF they aren't equal and a relatedNode is defined
@@ -657,17 +621,16 @@ public class GraphMLUtils extends GraphMLOutputDetails {
 		    if (!relatedNode.equals(entityNode) && !relatedNode.isEmpty()) {
 		    	// Reset the edge label in case it was changed by the some/allValues processing
 		    	resetEdgeDetails(edgeDetails);
-		    	sb.append(addEdge(edgeDetails, relatedNode, entityNode, "restriction", 
+		    	graph.add(addEdge(edgeDetails, relatedNode, entityNode, "restriction", 
 		    			EdgeFlagsModel.createEdgeFlagsFalse()));
 		    }
 	    }
-		
-		return sb.toString();
 	}
 
 	/**
 	 * Add enumeration details to the graph and draw edge to parent class.
 	 * 
+	 * @param  graph GraphModel to which the nodes and edges are added
 	 * @param  requestModel GraphRequestModel
 	 * @param  isClassRestriction boolean indicating that this is a request for a owl:Class OneOf definition 
 	 *                 (if true) or an rdfs:Datatype OneOf definition (if false)
@@ -675,15 +638,12 @@ public class GraphMLUtils extends GraphMLOutputDetails {
 	 *                 and the class name that holds the equivalent class definition (which may also be a blank node)
 	 * @param  individualList List<String> of individuals in the enumeration 
 	 * @param  type String defining the label on the edge
-	 * @return String GraphMLString
 	 * 
 	 */
-	private static String addEnumerationIndividuals(GraphRequestModel requestModel, 
+	private static void addEnumerationIndividuals(GraphModel graph, GraphRequestModel requestModel, 
 			boolean isClassRestriction, EntityAndRelatedNodesModel entityAndRelated, 
 			List<String> individualList, final String type) {
 		
-		StringBuilder sb = new StringBuilder();
-		
 		String visualization = requestModel.getVisualization();
 		String graphType = requestModel.getGraphType();
 		
@@ -718,7 +678,7 @@ public class GraphMLUtils extends GraphMLOutputDetails {
         	String targetEntity = enumClassName;  
         	if (!"individual".equals(graphType)) {
         		targetEntity = blankNode;
-	        	sb.append(addGraffooIndividualOrNode(isClassRestriction, blankNode, openingLine, 
+	        	graph.add(addGraffooIndividualOrNode(isClassRestriction, blankNode, openingLine, 
 	        			Integer.toString(width) + ".0", "50.0"));
         	}
         	// Need to retain the edge label for use below, but for the edge to the individuals, 
@@ -727,12 +687,12 @@ public class GraphMLUtils extends GraphMLOutputDetails {
         	edgeDetails.setEdgeLabel(EMPTY_STRING);
         	for (String indiv : individualList) {
         		// Draw the individual and an edge from it, to the node or the enum class name
-        		sb.append(addGraffooIndividualOrNode(false, indiv, indiv, EMPTY_STRING, EMPTY_STRING));
-        		sb.append(addEdge(edgeDetails, targetEntity, indiv, ONE_OF, edgeFlags));
+        		graph.add(addGraffooIndividualOrNode(false, indiv, indiv, EMPTY_STRING, EMPTY_STRING));
+        		graph.add(addEdge(edgeDetails, targetEntity, indiv, ONE_OF, edgeFlags));
         	}
         	edgeDetails.setEdgeLabel(currEdgeLabel);
 	        if ("individual".equals(graphType)) {	
-	        	return sb.toString();
+	        	return;
         	}
         	
         } else {
@@ -745,7 +705,7 @@ public class GraphMLUtils extends GraphMLOutputDetails {
         	if (VOWL.equals(visualization)) {
         		noteDetails.setLineType("dashed");
         	}
-        	sb.append(addNote(visualization, noteDetails, blankNode, sbText.toString()));
+        	graph.add(addNote(visualization, noteDetails, blankNode, sbText.toString()));
         }
 
         // Add an edge from the class to its enum individuals node or note (this is needed for a 
@@ -753,38 +713,35 @@ public class GraphMLUtils extends GraphMLOutputDetails {
         // Don't need this edge, if this is for a property graph - in which case, the enumClassName 
     	//   is empty
         if (!enumClassName.isEmpty()) {
-        	sb.append(addEdge(edgeDetails, enumClassName, blankNode, ONE_OF, edgeFlags));
+        	graph.add(addEdge(edgeDetails, enumClassName, blankNode, ONE_OF, edgeFlags));
         }
-        
-	    // Return the note and edge details
-	    return sb.toString();
 	}
 
 	/**
 	 * Add equivalence and disjoint details for a class to another class.
 	 * 
+	 * @param  graph GraphModel to which the nodes and edges are added
 	 * @param  requestModel GraphRequestModel
 	 * @param  classes List<ClassModel> to determine node labeling
 	 * @param  className String which has the equivalent or disjoint definition
 	 * @param  related String which is the equivalent or disjoint class
 	 * @param  type String indicating whether this is an "eq" (equivalent) or "dis"
 	 *             (disjoint) relationship
-	 * @return GraphML String
+	 * @param  relatedsAndRestrictions RelatedAndRestrictionModel (used to look up the classes)
 	 * 
 	 */
-	private static String addEquivalentDisjoint(GraphRequestModel requestModel, List<ClassModel> classes,
-			final String className, final String related, final String type) { 
+	private static void addEquivalentDisjoint(GraphModel graph, GraphRequestModel requestModel, 
+			List<ClassModel> classes, final String className, final String related, final String type,
+			RelatedAndRestrictionModel relatedsAndRestrictions) { 
 	    
-		StringBuilder sb = new StringBuilder();
-		
 		// Create the equivalent/disjoint edge
 	    EdgeDetailsModel edgeDetails = EdgeDetailsModel.createEdgeDetailsModelForRelationship(
 	    		requestModel, type);
 	    EdgeFlagsModel edgeFlags = EdgeFlagsModel.createEdgeFlagsFalse();
 	    // Get the prefixed names (just in case, since this can be called from referenced
 	    //    classes in blank node processing)
-	    String prefixedName = getPrefixedClassName(classes, className);
-	    String prefixedRelated = getPrefixedClassName(classes, related);
+	    String prefixedName = getPrefixedClassName(classes, className, relatedsAndRestrictions);
+	    String prefixedRelated = getPrefixedClassName(classes, related, relatedsAndRestrictions);
 			
 		if ("dis".equals(type) && VOWL.equals(requestModel.getVisualization())) {
 			// VOWL disjoint definition uses an image to connect the two classes
@@ -793,19 +750,17 @@ public class GraphMLUtils extends GraphMLOutputDetails {
 		    edgeDetails.setEdgeLabel(EMPTY_STRING);
 		    edgeDetails.setTargetArrow("none");
 			String imageName = prefixedName + prefixedRelated + "dis";
-			sb.append(addImage(imageName, DISJOINT));
+			graph.add(addImage(imageName, DISJOINT));
 			// Draw edges to the classes from the image
-		    sb.append(addEdge(edgeDetails, prefixedName, imageName, DISJOINT, edgeFlags));
-		    sb.append(addEdge(edgeDetails, prefixedRelated, imageName, DISJOINT, edgeFlags));
+		    graph.add(addEdge(edgeDetails, prefixedName, imageName, DISJOINT, edgeFlags));
+		    graph.add(addEdge(edgeDetails, prefixedRelated, imageName, DISJOINT, edgeFlags));
 		} else {
 			if ("dis".equals(type)) {
-				sb.append(addEdge(edgeDetails, prefixedName, prefixedRelated, DISJOINT, edgeFlags));
+				graph.add(addEdge(edgeDetails, prefixedName, prefixedRelated, DISJOINT, edgeFlags));
 			} else {
-				sb.append(addEdge(edgeDetails, prefixedName, prefixedRelated, "equiv", edgeFlags));
+				graph.add(addEdge(edgeDetails, prefixedName, prefixedRelated, "equiv", edgeFlags));
 			}
 		}
-		
-		return sb.toString();
 	}
     
     /**
@@ -815,10 +770,10 @@ public class GraphMLUtils extends GraphMLOutputDetails {
      * @param  visualization String
      * @param  entityName String defining the name of the node which will be an image or a note
      * @param  type String indicating that either a union, intersection or complement is being defined
-     * @return GraphML String
+     * @return GraphElementModel for the image, node or note
      * 
      */
-    private static String addImageNodeOrNote(final String visualization,
+    private static GraphElementModel addImageNodeOrNote(final String visualization,
     		final String entityName, final String type) {
     	
     	if (VOWL.equals(visualization)) {
@@ -849,20 +804,18 @@ public class GraphMLUtils extends GraphMLOutputDetails {
 	 * 
 	 * @param  classes List<ClassModel> holding the various names/URIs for the entity
 	 * @param  referencedEntity String
+	 * @param  relatedsAndRestrictions RelatedAndRestrictionModel (used to look up the classes)
 	 * @return String that is the prefixed name of the entity
 	 * 
 	 */
 	private static String getPrefixedClassName(List<ClassModel> classes, 
-			final String referencedEntity) {
+			final String referencedEntity, RelatedAndRestrictionModel relatedsAndRestrictions) {
 
 		String refClassName = referencedEntity;
 		if (referencedEntity.startsWith("http://") || referencedEntity.startsWith("urn:")) {
-			for (ClassModel classDetails : classes) {
-				if (referencedEntity.equals(classDetails.getClassName()) 
-						|| referencedEntity.equals(classDetails.getFullClassName())) {	
-					refClassName = classDetails.getClassName();
-					break;
-				}
+			ClassModel classDetails = relatedsAndRestrictions.findClass(classes, referencedEntity);
+			if (classDetails != null) {
+				refClassName = classDetails.getClassName();
 			}
 		}
 		
@@ -1020,6 +973,7 @@ public class GraphMLUtils extends GraphMLOutputDetails {
 	 * Either draw an edge to the referenced entity (if not a blank node) or continue drawing the complement,
 	 * union or intersection details.
 	 * 
+	 * @param  graph GraphModel to which the nodes and edges are added
 	 * @param  requestModel GraphRequestModel
      * @param  classes List<ClassModel> holding the naming conventions of any referenced entities
      *             that are not blank nodes
@@ -1037,75 +991,64 @@ public class GraphMLUtils extends GraphMLOutputDetails {
      *             union or intersection reference. This information is needed when doing a property diagram
      *             since the class may not be referenced in a domain or range declaration - and therefore will
      *             not be found in the property diagram without special handling.
-     * @return GraphML String
 	 * @throws OntoGraphException 
 	 * 
 	 */
-	private static String handleReferencedEquivalent(GraphRequestModel requestModel, 
+	private static void handleReferencedEquivalent(GraphModel graph, GraphRequestModel requestModel, 
 			List<ClassModel> classes, EdgeDetailsModel edgeDetails, EntityAndRelatedNodesModel blankAndRelated,  
 			final String typeOfConnective, RelatedAndRestrictionModel relatedsAndRestrictions, 
 			Set<String> referencedClasses) throws OntoGraphException {
 		
-		StringBuilder sb = new StringBuilder();
-		
 		String blankNode = blankAndRelated.getEntityNode();
 		String referencedEntity = blankAndRelated.getRelatedNode();	
 		
 		if (!referencedEntity.contains(":")) {
-			sb.append(blankNodeProcessing(requestModel, classes, 
+			blankNodeProcessing(graph, requestModel, classes, 
 					EntityAndRelatedNodesModel.createEntityAndRelatedNodesModel(referencedEntity, blankNode), 
-					typeOfConnective, relatedsAndRestrictions, referencedClasses));
+					typeOfConnective, relatedsAndRestrictions, referencedClasses);
 		} else {
-			String refClassName = getPrefixedClassName(classes, referencedEntity);
+			String refClassName = getPrefixedClassName(classes, referencedEntity, relatedsAndRestrictions);
 			String refClassLabel = refClassName;
-			for (ClassModel classDetails : classes) {
-				if (referencedEntity.equals(classDetails.getClassName()) 
-						|| referencedEntity.equals(classDetails.getFullClassName())) {	
-					refClassLabel = classDetails.getClassLabel();
-					break;
-				}
+			ClassModel classDetails = relatedsAndRestrictions.findClass(classes, referencedEntity);
+			if (classDetails != null) {
+				refClassLabel = classDetails.getClassLabel();
 			}
 			referencedClasses.add(refClassLabel);
-			sb.append(addEdge(edgeDetails, blankNode, refClassName, typeOfConnective, 
+			graph.add(addEdge(edgeDetails, blankNode, refClassName, typeOfConnective, 
 					EdgeFlagsModel.createEdgeFlagsFalse()));
 		}
-		
-		return sb.toString();
 	}
 	
 	/**
 	 * Adds an image, node or note about a complementOf, unionOf or intersectionOf definition
 	 * and then adds an edge from a class to that image/node/note
 	 * 
+	 * @param  graph GraphModel to which the nodes and edges are added
 	 * @param  edgeDetails EdgeDetailsModel with info such as sourceArrow, edgeLabel, ...
 	 * @param  className String (may be empty if the processing is part of property definition graphing)
 	 * @param  entityName String identifying the name of the image, node or note
 	 * @param  type String indicating that this is either a "complement", "union" or "intersection" 
-	 * @return GraphML String
 	 * 
 	 */
-	private static String processComplementUnionOrIntersection(EdgeDetailsModel edgeDetails, 
+	private static void processComplementUnionOrIntersection(GraphModel graph, EdgeDetailsModel edgeDetails, 
 			final String className, final String entityName, final String type) {
 		
-		StringBuilder sb = new StringBuilder();
-		
 		// Add complement/union/intersection image or note
-		sb.append(addImageNodeOrNote(edgeDetails.getVisualization(), entityName, type));
+		graph.add(addImageNodeOrNote(edgeDetails.getVisualization(), entityName, type));
 		// Drawn an edge from the image to the original class to which the blank node is associated
 		if (!className.isEmpty()) {
-			sb.append(addEdge(edgeDetails, className, entityName, type + "Of", 
+			graph.add(addEdge(edgeDetails, className, entityName, type + "Of", 
 					EdgeFlagsModel.createEdgeFlagsFalse()));
 		}
 		
 		// Reset edgeDetails
 		resetEdgeDetails(edgeDetails);
-		
-		return sb.toString();
 	}
 
 	/**
 	 * Provides the details for a some/allValuesFrom note.
 	 * 
+	 * @param  graph GraphModel to which the nodes and edges are added
 	 * @param  requestModel GraphRequestModel
 	 * @param  edgeDetails EdgeDetailsModel with info such as sourceArrow, edgeLabel, ...
 	 * @param  blankNode String that is the original restriction
@@ -1115,52 +1058,43 @@ public class GraphMLUtils extends GraphMLOutputDetails {
      *             of "related" classes (equivalent, disjoints, and oneOfs), of connectives
      *             (unions, intersections and complementOfs) and restrictions (allValuesFrom,
      *             someValuesFrom, min/maxInclusive, ...)
-	 * @return GraphML String
 	 * @throws OntoGraphException 
 	 * 
 	 */
-	private static String processValuesFrom(GraphRequestModel requestModel, List<ClassModel> classes, 
-			EdgeDetailsModel edgeDetails, final String blankNode, final String valuesFrom,
+	private static void processValuesFrom(GraphModel graph, GraphRequestModel requestModel, 
+			List<ClassModel> classes, EdgeDetailsModel edgeDetails, final String blankNode, final String valuesFrom,
 			final String typeOfValuesFrom, RelatedAndRestrictionModel relatedsAndRestrictions) 
 					throws OntoGraphException {
 		
-		StringBuilder sb = new StringBuilder();
-		
-		List<RestrictionModel> restrictions = relatedsAndRestrictions.getRestrictions();
-        
         // Will not have a node/note for the blank node IF it is a type of rdfs:Datatype
         // So, add it 
-        for (RestrictionModel rm2 : restrictions) {
-            if (valuesFrom.equals(rm2.getRestrictionName()) && !rm2.isClassRestriction()) {
-            	String rd = rm2.getRestrictionDetails().get(0);
-            	if (!rd.contains(ONE_OF)) {
-            		// Is another restriction, so process it
-            		sb.append(handleRestriction(requestModel, classes,
-            				EntityAndRelatedNodesModel.createEntityAndRelatedNodesModel(valuesFrom, valuesFrom), 
-            				relatedsAndRestrictions));
-            		break;
-            	}
-            		
-            	// Is a oneOf definition and the details are in equivalentsDisjointsOneOfs
-            	List<TypeAndValueModel> tvmList = 
-            			relatedsAndRestrictions.getEquivalentsDisjointsOneOfs().get(valuesFrom);
-            	List<String> individuals = new ArrayList<>();
-            	for (TypeAndValueModel tvm : tvmList) {
-            			individuals.add(tvm.getValue());	
-            	}
-            	sb.append(addEnumerationIndividuals(requestModel, false, 
-            			EntityAndRelatedNodesModel.createEntityAndRelatedNodesModel(valuesFrom, blankNode), 
-            			individuals, typeOfValuesFrom));
-            	return sb.toString();
-            }
+        RestrictionModel rm2 = relatedsAndRestrictions.findRestriction(valuesFrom);
+        if (rm2 != null && !rm2.isClassRestriction()) {
+        	String rd = rm2.getRestrictionDetails().get(0);
+        	if (!rd.contains(ONE_OF)) {
+        		// Is another restriction, so process it
+        		handleRestriction(graph, requestModel, classes,
+        				EntityAndRelatedNodesModel.createEntityAndRelatedNodesModel(valuesFrom, valuesFrom), 
+        				relatedsAndRestrictions);
+        	} else {
+	        	// Is a oneOf definition and the details are in equivalentsDisjointsOneOfs
+	        	List<TypeAndValueModel> tvmList = 
+	        			relatedsAndRestrictions.getEquivalentsDisjointsOneOfs().get(valuesFrom);
+	        	List<String> individuals = new ArrayList<>();
+	        	for (TypeAndValueModel tvm : tvmList) {
+	        			individuals.add(tvm.getValue());	
+	        	}
+	        	addEnumerationIndividuals(graph, requestModel, false, 
+	        			EntityAndRelatedNodesModel.createEntityAndRelatedNodesModel(valuesFrom, blankNode), 
+	        			individuals, typeOfValuesFrom);
+	        	return;
+        	}
         }
 
     	// Draw an edge from the restriction to the referenced class
         edgeDetails.setEdgeLabel(typeOfValuesFrom);
-        sb.append(addEdge(edgeDetails, blankNode, valuesFrom, typeOfValuesFrom, 
+        graph.add(addEdge(edgeDetails, blankNode, valuesFrom, typeOfValuesFrom, 
         		EdgeFlagsModel.createEdgeFlagsFalse()));
-        
-        return sb.toString();
 	}
 	
 	/**
@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph.graphmloutputs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ImageResources holds the GraphML y:Resource definitions of the (base64 encoded, BufferedImage)
+ * images that are used for the VOWL connectives. The images are read once, from the classpath
+ * (or if not found there, from the graphmlimages directory of the working directory), and are
+ * then written from memory for each VOWL graph.
+ *
+ */
+@Slf4j
+public final class ImageResources {
+
+	private static final String IMAGE_DIRECTORY = "graphmlimages/";
+
+	// The image resources, in the order that they are output
+	private static final List<String> RESOURCE_IDS =
+			Arrays.asList("complement", "intersection", "union", "disjoint");
+
+	// Resource id -> GraphML y:Resource definition (the map is immutable)
+	private static final Map<String, String> resources = loadResources();
+
+    // Not meant to be instantiated
+    private ImageResources() {
+      throw new IllegalAccessError("ImageResources is a utility class and should not be instantiated.");
+    }
+
+    /**
+     * Writes the GraphML y:Resource definitions for all the VOWL images.
+     *
+     * @param  writer Writer to which the definitions are output
+     * @throws IOException if an image could not be read (or an error occurs writing the output)
+     *
+     */
+    public static void writeResources(Writer writer) throws IOException {
+
+    	for (String resourceId : RESOURCE_IDS) {
+    		String resource = resources.get(resourceId);
+    		if (resource == null) {
+    			throw new IOException("The image file, " + IMAGE_DIRECTORY + resourceId
+    					+ ".txt, could not be read.");
+    		}
+    		writer.write(resource);
+    	}
+    }
+
+    /**
+     * Reads all the images and creates their GraphML y:Resource definitions. An image that cannot
+     * be read is logged, and is not added to the returned map.
+     *
+     * @return Map<String, String> of the resource ids and their y:Resource definitions
+     *
+     */
+    private static Map<String, String> loadResources() {
+
+    	Map<String, String> loaded = new LinkedHashMap<>();
+    	for (String resourceId : RESOURCE_IDS) {
+    		try {
+    			loaded.put(resourceId, "      <y:Resource id=\"" + resourceId
+    					+ "\" type=\"java.awt.image.BufferedImage\">"
+    					+ readImage(IMAGE_DIRECTORY + resourceId + ".txt")
+    					+ "</y:Resource>" + System.getProperty("line.separator"));
+    		} catch (IOException e) {
+    			log.error("Unable to read the VOWL image resource, " + resourceId + ": " + e.getMessage());
+    		}
+    	}
+
+    	return Collections.unmodifiableMap(loaded);
+    }
+
+    /**
+     * Reads an image file from the classpath or the working directory, and returns its
+     * contents as a string.
+     *
+     * @param  path String relative path of the file
+     * @return String with the file contents
+     * @throws IOException
+     *
+     */
+    private static String readImage(final String path) throws IOException {
+
+    	try (InputStream in = ImageResources.class.getClassLoader().getResourceAsStream(path)) {
+    		if (in != null) {
+    			ByteArrayOutputStream contents = new ByteArrayOutputStream();
+    			byte[] buffer = new byte[8192];
+    			int length;
+    			while ((length = in.read(buffer)) != -1) {
+    				contents.write(buffer, 0, length);
+    			}
+    			return new String(contents.toByteArray(), StandardCharsets.UTF_8);
+    		}
+    	}
+
+    	Path file = Paths.get(path);
+    	return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
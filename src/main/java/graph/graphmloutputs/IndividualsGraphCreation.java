@@ -17,6 +17,7 @@
 
 package graph.graphmloutputs;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -26,6 +27,8 @@ import graph.OntoGraphException;
 import graph.models.ClassModel;
 import graph.models.EdgeDetailsModel;
 import graph.models.EdgeFlagsModel;
+import graph.models.GraphElementModel;
+import graph.models.GraphModel;
 import graph.models.GraphRequestModel;
 import graph.models.IndividualModel;
 import graph.models.NodeDetailsModel;
@@ -51,6 +54,7 @@ public final class IndividualsGraphCreation {
     /**
      * Create an instance/individual graph (individuals and their types) in GraphML.
      * 
+	 * @param  graph GraphModel to which the nodes and edges are added
 	 * @param  requestModel GraphRequestModel
      * @param  ontologyPrefix String that is the prefix of the owl:Ontology URI
 	 * @param  classes List<ClassModel> defining the naming details of any classes included due
@@ -60,73 +64,70 @@ public final class IndividualsGraphCreation {
      *             (unions, intersections and complementOfs) and restrictions (allValuesFrom,
      *             someValuesFrom, min/maxInclusive, ...)
      * @param  individuals List of IndividualModels
-     * @return GraphML String
+     * @param  renderer FragmentRenderer which creates the edges and value nodes of the individuals 
+     *             (in parallel, for a large graph)
      * @throws OntoGraphException 
      * 
      */
-    public static String processIndividualGraph(GraphRequestModel requestModel,
+    public static void processIndividualGraph(GraphModel graph, GraphRequestModel requestModel,
     		final String ontologyPrefix, List<ClassModel> classes, List<IndividualModel> individuals,
-    		RelatedAndRestrictionModel relatedsAndRestrictions) throws OntoGraphException { 
-        
-        StringBuilder sb = new StringBuilder();
+    		RelatedAndRestrictionModel relatedsAndRestrictions, FragmentRenderer renderer) 
+    				throws OntoGraphException { 
         
         Set<String> uniqueTypes = new HashSet<>();
         Set<String> uniqueIndividuals = new HashSet<>();
+        // Strings that are known to be contained in a uniqueIndividuals string (see updateUniqueIndividuals)
+        Set<String> containedNames = new HashSet<>();
         Set<String> referencedClasses = new HashSet<>(); 
         Set<String> uniqueValues = new HashSet<>();
         
-        // For each individual ...
-        for (IndividualModel indiv : individuals) {
-            String individualName = indiv.getIndividualName();
-            String individualLabel = indiv.getIndividualLabel();
-            // And add the edge from an individual to its type(s)
-        	List<String> types = indiv.getTypeLabels();
-            sb.append(addTypeOfEdges(requestModel, types, classes, individualName, relatedsAndRestrictions,
-                    referencedClasses));
+        // Create the edges and value nodes of each individual (the value nodes are created for
+        //    all values, but are only added to the graph for the first use of the value)
+        List<IndividualFragment> fragments = renderer.render(individuals, 
+        		indiv -> addIndividualEdges(requestModel, ontologyPrefix, indiv));
+        
+        // For each individual (in order) ...
+        for (int i = 0; i < individuals.size(); i++) {
+        	IndividualModel indiv = individuals.get(i);
+        	IndividualFragment fragment = fragments.get(i);
+            // Add the edge from an individual to its type(s)
+            addTypeOfEdges(graph, requestModel, fragment, classes, relatedsAndRestrictions, 
+            		referencedClasses);
             
             // Keep track of all the individuals and types
             // (We add the individuals and the types at the end of this method)
-            uniqueIndividuals.add(individualLabel);
-        	uniqueTypes.addAll(types);
+            addUniqueIndividual(indiv.getIndividualLabel(), uniqueIndividuals, containedNames);
+        	uniqueTypes.addAll(indiv.getTypeLabels());
 
-        	// Add the datatype properties and values
-        	// These properties use the TypeAndValueModel where the "type" is the property name
-        	//    and the "value" is the property value
-        	List<TypeAndValueModel> datatypeProperties = indiv.getDatatypeProperties();
-        	List<TypeAndValueModel> objectProperties = indiv.getObjectProperties();
-        	for (TypeAndValueModel propAndVal : datatypeProperties) {
-        		String displayValue = propAndVal.getValue();
-        		String valueName = displayValue.replaceAll("\"", "");
-        		valueName = valueName.replaceAll(System.getProperty("line.separator"), "");
+        	// Add the datatype property values and edges
+        	for (int j = 0; j < fragment.valueNames.size(); j++) {
+        		String valueName = fragment.valueNames.get(j);
         		if (!uniqueValues.contains(valueName)) {
         			// Value node is yet added to the output
         			uniqueValues.add(valueName);
-            	    sb.append(addDatatypePropertyValue(requestModel, ontologyPrefix, valueName, displayValue));
+            	    graph.add(fragment.valueNodes.get(j));
         		}
-        	    sb.append(addDatatypePropertyEdge(requestModel, individualName, valueName, propAndVal.getType()));
+        	    graph.add(fragment.datatypeEdges.get(j));
         	}
         	
-        	// Add the object properties and values
-        	for (TypeAndValueModel propAndVal : objectProperties) {
-        		String objValue = propAndVal.getValue();
-        	    sb.append(addObjectPropertyEdges(requestModel, individualName, objValue, 
-        	    		propAndVal.getType()));
-        	    updateUniqueIndividuals(objValue, uniqueIndividuals);
+        	// Add the object property edges
+        	List<TypeAndValueModel> objectProperties = indiv.getObjectProperties();
+        	for (int j = 0; j < objectProperties.size(); j++) {
+        	    graph.add(fragment.objectEdges.get(j));
+        	    updateUniqueIndividuals(objectProperties.get(j).getValue(), uniqueIndividuals, containedNames);
         	}
         }	
         
         // Add the (unique) individuals and types
-        sb.append(addIndividuals(requestModel, ontologyPrefix, uniqueIndividuals));
-        sb.append(addTypes(requestModel, ontologyPrefix, uniqueTypes));
+        addIndividuals(graph, requestModel, ontologyPrefix, uniqueIndividuals);
+        addTypes(graph, requestModel, ontologyPrefix, uniqueTypes);
 
         // Need to add any classes referenced in complement, union or intersectionOf declarations 
         // The display details are set to handle nodes
         NodeDetailsModel nodeDetails = NodeDetailsModel.createNodeDetailsModel(requestModel, "class");
         for (String refClass : referencedClasses) {
-    		sb.append(GraphMLUtils.addReferencedClass(ontologyPrefix, nodeDetails, refClass));
+    		graph.add(GraphMLUtils.addReferencedClass(ontologyPrefix, nodeDetails, refClass));
         }
-        
-        return sb.toString();
     }
     
     /**
@@ -136,10 +137,10 @@ public final class IndividualsGraphCreation {
      * @param  individualName String source
      * @param  nodeName String target
      * @param  property String edge label
-     * @return GraphML String
+     * @return GraphElementModel
      * 
      */
-    private static String addDatatypePropertyEdge(GraphRequestModel requestModel,
+    private static GraphElementModel addDatatypePropertyEdge(GraphRequestModel requestModel,
     		final String individualName, final String nodeName, final String property) {
     	
     	EdgeDetailsModel edgeDetails = EdgeDetailsModel.createEdgeDetailsModelForType(requestModel, "data");
@@ -156,10 +157,10 @@ public final class IndividualsGraphCreation {
      * @param  ontologyPrefix String that is the prefix of the owl:Ontology URI
      * @param  nodeName String identifying the value which is added as a "datatype" node
      * @param  value String specifying the data value (as it should be displayed)
-     * @return GraphML String
+     * @return GraphElementModel
      * 
      */
-    private static String addDatatypePropertyValue(GraphRequestModel requestModel,
+    private static GraphElementModel addDatatypePropertyValue(GraphRequestModel requestModel,
     		final String ontologyPrefix, final String nodeName, final String value) {
         
         NodeDetailsModel nodeDetails = NodeDetailsModel.createNodeDetailsModel(requestModel, "data");
@@ -172,16 +173,15 @@ public final class IndividualsGraphCreation {
     /**
      * Add individual nodes for all unique individuals.
      * 
+     * @param  graph GraphModel to which the nodes and edges are added
      * @param  requestModel GraphRequestModel with individual visualization details
      * @param  ontologyPrefix String that is the prefix of the owl:Ontology URI
      * @param  individuals Set<String> defining the individuals' names/labels 
-     * @return GraphML String
      * 
      */
-    private static String addIndividuals(GraphRequestModel requestModel, final String ontologyPrefix,
-    		Set<String> individuals) {
+    private static void addIndividuals(GraphModel graph, GraphRequestModel requestModel, 
+    		final String ontologyPrefix, Set<String> individuals) {
         
-    	StringBuilder sb = new StringBuilder();
     	String visualization = requestModel.getVisualization();
     	
         // Get input from model for the node details
@@ -198,10 +198,8 @@ public final class IndividualsGraphCreation {
         	nodeDetails.setNodeShape(requestModel.getIndividualNodeShape());
         	GraphMLOutputDetails.getNodeDetails(ontologyPrefix, nodeDetails, indivName, label, false);
         
-        	sb.append(GraphMLOutputDetails.addNode(nodeDetails, indivName, label));
+        	graph.add(GraphMLOutputDetails.addNode(nodeDetails, indivName, label));
         }
-        
-        return sb.toString();
     }
     
     /**
@@ -212,10 +210,10 @@ public final class IndividualsGraphCreation {
      * @param  individualName String source
      * @param  value String targets
      * @param  property String edge label
-     * @return GraphML String
+     * @return GraphElementModel
      * 
      */
-    private static String addObjectPropertyEdges(GraphRequestModel requestModel,
+    private static GraphElementModel addObjectPropertyEdges(GraphRequestModel requestModel,
     		final String individualName, final String value, final String property) {
 
     	EdgeDetailsModel edgeDetails = EdgeDetailsModel.createEdgeDetailsModelForType(requestModel, "object");
@@ -225,74 +223,112 @@ public final class IndividualsGraphCreation {
         		EdgeFlagsModel.createEdgeFlagsFalse());
     }
     
+    /**
+     * Creates the typeOf, datatype property and object property edges of an individual, and the 
+     * nodes of its datatype property values.
+     * 
+     * @param  requestModel GraphRequestModel with individual visualization details
+     * @param  ontologyPrefix String that is the prefix of the owl:Ontology URI
+     * @param  indiv IndividualModel
+     * @return IndividualFragment holding the edges and value nodes
+     * 
+     */
+    private static IndividualFragment addIndividualEdges(GraphRequestModel requestModel,
+    		final String ontologyPrefix, IndividualModel indiv) {
+    	
+    	IndividualFragment fragment = new IndividualFragment();
+    	String individualName = indiv.getIndividualName();
+    	
+    	// Create the edges from the individual to its type(s)
+        EdgeDetailsModel edgeDetails = EdgeDetailsModel.createEdgeDetailsModelForType(requestModel, "type");
+        for (String type : indiv.getTypeLabels()) {
+        	if (!type.isEmpty()) {
+	    		String typeName = GraphMLUtils.getPrefixedNameFromLabel(type);
+	    		fragment.typeNames.add(typeName);
+	    		fragment.typeEdges.add(GraphMLOutputDetails.addEdge(edgeDetails, individualName, typeName, 
+	    				"typeOf", EdgeFlagsModel.createEdgeFlagsFalse()));
+        	}
+        }
+        
+    	// Create the datatype property values and edges
+    	// These properties use the TypeAndValueModel where the "type" is the property name
+    	//    and the "value" is the property value
+    	for (TypeAndValueModel propAndVal : indiv.getDatatypeProperties()) {
+    		String displayValue = propAndVal.getValue();
+    		String valueName = displayValue.replaceAll("\"", "");
+    		valueName = valueName.replaceAll(System.getProperty("line.separator"), "");
+    		fragment.valueNames.add(valueName);
+    		fragment.valueNodes.add(addDatatypePropertyValue(requestModel, ontologyPrefix, valueName, 
+    				displayValue));
+    		fragment.datatypeEdges.add(addDatatypePropertyEdge(requestModel, individualName, valueName, 
+    				propAndVal.getType()));
+    	}
+    	
+    	// Create the object property edges
+    	for (TypeAndValueModel propAndVal : indiv.getObjectProperties()) {
+    		fragment.objectEdges.add(addObjectPropertyEdges(requestModel, individualName, 
+    				propAndVal.getValue(), propAndVal.getType()));
+    	}
+    	
+    	return fragment;
+    }
+    
     /**
 	 * Draw typeOf relationships between types/classes and individuals.
 	 * 
+	 * @param  graph GraphModel to which the nodes and edges are added
 	 * @param  requestModel GraphRequestModel with individual visualization details
-	 * @param  types List<String> of type(s) for the individual where the strings have
-	 *              the format, "label (prefixed name)"
+	 * @param  fragment IndividualFragment holding the individual's type(s) and typeOf edges
      * @param  classes List<ClassModel> holding the naming details for any owl:Classes referenced by
      *              the blank nodes
-	 * @param  individualName String 
      * @param  relatedsAndRestrictions RelatedAndRestrictionModel containing lists of models 
      *             of "related" classes (equivalent, disjoints, and oneOfs), of connectives
      *             (unions, intersections and complementOfs) and restrictions (allValuesFrom,
      *             someValuesFrom, min/maxInclusive, ...)
-	 * @return GraphML String
+     * @param  referencedClasses Set<String> of any classes referenced by blank nodes
      * @throws OntoGraphException 
 	 * 
 	 */
-	private static String addTypeOfEdges(GraphRequestModel requestModel, List<String> types, 
-			List<ClassModel> classes, String individualName, 
+	private static void addTypeOfEdges(GraphModel graph, GraphRequestModel requestModel, 
+			IndividualFragment fragment, List<ClassModel> classes, 
 			RelatedAndRestrictionModel relatedsAndRestrictions, Set<String> referencedClasses)
 					throws OntoGraphException {
 		
-	    StringBuilder sb = new StringBuilder();
-
-        EdgeDetailsModel edgeDetails = EdgeDetailsModel.createEdgeDetailsModelForType(requestModel, "type");
-        
-        for (String type : types) {
-        	if (!type.isEmpty()) {
-	    		String typeName = GraphMLUtils.getPrefixedNameFromLabel(type);
-	    		// The type may not be known (need to account for this)
-	    		if (!typeName.contains(":")) {
-	    			// Process a blank node
-	    			sb.append(GraphMLUtils.addRelated(requestModel, classes, "", 
-	    					Arrays.asList(TypeAndValueModel.builder()
-	    						.type("eq")
-	    						.value(typeName)
-	    						.build()), 
-	    					relatedsAndRestrictions, referencedClasses));
-	    		}
-	    		// Add specific source-target edge 
-	    		sb.append(GraphMLOutputDetails.addEdge(edgeDetails, individualName, typeName, "typeOf", 
-	    				EdgeFlagsModel.createEdgeFlagsFalse()));
-        	}
-    	
+        for (int i = 0; i < fragment.typeNames.size(); i++) {
+    		String typeName = fragment.typeNames.get(i);
+    		// The type may not be known (need to account for this)
+    		if (!typeName.contains(":")) {
+    			// Process a blank node
+    			GraphMLUtils.addRelated(graph, requestModel, classes, "", 
+    					Arrays.asList(TypeAndValueModel.builder()
+    						.type("eq")
+    						.value(typeName)
+    						.build()), 
+    					relatedsAndRestrictions, referencedClasses);
+    		}
+    		// Add specific source-target edge 
+    		graph.add(fragment.typeEdges.get(i));
         }
-	    
-	    return sb.toString();
 	}
 
 	/**
 	 * Add type nodes (classes) for all individuals
 	 * 
+	 * @param  graph GraphModel to which the nodes and edges are added
 	 * @param  requestModel GraphRequestModel with visualization details
      * @param  ontologyPrefix String that is the prefix of the owl:Ontology URI
 	 * @param  types Set<String> of classes that are rdf:types of an individual. The
 	 *            types are strings using the format, "label (prefixed name)"
-	 * @return GraphML String
 	 * 
 	 */
-	private static String addTypes(GraphRequestModel requestModel, final String ontologyPrefix, 
-			Set<String> types) {
+	private static void addTypes(GraphModel graph, GraphRequestModel requestModel, 
+			final String ontologyPrefix, Set<String> types) {
 	    
 		String visualization = requestModel.getVisualization();
 		
         // Get input from model for the node details
         NodeDetailsModel nodeDetails = NodeDetailsModel.createNodeDetailsModel(requestModel, "class");
 	    
-        StringBuilder sb = new StringBuilder();
         for (String type : types) {
         	// Don't add a blank node type, since it was already processed
         	if (type.contains(":")) {
@@ -301,34 +337,75 @@ public final class IndividualsGraphCreation {
 	        	String typeLabel = GraphMLUtils.getLabelForDisplay(ontologyPrefix, visualization, 
 	        			className, type, true);
 	        	GraphMLOutputDetails.getNodeDetails(ontologyPrefix, nodeDetails, className, typeLabel, false);
-	        	sb.append(GraphMLOutputDetails.addNode(nodeDetails, className, typeLabel));
+	        	graph.add(GraphMLOutputDetails.addNode(nodeDetails, className, typeLabel));
         	}
         }
-	    
-	    return sb.toString();
 	}
 	
 	/**
 	 * Updates the set of strings defining all the unique individuals, IF the value string
 	 * is truly unique. Note that a check for equality is not correct ... the check must be for
 	 * "contains" since the value is a prefixed name, but the uniqueIndividuals string may use
-	 * the format, "label (prefixed name)", if a label is defined.
+	 * the format, "label (prefixed name)", if a label is defined. (Any string that contains the 
+	 * value is a match, so a value is also not added if it is part of another individual's name.)
+	 * 
+	 * The usual match, a value that is a uniqueIndividuals string or its prefixed name, is found 
+	 * in the containedNames set without checking each of the uniqueIndividuals strings.
 	 * 
 	 * @param value String
 	 * @param uniqueIndividuals Set<String> which may be updated
+	 * @param containedNames Set<String> of the uniqueIndividuals strings and their prefixed names,
+	 *              which may be updated
 	 * 
 	 */
-	private static void updateUniqueIndividuals(final String value, Set<String> uniqueIndividuals) {
+	private static void updateUniqueIndividuals(final String value, Set<String> uniqueIndividuals, 
+			Set<String> containedNames) {
 
-	    boolean foundMatch = false;
-	    for (String uniqueIndiv : uniqueIndividuals) {
-	    	if (uniqueIndiv.contains(value)) {
-	    		foundMatch = true;
-	    		break;
+	    boolean foundMatch = containedNames.contains(value);
+	    if (!foundMatch) {
+	    	for (String uniqueIndiv : uniqueIndividuals) {
+	    		if (uniqueIndiv.contains(value)) {
+	    			foundMatch = true;
+	    			break;
+	    		}
 	    	}
 	    }
 	    if (!foundMatch) {
-	    	uniqueIndividuals.add(value);
+	    	addUniqueIndividual(value, uniqueIndividuals, containedNames);
 	    }
 	}
+	
+	/**
+	 * Adds a string to the set of strings defining all the unique individuals, and adds the
+	 * string and (for a "label (prefixed name)" string) its prefixed name to the containedNames.
+	 * 
+	 * @param individual String label (or prefixed name) of the individual
+	 * @param uniqueIndividuals Set<String> which is updated
+	 * @param containedNames Set<String> which is updated
+	 * 
+	 */
+	private static void addUniqueIndividual(final String individual, Set<String> uniqueIndividuals,
+			Set<String> containedNames) {
+
+	    uniqueIndividuals.add(individual);
+	    containedNames.add(individual);
+	    if (individual.endsWith(")")) {
+	    	containedNames.add(GraphMLUtils.getPrefixedNameFromLabel(individual));
+	    }
+	}
+
+	/**
+	 * IndividualFragment holds the edges of an individual and the nodes of its datatype property 
+	 * values (the value names, value nodes and datatype edges are in the order of the properties).
+	 *
+	 */
+	private static class IndividualFragment {
+		
+		private final List<String> typeNames = new ArrayList<>();
+		private final List<GraphElementModel> typeEdges = new ArrayList<>();
+		private final List<String> valueNames = new ArrayList<>();
+		private final List<GraphElementModel> valueNodes = new ArrayList<>();
+		private final List<GraphElementModel> datatypeEdges = new ArrayList<>();
+		private final List<GraphElementModel> objectEdges = new ArrayList<>();
+	}
 }
@@ -17,7 +17,6 @@
 
 package graph.graphmloutputs;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -26,6 +25,7 @@ import java.util.Set;
 import graph.OntoGraphException;
 import graph.models.EntityAndRelatedNodesModel;
 import graph.models.ClassModel;
+import graph.models.GraphModel;
 import graph.models.GraphRequestModel;
 import graph.models.NodeDetailsModel;
 import graph.models.PropertyModel;
@@ -47,27 +47,23 @@ public final class PropertiesGraphCreation {
     /**
      * Create a property graph (property name, domains, ranges, etc.) in GraphML.
      * 
+     * @param  graph GraphModel to which the nodes and edges are added (which will already hold
+     *              the class graph if the requestModel's graphType is "both" class and property)
      * @param  requestModel GraphRequestModel with property visualization details
-     * @param  ontPrefixAndCurrGraphML List<String> holding the URI of the loaded ontology as the first value,
-     *              and the current GraphML output as the second. Note that the second value will be an
-     *              empty string (will not be used) unless the requestModel's graphType is "both" (class and 
-     *              property).
+     * @param  ontologyPrefix String holding the URI of the loaded ontology
      * @param  classes List<ClassModel> used as domains and object ranges
      * @param  properties List<PropertyModel>
      * @param  relatedsAndRestrictions RelatedAndRestrictionModel containing lists of models 
      *             of "related" classes (equivalent, disjoints, and oneOfs), of connectives
      *             (unions, intersections and complementOfs) and restrictions (allValuesFrom,
      *             someValuesFrom, min/maxInclusive, ...)
-     * @return GraphML String
      * @throws OntoGraphException 
      * 
      */
-    public static String processPropertyGraph(GraphRequestModel requestModel, //NOSONAR - Complexity acceptable
-    		List<String> ontPrefixAndCurrGraphML, List<ClassModel> classes, List<PropertyModel> properties,  
-    		RelatedAndRestrictionModel relatedsAndRestrictions) throws OntoGraphException { 
-        
-        StringBuilder sb = new StringBuilder();
-        String ontologyPrefix = ontPrefixAndCurrGraphML.get(0);
+    public static void processPropertyGraph(GraphModel graph, //NOSONAR - Complexity acceptable
+    		GraphRequestModel requestModel, final String ontologyPrefix, List<ClassModel> classes, 
+    		List<PropertyModel> properties, RelatedAndRestrictionModel relatedsAndRestrictions) 
+    				throws OntoGraphException { 
 
         Set<String> domainOrRangeClasses = new HashSet<>();
         Set<String> datatypes = new HashSet<>();
@@ -94,12 +90,12 @@ public final class PropertiesGraphCreation {
         	}
         	
         	// Add the property edges for the current PropertyModel
-            sb.append(GraphMLUtils.addPropertyEdges(requestModel, ontologyPrefix, propModel));
+            GraphMLUtils.addPropertyEdges(graph, requestModel, ontologyPrefix, propModel);
         }
             
         // Add the domain and object property range classes
-        sb.append(addClassNodes(requestModel, ontPrefixAndCurrGraphML, classes, 
-        		domainOrRangeClasses, relatedsAndRestrictions));
+        addClassNodes(graph, requestModel, ontologyPrefix, classes, domainOrRangeClasses, 
+        		relatedsAndRestrictions);
         
         // Add the datatype ranges 
         // Need to handle datatype restrictions differently than datatype (i.e., xsd:xxx) values
@@ -107,9 +103,9 @@ public final class PropertiesGraphCreation {
         for (String datatype : datatypes) {
         	if (!datatype.contains(":")) {
         		// Blank Node => datatype restriction
-        		sb.append(GraphMLUtils.blankNodeProcessing(requestModel, classes, 
+        		GraphMLUtils.blankNodeProcessing(graph, requestModel, classes, 
         				EntityAndRelatedNodesModel.createEntityAndRelatedNodesModel(datatype, ""),
-        				"", relatedsAndRestrictions, new HashSet<String>()));
+        				"", relatedsAndRestrictions, new HashSet<String>());
         	} else {
         		xsdDatatypes.add(datatype);
         	}
@@ -118,20 +114,16 @@ public final class PropertiesGraphCreation {
         // Already added the datatypes as part of VOWL property splitting, need to add the datatypes
         //    for other visualizations
     	if (!xsdDatatypes.isEmpty() && !"vowl".equals(requestModel.getVisualization())) {
-    		sb.append(addDatatypeNodes(requestModel, xsdDatatypes));
+    		addDatatypeNodes(graph, requestModel, xsdDatatypes);
     	}
-        
-        return sb.toString();
     }  
     
 	/**
 	 * Add the nodes that represent the domain and object range classes
 	 * 
+	 * @param  graph GraphModel to which the nodes and edges are added
 	 * @param  requestModel GraphRequestModel holding all details of user request
-     * @param  ontPrefixAndCurrGraphML List<String> holding the URI of the loaded ontology as the first value,
-     *              and the current GraphML output as the second. Note that the second value will be an
-     *              empty string (will not be used) unless the requestModel's graphType is "both" (class and 
-     *              property).
+     * @param  ontologyPrefix String holding the URI of the loaded ontology
 	 * @param  classes Set<String> holding all domain or object ranges references in the format,
 	 *                "label (class name)"
 	 * @param  domainOrRangeClasses Set<String> defining each class that is referenced as a domain or range
@@ -139,22 +131,20 @@ public final class PropertiesGraphCreation {
      *             of "related" classes (equivalent, disjoints, and oneOfs), of connectives
      *             (unions, intersections and complementOfs) and restrictions (allValuesFrom,
      *             someValuesFrom, min/maxInclusive, ...)
-     * @param  currentGraphMLOutput String (will be an empty string if the requestModel's graphType is not "both"
-     *               class and property)
-	 * @return GraphML String
 	 * @throws OntoGraphException 
 	 * 
 	 */
-    private static String addClassNodes(GraphRequestModel requestModel,  
-    		List<String> ontPrefixAndCurrGraphML, List<ClassModel> classes,   
+    private static void addClassNodes(GraphModel graph, GraphRequestModel requestModel,  
+    		final String ontologyPrefix, List<ClassModel> classes,   
     		Set<String> domainOrRangeClasses, RelatedAndRestrictionModel relatedsAndRestrictions)
     				throws OntoGraphException {
 
-        StringBuilder sb = new StringBuilder();
+        // The domain and range nodes and edges are collected separately, so that they can be
+        //    checked against the class graph (when generating "both" class and property graphs)
+        GraphModel classNodes = new GraphModel();
         
     	String visualization = requestModel.getVisualization();
-    	String ontologyPrefix = ontPrefixAndCurrGraphML.get(0);
-    	String currentGraphML = ontPrefixAndCurrGraphML.get(1);
+    	boolean isBoth = "both".equals(requestModel.getGraphType());
         Set<String> referencedClasses = new HashSet<>();  
     	
         // Get input from the request model for the node details
@@ -176,9 +166,9 @@ public final class PropertiesGraphCreation {
 				// Is a blank node ... 
 				// Passing in an empty string for the "related" class name since this is not a class diagram
 				//   (we want to reuse all the logic, but not make an edge to a related class)
-				sb.append(GraphMLUtils.addRelated(requestModel, classes, "", 
+				GraphMLUtils.addRelated(classNodes, requestModel, classes, "", 
 						Arrays.asList(TypeAndValueModel.createTypeAndValueModel("eq", className)),
-						relatedsAndRestrictions, referencedClasses));
+						relatedsAndRestrictions, referencedClasses);
 			} else {
 				// Not a blank node ...
 				// Reset the node shape and border in case it was manipulated (for example, "smallCircle" is reset
@@ -188,20 +178,18 @@ public final class PropertiesGraphCreation {
 		        
 		        label = GraphMLUtils.getLabelForDisplay(ontologyPrefix, visualization, className, label, true);
 		        GraphMLOutputDetails.getNodeDetails(ontologyPrefix, nodeDetails, className, label, false);
-				sb.append(GraphMLOutputDetails.addNode(nodeDetails, className, label));
+				classNodes.add(GraphMLOutputDetails.addNode(nodeDetails, className, label));
 			}
         }
 	    
-        if ("both".equals(requestModel.getGraphType())) {
-        	String missingNodesAndEdges = addMissingNodesAndEdges(sb.toString(), 
-        			ontPrefixAndCurrGraphML.get(1));
-        	// Clear out the current StringBuilder, since the property graph details for domains and ranges
-        	//    has been checked 
-        	sb.setLength(0);
-        	// Append any missing elements to the StringBuilder
-        	if (!missingNodesAndEdges.isEmpty()) {
-        		sb.append(missingNodesAndEdges);
-        	}
+        if (isBoth) {
+        	// Most likely have all the necessary classes and edges included in the class graph 
+        	//    (since "both class and property definitions" first generates the class graph). But, some
+        	//    nodes and edges will be missing if they are only referenced in a domain or range declaration. 
+        	//    If so, add them.
+        	graph.addMissing(classNodes);
+        } else {
+        	graph.addAll(classNodes);
         }
         
         // Need to add any classes referenced in complement, union or intersectionOf declarations that are
@@ -214,28 +202,25 @@ public final class PropertiesGraphCreation {
         			break;
         		}
         	}
-        	if (!foundRefClass && !currentGraphML.contains("<node id=\"" + refClass + "\"")) {
+        	if (!foundRefClass && (!isBoth || !graph.containsNode(refClass))) {
 				// Reset the node shape in case it was manipulated
 		        nodeDetails.setNodeShape(requestModel.getObjNodeShape());
-        		sb.append(GraphMLUtils.addReferencedClass(ontologyPrefix, nodeDetails, refClass));
+        		graph.add(GraphMLUtils.addReferencedClass(ontologyPrefix, nodeDetails, refClass));
         	}
         }
-        
-	    return sb.toString();
     }
 
     /**
      * Add the nodes that represent each datatype
      * 
+     * @param  graph GraphModel to which the nodes are added
      * @param  requestModel GraphRequestModel
      * @param  datatypes Set<String> holding all datatype range references 
-     * @return GraphML String
      * 
      */
-    // TODO Add restrictions as the second parameter when cardinality restrictions are supported
-    private static String addDatatypeNodes(GraphRequestModel requestModel, Set<String> datatypes) { 
-    	
-    	StringBuilder sb = new StringBuilder();
+    // TODO Add restrictions as the third parameter when cardinality restrictions are supported
+    private static void addDatatypeNodes(GraphModel graph, GraphRequestModel requestModel, 
+    		Set<String> datatypes) { 
     	
         String nodeShape = requestModel.getDataNodeShape();
     	
@@ -247,73 +232,7 @@ public final class PropertiesGraphCreation {
             GraphMLOutputDetails.modifyNodeDetailsForNodeShape(nodeDetails, data);
 	        // Restore the nodeShape in case it was changed in modifyNodeDetails
             nodeDetails.setNodeShape(nodeShape);
-        	sb.append(GraphMLOutputDetails.addNode(nodeDetails, data, data));
+        	graph.add(GraphMLOutputDetails.addNode(nodeDetails, data, data));
         }
-	    
-	    return sb.toString();
-    }
-    
-    /**
-     * "Both" class and property diagrams are generated by processing a class graph and then a property graph.
-     * But, the property graph will likely have overlapping node and edge definitions with the class graph.
-     * We check all the class-related nodes and edges for a property graph (they are added to the graph because
-     * they are referenced as property domains or ranges). If the node or edge is already defined in the
-     * GraphML output from the class graph processing, it is discarded.  If it is new, then its details are
-     * retained and returned.
-     * 
-     * @param  propertyGraphML holding the GraphML output for a property graph
-     * @param  classGraphML holding the GraphML output for a class graph
-     * @return String with any nodes or edges in the propertyGraphML String that are NOT in the 
-     *              classGraphML String
-     *              
-     */
-    private static String addMissingNodesAndEdges(String propertyGraphML, String classGraphML) {
-
-    	StringBuilder missingElements = new StringBuilder();
-    	
-    	// Most likely have all the necessary classes and edges included in the class GraphML String  
-    	//    (since "both class and property definitions" first generates the class graph). But, some
-    	//    nodes and edges will be missing if they are only referenced in a domain or range declaration. 
-    	//    If so, add them.
-    	List<String> nodeEdgeList = new ArrayList<>();
-    	nodeEdgeList.addAll(getGraphMLDetails(propertyGraphML, "node"));
-    	nodeEdgeList.addAll(getGraphMLDetails(propertyGraphML, "edge"));
-    	for (String element : nodeEdgeList) {
-    		// Check the class GraphMLOutput to see if the node or edge is already included
-    		if (!classGraphML.contains(element.substring(0, element.indexOf('"', 10) + 1))) {
-    			// Not included, so add it to the "missing" list
-    			missingElements.append(element);
-    		}
-    	}
-    	
-    	return missingElements.toString();
-    }
-
-	/**
-     * Gets the details for a GraphML <elementName id= ...> ... </elementName> element 
-     * 
-     * @param  graphMLDetails String holding the defined GraphML elements ("node"s and "edge"s)
-     * @param  elementName String, either "node" or "edge"
-     * @return List<String> holding each <node> or <edge> definition in graphMLDetails 
-     * 
-     */
-    private static List<String> getGraphMLDetails(String graphMLDetails, final String elementName) {
-    	
-    	List<String> xmlDetails = new ArrayList<>();
-
-		int currIndex = 0;
-		do {
-			int nextIndex = graphMLDetails.indexOf("<" + elementName + " id=\"", currIndex);
-			if (nextIndex > -1) {
-				xmlDetails.add(graphMLDetails.substring(nextIndex, graphMLDetails.indexOf("</" + elementName + ">", 
-						nextIndex) + 7) + System.getProperty("line.separator"));
-				currIndex = nextIndex + 10;
-			} else {
-				currIndex = graphMLDetails.length();
-			}
-			
-		} while (currIndex < graphMLDetails.length());
-		
-		return xmlDetails;
     }
 }
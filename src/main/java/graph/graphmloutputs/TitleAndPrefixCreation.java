@@ -19,6 +19,7 @@ package graph.graphmloutputs;
 
 import java.util.List;
 
+import graph.models.GraphModel;
 import graph.models.PrefixModel;
 
 /**
@@ -34,24 +35,20 @@ public final class TitleAndPrefixCreation {
     }
     
     /**
-     * Adds the GraphML for the title and prefixes boxes.
+     * Adds the title and prefixes boxes to the graph.
      * 
+     * @param  graph GraphModel to which the boxes are added
      * @param  graphTitle String
      * @param  ontologyURI String
      * @param  prefixes List<PrefixModel>
-     * @return String GraphML output (String)
      * 
      */
-    public static String addTitleAndPrefixes(final String graphTitle, final String ontologyURI,
-    		List<PrefixModel> prefixes) {
+    public static void addTitleAndPrefixes(GraphModel graph, final String graphTitle, 
+    		final String ontologyURI, List<PrefixModel> prefixes) {
         
-    	StringBuilder sb = new StringBuilder();
-        
-        sb.append(GraphMLOutputDetails.createTitleBox(graphTitle, ontologyURI));
+        graph.add(GraphMLOutputDetails.createTitleBox(graphTitle, ontologyURI));
         if (prefixes != null) {
-        	sb.append(GraphMLOutputDetails.createPrefixesBox(prefixes));
+        	graph.add(GraphMLOutputDetails.createPrefixesBox(prefixes));
         }
-        
-        return sb.toString();
     }
 }
@@ -30,6 +30,8 @@ import graph.models.EntityAndRelatedNodesModel;
 import graph.models.ClassModel;
 import graph.models.EdgeDetailsModel;
 import graph.models.EdgeFlagsModel;
+import graph.models.GraphElementModel;
+import graph.models.GraphModel;
 import graph.models.GraphRequestModel;
 import graph.models.IndividualModel;
 import graph.models.PropertyModel;
@@ -53,6 +55,7 @@ public final class UMLGraphCreation {
      * Create a UML graph (class hierarchy, data properties as attributes and object
      * properties as associations) in GraphML.
      *
+     * @param  graph GraphModel to which the nodes and edges are added
      * @param  requestModel GraphRequestModel defining visualization settings
      * @param  origClasses List<ClassModel> containing class details
      * @param  classes List<UMLClassModel> containing the additional UML details for all classes
@@ -64,56 +67,36 @@ public final class UMLGraphCreation {
      *             of "related" classes (equivalent, disjoints, and oneOfs), of connectives
      *             (unions, intersections and complementOfs) and restrictions (allValuesFrom,
      *             someValuesFrom, min/maxInclusive, ...)
-     * @return String GraphML output 
+     * @param  renderer FragmentRenderer which creates the class nodes and their edges (in parallel,
+     *             for a large graph)
      * @throws OntoGraphException 
      * 
      */
-    public static String processUMLClassGraph(GraphRequestModel requestModel, 
+    public static void processUMLClassGraph(GraphModel graph, GraphRequestModel requestModel, 
     		List<ClassModel> origClasses, List<UMLClassModel> classes, List<PropertyModel> properties, 
-    		List<PropertyModel> collProperties, RelatedAndRestrictionModel relatedsAndRestrictions) 
-    				throws OntoGraphException {
+    		List<PropertyModel> collProperties, RelatedAndRestrictionModel relatedsAndRestrictions,
+    		FragmentRenderer renderer) throws OntoGraphException {
         
-    	StringBuilder sb = new StringBuilder();
-    	
         // The TypeAndValueModel is used here where the "type" is the class name and the 
         //   "value" is the superclass
         Set<TypeAndValueModel> blankNodeSuperClasses = new HashSet<>();  
-        // Set up an EdgeDetailsModel in case there are any datatype restrictions to be drawn
-        EdgeDetailsModel edgeDetails = setupUMLEdgeDetailsModel(requestModel);
 
         // Keep track of any blank nodes that are attribute ranges (datatype restrictions)
         Set<String> referencedBlankNodes = new HashSet<>();
         
-        for (UMLClassModel umlModel : classes) {
-        	String className = umlModel.getClassName();
-            List<String> superClasses = umlModel.getSuperClasses();
-            char classType = umlModel.getClassType();
-            
-            // Fix up the attributes to include their range(s) in the property label
-            Set<String> specificBlankNodes = new HashSet<>();
-	        List<String> attributeList = getAttributesWithPropDetails(umlModel.getAttributes(),
-	            	properties, specificBlankNodes);
-	        
-            // If there are any referenced blank nodes as attribute types, then add an edge to them, 
-            //    which is necessary since the type will be an arbitrary identifier and have no 
-    		//    inherent meaning (the details are added by the blankNodeProcessing below)
-            for (String rbn : specificBlankNodes) {
-            		edgeDetails.setEdgeLabel("Attribute type: " + getBlankNodeId(rbn));
-	                sb.append(GraphMLOutputDetails.addEdge(edgeDetails, className, rbn, "typeOf", 
-	                		EdgeFlagsModel.createEdgeFlagsFalse()));
-            }
+        // Create each class' node and edges, and add them in the order of the classes
+        List<UMLClassFragment> fragments = renderer.render(classes, 
+        		umlModel -> addUMLClass(requestModel, umlModel, properties));
+        for (int i = 0; i < classes.size(); i++) {
+        	String className = classes.get(i).getClassName();
+        	UMLClassFragment fragment = fragments.get(i);
+        	graph.addAll(fragment.graph);
+        	
             // Add the specific blank nodes to the overall list
-            referencedBlankNodes.addAll(specificBlankNodes);
-            
-	        // Add each class with its attributes (datatype properties) 
-	        sb.append(addClassOrInstance(className, umlModel.getClassLabel(), attributeList, 
-	            		(classType == 'd' ? requestModel.getUmlDataNodeColor() : requestModel.getUmlNodeColor())));
-	        
-            // Add edges to the superclasses
-            sb.append(GraphMLUtils.addSubclassOfEdges(requestModel, className, superClasses));
+            referencedBlankNodes.addAll(fragment.specificBlankNodes);
         
             // Find any superclasses that are blank nodes
-            for (String sc : superClasses) {
+            for (String sc : classes.get(i).getSuperClasses()) {
             	if (!sc.contains(":")) {
             		blankNodeSuperClasses.add(TypeAndValueModel.createTypeAndValueModel(className, sc));
             	}
@@ -123,16 +106,16 @@ public final class UMLGraphCreation {
         Set<String> referencedClasses = new HashSet<>();
         // Add any blank node superclasses
         if (!blankNodeSuperClasses.isEmpty()) {
-        	sb.append(GraphMLUtils.addBlankNodeSuperclasses(requestModel, origClasses, 
-        			blankNodeSuperClasses, relatedsAndRestrictions, referencedClasses));
+        	GraphMLUtils.addBlankNodeSuperclasses(graph, requestModel, origClasses, 
+        			blankNodeSuperClasses, relatedsAndRestrictions, referencedClasses);
         }
 
         // Output the details for blank nodes as attribute types (datatype restrictions)  
         for (String node : referencedBlankNodes) {
     		// Add the node details
-			sb.append(GraphMLUtils.blankNodeProcessing(requestModel, origClasses, 
+			GraphMLUtils.blankNodeProcessing(graph, requestModel, origClasses, 
 					EntityAndRelatedNodesModel.createEntityAndRelatedNodesModel(node, ""),
-					"", relatedsAndRestrictions, referencedClasses));
+					"", relatedsAndRestrictions, referencedClasses);
         }
         
         // Add object properties
@@ -143,9 +126,9 @@ public final class UMLGraphCreation {
         // This also allows the support of transitive, reflexive, symmetric, ... declarations.
         // TODO Determine how to address lack of compliance with UML, and how to support cardinalities in general
         if ("collapseTrue".equals(requestModel.getCollapseEdges())) {
-        	sb.append(addProperties(requestModel, collProperties, origClasses, relatedsAndRestrictions));
+        	addProperties(graph, requestModel, collProperties, origClasses, relatedsAndRestrictions);
         } else {
-        	sb.append(addProperties(requestModel, properties, origClasses, relatedsAndRestrictions));
+        	addProperties(graph, requestModel, properties, origClasses, relatedsAndRestrictions);
         }
 
         // Add any equivalent, disjoint, ... classes and oneOf individuals
@@ -153,8 +136,8 @@ public final class UMLGraphCreation {
         		relatedsAndRestrictions.getEquivalentsDisjointsOneOfs().entrySet()) {
             String className = entry.getKey();
             List<TypeAndValueModel> relatedList = entry.getValue();
-            sb.append(GraphMLUtils.addRelated(requestModel, origClasses, className,
-            		relatedList, relatedsAndRestrictions, referencedClasses));
+            GraphMLUtils.addRelated(graph, requestModel, origClasses, className,
+            		relatedList, relatedsAndRestrictions, referencedClasses);
         }
 	
 	    // Need to add any classes referenced in complement, union or intersectionOf declarations that are
@@ -162,18 +145,59 @@ public final class UMLGraphCreation {
         List<String> attributeList = new ArrayList<>();
         String nodeColor = requestModel.getUmlNodeColor();
 	    for (String refClass : referencedClasses) {
-	    	if (!sb.toString().contains("<node id=\"" + refClass + "\"")) {
-	    		sb.append(addClassOrInstance(refClass, refClass, attributeList, nodeColor));
+	    	if (!graph.containsNode(refClass)) {
+	    		graph.add(addClassOrInstance(refClass, refClass, attributeList, nodeColor));
 	    	}
 	    }
+    }
+    
+    /**
+     * Creates the node of a UML class (with its attributes), and its edges to any blank nodes 
+     * that are attribute types and to its superclasses.
+     * 
+     * @param  requestModel GraphRequestModel defining visualization settings
+     * @param  umlModel UMLClassModel
+     * @param  properties List<PropertyModel> needed for the datatype properties
+     * @return UMLClassFragment holding the node and edges, and the blank nodes that are attribute types
+     * 
+     */
+    private static UMLClassFragment addUMLClass(GraphRequestModel requestModel, UMLClassModel umlModel,
+    		List<PropertyModel> properties) {
+    	
+    	UMLClassFragment fragment = new UMLClassFragment();
+    	String className = umlModel.getClassName();
+        char classType = umlModel.getClassType();
+        // Set up an EdgeDetailsModel in case there are any datatype restrictions to be drawn
+        EdgeDetailsModel edgeDetails = setupUMLEdgeDetailsModel(requestModel);
         
-        return sb.toString();
+        // Fix up the attributes to include their range(s) in the property label
+        List<String> attributeList = getAttributesWithPropDetails(umlModel.getAttributes(),
+            	properties, fragment.specificBlankNodes);
+        
+        // If there are any referenced blank nodes as attribute types, then add an edge to them, 
+        //    which is necessary since the type will be an arbitrary identifier and have no 
+		//    inherent meaning (the details are added by the blankNodeProcessing)
+        for (String rbn : fragment.specificBlankNodes) {
+        	edgeDetails.setEdgeLabel("Attribute type: " + getBlankNodeId(rbn));
+        	fragment.graph.add(GraphMLOutputDetails.addEdge(edgeDetails, className, rbn, "typeOf", 
+        			EdgeFlagsModel.createEdgeFlagsFalse()));
+        }
+        
+        // Add the class with its attributes (datatype properties) 
+        fragment.graph.add(addClassOrInstance(className, umlModel.getClassLabel(), attributeList, 
+        		(classType == 'd' ? requestModel.getUmlDataNodeColor() : requestModel.getUmlNodeColor())));
+        
+        // Add edges to the superclasses
+        GraphMLUtils.addSubclassOfEdges(fragment.graph, requestModel, className, umlModel.getSuperClasses());
+        
+        return fragment;
     }
     
     /**
      * Creates a UML instance graph containing all individuals, their attributes with values,
      * and the relationships between individuals in GraphML.
      * 
+     * @param  graph GraphModel to which the nodes and edges are added
      * @param  requestModel GraphRequestModel defining visualization settings
 	 * @param  classes List<ClassModel> holding the naming conventions for referenced entities that are
 	 *              not blank nodes
@@ -182,15 +206,13 @@ public final class UMLGraphCreation {
 	 *             (unions, intersections and complementOfs) and restrictions (allValuesFrom,
 	 *             someValuesFrom, min/maxInclusive, ...)
      * @param  individuals List<IndividualModel> 
-     * @return GraphML String
      * @throws OntoGraphException 
      * 
      */
-    public static String processUMLIndividualGraph(GraphRequestModel requestModel,
+    public static void processUMLIndividualGraph(GraphModel graph, GraphRequestModel requestModel,
     		List<ClassModel> classes, RelatedAndRestrictionModel relatedsAndRestrictions,
     		List<IndividualModel> individuals) throws OntoGraphException {
         
-        StringBuilder sb = new StringBuilder();
         String nodeColor = requestModel.getUmlNodeColor();
 
         // Set up an EdgeDetailsModel in case there are any blank nodes as the "type" of 1+ individuals
@@ -210,7 +232,7 @@ public final class UMLGraphCreation {
             List<String> attributeList = getAttributesWithValues(indiv);
             
             // Add the individual node
-            sb.append(addClassOrInstance(individualName, processIndividualLabel(indiv, referencedBlankNodes), 
+            graph.add(addClassOrInstance(individualName, processIndividualLabel(indiv, referencedBlankNodes), 
             		attributeList, nodeColor));
             // Check the individual's types for a blank node
             for (String type : indiv.getTypeLabels()) {
@@ -220,7 +242,7 @@ public final class UMLGraphCreation {
             		//    meaning (the details are added by the blankNodeProcessing below)
             		referencedBlankNodes.add(type);
             		edgeDetails.setEdgeLabel("Type: " + getBlankNodeId(type));
-	                sb.append(GraphMLOutputDetails.addEdge(edgeDetails, individualName, type, "typeOf", 
+	                graph.add(GraphMLOutputDetails.addEdge(edgeDetails, individualName, type, "typeOf", 
 	                		EdgeFlagsModel.createEdgeFlagsFalse()));
             	}
             }
@@ -241,7 +263,7 @@ public final class UMLGraphCreation {
                         .ranges(Arrays.asList(propVal))
                         .edgeFlags(EdgeFlagsModel.createEdgeFlagsFalse())
                         .build();
-                sb.append(GraphMLUtils.addPropertyEdges(requestModel, "", p));
+                GraphMLUtils.addPropertyEdges(graph, requestModel, "", p);
                 referencedIndividuals.add(propVal);
             }
         }
@@ -251,7 +273,7 @@ public final class UMLGraphCreation {
         for (String ref : referencedIndividuals) {
             if (!createdIndividuals.contains(ref)) {
                 String refLabel = ref + " : Unknown";
-                sb.append(addClassOrInstance(ref, refLabel, Arrays.asList(""), nodeColor));
+                graph.add(addClassOrInstance(ref, refLabel, Arrays.asList(""), nodeColor));
             }
         }
         
@@ -259,9 +281,9 @@ public final class UMLGraphCreation {
         Set<String> referencedClasses = new HashSet<>();    
         for (String node : referencedBlankNodes) {
     		// Add the node details
-			sb.append(GraphMLUtils.blankNodeProcessing(requestModel, classes, 
+			GraphMLUtils.blankNodeProcessing(graph, requestModel, classes, 
 					EntityAndRelatedNodesModel.createEntityAndRelatedNodesModel(node, ""),
-					"", relatedsAndRestrictions, referencedClasses));
+					"", relatedsAndRestrictions, referencedClasses);
         }
         
         // Now add any referenced classes that are not already present since these will be related
@@ -270,12 +292,10 @@ public final class UMLGraphCreation {
         List<String> attributes = new ArrayList<>();	// Not needed
         for (String refClass : referencedClasses) {
         	if (!referencedBlankNodes.contains(refClass)) {
-        		sb.append(addClassOrInstance(GraphMLUtils.getPrefixedNameFromLabel(refClass), 
+        		graph.add(addClassOrInstance(GraphMLUtils.getPrefixedNameFromLabel(refClass), 
         				refClass, attributes, nodeColor));
         	}
         }
-        
-        return sb.toString();
     }
     
     /**
@@ -286,10 +306,10 @@ public final class UMLGraphCreation {
      * @param  entityLabel String
      * @param  attributes List of (datatype) properties as Strings
      * @param  nodeColor String
-     * @return GraphML String
+     * @return GraphElementModel for the UML node
      * 
      */
-    private static String addClassOrInstance(final String entityName, final String entityLabel,
+    private static GraphElementModel addClassOrInstance(final String entityName, final String entityLabel,
     		List<String> attributes, final String nodeColor) {
         
         // Get box sizes
@@ -324,6 +344,7 @@ public final class UMLGraphCreation {
     /**
 	 * Draw edges representing object properties between classes.
 	 * 
+	 * @param  graph GraphModel to which the nodes and edges are added
 	 * @param  requestModel GraphRequestModel defining visualization settings
 	 * @param  properties List<PropertyModel>
 	 * @param  classes List<ClassModel> 
@@ -331,20 +352,18 @@ public final class UMLGraphCreation {
      *             of "related" classes (equivalent, disjoints, and oneOfs), of connectives
      *             (unions, intersections and complementOfs) and restrictions (allValuesFrom,
      *             someValuesFrom, min/maxInclusive, ...)
-	 * @return GraphML String
 	 * @throws OntoGraphException 
 	 * 
 	 */
-	private static String addProperties(GraphRequestModel requestModel, List<PropertyModel> properties,
-	        List<ClassModel> classes, RelatedAndRestrictionModel relatedsAndRestrictions) 
+	private static void addProperties(GraphModel graph, GraphRequestModel requestModel, 
+			List<PropertyModel> properties, List<ClassModel> classes, RelatedAndRestrictionModel relatedsAndRestrictions) 
 	        		throws OntoGraphException {
 	
-	    StringBuilder sb = new StringBuilder();
         List<String> attributes = new ArrayList<>();  // There are no attributes for added classes
         Set<String> addedClasses = new HashSet<>();
         
         // Get all the labels
-        List<String> classLabels = new ArrayList<>();
+        Set<String> classLabels = new HashSet<>();
         for (ClassModel c : classes) {
             classLabels.add(c.getClassLabel());
         }
@@ -400,22 +419,20 @@ public final class UMLGraphCreation {
 			                // Is a blank node ... 
 			                // Passing in an empty string for the "related" class name since this is not a class only
 			                //   diagram (we want to reuse all the logic, but not make an edge to the related class)
-			                sb.append(GraphMLUtils.addRelated(requestModel, classes, "", 
+			                GraphMLUtils.addRelated(graph, requestModel, classes, "", 
 			                        Arrays.asList(TypeAndValueModel.createTypeAndValueModel("eq", dar)),	
-			                        relatedsAndRestrictions, new HashSet<>()));
+			                        relatedsAndRestrictions, new HashSet<>());
 		                } else {
-		                	sb.append(addClassOrInstance(GraphMLUtils.getPrefixedNameFromLabel(dar), 
+		                	graph.add(addClassOrInstance(GraphMLUtils.getPrefixedNameFromLabel(dar), 
 		                			dar, attributes, requestModel.getUmlNodeColor()));
 		                }
 		        	}
 		        }
 		        
 		        // Second parameter is empty since a UML graph does not need the ontologyPrefix
-		        sb.append(GraphMLUtils.addPropertyEdges(requestModel, "", propModel));
+		        GraphMLUtils.addPropertyEdges(graph, requestModel, "", propModel);
 	        }
 	    }
-	    
-	    return sb.toString();
 	}
 
 	/**
@@ -598,4 +615,15 @@ public final class UMLGraphCreation {
        
        return edgeDetails;
 	}
+
+	/**
+	 * UMLClassFragment holds the node and edges of a UML class, and the blank nodes that are
+	 * the types of its attributes.
+	 *
+	 */
+	private static class UMLClassFragment {
+		
+		private final GraphModel graph = new GraphModel();
+		private final Set<String> specificBlankNodes = new HashSet<>();
+	}
 }
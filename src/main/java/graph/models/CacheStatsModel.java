@@ -0,0 +1,41 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph.models;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * CacheStatsModel reports the usage of the ontology cache.
+ * 
+ * Lombok Builder allows instantiation with builder().
+ * Lombok Data removes need for POJO boilerplate.
+ *
+ */
+@Data
+@Builder
+public class CacheStatsModel {
+    
+    private boolean enabled;
+    private int entries;		// Number of cached ontologies
+    private long bytes;			// Total size of the cached ontology files
+    private long hits;
+    private long misses;
+    private long evictions;		// Includes expired entries
+    
+}
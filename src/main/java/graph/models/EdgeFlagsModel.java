@@ -17,31 +17,90 @@
 
 package graph.models;
 
-import lombok.Builder;
 import lombok.Data;
 
 /**
  * EdgeFlagsModel defines the flags for a property indicating whether it is functional,
  * inverse functional, symmetric, asymmetric, reflexive, irreflexive or transitive.
  * 
- * Lombok Builder allows instantiation with builder().
+ * The flags are held as the bits of a single int (indexed by Flag). The builder() and the 
+ * boolean getters/setters provide access to the individual flags.
+ * 
  * Lombok Data removes need for POJO boilerplate.
  *
  */
 @Data
-@Builder
 public class EdgeFlagsModel {
 	
-	private boolean asymmetric;
-	private boolean functional;
-	private boolean inverseFunctional;
-	private boolean irreflexive;
-	private boolean reflexive;
-	private boolean symmetric;
-	private boolean transitive;
-	private boolean multipleDomains;
-	private boolean multipleRanges;
-
+	/**
+	 * The property characteristics, each defining a bit of the flags.
+	 *
+	 */
+	public enum Flag {
+		ASYMMETRIC, FUNCTIONAL, INVERSE_FUNCTIONAL, IRREFLEXIVE, REFLEXIVE, SYMMETRIC, TRANSITIVE,
+		MULTIPLE_DOMAINS, MULTIPLE_RANGES;
+		
+		private final int mask = 1 << ordinal();
+	}
+	
+	private int flags;
+	
+	public EdgeFlagsModel(final int flags) {
+		this.flags = flags;
+	}
+	
+	/**
+	 * Indicates whether the flag is set.
+	 * 
+	 * @param  flag Flag
+	 * @return boolean
+	 * 
+	 */
+	public boolean is(Flag flag) {
+		return (flags & flag.mask) != 0;
+	}
+	
+	/**
+	 * Sets or clears the flag.
+	 * 
+	 * @param  flag Flag
+	 * @param  value boolean
+	 * 
+	 */
+	public void set(Flag flag, final boolean value) {
+		flags = value ? flags | flag.mask : flags & ~flag.mask;
+	}
+	
+	/**
+	 * Returns the bit for the flag (to combine flags using a bitwise or).
+	 * 
+	 * @param  flag Flag
+	 * @return int
+	 * 
+	 */
+	public static int mask(Flag flag) {
+		return flag.mask;
+	}
+	
+	public boolean isAsymmetric() { return is(Flag.ASYMMETRIC); }
+	public boolean isFunctional() { return is(Flag.FUNCTIONAL); }
+	public boolean isInverseFunctional() { return is(Flag.INVERSE_FUNCTIONAL); }
+	public boolean isIrreflexive() { return is(Flag.IRREFLEXIVE); }
+	public boolean isReflexive() { return is(Flag.REFLEXIVE); }
+	public boolean isSymmetric() { return is(Flag.SYMMETRIC); }
+	public boolean isTransitive() { return is(Flag.TRANSITIVE); }
+	public boolean isMultipleDomains() { return is(Flag.MULTIPLE_DOMAINS); }
+	public boolean isMultipleRanges() { return is(Flag.MULTIPLE_RANGES); }
+	
+	public void setAsymmetric(final boolean value) { set(Flag.ASYMMETRIC, value); }
+	public void setFunctional(final boolean value) { set(Flag.FUNCTIONAL, value); }
+	public void setInverseFunctional(final boolean value) { set(Flag.INVERSE_FUNCTIONAL, value); }
+	public void setIrreflexive(final boolean value) { set(Flag.IRREFLEXIVE, value); }
+	public void setReflexive(final boolean value) { set(Flag.REFLEXIVE, value); }
+	public void setSymmetric(final boolean value) { set(Flag.SYMMETRIC, value); }
+	public void setTransitive(final boolean value) { set(Flag.TRANSITIVE, value); }
+	public void setMultipleDomains(final boolean value) { set(Flag.MULTIPLE_DOMAINS, value); }
+	public void setMultipleRanges(final boolean value) { set(Flag.MULTIPLE_RANGES, value); }
 
 	/**
      * Creates an EdgeFlagsModel with all flags set to false.
@@ -50,17 +109,38 @@ public class EdgeFlagsModel {
      * 
      */
     public static EdgeFlagsModel createEdgeFlagsFalse() {
+    	return new EdgeFlagsModel(0);
+    }
+    
+    public static EdgeFlagsModelBuilder builder() {
+    	return new EdgeFlagsModelBuilder();
+    }
+    
+    /**
+     * Builder setting the individual flags.
+     * 
+     */
+    public static class EdgeFlagsModelBuilder {
+    	
+    	private final EdgeFlagsModel model = createEdgeFlagsFalse();
+    	
+    	public EdgeFlagsModelBuilder asymmetric(final boolean value) { return set(Flag.ASYMMETRIC, value); }
+    	public EdgeFlagsModelBuilder functional(final boolean value) { return set(Flag.FUNCTIONAL, value); }
+    	public EdgeFlagsModelBuilder inverseFunctional(final boolean value) { return set(Flag.INVERSE_FUNCTIONAL, value); }
+    	public EdgeFlagsModelBuilder irreflexive(final boolean value) { return set(Flag.IRREFLEXIVE, value); }
+    	public EdgeFlagsModelBuilder reflexive(final boolean value) { return set(Flag.REFLEXIVE, value); }
+    	public EdgeFlagsModelBuilder symmetric(final boolean value) { return set(Flag.SYMMETRIC, value); }
+    	public EdgeFlagsModelBuilder transitive(final boolean value) { return set(Flag.TRANSITIVE, value); }
+    	public EdgeFlagsModelBuilder multipleDomains(final boolean value) { return set(Flag.MULTIPLE_DOMAINS, value); }
+    	public EdgeFlagsModelBuilder multipleRanges(final boolean value) { return set(Flag.MULTIPLE_RANGES, value); }
+    	
+    	private EdgeFlagsModelBuilder set(Flag flag, final boolean value) {
+    		model.set(flag, value);
+    		return this;
+    	}
     	
-    	return EdgeFlagsModel.builder()
-    			.asymmetric(false)
-    			.functional(false)
-    			.inverseFunctional(false)
-    			.irreflexive(false)
-    			.reflexive(false)
-    			.symmetric(false)
-    			.transitive(false)
-    			.multipleDomains(false)
-    			.multipleRanges(false)
-    			.build();
+    	public EdgeFlagsModel build() {
+    		return new EdgeFlagsModel(model.getFlags());
+    	}
     }
 }
@@ -0,0 +1,41 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph.models;
+
+import java.util.List;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import lombok.Data;
+
+/**
+ * GraphBatchRequestModel defines a batch request - a single ontology which is graphed using 
+ * several visualizations and graph types. The request holds the JSON of a GraphRequestModel 
+ * (the ontology and any customization details), whose visualization and graph type are replaced 
+ * by those of each output.
+ * 
+ * Lombok Data removes need for POJO boilerplate.
+ *
+ */
+@Data
+public class GraphBatchRequestModel {
+
+    private ObjectNode request;
+    private List<GraphOutputModel> outputs;
+    
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+
+package graph.models;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.NonNull;
+
+/**
+ * GraphElementModel defines a node or edge of a graph, by its id (and for an edge, its source
+ * and target ids), along with the GraphML that is output for it.
+ * 
+ * Lombok Builder allows instantiation with builder().
+ * Lombok Data removes need for POJO boilerplate.
+ *
+ */
+@Data
+@Builder
+public class GraphElementModel {
+	
+	public static final String EDGE = "edge";
+	public static final String NODE = "node";
+    
+	// Either "node" or "edge"
+    @NonNull private String elementType;
+    @NonNull private String id;
+    private String source;
+    private String target;
+    @NonNull private String graphML;
+	
+	/**
+	 * Creates an instance of the class, GraphElementModel, for a node.
+	 * 
+	 * @param  id String node id
+	 * @param  graphML String
+	 * @return GraphElementModel
+	 * 
+	 */
+	public static GraphElementModel createNode(final String id, final String graphML) {
+		
+		return GraphElementModel.builder()
+				.elementType(NODE)
+				.id(id)
+				.graphML(graphML)
+				.build();	
+	}
+	
+	/**
+	 * Creates an instance of the class, GraphElementModel, for an edge.
+	 * 
+	 * @param  id String edge id
+	 * @param  source String id of the source node
+	 * @param  target String id of the target node
+	 * @param  graphML String
+	 * @return GraphElementModel
+	 * 
+	 */
+	public static GraphElementModel createEdge(final String id, final String source, 
+			final String target, final String graphML) {
+		
+		return GraphElementModel.builder()
+				.elementType(EDGE)
+				.id(id)
+				.source(source)
+				.target(target)
+				.graphML(graphML)
+				.build();	
+	}
+}
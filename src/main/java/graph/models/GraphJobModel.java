@@ -0,0 +1,60 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph.models;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * GraphJobModel reports the status of an asynchronous graph job (the job id, some of the
+ * user's input request parameters, the processing status and any error).
+ *
+ * Lombok Builder allows instantiation with builder().
+ * Lombok Data removes need for POJO boilerplate.
+ *
+ */
+@Data
+@Builder
+public class GraphJobModel {
+
+	/**
+	 * The processing status of a job.
+	 *
+	 */
+	public enum Status {
+		QUEUED, LOADING, QUERYING, GENERATING, COMPLETED, FAILED, CANCELLED;
+
+		/**
+		 * Indicates whether a job with this status has finished (successfully or not).
+		 *
+		 * @return boolean
+		 *
+		 */
+		public boolean isFinished() {
+			return this == COMPLETED || this == FAILED || this == CANCELLED;
+		}
+	}
+
+    private String jobId;
+    private String graphTitle;
+    private String visualization;
+    private String graphType;
+    private Status status;
+    private String error;			// Set if the job failed
+
+}
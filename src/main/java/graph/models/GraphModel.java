@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+
+package graph.models;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * GraphModel holds the nodes and edges of a graph, keyed by their ids, in the order that they 
+ * are added. The GraphML for the graph is output from the model once all the elements are added.
+ * 
+ * A node or edge may be added more than once (for example, when a blank node is referenced by 
+ * several classes). The last definition of an element replaces any earlier one, and is output 
+ * at the position where it was last added.
+ *
+ */
+public class GraphModel {
+	
+	private final Map<String, GraphElementModel> elements = new LinkedHashMap<>();
+
+	/**
+	 * Adds a node or edge to the graph, replacing any element of the same type with the same id.
+	 * 
+	 * @param  element GraphElementModel
+	 * 
+	 */
+	public void add(GraphElementModel element) {
+		
+		String key = getKey(element.getElementType(), element.getId());
+		// Remove any earlier definition, so that the element is moved to the end
+		elements.remove(key);
+		elements.put(key, element);
+	}
+	
+	/**
+	 * Adds all the nodes and edges of another graph (in their order in that graph).
+	 * 
+	 * @param  graph GraphModel
+	 * 
+	 */
+	public void addAll(GraphModel graph) {
+		
+		for (GraphElementModel element : graph.getElements()) {
+			add(element);
+		}
+	}
+	
+	/**
+	 * Adds the nodes, and then the edges, of another graph that are not already defined in this graph.
+	 * 
+	 * @param  graph GraphModel
+	 * 
+	 */
+	public void addMissing(GraphModel graph) {
+		
+		List<GraphElementModel> edges = new ArrayList<>();
+		for (GraphElementModel element : graph.getElements()) {
+			if (GraphElementModel.EDGE.equals(element.getElementType())) {
+				edges.add(element);
+			} else if (!contains(element.getElementType(), element.getId())) {
+				add(element);
+			}
+		}
+		for (GraphElementModel edge : edges) {
+			if (!contains(GraphElementModel.EDGE, edge.getId())) {
+				add(edge);
+			}
+		}
+	}
+	
+	/**
+	 * Checks if a node with the specified id is defined.
+	 * 
+	 * @param  id String
+	 * @return boolean
+	 * 
+	 */
+	public boolean containsNode(final String id) {
+		return contains(GraphElementModel.NODE, id);
+	}
+	
+	/**
+	 * Returns the nodes and edges of the graph, in the order that they are output.
+	 * 
+	 * @return Collection<GraphElementModel>
+	 * 
+	 */
+	public Collection<GraphElementModel> getElements() {
+		return elements.values();
+	}
+	
+	/**
+	 * Removes the indicated nodes if they are not the source or target of any edge (for example, 
+	 * an owl:Thing node whose references were all replaced by VOWL class splitting).
+	 * 
+	 * @param  ids String... node ids
+	 * 
+	 */
+	public void removeUnreferencedNodes(final String... ids) {
+		
+		Set<String> referenced = new HashSet<>();
+		for (GraphElementModel element : elements.values()) {
+			if (GraphElementModel.EDGE.equals(element.getElementType())) {
+				referenced.add(element.getSource());
+				referenced.add(element.getTarget());
+			}
+		}
+		
+		for (String id : ids) {
+			if (!referenced.contains(id)) {
+				elements.remove(getKey(GraphElementModel.NODE, id));
+			}
+		}
+	}
+	
+	private boolean contains(final String elementType, final String id) {
+		return elements.containsKey(getKey(elementType, id));
+	}
+	
+	private static String getKey(final String elementType, final String id) {
+		return elementType + "|" + id;
+	}
+}
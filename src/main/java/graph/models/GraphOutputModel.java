@@ -0,0 +1,35 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph.models;
+
+import lombok.Data;
+
+/**
+ * GraphOutputModel defines one of the graphs requested in a batch request (its visualization
+ * and graph type).
+ * 
+ * Lombok Data removes need for POJO boilerplate.
+ *
+ */
+@Data
+public class GraphOutputModel {
+
+    private String visualization;
+    private String graphType;
+    
+}
@@ -0,0 +1,43 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph.models;
+
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * OntologyDetailsModel holds the details of a loaded ontology that are needed for all of its
+ * graphs (its URI, prefixes, classes and related classes/restrictions). These are queried once,
+ * and then used for each requested visualization and graph type. 
+ * 
+ * Lombok Builder allows instantiation with builder().
+ * Lombok Data removes need for POJO boilerplate.
+ *
+ */
+@Data
+@Builder
+public class OntologyDetailsModel {
+
+    private String ontologyURI;			// Null if the ontology does not define its URI
+    private List<PrefixModel> prefixes;
+    private List<ClassModel> classes;
+    private RelatedAndRestrictionModel relatedsAndRestrictions;
+    
+}
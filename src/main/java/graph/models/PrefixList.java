@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph.models;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PrefixList holds the PrefixModels of an ontology, and indexes them to find the prefix for
+ * an IRI without checking every namespace.
+ * 
+ * The namespaces are held in a trie, so that the prefixes whose namespaces start an IRI are
+ * found with a single pass over the IRI. If several namespaces match, the prefix that is first
+ * in the list is returned (as is done by a sequential search of the list). The index is rebuilt
+ * (when next used) after the list is changed or sorted.
+ *
+ */
+public class PrefixList extends ArrayList<PrefixModel> {  //NOSONAR - The index is a cache, not part of equals()
+
+	private static final long serialVersionUID = 1L;
+	
+	// The index and the modCount of the list when it was built
+	private transient Index index;
+	private transient int indexModCount;
+
+	public PrefixList() {
+		super();
+	}
+	
+	public PrefixList(Collection<PrefixModel> prefixes) {
+		super(prefixes);
+	}
+	
+	/**
+	 * Returns the prefixes as a PrefixList (the same list if it is already a PrefixList).
+	 * 
+	 * @param  prefixes List<PrefixModel>
+	 * @return PrefixList
+	 * 
+	 */
+	public static PrefixList of(List<PrefixModel> prefixes) {
+		
+		if (prefixes instanceof PrefixList) {
+			return (PrefixList) prefixes;
+		}
+		return new PrefixList(prefixes);
+	}
+
+	/**
+	 * Finds the prefix whose namespace begins the IRI.
+	 * 
+	 * @param  fullName String IRI
+	 * @return String prefix name (null if no namespace matches)
+	 * 
+	 */
+	public String findPrefixName(final String fullName) {
+		
+		Index currentIndex = getIndex();
+		TrieNode node = currentIndex.root;
+		int position = node.position;
+		for (int i = 0; i < fullName.length(); i++) {
+			node = node.children.get(fullName.charAt(i));
+			if (node == null) {
+				break;
+			}
+			if (node.position >= 0 && (position < 0 || node.position < position)) {
+				position = node.position;
+			}
+		}
+		
+		return position < 0 ? null : currentIndex.prefixNames.get(position);
+	}
+	
+	/**
+	 * Finds the namespace of a prefix.
+	 * 
+	 * @param  prefixName String
+	 * @return String namespace IRI (null if the prefix is not defined)
+	 * 
+	 */
+	public String findUrl(final String prefixName) {
+		return getIndex().urls.get(prefixName);
+	}
+	
+	@Override
+	public PrefixModel set(int i, PrefixModel prefix) {
+		
+		PrefixModel previous = super.set(i, prefix);
+		// set() does not change the modCount
+		invalidateIndex();
+		return previous;
+	}
+	
+	private synchronized void invalidateIndex() {
+		index = null;
+	}
+	
+	/**
+	 * Gets the index of the current prefixes, building it if needed.
+	 * 
+	 * @return Index
+	 * 
+	 */
+	private synchronized Index getIndex() {
+		
+		if (index == null || indexModCount != modCount) {
+			Index newIndex = new Index();
+			for (int i = 0; i < size(); i++) {
+				PrefixModel pm = get(i);
+				String url = pm.getUrl();
+				TrieNode node = newIndex.root;
+				for (int c = 0; c < url.length(); c++) {
+					node = node.children.computeIfAbsent(url.charAt(c), k -> new TrieNode());
+				}
+				if (node.position < 0) {
+					node.position = i;
+				}
+				newIndex.prefixNames.add(pm.getPrefixName());
+				newIndex.urls.putIfAbsent(pm.getPrefixName(), url);
+			}
+			index = newIndex;
+			indexModCount = modCount;
+		}
+		
+		return index;
+	}
+	
+	/**
+	 * Index holds the namespace trie, the prefix names (by position in the list), and the 
+	 * namespaces of the prefix names.
+	 * 
+	 */
+	private static class Index {
+		
+		private final TrieNode root = new TrieNode();
+		private final List<String> prefixNames = new ArrayList<>();
+		private final Map<String, String> urls = new HashMap<>();
+	}
+	
+	/**
+	 * TrieNode is a node of the namespace trie, where position is the (first) position in the 
+	 * list of a prefix whose namespace ends at this node (or -1).
+	 * 
+	 */
+	private static class TrieNode {
+		
+		private final Map<Character, TrieNode> children = new HashMap<>();
+		private int position = -1;
+	}
+}
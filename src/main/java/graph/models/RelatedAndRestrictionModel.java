@@ -17,11 +17,16 @@
 
 package graph.models;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
  * RelatedAndRestrictionsModel is an "uber" model containing lists of models 
@@ -29,12 +34,15 @@ import lombok.Data;
  * (unions, intersections and complementOfs) and restrictions (allValuesFrom,
  * someValuesFrom, min/maxInclusive, ...).
  * 
+ * The restrictions (by name) and the classes of a graph (by prefixed and full name) are indexed
+ * when first looked up, so that each lookup during graph creation does not scan the lists.
+ * 
  * Lombok Builder allows instantiation with builder().
  * Lombok Data removes need for POJO boilerplate.
  *
  */
 @Data
-@Builder
+@ToString(exclude = {"restrictionIndex", "classIndex"})
 public class RelatedAndRestrictionModel {
     
     private List<RestrictionModel> restrictions;
@@ -49,4 +57,88 @@ public class RelatedAndRestrictionModel {
     //     "dis" for disjointWith and "one" for oneOf.
     private Map<String, List<TypeAndValueModel>> equivalentsDisjointsOneOfs;
     
-}
\ No newline at end of file
+    // Lookup indexes (transient fields are not included in equals/hashCode)
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private transient Map<String, RestrictionModel> restrictionIndex;
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private transient ClassIndex classIndex;
+    
+    @Builder
+    public RelatedAndRestrictionModel(List<RestrictionModel> restrictions, 
+    		Map<String, List<TypeAndValueModel>> connectives,
+    		Map<String, List<TypeAndValueModel>> equivalentsDisjointsOneOfs) {
+    	this.restrictions = restrictions;
+    	this.connectives = connectives;
+    	this.equivalentsDisjointsOneOfs = equivalentsDisjointsOneOfs;
+    }
+    
+    /**
+     * Sets the restrictions (and discards the index of the previous restrictions).
+     * 
+     * @param  restrictions List<RestrictionModel>
+     * 
+     */
+    public void setRestrictions(List<RestrictionModel> restrictions) {
+    	this.restrictions = restrictions;
+    	this.restrictionIndex = null;
+    }
+    
+    /**
+     * Returns the restriction with the specified name.
+     * 
+     * @param  restrictionName String
+     * @return RestrictionModel (or null if there is no restriction with that name)
+     * 
+     */
+    public RestrictionModel findRestriction(final String restrictionName) {
+    	
+    	if (restrictionIndex == null) {
+    		Map<String, RestrictionModel> index = new HashMap<>();
+    		for (RestrictionModel rm : restrictions) {
+    			index.putIfAbsent(rm.getRestrictionName(), rm);
+    		}
+    		restrictionIndex = index;
+    	}
+    	
+    	return restrictionIndex.get(restrictionName);
+    }
+    
+    /**
+     * Returns the first class (in list order) whose prefixed or full name is the specified name.
+     * The index is recreated if a different (or modified) list of classes is passed.
+     * 
+     * @param  classes List<ClassModel> of the graph
+     * @param  name String prefixed or full class name
+     * @return ClassModel (or null if no class has that name)
+     * 
+     */
+    public ClassModel findClass(List<ClassModel> classes, final String name) {
+    	
+    	if (classIndex == null || classIndex.classes != classes || classIndex.size != classes.size()) {
+    		classIndex = new ClassIndex(classes);
+    	}
+    	
+    	return classIndex.classesByName.get(name);
+    }
+    
+    /**
+     * ClassIndex maps the prefixed and full names of a list of classes to the (first) class with
+     * that name.
+     * 
+     */
+    private static class ClassIndex {
+    	
+    	private final List<ClassModel> classes;
+    	private final int size;
+    	private final Map<String, ClassModel> classesByName = new HashMap<>();
+    	
+    	ClassIndex(List<ClassModel> classes) {
+    		this.classes = classes;
+    		this.size = classes.size();
+    		for (ClassModel cm : classes) {
+    			classesByName.putIfAbsent(cm.getClassName(), cm);
+    			classesByName.putIfAbsent(cm.getFullClassName(), cm);
+    		}
+    	}
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph.stores;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * ConnectionPool is a bounded, thread-safe pool of connections. A connection is validated when
+ * it is borrowed, and is replaced by a new connection if the validation fails. A connection that
+ * fails while in use is returned as broken (and closed), so that the next borrow reconnects.
+ *
+ * @param <T> Connection type
+ *
+ */
+public class ConnectionPool<T> {
+
+	private final Supplier<T> factory;
+	private final Predicate<T> validator;
+	private final Consumer<T> closer;
+	private final long borrowTimeout;
+
+	// Permits limit the number of connections (idle and borrowed) to the maximum pool size
+	private final Semaphore permits;
+	private final Deque<T> idle = new ConcurrentLinkedDeque<>();
+
+	/**
+	 * Creates the pool (connections are created when first needed).
+	 *
+	 * @param  maxSize int maximum number of connections
+	 * @param  borrowTimeout long number of seconds to wait for a connection when all are in use
+	 * @param  factory Supplier that opens a new connection
+	 * @param  validator Predicate that indicates whether a connection can be used
+	 * @param  closer Consumer that closes a connection
+	 *
+	 */
+	public ConnectionPool(final int maxSize, final long borrowTimeout, Supplier<T> factory, 
+			Predicate<T> validator, Consumer<T> closer) {
+
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("The connection pool size must be at least 1");
+		}
+		this.permits = new Semaphore(maxSize, true);
+		this.borrowTimeout = borrowTimeout;
+		this.factory = factory;
+		this.validator = validator;
+		this.closer = closer;
+	}
+
+	/**
+	 * Borrows a (validated) connection, waiting if all connections are in use. The connection
+	 * must be returned using release().
+	 *
+	 * @return T connection
+	 * @throws IllegalStateException if no connection becomes available within the timeout
+	 *
+	 */
+	public T borrow() {
+
+		try {
+			if (!permits.tryAcquire(borrowTimeout, TimeUnit.SECONDS)) {
+				throw new IllegalStateException("No connection became available within " + borrowTimeout 
+						+ " seconds");
+			}
+		} catch (InterruptedException e) {  //NOSONAR - Reported as IllegalStateException
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for a connection");
+		}
+
+		try {
+			T connection;
+			while ((connection = idle.pollFirst()) != null) {
+				if (isValid(connection)) {
+					return connection;
+				}
+				close(connection);
+			}
+			return factory.get();
+			
+		} catch (RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns a borrowed connection to the pool.
+	 *
+	 * @param  connection T
+	 * @param  broken boolean indicating that the connection failed while in use (it is closed
+	 *                and not reused)
+	 *
+	 */
+	public void release(T connection, final boolean broken) {
+
+		if (broken) {
+			close(connection);
+		} else {
+			idle.offerFirst(connection);
+		}
+		permits.release();
+	}
+
+	/**
+	 * Closes all idle connections.
+	 *
+	 */
+	public void close() {
+
+		T connection;
+		while ((connection = idle.pollFirst()) != null) {
+			close(connection);
+		}
+	}
+
+	private boolean isValid(T connection) {
+
+		try {
+			return validator.test(connection);
+		} catch (RuntimeException e) {  //NOSONAR - Invalid connection is replaced
+			return false;
+		}
+	}
+
+	private void close(T connection) {
+
+		try {
+			closer.accept(connection);
+		} catch (RuntimeException e) {  //NOSONAR - Connection is discarded
+			// Ignore, the connection is no longer used
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph.stores;
+
+import java.nio.file.Path;
+
+import graph.OntoGraphException;
+
+/**
+ * GraphStore defines the triple store engine used by GraphDBAccess to load an ontology and
+ * to query it. The engine is selected using the graph.store property in application.properties
+ * (see GraphStoreConfiguration).
+ *
+ */
+public interface GraphStore {
+
+	/**
+	 * Creates a database and loads the ontology file into it.
+	 *
+	 * @param  databaseName String
+	 * @param  ontologyFile Path to the ontology file (the file extension defines its format)
+	 * @return StoreTemplate to query the new database
+	 * @throws OntoGraphException if the database name is already in use or the load fails
+	 *
+	 */
+	StoreTemplate createDatabase(String databaseName, Path ontologyFile) throws OntoGraphException;
+
+	/**
+	 * Removes a database, if it exists.
+	 *
+	 * @param  databaseName String
+	 *
+	 */
+	void dropDatabase(String databaseName);
+
+	/**
+	 * Indicates whether a database with the specified name exists.
+	 *
+	 * @param  databaseName String
+	 * @return boolean
+	 *
+	 */
+	boolean databaseExists(String databaseName);
+
+	/**
+	 * Gets the maximum number of databases that can exist at the same time. When this number 
+	 * is reached, creating a database waits until one is removed.
+	 *
+	 * @return int (Integer.MAX_VALUE if there is no limit)
+	 *
+	 */
+	default int getMaxDatabases() {
+		return Integer.MAX_VALUE;
+	}
+}
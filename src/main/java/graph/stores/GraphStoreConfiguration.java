@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph.stores;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import graph.graphmloutputs.FragmentRenderer;
+
+/**
+ * GraphStoreConfiguration creates the GraphStore bean based on the graph.store property
+ * ("stardog" for a standalone Stardog server, or "memory" for the embedded, in-memory engine).
+ *
+ */
+@Configuration
+public class GraphStoreConfiguration {
+
+    // Store selection and Stardog configuration from application.properties
+    @Value("${graph.store:stardog}")
+    private String graphStore;
+    @Value("${stardog.server}")
+    private String stardogServer;
+    @Value("${stardog.user}")
+    private String stardogUser;
+    @Value("${stardog.password}")
+    private String stardogPassword;
+    @Value("${stardog.pool.prefix:ontograph_pool_}")
+    private String stardogPoolPrefix;
+    @Value("${stardog.pool.size:4}")
+    private int stardogPoolSize;
+    @Value("${stardog.pool.timeout:60}")
+    private long stardogPoolTimeout;
+    @Value("${stardog.connections.admin:2}")
+    private int stardogAdminConnections;
+    @Value("${stardog.connections.max:8}")
+    private int stardogConnections;
+    
+    // Ontology cache configuration from application.properties
+    @Value("${graph.cache.maxEntries:2}")
+    private int cacheMaxEntries;
+    @Value("${graph.cache.maxBytes:268435456}")
+    private long cacheMaxBytes;
+    @Value("${graph.cache.ttl:600}")
+    private long cacheTtl;
+    
+    // Query scheduler configuration from application.properties
+    @Value("${graph.query.threads:8}")
+    private int queryThreads;
+    @Value("${graph.query.maxPerRequest:4}")
+    private int queryMaxPerRequest;
+
+    // Fragment renderer configuration from application.properties
+    @Value("${graph.render.threads:0}")
+    private int renderThreads;
+    @Value("${graph.render.chunkSize:256}")
+    private int renderChunkSize;
+
+    /**
+     * Creates the GraphStore used to load and query ontologies.
+     *
+     * @return GraphStore
+     *
+     */
+    @Bean
+    public GraphStore graphStore() {
+
+    	if ("memory".equals(graphStore)) {
+    		return new MemoryGraphStore();
+    	} else if ("stardog".equals(graphStore)) {
+    		return StardogGraphStore.builder()
+    				.stardogServer(stardogServer)
+    				.stardogUser(stardogUser)
+    				.stardogPassword(stardogPassword)
+    				.poolPrefix(stardogPoolPrefix)
+    				.poolSize(stardogPoolSize)
+    				.leaseTimeout(stardogPoolTimeout)
+    				.maxAdminConnections(stardogAdminConnections)
+    				.maxConnections(stardogConnections)
+    				.build();
+    	}
+
+    	throw new IllegalArgumentException("Unknown graph.store value: " + graphStore
+    			+ " (expected stardog or memory)");
+    }
+
+    /**
+     * Creates the cache of loaded ontologies (which are held in the GraphStore).
+     *
+     * @return OntologyCache
+     *
+     */
+    @Bean
+    public OntologyCache ontologyCache() {
+
+    	// Each cached ontology holds one of the pooled Stardog databases
+    	if ("stardog".equals(graphStore) && cacheMaxEntries >= stardogPoolSize) {
+    		throw new IllegalArgumentException("graph.cache.maxEntries (" + cacheMaxEntries 
+    				+ ") must be less than stardog.pool.size (" + stardogPoolSize + ")");
+    	}
+
+    	return new OntologyCache(graphStore(), cacheMaxEntries, cacheMaxBytes, cacheTtl);
+    }
+
+    /**
+     * Creates the scheduler that runs independent queries in parallel.
+     *
+     * @return QueryScheduler
+     *
+     */
+    @Bean
+    public QueryScheduler queryScheduler() {
+    	return new QueryScheduler(queryThreads, queryMaxPerRequest);
+    }
+
+    /**
+     * Creates the renderer that generates the GraphML fragments of large graphs in parallel.
+     *
+     * @return FragmentRenderer
+     *
+     */
+    @Bean
+    public FragmentRenderer fragmentRenderer() {
+    	return new FragmentRenderer(renderThreads, renderChunkSize);
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph.stores;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.datatypes.XMLDatatypeUtil;
+import org.eclipse.rdf4j.model.impl.AbstractValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.XMLSchema;
+import org.eclipse.rdf4j.query.QueryLanguage;
+import org.eclipse.rdf4j.repository.Repository;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.RepositoryException;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.repository.util.RDFInserter;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFHandlerException;
+import org.eclipse.rdf4j.rio.RDFParseException;
+import org.eclipse.rdf4j.rio.RDFParser;
+import org.eclipse.rdf4j.rio.Rio;
+import org.eclipse.rdf4j.rio.helpers.BasicParserSettings;
+import org.eclipse.rdf4j.rio.helpers.XMLParserSettings;
+import org.eclipse.rdf4j.sail.inferencer.fc.SchemaCachingRDFSInferencer;
+import org.eclipse.rdf4j.sail.memory.MemoryStore;
+
+import graph.OntoGraphException;
+
+/**
+ * MemoryGraphStore loads each ontology into an embedded, in-memory RDF4J repository. This avoids
+ * the HTTP round trips and the database create/drop costs of a standalone Stardog server, and is
+ * well suited for small and medium-sized ontologies.
+ *
+ * Reasoning is approximated by RDFS entailment, with all named OWL classes (and owl:NamedIndividual)
+ * treated as subclasses of owl:Thing so that individuals are typed as owl:Thing (as is done by the
+ * Stardog reasoner). Also, the other resources that are described by the ontology (by a type or 
+ * property that is not defined by RDF, RDFS or OWL) and that are not classes, properties or 
+ * ontologies are typed as owl:Thing.
+ *
+ * The ontology is stored as it is by Stardog. The labels of blank nodes in the ontology file (for 
+ * example, _:x1 in Turtle) are kept as their ids, and the other blank nodes are given ids starting 
+ * with "bnode_". (The ids are assigned in the order of the file, so that a blank node has the same 
+ * id in both repositories.) Literals of the datatypes derived from xsd:integer are stored as 
+ * xsd:integer literals. For RDF/XML documents, the leading and trailing white space of literals
+ * is removed, and external DTDs are not loaded.
+ *
+ */
+public class MemoryGraphStore implements GraphStore {
+
+	private static final String ADD_THING_SUPERCLASS = "PREFIX owl: <http://www.w3.org/2002/07/owl#> "
+			+ "PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#> "
+			+ "INSERT { ?class rdfs:subClassOf owl:Thing } WHERE { "
+			+ "{ ?class a owl:Class } UNION { BIND (owl:NamedIndividual as ?class) } "
+			+ "FILTER ( isIRI(?class) && ?class != owl:Thing ) }";
+	private static final String ADD_THING_TYPE = "PREFIX owl: <http://www.w3.org/2002/07/owl#> "
+			+ "PREFIX rdf: <http://www.w3.org/1999/02/22-rdf-syntax-ns#> "
+			+ "PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#> "
+			+ "INSERT { ?s a owl:Thing } WHERE { ?s ?p ?o . FILTER ( isIRI(?s) "
+			+ "&& !strstarts(str(?s), 'http://www.w3.org/') "
+			+ "&& !strstarts(str(?p), 'http://www.w3.org/2000/01/rdf-schema') "
+			+ "&& !strstarts(str(?p), 'http://www.w3.org/2002/07/owl') "
+			+ "&& ( ?p != rdf:type || !strstarts(str(?o), 'http://www.w3.org/') ) ) . "
+			+ "MINUS { ?s a ?schemaType . FILTER ( ?schemaType IN (owl:Class, rdfs:Class, rdfs:Datatype, "
+			+ "rdf:Property, owl:ObjectProperty, owl:DatatypeProperty, owl:AnnotationProperty, "
+			+ "owl:FunctionalProperty, owl:InverseFunctionalProperty, owl:TransitiveProperty, "
+			+ "owl:SymmetricProperty, owl:AsymmetricProperty, owl:ReflexiveProperty, owl:IrreflexiveProperty, "
+			+ "owl:Ontology, owl:Restriction) ) } }";
+
+	private final Map<String, MemoryStoreTemplate> databases = new ConcurrentHashMap<>();
+
+	@Override
+	public StoreTemplate createDatabase(final String databaseName, Path ontologyFile)
+			throws OntoGraphException {
+
+		Repository repository = new SailRepository(new MemoryStore());
+		Repository reasoningRepository = new SailRepository(new SchemaCachingRDFSInferencer(new MemoryStore()));
+		MemoryStoreTemplate template = new MemoryStoreTemplate(repository, reasoningRepository);
+
+		if (databases.putIfAbsent(databaseName, template) != null) {
+			throw new OntoGraphException("Requested graph title (" + databaseName + ") is already in use. "
+					+ "Please choose another title.");
+		}
+
+		try {
+			repository.initialize();
+			reasoningRepository.initialize();
+			String blankNodePrefix = MemoryStoreTemplate.BNODE_PREFIX 
+					+ UUID.randomUUID().toString().replace("-", "");
+			loadFile(repository, ontologyFile, blankNodePrefix);
+			loadFile(reasoningRepository, ontologyFile, blankNodePrefix);
+			try (RepositoryConnection conn = reasoningRepository.getConnection()) {
+				conn.prepareUpdate(QueryLanguage.SPARQL, ADD_THING_SUPERCLASS).execute();
+				conn.prepareUpdate(QueryLanguage.SPARQL, ADD_THING_TYPE).execute();
+			}
+
+		} catch (IOException | RDFParseException | RDFHandlerException | RepositoryException e) {
+			dropDatabase(databaseName);
+			throw new OntoGraphException("Failed to load the ontology file for the graph, " + databaseName
+					+ ". Exception details: " + e.getMessage());
+		}
+
+		return template;
+	}
+
+	@Override
+	public void dropDatabase(final String databaseName) {
+
+		MemoryStoreTemplate template = databases.remove(databaseName);
+		if (template != null) {
+			template.shutDown();
+		}
+	}
+
+	@Override
+	public boolean databaseExists(final String databaseName) {
+		return databases.containsKey(databaseName);
+	}
+
+	/**
+	 * Loads an ontology file (which may be a zip or gzip archive) into a repository.
+	 *
+	 * @param  repository Repository (initialized)
+	 * @param  ontologyFile Path
+	 * @param  blankNodePrefix String starting the ids of the blank nodes without labels
+	 * @throws IOException if the file cannot be read, or the format of a document is not supported
+	 *
+	 */
+	private static void loadFile(Repository repository, Path ontologyFile, final String blankNodePrefix) 
+			throws IOException {
+
+		AtomicLong blankNodeCount = new AtomicLong();
+		try (RepositoryConnection conn = repository.getConnection()) {
+			conn.begin();
+			OntologyFiles.forEachDocument(ontologyFile, (in, fileName) -> {
+				RDFFormat format = OntologyFiles.getParserFormat(fileName).orElseThrow(
+						() -> new IOException("The format of the ontology file, " + fileName 
+								+ ", is not supported."));
+				RDFParser parser = Rio.createParser(format, 
+						new OntologyValueFactory(blankNodePrefix, blankNodeCount, RDFFormat.RDFXML.equals(format)));
+				parser.getParserConfig().set(BasicParserSettings.PRESERVE_BNODE_IDS, true);
+				parser.getParserConfig().set(XMLParserSettings.LOAD_EXTERNAL_DTD, false);
+				parser.setRDFHandler(new RDFInserter(conn));
+				parser.parse(in, ontologyFile.toUri().toString());
+			});
+			conn.commit();
+		}
+	}
+
+	/**
+	 * ValueFactory that creates the values of a document as they are stored by Stardog. The blank 
+	 * nodes without labels are numbered in the order in which they are created, the literals of the 
+	 * datatypes derived from xsd:integer (for example, xsd:int or xsd:unsignedInt) are created as 
+	 * xsd:integer literals, and (if requested) the labels of literals are trimmed.
+	 *
+	 */
+	private static class OntologyValueFactory extends AbstractValueFactory {
+
+		private final String blankNodePrefix;
+		private final AtomicLong blankNodeCount;
+		private final boolean trimLiterals;
+
+		OntologyValueFactory(final String blankNodePrefix, AtomicLong blankNodeCount, final boolean trimLiterals) {
+			this.blankNodePrefix = blankNodePrefix;
+			this.blankNodeCount = blankNodeCount;
+			this.trimLiterals = trimLiterals;
+		}
+
+		@Override
+		public BNode createBNode() {
+			return createBNode(blankNodePrefix + "x" + blankNodeCount.getAndIncrement());
+		}
+
+		@Override
+		public Literal createLiteral(final String label) {
+			return super.createLiteral(trim(label));
+		}
+
+		@Override
+		public Literal createLiteral(final String label, final String language) {
+			return super.createLiteral(trim(label), language);
+		}
+
+		@Override
+		public Literal createLiteral(final String label, IRI datatype) {
+
+			String value = trim(label);
+			if (datatype != null && XMLDatatypeUtil.isIntegerDatatype(datatype) 
+					&& XMLDatatypeUtil.isValidInteger(value)) {
+				return super.createLiteral(XMLDatatypeUtil.normalizeInteger(value), XMLSchema.INTEGER);
+			}
+			return super.createLiteral(value, datatype);
+		}
+
+		private String trim(final String label) {
+			return trimLiterals ? label.trim() : label;
+		}
+	}
+}
@@ -0,0 +1,327 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph.stores;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.rdf4j.common.iteration.Iterations;
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.Namespace;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryLanguage;
+import org.eclipse.rdf4j.query.TupleQuery;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.query.algebra.evaluation.ValueExprEvaluationException;
+import org.eclipse.rdf4j.query.algebra.evaluation.function.Function;
+import org.eclipse.rdf4j.query.algebra.evaluation.function.FunctionRegistry;
+import org.eclipse.rdf4j.repository.Repository;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+
+import graph.OntoGraphException;
+
+/**
+ * MemoryStoreTemplate implements the StoreTemplate queries against an embedded, in-memory
+ * RDF4J repository.
+ *
+ * The GraphDBAccess queries are written for Stardog, which declares the standard namespace
+ * prefixes and allows str() of a blank node (returning the node's id). To support the same
+ * queries, the namespace prefixes of the repository are added to each query, and str() is 
+ * replaced by a function that also accepts blank nodes. The blank node ids are those assigned 
+ * when the ontology is loaded (see MemoryGraphStore), and literals are returned as RDF terms in 
+ * the same format as Stardog.
+ *
+ */
+public class MemoryStoreTemplate implements StoreTemplate {
+
+	// Prefix of the ids of unlabeled blank nodes (as assigned by Stardog)
+	static final String BNODE_PREFIX = "bnode_";
+	private static final String STR_FUNCTION = "urn:ontograph:str";
+	private static final String STR_REGEX = "(?i)\\bstr\\(";
+
+	// Namespaces that are always defined in Stardog
+	private static final Map<String, String> defaultNamespaces = createDefaultNamespaces();
+	private static Map<String, String> createDefaultNamespaces() {
+		Map<String, String> namespaces = new HashMap<>();
+		namespaces.put("owl", "http://www.w3.org/2002/07/owl#");
+		namespaces.put("rdf", "http://www.w3.org/1999/02/22-rdf-syntax-ns#");
+		namespaces.put("rdfs", "http://www.w3.org/2000/01/rdf-schema#");
+		namespaces.put("xsd", "http://www.w3.org/2001/XMLSchema#");
+		return namespaces;
+	}
+
+	static {
+		FunctionRegistry.getInstance().add(new BlankNodeStrFunction());
+	}
+
+	private final Repository repository;
+	private final Repository reasoningRepository;
+
+	/**
+	 * Creates a template accessing the (initialized and loaded) repositories.
+	 *
+	 * @param  repository Repository holding the ontology
+	 * @param  reasoningRepository Repository holding the ontology with inferencing enabled
+	 *
+	 */
+	public MemoryStoreTemplate(Repository repository, Repository reasoningRepository) {
+
+		this.repository = repository;
+		this.reasoningRepository = reasoningRepository;
+	}
+
+	@Override
+	public List<Map<String, String>> query(final String query) {
+		return query(query, new HashMap<>());
+	}
+
+	@Override
+	public List<Map<String, String>> query(final String query, Map<String, Object> bindings) {
+
+		List<Map<String, String>> rows = new ArrayList<>();
+
+		try (RepositoryConnection conn = repository.getConnection();
+				TupleQueryResult result = prepareQuery(conn, query, bindings).evaluate()) {
+			while (result.hasNext()) {
+				BindingSet bs = result.next();
+				Map<String, String> row = new HashMap<>();
+				for (String name : bs.getBindingNames()) {
+					row.put(name, getStringValue(bs.getValue(name)));
+				}
+				rows.add(row);
+			}
+		}
+
+		return rows;
+	}
+
+	@Override
+	public List<String> queryForList(final String query, Map<String, Object> bindings, final String variable) {
+
+		List<String> values = new ArrayList<>();
+
+		try (RepositoryConnection conn = repository.getConnection();
+				TupleQueryResult result = prepareQuery(conn, query, bindings).evaluate()) {
+			while (result.hasNext()) {
+				values.add(getStringValue(result.next().getValue(variable)));
+			}
+		}
+
+		return values;
+	}
+
+	@Override
+	public String queryForObject(final String query, Map<String, Object> bindings, final String variable) {
+
+		List<String> values = queryForList(query, bindings, variable);
+		return values.isEmpty() ? null : values.get(0);
+	}
+
+	@Override
+	public List<List<String>> queryForValues(final String query, Map<String, Object> bindings,
+			final String... variables) {
+
+		List<List<String>> rows = new ArrayList<>();
+
+		try (RepositoryConnection conn = repository.getConnection();
+				TupleQueryResult result = prepareQuery(conn, query, bindings).evaluate()) {
+			while (result.hasNext()) {
+				BindingSet bs = result.next();
+				List<String> row = new ArrayList<>();
+				for (String variable : variables) {
+					row.add(getTerm(bs.getValue(variable)));
+				}
+				rows.add(row);
+			}
+		}
+
+		return rows;
+	}
+
+	@Override
+	public void queryForEach(final String query, Map<String, Object> bindings, RowHandler handler)
+			throws OntoGraphException {
+
+		try (RepositoryConnection conn = repository.getConnection();
+				TupleQueryResult result = prepareQuery(conn, query, bindings).evaluate()) {
+			while (result.hasNext()) {
+				BindingSet bs = result.next();
+				handler.handleRow(new QueryRow() {
+					@Override
+					public String get(final String variable) {
+						return getStringValue(bs.getValue(variable));
+					}
+
+					@Override
+					public String getTerm(final String variable) {
+						return MemoryStoreTemplate.getTerm(bs.getValue(variable));
+					}
+				});
+			}
+		}
+	}
+
+	@Override
+	public Map<String, String> getNamespaces() {
+
+		Map<String, String> namespaces = new HashMap<>(defaultNamespaces);
+
+		try (RepositoryConnection conn = repository.getConnection()) {
+			for (Namespace ns : Iterations.asList(conn.getNamespaces())) {
+				namespaces.put(ns.getPrefix(), ns.getName());
+			}
+		}
+
+		return namespaces;
+	}
+
+	@Override
+	public StoreTemplate withReasoning() {
+		return new MemoryStoreTemplate(reasoningRepository, reasoningRepository);
+	}
+
+	/**
+	 * Releases the resources held by the repositories.
+	 *
+	 */
+	void shutDown() {
+
+		repository.shutDown();
+		reasoningRepository.shutDown();
+	}
+
+	/**
+	 * Returns the string value for a query result.
+	 *
+	 * @param  value Value
+	 * @return String (null if the value is not bound)
+	 *
+	 */
+	private static String getStringValue(Value value) {
+
+		return value == null ? null : value.stringValue();
+	}
+
+	/**
+	 * Returns a query result as an RDF term, as it is returned by Stardog. A literal includes its
+	 * language or its datatype (which RDF4J omits for an xsd:string literal), and a blank node is 
+	 * returned as "_:" followed by its id.
+	 *
+	 * @param  value Value
+	 * @return String (null if the value is not bound)
+	 *
+	 */
+	private static String getTerm(Value value) {
+
+		if (value == null) {
+			return null;
+		}
+		if (value instanceof BNode) {
+			return "_:" + value.stringValue();
+		}
+		if (value instanceof Literal) {
+			Literal literal = (Literal) value;
+			if (literal.getLanguage().isPresent()) {
+				return "\"" + literal.getLabel() + "\"@" + literal.getLanguage().get();
+			}
+			return "\"" + literal.getLabel() + "\"^^<" + literal.getDatatype() + ">";
+		}
+		return value.toString();
+	}
+
+	/**
+	 * Adds the namespace prefix declarations to the query, replaces str() and sets the bindings.
+	 *
+	 * @param  conn RepositoryConnection
+	 * @param  query String SPARQL query written for Stardog
+	 * @param  bindings Map<String, Object> of variable names and their values
+	 * @return TupleQuery ready for evaluation
+	 *
+	 */
+	private static TupleQuery prepareQuery(RepositoryConnection conn, final String query,
+			Map<String, Object> bindings) {
+
+		Map<String, String> namespaces = new HashMap<>(defaultNamespaces);
+		for (Namespace ns : Iterations.asList(conn.getNamespaces())) {
+			namespaces.put(ns.getPrefix(), ns.getName());
+		}
+
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<String, String> ns : namespaces.entrySet()) {
+			sb.append("PREFIX " + ns.getKey() + ": <" + ns.getValue() + ">\n");
+		}
+		sb.append(query.replaceAll(STR_REGEX, "<" + STR_FUNCTION + ">("));
+
+		TupleQuery tupleQuery = conn.prepareTupleQuery(QueryLanguage.SPARQL, sb.toString());
+		ValueFactory vf = conn.getValueFactory();
+		for (Map.Entry<String, Object> binding : bindings.entrySet()) {
+			tupleQuery.setBinding(binding.getKey(), toValue(vf, binding.getValue()));
+		}
+
+		return tupleQuery;
+	}
+
+	/**
+	 * Converts a binding value (a String or an org.openrdf.model.Value) to an RDF4J Value.
+	 *
+	 * @param  vf ValueFactory
+	 * @param  bindingValue Object
+	 * @return Value
+	 *
+	 */
+	private static Value toValue(ValueFactory vf, Object bindingValue) {
+
+		if (bindingValue instanceof org.openrdf.model.Literal) {
+			return vf.createLiteral(((org.openrdf.model.Literal) bindingValue).getLabel());
+		} else if (bindingValue instanceof org.openrdf.model.Value) {
+			String name = ((org.openrdf.model.Value) bindingValue).stringValue();
+			if (name.startsWith(BNODE_PREFIX) && !name.contains(":")) {
+				return vf.createBNode(name);
+			}
+			return vf.createIRI(name);
+		}
+
+		return vf.createLiteral(String.valueOf(bindingValue));
+	}
+
+	/**
+	 * SPARQL str() function that also accepts blank nodes (as is done by Stardog).
+	 *
+	 */
+	public static class BlankNodeStrFunction implements Function {
+
+		@Override
+		public String getURI() {
+			return STR_FUNCTION;
+		}
+
+		@Override
+		public Value evaluate(ValueFactory valueFactory, Value... args) throws ValueExprEvaluationException {
+
+			if (args.length != 1) {
+				throw new ValueExprEvaluationException("str() requires exactly 1 argument, got " + args.length);
+			}
+			return valueFactory.createLiteral(getStringValue(args[0]));
+		}
+	}
+}
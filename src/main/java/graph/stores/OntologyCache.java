@@ -0,0 +1,429 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph.stores;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import graph.OntoGraphException;
+import graph.models.CacheStatsModel;
+
+/**
+ * OntologyCache keeps loaded ontologies (their GraphStore databases) for reuse, keyed by the hash 
+ * of the ontology file's contents. A request for an ontology that is already loaded then skips the 
+ * load entirely.
+ * 
+ * The cache is bounded by the number of entries and the total size of the ontology files, and 
+ * entries expire after a time-to-live (and are then dropped, if not in use). The least recently used 
+ * entries are evicted first. An entry is reference counted while it is used by a request, and is only
+ * dropped from the GraphStore when it is no longer in use. If several requests need the same (not 
+ * cached) ontology at the same time, it is loaded once.
+ * 
+ * Each cached ontology holds one of the GraphStore's databases. If the GraphStore limits the number
+ * of databases (such as the pool of Stardog databases), entries that are not in use are evicted when
+ * a load would otherwise wait for a database.
+ *
+ */
+public class OntologyCache {
+
+	private static final String DATABASE_PREFIX = "ontology_";
+
+	/**
+	 * Loads an ontology into a new database.
+	 *
+	 */
+	@FunctionalInterface
+	public interface Loader {
+		
+		/**
+		 * @param  databaseName String name for the new database
+		 * @return StoreTemplate for the loaded database
+		 * @throws OntoGraphException
+		 */
+		StoreTemplate load(String databaseName) throws OntoGraphException;
+	}
+
+	private final GraphStore graphStore;
+	private final int maxEntries;
+	private final long maxBytes;
+	private final long ttlMillis;
+
+	// Cached entries in least recently used order, and all entries by StoreTemplate (including 
+	//   evicted entries that are still in use)
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<StoreTemplate, Entry> entriesByTemplate = new HashMap<>();
+	private final Map<String, CompletableFuture<Entry>> loading = new HashMap<>();
+	private long totalBytes = 0;
+	private final AtomicLong databaseCount = new AtomicLong();
+
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+
+	// Drops the expired entries (null if the cache is disabled)
+	private final ScheduledExecutorService expiryExecutor;
+
+	/**
+	 * Creates the cache.
+	 *
+	 * @param  graphStore GraphStore holding the cached databases
+	 * @param  maxEntries int maximum number of cached ontologies (0 disables the cache)
+	 * @param  maxBytes long maximum total size of the cached ontology files
+	 * @param  ttlSeconds long number of seconds that an ontology is cached
+	 *
+	 */
+	public OntologyCache(GraphStore graphStore, final int maxEntries, final long maxBytes, 
+			final long ttlSeconds) {
+
+		this.graphStore = graphStore;
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+		this.ttlMillis = ttlSeconds * 1000;
+		if (isEnabled()) {
+			this.expiryExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "ontograph-cache-expiry");
+				thread.setDaemon(true);
+				return thread;
+			});
+		} else {
+			this.expiryExecutor = null;
+		}
+	}
+
+	/**
+	 * Indicates whether caching is enabled.
+	 *
+	 * @return boolean
+	 *
+	 */
+	public boolean isEnabled() {
+		return maxEntries > 0;
+	}
+
+	/**
+	 * Gets the StoreTemplate of a cached ontology, or loads and caches the ontology. The 
+	 * StoreTemplate must be returned with release() when the request is done.
+	 *
+	 * @param  key String hash of the ontology file's contents (and its format)
+	 * @param  size long size of the ontology file
+	 * @param  loader Loader to load the ontology if it is not cached
+	 * @return StoreTemplate
+	 * @throws OntoGraphException if the load fails
+	 *
+	 */
+	public StoreTemplate acquire(final String key, final long size, Loader loader) throws OntoGraphException {
+
+		while (true) {
+			StoreTemplate cached = null;
+			CompletableFuture<Entry> future = null;
+			boolean loadHere = false;
+			List<Entry> dropped;
+			synchronized (this) {
+				dropped = removeExpired();
+				Entry entry = entries.get(key);
+				if (entry != null) {
+					entry.refCount++;
+					hits++;
+					cached = entry.template;
+				} else {
+					future = loading.get(key);
+					if (future == null) {
+						misses++;
+						future = new CompletableFuture<>();
+						loading.put(key, future);
+						loadHere = true;
+						dropped.addAll(evictForLoads());
+					}
+				}
+			}
+			drop(dropped);
+
+			if (cached != null) {
+				return cached;
+			} else if (loadHere) {
+				return load(key, size, loader, future);
+			}
+
+			// Another request is loading the same ontology, wait for it
+			try {
+				future.get();
+			} catch (InterruptedException e) {  //NOSONAR - Logged as part of OntoGraphException handling
+				Thread.currentThread().interrupt();
+				throw new OntoGraphException("Interrupted while waiting for the ontology to be loaded.");
+			} catch (ExecutionException e) {  //NOSONAR - Logged as part of OntoGraphException handling
+				throw new OntoGraphException(e.getCause().getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Returns a StoreTemplate obtained from acquire(). 
+	 *
+	 * @param  template StoreTemplate
+	 * @return boolean true if the StoreTemplate is (or was) cached, false if it is unknown
+	 *
+	 */
+	public boolean release(StoreTemplate template) {
+
+		List<Entry> dropped = new ArrayList<>();
+		synchronized (this) {
+			Entry entry = entriesByTemplate.get(template);
+			if (entry == null) {
+				return false;
+			}
+			entry.refCount--;
+			if (entry.evicted && entry.refCount == 0) {
+				entriesByTemplate.remove(template);
+				dropped.add(entry);
+			}
+			dropped.addAll(removeExpired());
+			dropped.addAll(evict());
+			dropped.addAll(evictForLoads());
+		}
+		
+		drop(dropped);
+		return true;
+	}
+
+	/**
+	 * Returns the cache statistics.
+	 *
+	 * @return CacheStatsModel
+	 *
+	 */
+	public synchronized CacheStatsModel getStats() {
+
+		return CacheStatsModel.builder()
+				.enabled(isEnabled())
+				.entries(entries.size())
+				.bytes(totalBytes)
+				.hits(hits)
+				.misses(misses)
+				.evictions(evictions)
+				.build();
+	}
+
+	/**
+	 * Stops the expiry of entries (called when the application context is closed).
+	 *
+	 */
+	public void shutdown() {
+
+		if (expiryExecutor != null) {
+			expiryExecutor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Loads an ontology (outside of the cache's lock) and caches it.
+	 *
+	 * @param  key String
+	 * @param  size long
+	 * @param  loader Loader
+	 * @param  future CompletableFuture notifying other requests waiting for the same ontology
+	 * @return StoreTemplate
+	 * @throws OntoGraphException
+	 *
+	 */
+	private StoreTemplate load(final String key, final long size, Loader loader, 
+			CompletableFuture<Entry> future) throws OntoGraphException {
+
+		// The name is unique, since an evicted database with the same key may still be in use
+		String databaseName = DATABASE_PREFIX + databaseCount.incrementAndGet() + "_" 
+				+ key.replaceAll("\\W", "_");
+		StoreTemplate template;
+		try {
+			template = loader.load(databaseName);
+		} catch (OntoGraphException | RuntimeException e) {
+			synchronized (this) {
+				loading.remove(key);
+			}
+			future.completeExceptionally(e);
+			throw e;
+		}
+
+		Entry entry = new Entry(databaseName, template, size);
+		List<Entry> dropped;
+		synchronized (this) {
+			entries.put(key, entry);
+			entriesByTemplate.put(template, entry);
+			totalBytes += size;
+			loading.remove(key);
+			dropped = evict();
+		}
+		future.complete(entry);
+		scheduleExpiry();
+		
+		drop(dropped);
+		return template;
+	}
+
+	/**
+	 * Schedules the removal of a newly cached entry when it expires.
+	 *
+	 */
+	private void scheduleExpiry() {
+
+		try {
+			expiryExecutor.schedule(() -> {
+				List<Entry> dropped;
+				synchronized (this) {
+					dropped = removeExpired();
+				}
+				drop(dropped);
+			}, ttlMillis, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {  //NOSONAR - Expired entries are removed by the next request
+			// Cache is shut down
+		}
+	}
+
+	/**
+	 * Removes the expired entries from the cache (must be called holding the cache's lock).
+	 *
+	 * @return List<Entry> that are no longer in use and should be dropped
+	 *
+	 */
+	private List<Entry> removeExpired() {
+
+		List<Entry> dropped = new ArrayList<>();
+		long now = System.currentTimeMillis();
+		Iterator<Entry> iter = entries.values().iterator();
+		while (iter.hasNext()) {
+			Entry entry = iter.next();
+			if (now - entry.loadedAt >= ttlMillis) {
+				iter.remove();
+				dropped.addAll(remove(entry));
+			}
+		}
+
+		return dropped;
+	}
+
+	/**
+	 * Evicts the least recently used entries that are not in use, until the cache is within 
+	 * its limits (must be called holding the cache's lock).
+	 *
+	 * @return List<Entry> that should be dropped
+	 *
+	 */
+	private List<Entry> evict() {
+
+		List<Entry> dropped = new ArrayList<>();
+		Iterator<Entry> iter = entries.values().iterator();
+		while ((entries.size() > maxEntries || totalBytes > maxBytes) && iter.hasNext()) {
+			Entry entry = iter.next();
+			if (entry.refCount == 0) {
+				iter.remove();
+				dropped.addAll(remove(entry));
+			}
+		}
+
+		return dropped;
+	}
+
+	/**
+	 * Evicts the least recently used entries that are not in use, while the databases held by the 
+	 * cache and the loads in progress exceed the GraphStore's limit (must be called holding the 
+	 * cache's lock). This returns the databases of idle entries to the GraphStore, rather than 
+	 * leaving the loads waiting for them.
+	 *
+	 * @return List<Entry> that should be dropped
+	 *
+	 */
+	private List<Entry> evictForLoads() {
+
+		List<Entry> dropped = new ArrayList<>();
+		int maxDatabases = graphStore.getMaxDatabases();
+		Iterator<Entry> iter = entries.values().iterator();
+		while (entriesByTemplate.size() + loading.size() > maxDatabases && iter.hasNext()) {
+			Entry entry = iter.next();
+			if (entry.refCount == 0) {
+				iter.remove();
+				dropped.addAll(remove(entry));
+			}
+		}
+
+		return dropped;
+	}
+
+	/**
+	 * Updates the cache details for an entry that was removed from the entries map.
+	 *
+	 * @param  entry Entry
+	 * @return List<Entry> with the entry, if it is not in use (and can be dropped)
+	 *
+	 */
+	private List<Entry> remove(Entry entry) {
+
+		List<Entry> dropped = new ArrayList<>();
+		totalBytes -= entry.size;
+		evictions++;
+		entry.evicted = true;
+		if (entry.refCount == 0) {
+			entriesByTemplate.remove(entry.template);
+			dropped.add(entry);
+		}
+
+		return dropped;
+	}
+
+	/**
+	 * Drops the databases of the removed entries.
+	 *
+	 * @param  dropped List<Entry>
+	 *
+	 */
+	private void drop(List<Entry> dropped) {
+
+		for (Entry entry : dropped) {
+			graphStore.dropDatabase(entry.databaseName);
+		}
+	}
+
+	/**
+	 * A cached ontology.
+	 *
+	 */
+	private static class Entry {
+
+		private final String databaseName;
+		private final StoreTemplate template;
+		private final long size;
+		private final long loadedAt = System.currentTimeMillis();
+		private int refCount = 1;
+		private boolean evicted = false;
+
+		private Entry(final String databaseName, StoreTemplate template, final long size) {
+
+			this.databaseName = databaseName;
+			this.template = template;
+			this.size = size;
+		}
+	}
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph.stores;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFParserRegistry;
+
+/**
+ * OntologyFiles reads the RDF documents of an ontology file, which may be a zip archive (holding
+ * one or more documents) or gzip-compressed. As is done by Stardog, the format of each document
+ * is defined by its file extension (for a gzip file, the extension before ".gz").
+ *
+ */
+final class OntologyFiles {
+
+	private static final String GZIP_EXTENSION = ".gz";
+	private static final String ZIP_EXTENSION = ".zip";
+
+	private OntologyFiles() {
+		throw new IllegalAccessError("Utility class");
+	}
+
+	/**
+	 * DocumentHandler processes an RDF document of an ontology file.
+	 *
+	 */
+	@FunctionalInterface
+	interface DocumentHandler {
+
+		/**
+		 * Processes a document. The stream is only valid during the call, and is closed by
+		 * OntologyFiles.
+		 *
+		 * @param  in InputStream with the (uncompressed) document
+		 * @param  fileName String name of the document (which defines its format)
+		 * @throws IOException
+		 *
+		 */
+		void handleDocument(InputStream in, String fileName) throws IOException;
+	}
+
+	/**
+	 * Reads each RDF document of the ontology file. A zip archive is unpacked (ignoring its
+	 * directories), and a gzip file is uncompressed.
+	 *
+	 * @param  ontologyFile Path
+	 * @param  handler DocumentHandler called for each document
+	 * @throws IOException
+	 *
+	 */
+	static void forEachDocument(Path ontologyFile, DocumentHandler handler) throws IOException {
+
+		String fileName = ontologyFile.getFileName().toString();
+		String lowerCaseName = fileName.toLowerCase(Locale.ROOT);
+		try (InputStream in = Files.newInputStream(ontologyFile)) {
+			if (lowerCaseName.endsWith(ZIP_EXTENSION)) {
+				ZipInputStream zip = new ZipInputStream(in);
+				ZipEntry entry;
+				while ((entry = zip.getNextEntry()) != null) {
+					if (!entry.isDirectory()) {
+						// Parsers may close the stream, which would end the archive
+						handler.handleDocument(new CloseShieldInputStream(zip), entry.getName());
+					}
+				}
+			} else if (lowerCaseName.endsWith(GZIP_EXTENSION)) {
+				handler.handleDocument(new GZIPInputStream(in),
+						fileName.substring(0, fileName.length() - GZIP_EXTENSION.length()));
+			} else {
+				handler.handleDocument(in, fileName);
+			}
+		}
+	}
+
+	/**
+	 * Gets the format of a document, if it can be parsed by RDF4J (the format is known and its
+	 * parser is available).
+	 *
+	 * @param  fileName String
+	 * @return Optional<RDFFormat>
+	 *
+	 */
+	static Optional<RDFFormat> getParserFormat(final String fileName) {
+		return RDFParserRegistry.getInstance().getFileFormatForFileName(fileName);
+	}
+}
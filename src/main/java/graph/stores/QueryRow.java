@@ -0,0 +1,45 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph.stores;
+
+/**
+ * QueryRow provides access to the bindings of a single query result row, as it is read from
+ * the store (without copying the row into a map).
+ *
+ */
+public interface QueryRow {
+
+	/**
+	 * Returns the string value of a variable binding.
+	 *
+	 * @param  variable String name of the variable
+	 * @return String (null if the variable is not bound)
+	 *
+	 */
+	String get(String variable);
+
+	/**
+	 * Returns a variable binding as an RDF term, as returned by StoreTemplate.queryForValues() 
+	 * (for example, a literal includes its datatype or language).
+	 *
+	 * @param  variable String name of the variable
+	 * @return String (null if the variable is not bound)
+	 *
+	 */
+	String getTerm(String variable);
+}
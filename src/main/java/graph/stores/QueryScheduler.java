@@ -0,0 +1,208 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph.stores;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import graph.OntoGraphException;
+
+/**
+ * QueryScheduler runs independent store queries in parallel on a bounded, shared thread pool.
+ * 
+ * The queries for a request are collected in a Batch, and each Batch uses at most maxPerRequest
+ * threads (including the requesting thread, which also runs queries while it waits). Since the
+ * requesting thread always takes any query not yet started, a Batch created within a running 
+ * query completes even when all pool threads are in use. Results are returned by the Suppliers
+ * from Batch.add(), independent of the order in which the queries complete.
+ *
+ */
+public class QueryScheduler {
+
+	private final ExecutorService executor;
+	private final int maxPerRequest;
+
+	/**
+	 * Creates the scheduler and its thread pool.
+	 *
+	 * @param  threads int number of pool threads (shared by all requests)
+	 * @param  maxPerRequest int maximum number of queries of a single Batch that run at the 
+	 *              same time (1 runs all queries in the requesting thread)
+	 *
+	 */
+	public QueryScheduler(final int threads, final int maxPerRequest) {
+
+		if (threads < 1 || maxPerRequest < 1) {
+			throw new IllegalArgumentException("The number of query threads and the maximum number of "
+					+ "queries per request must be at least 1");
+		}
+		AtomicInteger threadCount = new AtomicInteger();
+		ThreadFactory threadFactory = r -> {
+			Thread thread = new Thread(r, "ontograph-query-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+		this.executor = Executors.newFixedThreadPool(threads, threadFactory);
+		this.maxPerRequest = maxPerRequest;
+	}
+
+	/**
+	 * Creates a new Batch of queries.
+	 *
+	 * @return Batch
+	 *
+	 */
+	public Batch batch() {
+		return new Batch();
+	}
+
+	/**
+	 * Stops the thread pool (called when the application context is closed).
+	 *
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Batch holds a set of independent queries which are run together.
+	 *
+	 */
+	public class Batch {
+
+		private final List<Task<?>> tasks = new ArrayList<>();
+		private final AtomicInteger nextTask = new AtomicInteger();
+		private CountDownLatch remaining;
+
+		private Batch() {
+		}
+
+		/**
+		 * Adds a query to the batch.
+		 *
+		 * @param  query Callable executing the query (and any processing of its results)
+		 * @return Supplier<T> returning the result of the query after run() completes
+		 *
+		 */
+		public <T> Supplier<T> add(Callable<T> query) {
+
+			if (remaining != null) {
+				throw new IllegalStateException("Queries cannot be added after the batch is run");
+			}
+			Task<T> task = new Task<>(query);
+			tasks.add(task);
+			return task::getResult;
+		}
+
+		/**
+		 * Runs all the queries and waits for their completion.
+		 *
+		 * @throws OntoGraphException if any query failed (the failure of the first query, in the 
+		 *              order that they were added, is reported)
+		 *
+		 */
+		public void run() throws OntoGraphException {
+
+			remaining = new CountDownLatch(tasks.size());
+			int helpers = Math.min(maxPerRequest, tasks.size()) - 1;
+			try {
+				for (int i = 0; i < helpers; i++) {
+					executor.execute(this::runTasks);
+				}
+			} catch (RejectedExecutionException e) {  //NOSONAR - Remaining queries run in this thread
+				// Pool is shut down
+			}
+			runTasks();
+
+			try {
+				remaining.await();
+			} catch (InterruptedException e) {  //NOSONAR - Logged as part of OntoGraphException handling
+				Thread.currentThread().interrupt();
+				throw new OntoGraphException("Interrupted while waiting for the query results");
+			}
+
+			for (Task<?> task : tasks) {
+				if (task.failure instanceof OntoGraphException) {
+					throw (OntoGraphException) task.failure;
+				} else if (task.failure != null) {
+					throw new OntoGraphException("Error querying the database. Exception details: " 
+							+ task.failure.getMessage());
+				}
+			}
+		}
+
+		/**
+		 * Runs the queries that are not yet started, until none remain.
+		 *
+		 */
+		private void runTasks() {
+
+			int index;
+			while ((index = nextTask.getAndIncrement()) < tasks.size()) {
+				try {
+					tasks.get(index).execute();
+				} finally {
+					remaining.countDown();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Task holds a query and its result (or failure).
+	 *
+	 * @param <T> Result type
+	 *
+	 */
+	private static class Task<T> {
+
+		private final Callable<T> query;
+		// Written before the batch's latch is counted down, and read after it is awaited
+		private T result;
+		private Exception failure;
+
+		Task(Callable<T> query) {
+			this.query = query;
+		}
+
+		void execute() {
+
+			try {
+				result = query.call();
+			} catch (Exception e) {  //NOSONAR - Reported when the batch completes
+				failure = e;
+			}
+		}
+
+		T getResult() {
+
+			if (failure != null) {
+				throw new IllegalStateException("The query failed", failure);
+			}
+			return result;
+		}
+	}
+}
@@ -0,0 +1,37 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph.stores;
+
+import graph.OntoGraphException;
+
+/**
+ * RowHandler processes each result row of a query as it is read from the store.
+ *
+ */
+@FunctionalInterface
+public interface RowHandler {
+
+	/**
+	 * Processes a result row. The row is only valid during the call.
+	 *
+	 * @param  row QueryRow
+	 * @throws OntoGraphException
+	 *
+	 */
+	void handleRow(QueryRow row) throws OntoGraphException;
+}
@@ -0,0 +1,593 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph.stores;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFHandlerException;
+import org.eclipse.rdf4j.rio.RDFParseException;
+import org.eclipse.rdf4j.rio.RDFParser;
+import org.eclipse.rdf4j.rio.Rio;
+import org.eclipse.rdf4j.rio.helpers.AbstractRDFHandler;
+import org.openrdf.model.Namespace;
+
+import com.complexible.common.rdf.model.Values;
+import com.complexible.stardog.StardogException;
+import com.complexible.stardog.api.Connection;
+import com.complexible.stardog.api.ConnectionConfiguration;
+import com.complexible.stardog.api.ConnectionPoolConfig;
+import com.complexible.stardog.api.admin.AdminConnection;
+import com.complexible.stardog.api.admin.AdminConnectionConfiguration;
+import com.complexible.stardog.db.DatabaseOptions;
+import com.complexible.stardog.ext.spring.DataSource;
+
+import graph.OntoGraphException;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * StardogGraphStore loads each ontology into a database on a (standalone) Stardog server.
+ * 
+ * Creating and dropping a database is the slowest step of a request. Instead, a pool of databases
+ * is created when the application starts (or on first use, if Stardog was not available) and 
+ * reused. A database is leased for a request, the ontology is loaded into a named graph that is 
+ * unique to the request, and the database is cleared when it is returned to the pool. The 
+ * databases are created with query.all.graphs enabled, so that the queries (which are written 
+ * against the default graph) see the loaded named graph.
+ * 
+ * A database is health checked when it is leased. If the check fails (for example, the database 
+ * was dropped or Stardog was restarted), the database is re-created.
+ * 
+ * Admin connections are borrowed from a bounded, thread-safe ConnectionPool (validated when 
+ * borrowed, and replaced if they fail), and the data connections of each database are pooled by 
+ * its DataSource (bounded, and blocking when at capacity). This allows concurrent requests. The
+ * connections are released when the application context is closed.
+ *
+ */
+@Slf4j
+public class StardogGraphStore implements GraphStore {
+
+	private static final String GRAPH_PREFIX = "urn:ontograph:graph:";
+
+	private final String stardogServer;
+	private final String stardogUser;
+	private final String stardogPassword;
+	private final String poolPrefix;
+	private final int poolSize;
+	private final long leaseTimeout;
+	private final int maxConnections;
+
+	private final ConnectionPool<AdminConnection> adminPool;
+	private volatile boolean poolCreated = false;
+
+	// Pooled databases that are available, and those that are leased (keyed by graph title)
+	private final BlockingQueue<PooledDatabase> available = new LinkedBlockingQueue<>();
+	private final Map<String, PooledDatabase> leased = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates the Stardog GraphStore.
+	 *
+	 * @param  stardogServer String URL of the Stardog server
+	 * @param  stardogUser String
+	 * @param  stardogPassword String
+	 * @param  poolPrefix String prefix for the names of the pooled databases
+	 * @param  poolSize int number of pooled databases (the maximum number of concurrent loads)
+	 * @param  leaseTimeout long number of seconds to wait for a database or connection to become 
+	 *                 available
+	 * @param  maxAdminConnections int maximum number of admin connections
+	 * @param  maxConnections int maximum number of data connections for each database 
+	 *                 (with and without reasoning)
+	 *
+	 */
+	@Builder
+	public StardogGraphStore(final String stardogServer, final String stardogUser,
+			final String stardogPassword, final String poolPrefix, final int poolSize, 
+			final long leaseTimeout, final int maxAdminConnections, final int maxConnections) {
+
+		if (poolSize < 1) {
+			throw new IllegalArgumentException("The Stardog database pool size must be at least 1");
+		}
+		this.stardogServer = stardogServer;
+		this.stardogUser = stardogUser;
+		this.stardogPassword = stardogPassword;
+		this.poolPrefix = poolPrefix;
+		this.poolSize = poolSize;
+		this.leaseTimeout = leaseTimeout;
+		this.maxConnections = maxConnections;
+		this.adminPool = new ConnectionPool<>(maxAdminConnections, leaseTimeout, 
+				() -> AdminConnectionConfiguration
+						.toServer(stardogServer)
+						.credentials(stardogUser, stardogPassword)
+						.connect(), 
+				AdminConnection::isOpen, 
+				AdminConnection::close);
+	}
+
+	/**
+	 * Leases a database from the pool and loads the ontology file into a new named graph.
+	 *
+	 * @param  databaseName String graph title
+	 * @param  ontologyFile Path to the ontology file
+	 * @return StoreTemplate to query the leased database
+	 * @throws OntoGraphException if the graph title is in use, no database is available 
+	 *                  or the load fails
+	 *
+	 */
+	@Override
+	public StoreTemplate createDatabase(final String databaseName, Path ontologyFile)
+			throws OntoGraphException {
+
+		if (!poolCreated) {
+			createPool();
+		}
+
+		PooledDatabase database = lease(databaseName);
+		try {
+			database.load(GRAPH_PREFIX + UUID.randomUUID(), ontologyFile);
+		} catch (IOException | RuntimeException e) {  //NOSONAR - Logged as part of OntoGraphException handling
+			// Any failure (including of RDF4J when reading the namespaces) returns the database to the pool
+			dropDatabase(databaseName);
+			throw new OntoGraphException("Failed to load the ontology file for the graph, " + databaseName
+					+ ". Exception details: " + e.getMessage());
+		}
+
+		return database.template;
+	}
+
+	/**
+	 * Clears the database leased for the graph title and returns it to the pool.
+	 *
+	 * @param  databaseName String graph title
+	 *
+	 */
+	@Override
+	public void dropDatabase(final String databaseName) {
+
+		PooledDatabase database = leased.remove(databaseName);
+		if (database == null) {
+			return;
+		}
+
+		try {
+			database.clear();
+		} catch (RuntimeException e) {  //NOSONAR - The database is re-created when next leased
+			database.healthy = false;
+		}
+		available.add(database);
+	}
+
+	/**
+	 * Indicates whether a database is currently leased for the graph title.
+	 *
+	 * @param  databaseName String graph title
+	 * @return boolean
+	 *
+	 */
+	@Override
+	public boolean databaseExists(final String databaseName) {
+		return leased.containsKey(databaseName);
+	}
+
+	/**
+	 * Gets the number of pooled databases.
+	 *
+	 * @return int
+	 *
+	 */
+	@Override
+	public int getMaxDatabases() {
+		return poolSize;
+	}
+
+	/**
+	 * Leases a database from the pool, waiting (up to the lease timeout) if all are in use.
+	 * The database is health checked, and re-created if needed.
+	 *
+	 * @param  graphTitle String
+	 * @return PooledDatabase
+	 * @throws OntoGraphException if the graph title is in use, or no database is available
+	 *
+	 */
+	private PooledDatabase lease(final String graphTitle) throws OntoGraphException {
+
+		PooledDatabase database;
+		try {
+			database = available.poll(leaseTimeout, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {  //NOSONAR - Logged as part of OntoGraphException handling
+			Thread.currentThread().interrupt();
+			throw new OntoGraphException("Interrupted while waiting for a Stardog database.");
+		}
+		if (database == null) {
+			throw new OntoGraphException("All Stardog databases are in use. Please try again later.");
+		}
+
+		if (leased.putIfAbsent(graphTitle, database) != null) {
+			available.add(database);
+			throw new OntoGraphException("Requested graph title (" + graphTitle + ") is already in use. "
+	        		+ "Please choose another title.");
+		}
+
+		// Any failure (including a timeout borrowing an admin connection) returns the database to the
+		//   pool, so that it is not held by the graph title
+		try {
+			if (!database.healthy || !database.isHealthy()) {
+				recreate(database);
+			}
+		} catch (RuntimeException e) {  //NOSONAR - Logged as part of OntoGraphException handling
+			database.healthy = false;
+			dropDatabase(graphTitle);
+			throw new OntoGraphException("Unable to access the Stardog database, " + database.name
+					+ ". Exception details: " + e.getMessage());
+		}
+
+		return database;
+	}
+
+	/**
+	 * Creates the pool of databases when the application starts, so that the first requests do not
+	 * wait for them. If Stardog is not available, the pool is created by the first request.
+	 *
+	 */
+	@PostConstruct
+	public void warmUp() {
+
+		try {
+			createPool();
+		} catch (RuntimeException e) {  //NOSONAR - The pool is created by the first request
+			log.warn("Unable to create the pool of Stardog databases at startup: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Releases the connections of the pooled databases and the admin connections (called when the
+	 * application context is closed). The databases are not dropped, and are re-created when the
+	 * application next starts.
+	 *
+	 */
+	@PreDestroy
+	public synchronized void shutdown() {
+
+		List<PooledDatabase> databases = new ArrayList<>(available);
+		databases.addAll(leased.values());
+		available.clear();
+		leased.clear();
+		databases.forEach(PooledDatabase::disconnect);
+		adminPool.close();
+	}
+
+	/**
+	 * Creates the pooled databases, if not already done. Databases that exist (from a previous 
+	 * run) are dropped and re-created, since they may hold data or namespaces of an interrupted 
+	 * request. The pool is only used when all of its databases are created.
+	 *
+	 */
+	private synchronized void createPool() {
+
+		if (poolCreated) {
+			return;
+		}
+
+		List<PooledDatabase> databases = new ArrayList<>(poolSize);
+		try {
+			for (int i = 0; i < poolSize; i++) {
+				PooledDatabase database = new PooledDatabase(poolPrefix + i);
+				databases.add(database);
+				recreate(database);
+			}
+		} catch (RuntimeException e) {
+			databases.forEach(PooledDatabase::disconnect);
+			throw e;
+		}
+
+		available.addAll(databases);
+		poolCreated = true;
+	}
+
+	/**
+	 * Drops (if it exists) and creates a pooled database, and saves its default namespace prefixes.
+	 *
+	 * @param  database PooledDatabase
+	 *
+	 */
+	private void recreate(PooledDatabase database) {
+
+		database.disconnect();
+		withAdminConnection(admin -> {
+			if (admin.list().contains(database.name)) {
+				admin.drop(database.name);
+			}
+			return admin.newDatabase(database.name).set(DatabaseOptions.QUERY_ALL_GRAPHS, true).create();
+		});
+
+		database.connect();
+		database.saveDefaultNamespaces();
+		database.healthy = true;
+	}
+
+	/**
+	 * Performs an operation using a pooled admin connection. If the operation fails, the 
+	 * connection is closed (and a new connection is opened by the next borrow).
+	 *
+	 * @param  operation Function using the AdminConnection
+	 * @return R result of the operation
+	 *
+	 */
+	private <R> R withAdminConnection(Function<AdminConnection, R> operation) {
+
+		AdminConnection connection = adminPool.borrow();
+		boolean broken = false;
+		try {
+			return operation.apply(connection);
+		} catch (StardogException e) {
+			broken = true;
+			throw e;
+		} finally {
+			adminPool.release(connection, broken);
+		}
+	}
+
+	/**
+	 * A database in the pool, with its DataSources and StoreTemplate.
+	 *
+	 */
+	private class PooledDatabase {
+
+		private final String name;
+		private volatile boolean healthy = false;
+
+		private DataSource dataSource = null;
+		private DataSource reasoningDataSource = null;
+		private StoreTemplate template = null;
+
+		// Namespace prefixes and IRIs defined when the database was created (which are restored 
+		//   when it is cleared)
+		private final Map<String, String> defaultNamespaces = new HashMap<>();
+
+		private PooledDatabase(final String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Creates the DataSources and StoreTemplate.
+		 *
+		 */
+		private void connect() {
+
+			dataSource = createDataSource(ConnectionConfiguration.to(name)
+					.server(stardogServer)
+					.credentials(stardogUser, stardogPassword));
+			reasoningDataSource = createDataSource(ConnectionConfiguration.to(name).reasoning(true)
+					.server(stardogServer)
+					.credentials(stardogUser, stardogPassword));
+			template = new StardogStoreTemplate(dataSource, reasoningDataSource);
+		}
+
+		/**
+		 * Saves the namespaces of the (newly created) database, which are restored when it 
+		 * is cleared.
+		 *
+		 */
+		private void saveDefaultNamespaces() {
+
+			defaultNamespaces.clear();
+			Connection connection = dataSource.getConnection();
+			try {
+				defaultNamespaces.putAll(getNamespaces(connection));
+			} finally {
+				dataSource.releaseConnection(connection);
+			}
+		}
+
+		/**
+		 * Creates a DataSource with a bounded connection pool, which blocks (up to the lease 
+		 * timeout) when all connections are in use.
+		 *
+		 * @param  connConfig ConnectionConfiguration
+		 * @return DataSource
+		 *
+		 */
+		private DataSource createDataSource(ConnectionConfiguration connConfig) {
+
+			return new DataSource(connConfig, ConnectionPoolConfig.using(connConfig)
+					.minPool(0)
+					.maxPool(maxConnections)
+					.blockAtCapacity(leaseTimeout, TimeUnit.SECONDS));
+		}
+
+		/**
+		 * Releases the DataSources' connections.
+		 *
+		 */
+		private void disconnect() {
+
+			if (dataSource != null) {
+				dataSource.destroy();
+			}
+			if (reasoningDataSource != null) {
+				reasoningDataSource.destroy();
+			}
+			dataSource = null;
+			reasoningDataSource = null;
+			template = null;
+		}
+
+		/**
+		 * Health check of the database (it exists and can be queried).
+		 *
+		 * @return boolean
+		 *
+		 */
+		private boolean isHealthy() {
+
+			if (dataSource == null) {
+				return false;
+			}
+			try {
+				Connection connection = dataSource.getConnection();
+				try {
+					return connection.isOpen() && connection.size() == 0;
+				} finally {
+					dataSource.releaseConnection(connection);
+				}
+			} catch (StardogException e) {  //NOSONAR - Unhealthy database is re-created
+				return false;
+			}
+		}
+
+		/**
+		 * Loads the ontology file into the named graph, and adds its namespaces to the database.
+		 *
+		 * @param  graph String IRI of the named graph
+		 * @param  ontologyFile Path
+		 * @throws IOException
+		 *
+		 */
+		private void load(final String graph, Path ontologyFile) throws IOException {
+
+			Map<String, String> namespaces = readNamespaces(ontologyFile);
+
+			Connection connection = dataSource.getConnection();
+			try {
+				connection.begin();
+				try {
+					connection.add().io().context(Values.iri(graph)).file(ontologyFile);
+					connection.commit();
+				} catch (StardogException e) {
+					connection.rollback();
+					throw e;
+				}
+				for (Map.Entry<String, String> ns : namespaces.entrySet()) {
+					connection.namespaces().add(ns.getKey(), ns.getValue());
+				}
+			} finally {
+				dataSource.releaseConnection(connection);
+			}
+		}
+
+		/**
+		 * Reads the namespaces of the ontology file (or of each document of a zip or gzip archive)
+		 * using RDF4J, since they are not added by Stardog when loading data into an existing 
+		 * database. The file is loaded by Stardog, so documents that cannot be parsed by RDF4J 
+		 * (or are rejected by its stricter parsers) only contribute the namespaces read before 
+		 * the error.
+		 *
+		 * @param  ontologyFile Path
+		 * @return Map<String, String> of namespace prefixes and IRIs (the first definition of a
+		 *             prefix is used)
+		 * @throws IOException
+		 *
+		 */
+		private Map<String, String> readNamespaces(Path ontologyFile) throws IOException {
+
+			Map<String, String> namespaces = new HashMap<>();
+			OntologyFiles.forEachDocument(ontologyFile, (in, fileName) -> {
+				Optional<RDFFormat> format = OntologyFiles.getParserFormat(fileName);
+				if (!format.isPresent()) {
+					return;
+				}
+				RDFParser parser = Rio.createParser(format.get());
+				parser.setRDFHandler(new AbstractRDFHandler() {
+					@Override
+					public void handleNamespace(String prefix, String uri) {
+						namespaces.putIfAbsent(prefix, uri);
+					}
+				});
+				try {
+					parser.parse(in, ontologyFile.toUri().toString());
+				} catch (RDFParseException | RDFHandlerException e) {  //NOSONAR - Errors are reported by Stardog's load
+					// The namespaces read before the error are added
+				}
+			});
+			return namespaces;
+		}
+
+		/**
+		 * Removes all triples, and restores the namespaces of the newly created database.
+		 *
+		 */
+		private void clear() {
+
+			Connection connection = dataSource.getConnection();
+			try {
+				connection.begin();
+				connection.remove().all();
+				connection.commit();
+
+				restoreNamespaces(connection, defaultNamespaces);
+			} finally {
+				dataSource.releaseConnection(connection);
+			}
+		}
+	}
+
+	/**
+	 * Restores the namespaces of a database. The namespaces that were added by a load are removed,
+	 * and a default namespace that was removed or redefined by a load (for example, the "" prefix) 
+	 * is added with its original IRI.
+	 *
+	 * @param  connection Connection to the database
+	 * @param  defaultNamespaces Map<String, String> of the default namespace prefixes and IRIs
+	 *
+	 */
+	static void restoreNamespaces(Connection connection, Map<String, String> defaultNamespaces) {
+
+		Map<String, String> namespaces = getNamespaces(connection);
+		for (String prefix : namespaces.keySet()) {
+			if (!defaultNamespaces.containsKey(prefix)) {
+				connection.namespaces().remove(prefix);
+			}
+		}
+		for (Map.Entry<String, String> ns : defaultNamespaces.entrySet()) {
+			if (!ns.getValue().equals(namespaces.get(ns.getKey()))) {
+				connection.namespaces().add(ns.getKey(), ns.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Gets the namespaces of a database.
+	 *
+	 * @param  connection Connection to the database
+	 * @return Map<String, String> of the namespace prefixes and IRIs
+	 *
+	 */
+	private static Map<String, String> getNamespaces(Connection connection) {
+
+		Map<String, String> namespaces = new HashMap<>();
+		for (Namespace ns : connection.namespaces()) {
+			namespaces.put(ns.getPrefix(), ns.getName());
+		}
+		return namespaces;
+	}
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph.stores;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openrdf.model.Namespace;
+import org.openrdf.model.Value;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.TupleQueryResult;
+
+import com.complexible.stardog.api.Connection;
+import com.complexible.stardog.api.SelectQuery;
+import com.complexible.stardog.ext.spring.DataSource;
+import com.complexible.stardog.ext.spring.RowMapper;
+import com.complexible.stardog.ext.spring.SnarlTemplate;
+import com.complexible.stardog.ext.spring.mapper.SimpleRowMapper;
+import com.complexible.stardog.ext.spring.mapper.SingleMapper;
+
+import graph.OntoGraphException;
+
+/**
+ * StardogStoreTemplate implements the StoreTemplate queries using a Stardog SnarlTemplate.
+ *
+ */
+public class StardogStoreTemplate implements StoreTemplate {
+
+	private final SnarlTemplate snarlTemplate;
+	private final SnarlTemplate reasoningTemplate;
+
+	/**
+	 * Creates a template for a Stardog database.
+	 *
+	 * @param  dataSource DataSource for the database (without reasoning)
+	 * @param  reasoningDataSource DataSource for the database with reasoning enabled
+	 *
+	 */
+	public StardogStoreTemplate(DataSource dataSource, DataSource reasoningDataSource) {
+
+		snarlTemplate = new SnarlTemplate();
+		snarlTemplate.setDataSource(dataSource);
+		reasoningTemplate = new SnarlTemplate();
+		reasoningTemplate.setDataSource(reasoningDataSource);
+	}
+
+	/**
+	 * Creates a template that accesses the database using the first SnarlTemplate, and
+	 * returns the second SnarlTemplate (wrapped) for reasoning.
+	 *
+	 * @param  snarlTemplate SnarlTemplate
+	 * @param  reasoningTemplate SnarlTemplate with reasoning enabled
+	 *
+	 */
+	private StardogStoreTemplate(SnarlTemplate snarlTemplate, SnarlTemplate reasoningTemplate) {
+
+		this.snarlTemplate = snarlTemplate;
+		this.reasoningTemplate = reasoningTemplate;
+	}
+
+	@Override
+	public List<Map<String, String>> query(final String query) {
+		return snarlTemplate.query(query, new SimpleRowMapper());
+	}
+
+	@Override
+	public List<Map<String, String>> query(final String query, Map<String, Object> bindings) {
+		return snarlTemplate.query(query, bindings, new SimpleRowMapper());
+	}
+
+	@Override
+	public List<String> queryForList(final String query, Map<String, Object> bindings, final String variable) {
+		return snarlTemplate.query(query, bindings, new SingleMapper(variable));
+	}
+
+	@Override
+	public String queryForObject(final String query, Map<String, Object> bindings, final String variable) {
+		return snarlTemplate.queryForObject(query, bindings, new SingleMapper(variable));
+	}
+
+	@Override
+	public List<List<String>> queryForValues(final String query, Map<String, Object> bindings,
+			final String... variables) {
+
+		RowMapper<List<String>> valueMapper = bs -> {
+			List<String> values = new ArrayList<>();
+			for (String variable : variables) {
+				values.add(getTerm(bs.getValue(variable)));
+			}
+			return values;
+		};
+		return snarlTemplate.query(query, bindings, valueMapper);
+	}
+
+	@Override
+	public void queryForEach(final String query, Map<String, Object> bindings, RowHandler handler)
+			throws OntoGraphException {
+
+		DataSource dataSource = snarlTemplate.getDataSource();
+		Connection connection = dataSource.getConnection();
+		try {
+			SelectQuery selectQuery = connection.select(query);
+			for (Map.Entry<String, Object> binding : bindings.entrySet()) {
+				selectQuery.parameter(binding.getKey(), binding.getValue());
+			}
+			try (TupleQueryResult result = selectQuery.execute()) {
+				while (result.hasNext()) {
+					BindingSet bs = result.next();
+					handler.handleRow(new QueryRow() {
+						@Override
+						public String get(final String variable) {
+							// Same values as the SimpleRowMapper
+							Value value = bs.getValue(variable);
+							return value == null ? null : value.stringValue();
+						}
+
+						@Override
+						public String getTerm(final String variable) {
+							return StardogStoreTemplate.getTerm(bs.getValue(variable));
+						}
+					});
+				}
+			}
+		} finally {
+			dataSource.releaseConnection(connection);
+		}
+	}
+
+	@Override
+	public Map<String, String> getNamespaces() {
+
+		Map<String, String> namespaces = new HashMap<>();
+
+		DataSource dataSource = snarlTemplate.getDataSource();
+		Connection connection = dataSource.getConnection();
+		try {
+			for (Namespace ns : connection.namespaces()) {
+				namespaces.put(ns.getPrefix(), ns.getName());
+			}
+		} finally {
+			dataSource.releaseConnection(connection);
+		}
+
+		return namespaces;
+	}
+
+	@Override
+	public StoreTemplate withReasoning() {
+		return new StardogStoreTemplate(reasoningTemplate, reasoningTemplate);
+	}
+
+	/**
+	 * Returns a query result as an RDF term (for example, with the datatype or language of a 
+	 * literal).
+	 *
+	 * @param  value Value
+	 * @return String (null if the value is not bound)
+	 *
+	 */
+	private static String getTerm(Value value) {
+		return value == null ? null : value.toString();
+	}
+}
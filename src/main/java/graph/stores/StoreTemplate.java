@@ -0,0 +1,162 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph.stores;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import graph.OntoGraphException;
+
+/**
+ * StoreTemplate provides SPARQL query access to a single database (holding one loaded ontology)
+ * of a GraphStore. It mirrors the subset of the Stardog SnarlTemplate functionality that is used
+ * by GraphDBAccess, but returns results as Strings so that the callers are independent of the
+ * triple store engine.
+ *
+ * Query bindings are provided as a Map of variable names to values. A value may be a String
+ * (bound as a plain literal) or an org.openrdf.model.Value (such as the result of Values.iri()).
+ *
+ */
+public interface StoreTemplate {
+
+	/**
+	 * Executes a SPARQL SELECT query, returning each result row as a map of the
+	 * variable names to the string values of the bindings.
+	 *
+	 * @param  query String SPARQL query
+	 * @return List<Map<String, String>>
+	 *
+	 */
+	List<Map<String, String>> query(String query);
+
+	/**
+	 * Executes a SPARQL SELECT query with the specified variable bindings, returning each
+	 * result row as a map of the variable names to the string values of the bindings.
+	 *
+	 * @param  query String SPARQL query
+	 * @param  bindings Map<String, Object> of variable names and their values
+	 * @return List<Map<String, String>>
+	 *
+	 */
+	List<Map<String, String>> query(String query, Map<String, Object> bindings);
+
+	/**
+	 * Executes a SPARQL SELECT query, returning the string values of a single variable.
+	 *
+	 * @param  query String SPARQL query
+	 * @param  bindings Map<String, Object> of variable names and their values (may be empty)
+	 * @param  variable String name of the variable whose values are returned
+	 * @return List<String>
+	 *
+	 */
+	List<String> queryForList(String query, Map<String, Object> bindings, String variable);
+
+	/**
+	 * Executes a SPARQL SELECT query (with no bindings), returning the string values of a single variable.
+	 *
+	 * @param  query String SPARQL query
+	 * @param  variable String name of the variable whose values are returned
+	 * @return List<String>
+	 *
+	 */
+	default List<String> queryForList(String query, String variable) {
+		return queryForList(query, new HashMap<>(), variable);
+	}
+
+	/**
+	 * Executes a SPARQL SELECT query, returning the string value of a single variable
+	 * in the first result row.
+	 *
+	 * @param  query String SPARQL query
+	 * @param  bindings Map<String, Object> of variable names and their values (may be empty)
+	 * @param  variable String name of the variable whose value is returned
+	 * @return String or null if there are no results
+	 *
+	 */
+	String queryForObject(String query, Map<String, Object> bindings, String variable);
+
+	/**
+	 * Executes a SPARQL SELECT query (with no bindings), returning the string value of a single
+	 * variable in the first result row.
+	 *
+	 * @param  query String SPARQL query
+	 * @param  variable String name of the variable whose value is returned
+	 * @return String or null if there are no results
+	 *
+	 */
+	default String queryForObject(String query, String variable) {
+		return queryForObject(query, new HashMap<>(), variable);
+	}
+
+	/**
+	 * Executes a SPARQL SELECT query, returning the values of the specified variables for
+	 * each result row in N-Triples-like form (IRIs as their string, literals as "value"^^<datatype>,
+	 * and blank nodes as _:id).
+	 *
+	 * @param  query String SPARQL query
+	 * @param  bindings Map<String, Object> of variable names and their values (may be empty)
+	 * @param  variables String... names of the variables whose values are returned
+	 * @return List<List<String>> with one entry per row and one value per requested variable
+	 *
+	 */
+	List<List<String>> queryForValues(String query, Map<String, Object> bindings, String... variables);
+
+	/**
+	 * Executes a SPARQL SELECT query, passing each result row to the handler as it is read
+	 * (the rows are not collected). The string values of the bindings are the same as those
+	 * returned by query(). The handler must not query the store, since the query's connection is 
+	 * held until all rows are read (and a nested query would wait for a second connection).
+	 *
+	 * @param  query String SPARQL query
+	 * @param  bindings Map<String, Object> of variable names and their values (may be empty)
+	 * @param  handler RowHandler called for each result row
+	 * @throws OntoGraphException if thrown by the handler
+	 *
+	 */
+	void queryForEach(String query, Map<String, Object> bindings, RowHandler handler) throws OntoGraphException;
+
+	/**
+	 * Executes a SPARQL SELECT query (with no bindings), passing each result row to the handler
+	 * as it is read.
+	 *
+	 * @param  query String SPARQL query
+	 * @param  handler RowHandler called for each result row
+	 * @throws OntoGraphException if thrown by the handler
+	 *
+	 */
+	default void queryForEach(String query, RowHandler handler) throws OntoGraphException {
+		queryForEach(query, new HashMap<>(), handler);
+	}
+
+	/**
+	 * Gets the namespaces defined in the database.
+	 *
+	 * @return Map<String, String> where the key is the prefix and the value is the namespace IRI
+	 *
+	 */
+	Map<String, String> getNamespaces();
+
+	/**
+	 * Returns a template accessing the same database, but with reasoning enabled.
+	 *
+	 * @return StoreTemplate
+	 *
+	 */
+	StoreTemplate withReasoning();
+}
@@ -33,6 +33,7 @@ import graph.models.GraphRequestModel;
 import org.junit.runner.RunWith;
 import org.junit.Before;
 import org.junit.Test;
+import org.junit.experimental.categories.Category;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameter;
 import org.junit.runners.Parameterized.Parameters;
@@ -329,6 +330,7 @@ public class ClassGraphTest {
 	 * 
      */
     @Test
+    @Category(RequiresStardog.class)
     public void testFOAFCollapsed() throws Exception {
     	
     	if ("uml".equals(vis)) {
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import graph.stores.GraphStore;
+import graph.stores.StoreTemplate;
+
+/**
+ * Tests that a database which is reused (as are the pooled Stardog databases) holds nothing of the
+ * previously loaded ontology - in particular, none of its namespaces.
+ *
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration("classpath:test-context.xml")
+@TestPropertySource("classpath:test.properties")
+@SpringBootTest()
+public class DatabaseReuseTest {
+
+    private static final String FIRST = "http://example.com/first#";
+    // Loads of the first ontology (so that each pooled database has held it)
+    private static final int MAX_LOADS = 16;
+
+    @Autowired private GraphStore graphStore;
+    @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    /**
+     * Tests that the namespaces of an ontology that redefines the ":" prefix are not seen by the
+     * next ontology loaded into the database
+     * @throws Exception
+     *
+     */
+    @Test
+    public void testNamespacesNotReused() throws Exception {
+
+        Path first = createOntology("first.ttl", "@prefix : <" + FIRST + "> .\n"
+                + "@prefix first: <" + FIRST + "> .\n"
+                + "@prefix owl: <http://www.w3.org/2002/07/owl#> .\n"
+                + ":A a owl:Class .\n");
+        Path second = createOntology("second.ttl", "@prefix owl: <http://www.w3.org/2002/07/owl#> .\n"
+                + "<http://example.com/second#B> a owl:Class .\n");
+
+        for (int i = 0; i < Math.min(graphStore.getMaxDatabases(), MAX_LOADS); i++) {
+            graphStore.createDatabase("DatabaseReuseTest_first", first);
+            graphStore.dropDatabase("DatabaseReuseTest_first");
+        }
+
+        StoreTemplate template = graphStore.createDatabase("DatabaseReuseTest_second", second);
+        try {
+            Map<String, String> namespaces = template.getNamespaces();
+            assertTrue(namespaces.containsKey("owl"));
+            assertFalse(namespaces.containsKey("first"));
+            assertNotEquals(FIRST, namespaces.get(""));
+        } finally {
+            graphStore.dropDatabase("DatabaseReuseTest_second");
+        }
+    }
+
+    private Path createOntology(final String fileName, final String content) throws IOException {
+        return Files.write(tempFolder.newFile(fileName).toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import graph.models.GraphJobModel;
+import graph.models.GraphJobModel.Status;
+import graph.models.GraphModel;
+import graph.models.GraphRequestModel;
+
+/**
+ * Tests that a graph job's cleanup is run once, in each of its final states.
+ *
+ */
+public class GraphJobManagerTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private final GraphJobManager jobManager = new GraphJobManager(1, 1, 600);
+    private final GraphRequestModel requestModel = new GraphRequestModel("test", "reasoningFalse", "test", 
+            "test file contents", "vowl", "class", false);
+
+    @After
+    public void tearDown() {
+        jobManager.destroy();
+    }
+
+    /**
+     * Tests that a job cancelled while it is queued (so that its task never runs) is cleaned up
+     * @throws Exception
+     *
+     */
+    @Test
+    public void testCancelWhileQueued() throws Exception {
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch runningCleanedUp = new CountDownLatch(1);
+        jobManager.submit(requestModel, progress -> {
+            started.countDown();
+            await(release);
+            return new GraphModel();
+        }, runningCleanedUp::countDown);
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        // The single job thread is busy, so this job stays queued
+        AtomicInteger tasksRun = new AtomicInteger();
+        AtomicInteger cleanups = new AtomicInteger();
+        GraphJobModel queued = jobManager.submit(requestModel, progress -> {
+            tasksRun.incrementAndGet();
+            return new GraphModel();
+        }, cleanups::incrementAndGet);
+        assertEquals(Status.QUEUED, queued.getStatus());
+
+        assertEquals(Status.CANCELLED, jobManager.cancel(queued.getJobId()).getStatus());
+        assertEquals(1, cleanups.get());
+
+        release.countDown();
+        assertTrue(runningCleanedUp.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        jobManager.cancel(queued.getJobId());
+        assertEquals(0, tasksRun.get());
+        assertEquals(1, cleanups.get());
+    }
+
+    /**
+     * Tests that a running job that is cancelled is cleaned up when its task stops
+     * @throws Exception
+     *
+     */
+    @Test
+    public void testCancelWhileRunning() throws Exception {
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        CountDownLatch cleanedUp = new CountDownLatch(1);
+        GraphJobModel job = jobManager.submit(requestModel, progress -> {
+            progress.accept(Status.LOADING);
+            started.countDown();
+            await(cancelled);
+            progress.accept(Status.QUERYING);
+            return new GraphModel();
+        }, cleanedUp::countDown);
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        assertEquals(Status.CANCELLED, jobManager.cancel(job.getJobId()).getStatus());
+        cancelled.countDown();
+        assertTrue(cleanedUp.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(Status.CANCELLED, jobManager.getStatus(job.getJobId()).getStatus());
+    }
+
+    /**
+     * Tests that completed and failed jobs are cleaned up
+     * @throws Exception
+     *
+     */
+    @Test
+    public void testCleanupWhenFinished() throws Exception {
+
+        CountDownLatch cleanedUp = new CountDownLatch(2);
+        GraphJobModel completed = jobManager.submit(requestModel, progress -> new GraphModel(), 
+                cleanedUp::countDown);
+        GraphJobModel failed = jobManager.submit(requestModel, progress -> {
+            throw new OntoGraphException("Test failure");
+        }, cleanedUp::countDown);
+        assertTrue(cleanedUp.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        assertEquals(Status.COMPLETED, jobManager.getStatus(completed.getJobId()).getStatus());
+        GraphJobModel failedStatus = jobManager.getStatus(failed.getJobId());
+        assertEquals(Status.FAILED, failedStatus.getStatus());
+        assertEquals("Test failure", failedStatus.getError());
+    }
+
+    /**
+     * Tests that a job that cannot be queued is cleaned up
+     * @throws Exception
+     *
+     */
+    @Test
+    public void testCleanupWhenRejected() throws Exception {
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        jobManager.submit(requestModel, progress -> {
+            started.countDown();
+            await(release);
+            return new GraphModel();
+        }, () -> { });
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        jobManager.submit(requestModel, progress -> new GraphModel(), () -> { });
+
+        AtomicInteger cleanups = new AtomicInteger();
+        try {
+            jobManager.submit(requestModel, progress -> new GraphModel(), cleanups::incrementAndGet);
+            fail("Expected the job to be rejected");
+        } catch (OntoGraphException e) {
+            assertEquals(1, cleanups.get());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    /**
+     * Waits (in a job's task) for a latch to be released
+     * @throws OntoGraphException if the wait times out or is interrupted
+     *
+     */
+    private static void await(CountDownLatch latch) throws OntoGraphException {
+
+        try {
+            if (!latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new OntoGraphException("Timed out waiting in the job");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OntoGraphException("Interrupted while waiting in the job");
+        }
+    }
+}
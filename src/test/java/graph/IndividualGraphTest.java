@@ -23,6 +23,7 @@ import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.junit.experimental.categories.Category;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameter;
@@ -180,6 +181,7 @@ public class IndividualGraphTest {
      * 
      */
     @Test
+    @Category(RequiresStardog.class)
     public void testTurtlePrimer() throws Exception {
         
         List<String> prefixes = Arrays.asList("f", "g", "owl", "owl2", "rdf", "rdfs", "xsd");
@@ -198,6 +200,7 @@ public class IndividualGraphTest {
      * @throws SAXException
      */
     @Test
+    @Category(RequiresStardog.class)
     public void testTurtlePrimerWithReasoning() throws Exception {
         
         List<String> prefixes = Arrays.asList("f", "g", "owl", "owl2", "rdf", "rdfs", "xsd");
@@ -0,0 +1,190 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import graph.stores.GraphStore;
+import graph.stores.OntologyCache;
+import graph.stores.StoreTemplate;
+
+/**
+ * Tests the eviction and expiry of cached ontologies, using a GraphStore that holds a limited number
+ * of databases (as the pool of Stardog databases does).
+ *
+ */
+public class OntologyCacheTest {
+
+    private static final Path FILE = Paths.get("ontology.ttl");
+
+    private final LimitedGraphStore store = new LimitedGraphStore(3);
+    private OntologyCache cache;
+
+    @After
+    public void tearDown() {
+        cache.shutdown();
+    }
+
+    /**
+     * Tests that an idle, cached ontology is evicted (and its database dropped) when a load would
+     * otherwise wait for a database
+     * @throws OntoGraphException
+     *
+     */
+    @Test
+    public void testIdleEntryEvictedForLoad() throws OntoGraphException {
+
+        cache = new OntologyCache(store, 2, Long.MAX_VALUE, 600);
+
+        cache.release(acquire("a"));
+        cache.release(acquire("b"));
+        assertEquals(2, store.databases.size());
+
+        // While c is loading (and holds the third database), d is loaded - so the least recently 
+        //   used idle entry (a) is dropped, rather than the load of d failing
+        List<StoreTemplate> nested = new ArrayList<>();
+        StoreTemplate templateC = cache.acquire("c", 1, databaseName -> {
+            StoreTemplate template = store.createDatabase(databaseName, FILE);
+            nested.add(acquire("d"));
+            assertEquals(3, store.databases.size());
+            return template;
+        });
+        assertEquals(1, nested.size());
+
+        // When c is cached, b is evicted since the cache holds at most 2 ontologies
+        assertEquals(2, store.databases.size());
+        assertEquals(2, cache.getStats().getEvictions());
+        assertSame(templateC, acquire("c"));
+        assertEquals(1, cache.getStats().getHits());
+    }
+
+    /**
+     * Tests that entries in use are not evicted, and that the load fails if no database is freed
+     * @throws OntoGraphException
+     *
+     */
+    @Test(expected = OntoGraphException.class)
+    public void testEntriesInUseNotEvicted() throws OntoGraphException {
+
+        cache = new OntologyCache(store, 2, Long.MAX_VALUE, 600);
+
+        acquire("a");
+        acquire("b");
+        acquire("c");
+        acquire("d");
+    }
+
+    /**
+     * Tests that an expired ontology is dropped without waiting for another request
+     * @throws Exception
+     *
+     */
+    @Test
+    public void testExpiredEntryDropped() throws Exception {
+
+        cache = new OntologyCache(store, 2, Long.MAX_VALUE, 1);
+
+        cache.release(acquire("a"));
+        assertEquals(1, store.databases.size());
+
+        long end = System.currentTimeMillis() + 10000;
+        while (!store.databases.isEmpty() && System.currentTimeMillis() < end) {
+            Thread.sleep(50);
+        }
+        assertTrue(store.databases.isEmpty());
+        assertEquals(0, cache.getStats().getEntries());
+    }
+
+    /**
+     * Tests that an expired ontology which is in use is only dropped when it is released
+     * @throws Exception
+     *
+     */
+    @Test
+    public void testExpiredEntryInUse() throws Exception {
+
+        cache = new OntologyCache(store, 2, Long.MAX_VALUE, 1);
+
+        StoreTemplate template = acquire("a");
+        Thread.sleep(1500);
+        assertEquals(0, cache.getStats().getEntries());
+        assertFalse(store.databases.isEmpty());
+
+        cache.release(template);
+        assertTrue(store.databases.isEmpty());
+    }
+
+    private StoreTemplate acquire(final String key) throws OntoGraphException {
+        return cache.acquire(key, 1, databaseName -> store.createDatabase(databaseName, FILE));
+    }
+
+    /**
+     * GraphStore which holds at most maxDatabases databases, and fails (rather than waiting) 
+     * when it is full.
+     *
+     */
+    private static class LimitedGraphStore implements GraphStore {
+
+        private final int maxDatabases;
+        private final Set<String> databases = new HashSet<>();
+
+        private LimitedGraphStore(final int maxDatabases) {
+            this.maxDatabases = maxDatabases;
+        }
+
+        @Override
+        public synchronized StoreTemplate createDatabase(final String databaseName, Path ontologyFile)
+                throws OntoGraphException {
+
+            if (databases.size() >= maxDatabases) {
+                throw new OntoGraphException("All databases are in use.");
+            }
+            databases.add(databaseName);
+            return Mockito.mock(StoreTemplate.class);
+        }
+
+        @Override
+        public synchronized void dropDatabase(final String databaseName) {
+            databases.remove(databaseName);
+        }
+
+        @Override
+        public synchronized boolean databaseExists(final String databaseName) {
+            return databases.contains(databaseName);
+        }
+
+        @Override
+        public int getMaxDatabases() {
+            return maxDatabases;
+        }
+    }
+}
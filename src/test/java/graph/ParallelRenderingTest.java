@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestContextManager;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import graph.graphmloutputs.FragmentRenderer;
+import graph.models.GraphRequestModel;
+
+/**
+ * Tests that rendering the class and individual fragments in parallel (with many small chunks) 
+ * creates exactly the same GraphML as rendering them sequentially, for each of the test ontologies,
+ * visualizations and collapse settings.
+ * 
+ */
+@RunWith(Parameterized.class)
+@ContextConfiguration("classpath:test-context.xml")
+@TestPropertySource("classpath:test.properties")
+@SpringBootTest()
+public class ParallelRenderingTest {
+    
+    private static final String FRAGMENT_RENDERER = "fragmentRenderer";
+    
+    @Autowired private GraphController controller;
+    private TestContextManager testContextManager;
+    private Object configuredRenderer;
+    private final FragmentRenderer sequentialRenderer = new FragmentRenderer(1, 256);
+    private final FragmentRenderer parallelRenderer = new FragmentRenderer(4, 1);
+    
+    @Parameters(name = "{0} {1}")
+    public static Object[][] params() {
+        return new Object[][] { { "class", "classTestFiles" }, { "property", "propertyTestFiles" }, 
+        	{ "both", "bothClassAndPropertyTestFiles" }, { "individual", "individualTestFiles" }, 
+        	{ "class", "rdfTestFiles" }, { "property", "rdfTestFiles" }, { "both", "rdfTestFiles" }, 
+        	{ "individual", "rdfTestFiles" } };
+    }
+    
+    @Parameter(0)
+    public String graphType;
+    
+    @Parameter(1)
+    public String directory;
+    
+    // Set up for Spring tests
+    @Before
+    public void setUp() throws Exception {
+         this.testContextManager = new TestContextManager(getClass());
+         this.testContextManager.prepareTestInstance(this);
+         configuredRenderer = ReflectionTestUtils.getField(controller, FRAGMENT_RENDERER);
+    }
+    
+    @After
+    public void tearDown() {
+        ReflectionTestUtils.setField(controller, FRAGMENT_RENDERER, configuredRenderer);
+        sequentialRenderer.shutdown();
+        parallelRenderer.shutdown();
+    }
+
+    /**
+     * Tests that each ontology in the directory is rendered identically by the sequential and
+     * parallel renderers. (Invalid combinations of the graph type, visualization and collapse 
+     * setting, and ontologies that cannot be loaded by the store, are skipped.)
+     * @throws Exception
+     * 
+     */
+    @Test
+    public void testParallelMatchesSequential() throws Exception {
+        
+        File[] files = new File("src/test/resources/" + directory).listFiles((dir, name) -> 
+        		!name.endsWith(".zip"));
+        Arrays.sort(files);
+        
+        int compared = 0;
+        for (File file : files) {
+            for (String vis : new String[] { "custom", "graffoo", "uml", "vowl" }) {
+                for (String collapse : new String[] { "collapseFalse", "collapseTrue" }) {
+                    GraphRequestModel requestModel = createGraphRequestModel(file, vis, collapse);
+                    String sequential;
+                    try {
+                        GraphRequestValidator.validateRequest(requestModel);
+                        sequential = createGraphML(requestModel, sequentialRenderer);
+                    } catch (IllegalArgumentException | OntoGraphException e) {  //NOSONAR - Invalid 
+                        // combination of settings, or the store cannot load the ontology
+                        continue;
+                    }
+                    assertEquals(file.getName() + " " + vis + " " + collapse, sequential, 
+                    		createGraphML(requestModel, parallelRenderer));
+                    compared++;
+                }
+            }
+        }
+        assertTrue(compared > 0);
+    }
+    
+    /**
+     * Creates the GraphML of a request using the specified renderer (removing the generated
+     * timestamp from the title).
+     * 
+     */
+    private String createGraphML(GraphRequestModel requestModel, FragmentRenderer renderer) 
+    		throws OntoGraphException {
+        
+        ReflectionTestUtils.setField(controller, FRAGMENT_RENDERER, renderer);
+        return controller.graph(requestModel).getGraphML().replaceAll("Generated:  [^<]*", "Generated: ");
+    }
+    
+    /**
+     * Sets up a graph request for the ontology file, visualization and collapse setting.
+     * @throws Exception
+     * 
+     */
+    private GraphRequestModel createGraphRequestModel(File file, final String visualization, 
+    		final String collapse) throws Exception {
+        
+        GraphRequestModel requestModel = new GraphRequestModel("Test Parallel Rendering", "reasoningFalse", 
+        		file.getName(), TestUtils.readFile(file.getPath()), visualization, graphType, false);
+        requestModel.setCollapseEdges(collapse);
+        
+        if ("custom".equals(visualization)) {
+            // CHANGEME - Custom definitions defaults
+            requestModel.setClassNodeShape("roundRectangle");
+            requestModel.setClassFillColor("#FFFF99");
+            requestModel.setClassTextColor("#000000");
+            requestModel.setClassBorderColor("#000000");
+            requestModel.setClassBorderType("solid");
+            requestModel.setIndividualNodeShape("smallCircle");
+            requestModel.setIndividualFillColor("#FF99CC");
+            requestModel.setIndividualTextColor("#000000");
+            requestModel.setIndividualBorderColor("#000000");
+            requestModel.setIndividualBorderType("solid");
+            requestModel.setObjNodeShape("roundRectangle");
+            requestModel.setObjFillColor("#FFFF99");
+            requestModel.setObjTextColor("#000000");
+            requestModel.setObjBorderColor("#000000");
+            requestModel.setObjBorderType("solid");
+            requestModel.setDataNodeShape("none");
+            requestModel.setDataFillColor("#FFFFFF");
+            requestModel.setDataTextColor("#000000");
+            requestModel.setDataBorderColor("#FFFFFF");
+            requestModel.setDataBorderType("solid");
+            requestModel.setSubclassOfSourceShape("none");
+            requestModel.setSubclassOfTargetShape("triangleEmpty");
+            requestModel.setSubclassOfLineColor("#000000");
+            requestModel.setSubclassOfLineType("solid");
+            requestModel.setTypeOfSourceShape("none");
+            requestModel.setTypeOfTargetShape("triangleEmpty");
+            requestModel.setTypeOfLineColor("#000000");
+            requestModel.setTypeOfLineType("solid");
+            requestModel.setDataPropSourceShape("none");
+            requestModel.setDataPropTargetShape("triangleSolid");
+            requestModel.setDataPropEdgeColor("#000000");
+            requestModel.setDataPropEdgeType("solid");
+            requestModel.setObjPropSourceShape("none");
+            requestModel.setObjPropTargetShape("triangleSolid");
+            requestModel.setObjPropEdgeColor("#000000");
+            requestModel.setObjPropEdgeType("solid");
+            requestModel.setAnnPropSourceShape("none");
+            requestModel.setAnnPropTargetShape("triangleSolid");
+            requestModel.setAnnPropEdgeColor("#000000");
+            requestModel.setAnnPropEdgeType("solid");
+            requestModel.setRdfPropSourceShape("none");
+            requestModel.setRdfPropTargetShape("triangleSolid");
+            requestModel.setRdfPropEdgeColor("#000000");
+            requestModel.setRdfPropEdgeType("solid");
+        } else if ("uml".equals(visualization)) {
+        	requestModel.setUmlNodeColor("#FFFFFF");
+        	requestModel.setUmlDataNodeColor("#FFFFFF");
+        }
+        
+        return requestModel;
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import graph.models.PrefixList;
+import graph.models.PrefixModel;
+
+/**
+ * Tests the lookup of prefixes and namespaces by a PrefixList, including when several namespaces
+ * match an IRI and after the list is changed.
+ *
+ */
+public class PrefixListTest {
+
+    private static final String EX = "http://example.com/";
+    private static final String EX_ONTOLOGY = "http://example.com/ontology/";
+    private static final String EX_ONTOLOGY_HASH = "http://example.com/ontology#";
+
+    /**
+     * Tests that only a namespace that begins the IRI matches (not one elsewhere in the IRI)
+     *
+     */
+    @Test
+    public void testNamespaceBeginsIRI() {
+
+        PrefixList prefixes = new PrefixList(Arrays.asList(prefix("ex", EX), 
+                prefix("other", "http://other.org/")));
+
+        assertEquals("ex", prefixes.findPrefixName(EX + "Thing"));
+        assertEquals("ex", prefixes.findPrefixName(EX));
+        assertNull(prefixes.findPrefixName("http://other.org"));
+        assertNull(prefixes.findPrefixName("urn:redirect:" + EX + "Thing"));
+        assertNull(prefixes.findPrefixName(""));
+    }
+
+    /**
+     * Tests that when several namespaces begin the IRI, the prefix that is first in the list is
+     * returned (whether its namespace is shorter or longer than the others)
+     *
+     */
+    @Test
+    public void testFirstInListWhenSeveralMatch() {
+
+        PrefixList prefixes = new PrefixList(Arrays.asList(prefix("ont", EX_ONTOLOGY), prefix("ex", EX), 
+                prefix("hash", EX_ONTOLOGY_HASH)));
+        assertEquals("ont", prefixes.findPrefixName(EX_ONTOLOGY + "Thing"));
+        assertEquals("ex", prefixes.findPrefixName(EX_ONTOLOGY_HASH + "Thing"));
+        assertEquals("ex", prefixes.findPrefixName(EX + "Thing"));
+
+        prefixes = new PrefixList(Arrays.asList(prefix("ex", EX), prefix("ont", EX_ONTOLOGY)));
+        assertEquals("ex", prefixes.findPrefixName(EX_ONTOLOGY + "Thing"));
+
+        // The same namespace with two prefixes
+        prefixes = new PrefixList(Arrays.asList(prefix("b", EX), prefix("a", EX)));
+        assertEquals("b", prefixes.findPrefixName(EX + "Thing"));
+        assertEquals(EX, prefixes.findUrl("a"));
+    }
+
+    /**
+     * Tests that the first namespace of a prefix name is returned
+     *
+     */
+    @Test
+    public void testFindUrl() {
+
+        PrefixList prefixes = new PrefixList(Arrays.asList(prefix("ex", EX), prefix("ex", EX_ONTOLOGY)));
+
+        assertEquals(EX, prefixes.findUrl("ex"));
+        assertNull(prefixes.findUrl("ont"));
+    }
+
+    /**
+     * Tests that the index is rebuilt after prefixes are added, replaced, removed or sorted
+     *
+     */
+    @Test
+    public void testIndexRebuiltAfterChanges() {
+
+        PrefixList prefixes = new PrefixList();
+        assertNull(prefixes.findPrefixName(EX_ONTOLOGY + "Thing"));
+
+        prefixes.add(prefix("ont", EX_ONTOLOGY));
+        assertEquals("ont", prefixes.findPrefixName(EX_ONTOLOGY + "Thing"));
+        assertNull(prefixes.findPrefixName(EX + "Thing"));
+
+        prefixes.add(0, prefix("ex", EX));
+        assertEquals("ex", prefixes.findPrefixName(EX_ONTOLOGY + "Thing"));
+        assertEquals(EX, prefixes.findUrl("ex"));
+
+        prefixes.sort(PrefixModel.prefixSort.reversed());
+        assertEquals("ont", prefixes.findPrefixName(EX_ONTOLOGY + "Thing"));
+
+        prefixes.set(0, prefix("hash", EX_ONTOLOGY_HASH));
+        assertEquals("ex", prefixes.findPrefixName(EX_ONTOLOGY + "Thing"));
+        assertEquals("hash", prefixes.findPrefixName(EX_ONTOLOGY_HASH + "Thing"));
+        assertNull(prefixes.findUrl("ont"));
+
+        prefixes.remove(1);
+        assertNull(prefixes.findPrefixName(EX_ONTOLOGY + "Thing"));
+        assertNull(prefixes.findUrl("ex"));
+
+        prefixes.addAll(Arrays.asList(prefix("ex", EX), prefix("ont", EX_ONTOLOGY)));
+        assertEquals("ex", prefixes.findPrefixName(EX_ONTOLOGY + "Thing"));
+    }
+
+    /**
+     * Tests that PrefixList.of returns the same list for a PrefixList, and a copy of another list
+     *
+     */
+    @Test
+    public void testOf() {
+
+        PrefixList prefixes = new PrefixList(Arrays.asList(prefix("ex", EX)));
+        assertSame(prefixes, PrefixList.of(prefixes));
+
+        List<PrefixModel> list = Arrays.asList(prefix("ex", EX));
+        assertEquals("ex", PrefixList.of(list).findPrefixName(EX + "Thing"));
+    }
+
+    private static PrefixModel prefix(final String prefixName, final String url) {
+        return PrefixModel.builder().prefixName(prefixName).url(url).build();
+    }
+}
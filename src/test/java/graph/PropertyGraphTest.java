@@ -23,6 +23,7 @@ import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.junit.experimental.categories.Category;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameter;
@@ -164,6 +165,7 @@ public class PropertyGraphTest {
      * 
 	 */
 	@Test
+	@Category(RequiresStardog.class)
 	public void testFOAFCollapsed() throws Exception {
 		
 		if (!"vowl".equals(vis)) {
@@ -0,0 +1,179 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Test;
+
+import graph.stores.QueryScheduler;
+
+/**
+ * Tests the parallel execution of batches of queries, including batches created within a query
+ * and the reporting of failures.
+ *
+ */
+public class QuerySchedulerTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private QueryScheduler scheduler;
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * Tests that batches created within the queries of a batch complete when every pool thread is 
+     * running one of those queries (so that none of the nested queries can use a pool thread)
+     * @throws Exception
+     *
+     */
+    @Test(timeout = 30000)
+    public void testNestedBatchWithAllPoolThreadsBusy() throws Exception {
+
+        final int threads = 2;
+        scheduler = new QueryScheduler(threads, threads + 1);
+
+        // Each outer query waits until all the outer queries are running (in this thread and in
+        //   every pool thread), and then runs a nested batch
+        CyclicBarrier allRunning = new CyclicBarrier(threads + 1);
+        QueryScheduler.Batch outer = scheduler.batch();
+        List<Supplier<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < threads + 1; i++) {
+            final int outerQuery = i;
+            results.add(outer.add(() -> {
+                allRunning.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                QueryScheduler.Batch nested = scheduler.batch();
+                List<Supplier<Integer>> nestedResults = new ArrayList<>();
+                for (int j = 0; j < 3; j++) {
+                    final int nestedQuery = j;
+                    nestedResults.add(nested.add(() -> outerQuery * 10 + nestedQuery));
+                }
+                nested.run();
+                int sum = 0;
+                for (Supplier<Integer> nestedResult : nestedResults) {
+                    sum += nestedResult.get();
+                }
+                return sum;
+            }));
+        }
+        outer.run();
+
+        for (int i = 0; i < threads + 1; i++) {
+            assertEquals(Integer.valueOf(i * 30 + 3), results.get(i).get());
+        }
+    }
+
+    /**
+     * Tests that the failure of the first failed query, in the order that the queries were added, is
+     * reported - even when a later query fails first
+     * @throws Exception
+     *
+     */
+    @Test(timeout = 30000)
+    public void testFirstFailureInAddOrderReported() throws Exception {
+
+        scheduler = new QueryScheduler(4, 4);
+        CountDownLatch laterFailed = new CountDownLatch(1);
+        QueryScheduler.Batch batch = scheduler.batch();
+        Supplier<String> succeeded = batch.add(() -> "ok");
+        Supplier<String> first = batch.add(() -> {
+            laterFailed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            throw new OntoGraphException("First failure");
+        });
+        batch.add(() -> {
+            try {
+                throw new OntoGraphException("Later failure");
+            } finally {
+                laterFailed.countDown();
+            }
+        });
+        batch.add(() -> {
+            throw new IllegalArgumentException("Runtime failure");
+        });
+
+        try {
+            batch.run();
+            fail("Expected the batch to fail");
+        } catch (OntoGraphException e) {
+            assertEquals("First failure", e.getMessage());
+        }
+        assertEquals("ok", succeeded.get());
+        try {
+            first.get();
+            fail("Expected the result of the failed query to be unavailable");
+        } catch (IllegalStateException e) {
+            assertEquals("First failure", e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Tests that a failure other than an OntoGraphException is reported as an OntoGraphException
+     * @throws Exception
+     *
+     */
+    @Test(timeout = 30000)
+    public void testRuntimeFailureReported() throws Exception {
+
+        scheduler = new QueryScheduler(2, 2);
+        QueryScheduler.Batch batch = scheduler.batch();
+        batch.add(() -> "ok");
+        batch.add(() -> {
+            throw new IllegalArgumentException("Runtime failure");
+        });
+
+        try {
+            batch.run();
+            fail("Expected the batch to fail");
+        } catch (OntoGraphException e) {
+            assertEquals("Error querying the database. Exception details: Runtime failure", e.getMessage());
+        }
+    }
+
+    /**
+     * Tests that with one query per request, all queries run in the requesting thread
+     * @throws Exception
+     *
+     */
+    @Test(timeout = 30000)
+    public void testSingleQueryPerRequest() throws Exception {
+
+        scheduler = new QueryScheduler(2, 1);
+        QueryScheduler.Batch batch = scheduler.batch();
+        List<Supplier<String>> threadNames = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            threadNames.add(batch.add(() -> Thread.currentThread().getName()));
+        }
+        batch.run();
+
+        for (Supplier<String> threadName : threadNames) {
+            assertEquals(Thread.currentThread().getName(), threadName.get());
+        }
+    }
+}
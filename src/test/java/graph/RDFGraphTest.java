@@ -23,6 +23,7 @@ import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.junit.experimental.categories.Category;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameter;
@@ -144,6 +145,7 @@ public class RDFGraphTest {
      * 
      */
     @Test
+    @Category(RequiresStardog.class)
     public void testDublinCorePropertiesCollapsed() throws Exception {
 
     	if (!"vowl".equals(vis)) {
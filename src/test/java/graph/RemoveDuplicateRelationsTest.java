@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import graph.models.TypeAndValueModel;
+
+/**
+ * Tests the removal of duplicate equivalencies, disjoints and oneOfs from a relation map 
+ * (GraphDBAccess.removeDupsFromRelationMap).
+ *
+ */
+public class RemoveDuplicateRelationsTest {
+
+    /**
+     * Tests that a relation defined in both directions is kept only for the first class
+     *
+     */
+    @Test
+    public void testSymmetricPairs() {
+
+        Map<String, List<TypeAndValueModel>> holdingMap = new LinkedHashMap<>();
+        holdingMap.put("ex:A", Arrays.asList(relation("dis", "ex:B"), relation("eq", "ex:C")));
+        holdingMap.put("ex:B", Arrays.asList(relation("dis", "ex:A"), relation("eq", "ex:D")));
+        holdingMap.put("ex:C", Arrays.asList(relation("eq", "ex:A")));
+
+        Map<String, List<TypeAndValueModel>> expected = new HashMap<>();
+        expected.put("ex:A", Arrays.asList(relation("dis", "ex:B"), relation("eq", "ex:C")));
+        expected.put("ex:B", Arrays.asList(relation("eq", "ex:D")));
+        assertEquals(expected, GraphDBAccess.removeDupsFromRelationMap(holdingMap));
+    }
+
+    /**
+     * Tests that the first occurrence of a relation (in the order of the map) is kept, and that 
+     * the order of the remaining relations of each class is unchanged
+     *
+     */
+    @Test
+    public void testFirstOccurrenceAndOrder() {
+
+        Map<String, List<TypeAndValueModel>> holdingMap = new LinkedHashMap<>();
+        holdingMap.put("ex:B", Arrays.asList(relation("eq", "ex:Z"), relation("dis", "ex:A"), 
+                relation("eq", "ex:C")));
+        holdingMap.put("ex:A", Arrays.asList(relation("one", "ex:Y"), relation("dis", "ex:B"), 
+                relation("one", "ex:X")));
+
+        Map<String, List<TypeAndValueModel>> expected = new HashMap<>();
+        expected.put("ex:B", Arrays.asList(relation("eq", "ex:Z"), relation("dis", "ex:A"), 
+                relation("eq", "ex:C")));
+        expected.put("ex:A", Arrays.asList(relation("one", "ex:Y"), relation("one", "ex:X")));
+        assertEquals(expected, GraphDBAccess.removeDupsFromRelationMap(holdingMap));
+    }
+
+    /**
+     * Tests that repeated relations are removed, but that the same classes with different relation 
+     * types are not duplicates
+     *
+     */
+    @Test
+    public void testRepeatedRelationsAndTypes() {
+
+        Map<String, List<TypeAndValueModel>> holdingMap = new LinkedHashMap<>();
+        holdingMap.put("ex:A", Arrays.asList(relation("eq", "ex:B"), relation("eq", "ex:B"), 
+                relation("eq", "ex:A"), relation("eq", "ex:A")));
+        holdingMap.put("ex:B", Arrays.asList(relation("dis", "ex:A")));
+
+        Map<String, List<TypeAndValueModel>> expected = new HashMap<>();
+        expected.put("ex:A", Arrays.asList(relation("eq", "ex:B"), relation("eq", "ex:A")));
+        expected.put("ex:B", Arrays.asList(relation("dis", "ex:A")));
+        assertEquals(expected, GraphDBAccess.removeDupsFromRelationMap(holdingMap));
+    }
+
+    private static TypeAndValueModel relation(final String type, final String value) {
+        return TypeAndValueModel.createTypeAndValueModel(type, value);
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests that concurrent requests with the same key share one computation (and its result or 
+ * failure), and that nothing is retained once the computation completes.
+ *
+ */
+public class RequestCoalescerTest {
+
+    private static final long TIMEOUT_MILLIS = 10000;
+    private static final int WAITERS = 4;
+
+    private final RequestCoalescer<String, String> coalescer = new RequestCoalescer<>();
+    private final AtomicInteger computations = new AtomicInteger();
+
+    /**
+     * Tests that requests arriving while a computation runs receive its result, without computing
+     * @throws Exception
+     *
+     */
+    @Test
+    public void testConcurrentCallersShareResult() throws Exception {
+
+        CountDownLatch release = new CountDownLatch(1);
+        Caller first = new Caller("key", () -> {
+            await(release);
+            return "result " + computations.incrementAndGet();
+        });
+        first.start();
+        waitUntilBlocked(first);
+
+        List<Caller> waiters = startWaiters("key");
+        release.countDown();
+
+        first.join(TIMEOUT_MILLIS);
+        assertEquals("result 1", first.result);
+        for (Caller waiter : waiters) {
+            waiter.join(TIMEOUT_MILLIS);
+            assertSame(first.result, waiter.result);
+        }
+        assertEquals(1, computations.get());
+    }
+
+    /**
+     * Tests that requests arriving while a computation runs receive the exception of the failed
+     * computation
+     * @throws Exception
+     *
+     */
+    @Test
+    public void testConcurrentCallersShareException() throws Exception {
+
+        CountDownLatch release = new CountDownLatch(1);
+        OntoGraphException failure = new OntoGraphException("Test failure");
+        Caller first = new Caller("key", () -> {
+            await(release);
+            computations.incrementAndGet();
+            throw failure;
+        });
+        first.start();
+        waitUntilBlocked(first);
+
+        List<Caller> waiters = startWaiters("key");
+        release.countDown();
+
+        first.join(TIMEOUT_MILLIS);
+        assertSame(failure, first.exception);
+        for (Caller waiter : waiters) {
+            waiter.join(TIMEOUT_MILLIS);
+            assertSame(failure, waiter.exception);
+        }
+        assertEquals(1, computations.get());
+    }
+
+    /**
+     * Tests that a request after the computation completed (or failed) computes the result again,
+     * and that requests with different keys are not shared
+     * @throws Exception
+     *
+     */
+    @Test
+    public void testLaterCallComputesAgain() throws Exception {
+
+        assertEquals("result 1", coalescer.execute("key", () -> "result " + computations.incrementAndGet()));
+        assertEquals("result 2", coalescer.execute("key", () -> "result " + computations.incrementAndGet()));
+
+        try {
+            coalescer.execute("key", () -> {
+                computations.incrementAndGet();
+                throw new OntoGraphException("Test failure");
+            });
+            fail("Expected the computation to fail");
+        } catch (OntoGraphException e) {
+            assertEquals("Test failure", e.getMessage());
+        }
+        assertEquals("result 4", coalescer.execute("key", () -> "result " + computations.incrementAndGet()));
+
+        // A request with another key, while a computation is in flight
+        assertEquals("other", coalescer.execute("key", () -> coalescer.execute("other key", () -> "other")));
+    }
+
+    /**
+     * Starts the requests that wait for the in-flight computation of the key (their own computation
+     * counts as a failure), and waits until each is blocked.
+     *
+     */
+    private List<Caller> startWaiters(final String key) throws InterruptedException {
+
+        List<Caller> waiters = new ArrayList<>();
+        for (int i = 0; i < WAITERS; i++) {
+            Caller waiter = new Caller(key, () -> "computed by waiter " + computations.incrementAndGet());
+            waiter.start();
+            waitUntilBlocked(waiter);
+            waiters.add(waiter);
+        }
+        return waiters;
+    }
+
+    /**
+     * Waits until the thread is blocked (waiting on the latch or for the in-flight computation).
+     *
+     */
+    private static void waitUntilBlocked(Thread thread) throws InterruptedException {
+
+        long end = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (thread.getState() != Thread.State.WAITING 
+                && thread.getState() != Thread.State.TIMED_WAITING) {
+            assertTrue("The thread did not block", thread.isAlive() && System.currentTimeMillis() < end);
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) throws OntoGraphException {
+
+        try {
+            if (!latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                throw new OntoGraphException("Timed out waiting in the computation");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OntoGraphException("Interrupted while waiting in the computation");
+        }
+    }
+
+    /**
+     * Caller is a thread that executes a request, and records its result or exception.
+     *
+     */
+    private class Caller extends Thread {
+
+        private final String key;
+        private final RequestCoalescer.Computation<String> computation;
+        private volatile String result;
+        private volatile Exception exception;
+
+        Caller(final String key, RequestCoalescer.Computation<String> computation) {
+            this.key = key;
+            this.computation = computation;
+        }
+
+        @Override
+        public void run() {
+            try {
+                result = coalescer.execute(key, computation);
+            } catch (OntoGraphException | RuntimeException e) {
+                exception = e;
+            }
+        }
+    }
+}
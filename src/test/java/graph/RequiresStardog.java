@@ -0,0 +1,28 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph;
+
+/**
+ * JUnit category of the tests whose expected output depends on Stardog (its OWL reasoning, or the 
+ * order of its query results in collapsed edge labels), which is not reproduced by the embedded, 
+ * in-memory store. 
+ * These tests are excluded when running the tests with the memory store ("gradlew memoryTest").
+ * 
+ */
+public interface RequiresStardog {
+}
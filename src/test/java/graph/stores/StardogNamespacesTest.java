@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) Nine Points Solutions, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package graph.stores;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.openrdf.model.Namespace;
+
+import com.complexible.stardog.api.Connection;
+
+/**
+ * Tests that the namespaces of a pooled Stardog database are restored when it is cleared 
+ * (StardogGraphStore.restoreNamespaces), using a mock Connection.
+ *
+ */
+public class StardogNamespacesTest {
+
+    private static final String STARDOG = "http://api.stardog.com/";
+    private static final String OWL = "http://www.w3.org/2002/07/owl#";
+    private static final String FIRST = "http://example.com/first#";
+
+    private final Map<String, String> defaultNamespaces = new HashMap<>();
+    private final List<Namespace> namespaces = new ArrayList<>();
+    private Connection connection;
+
+    @Before
+    public void setUp() {
+
+        defaultNamespaces.put("", STARDOG);
+        defaultNamespaces.put("owl", OWL);
+        connection = Mockito.mock(Connection.class, Mockito.RETURNS_DEEP_STUBS);
+        when(connection.namespaces().iterator()).thenAnswer(invocation -> namespaces.iterator());
+    }
+
+    /**
+     * Tests that a redefined default prefix (such as ":") is restored, and that the prefixes 
+     * added by a load are removed
+     *
+     */
+    @Test
+    public void testRedefinedDefaultRestored() {
+
+        namespaces.add(namespace("", FIRST));
+        namespaces.add(namespace("owl", OWL));
+        namespaces.add(namespace("first", FIRST));
+
+        StardogGraphStore.restoreNamespaces(connection, defaultNamespaces);
+
+        verify(connection.namespaces()).add("", STARDOG);
+        verify(connection.namespaces()).remove("first");
+        verify(connection.namespaces(), never()).add("owl", OWL);
+        verify(connection.namespaces(), never()).remove("");
+        verify(connection.namespaces(), never()).remove("owl");
+    }
+
+    /**
+     * Tests that a removed default prefix is added again, and that unchanged defaults are kept
+     *
+     */
+    @Test
+    public void testRemovedDefaultRestored() {
+
+        namespaces.add(namespace("", STARDOG));
+
+        StardogGraphStore.restoreNamespaces(connection, defaultNamespaces);
+
+        verify(connection.namespaces()).add("owl", OWL);
+        verify(connection.namespaces(), never()).add("", STARDOG);
+        verify(connection.namespaces(), never()).remove(Mockito.anyString());
+    }
+
+    private static Namespace namespace(final String prefix, final String name) {
+
+        Namespace namespace = Mockito.mock(Namespace.class);
+        when(namespace.getPrefix()).thenReturn(prefix);
+        when(namespace.getName()).thenReturn(name);
+        return namespace;
+    }
+}